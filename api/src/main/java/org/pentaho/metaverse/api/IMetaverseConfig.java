@@ -24,6 +24,20 @@ public interface IMetaverseConfig {
   String KETTLE_LINEAGE_GENERATE_SUBGRAPHS = "KETTLE_LINEAGE_GENERATE_SUBGRAPHS";
   String KETTLE_LINEAGE_CONSOLIDATE_SUBGRAPHS = "KETTLE_LINEAGE_CONSOLIDATE_SUBGRAPHS";
   String KETTLE_LINEAGE_EXTERNAL_RESOURCE_CACHE_EXPIRE_TIME = "KETTLE_LINEAGE_EXTERNAL_RESOURCE_CACHE_EXPIRE_TIME";
+  String KETTLE_LINEAGE_NORMALIZED_PATH_CACHE_SIZE = "KETTLE_LINEAGE_NORMALIZED_PATH_CACHE_SIZE";
+  String KETTLE_LINEAGE_SUB_META_CACHE_SIZE = "KETTLE_LINEAGE_SUB_META_CACHE_SIZE";
+  String KETTLE_LINEAGE_EXECUTOR_CORE_POOL_SIZE = "KETTLE_LINEAGE_EXECUTOR_CORE_POOL_SIZE";
+  String KETTLE_LINEAGE_EXECUTOR_MAX_POOL_SIZE = "KETTLE_LINEAGE_EXECUTOR_MAX_POOL_SIZE";
+  String KETTLE_LINEAGE_EXECUTOR_QUEUE_SIZE = "KETTLE_LINEAGE_EXECUTOR_QUEUE_SIZE";
+  String KETTLE_LINEAGE_EXECUTOR_REJECTION_POLICY = "KETTLE_LINEAGE_EXECUTOR_REJECTION_POLICY";
+  String KETTLE_LINEAGE_WRITER_POOL_SIZE = "KETTLE_LINEAGE_WRITER_POOL_SIZE";
+  String KETTLE_LINEAGE_WRITER_QUEUE_SIZE = "KETTLE_LINEAGE_WRITER_QUEUE_SIZE";
+  String KETTLE_LINEAGE_DEBOUNCE_WINDOW = "KETTLE_LINEAGE_DEBOUNCE_WINDOW";
+  String KETTLE_LINEAGE_EXECUTION_OUTPUT_COMPRESSION = "KETTLE_LINEAGE_EXECUTION_OUTPUT_COMPRESSION";
+  String KETTLE_LINEAGE_STEP_ANALYSIS_POOL_SIZE = "KETTLE_LINEAGE_STEP_ANALYSIS_POOL_SIZE";
+  String KETTLE_LINEAGE_JOB_ENTRY_ANALYSIS_POOL_SIZE = "KETTLE_LINEAGE_JOB_ENTRY_ANALYSIS_POOL_SIZE";
+  String KETTLE_LINEAGE_GRAPHML_DETERMINISTIC_ORDER = "KETTLE_LINEAGE_GRAPHML_DETERMINISTIC_ORDER";
+  String KETTLE_LINEAGE_PREPARE_METAVERSE_TIMEOUT = "KETTLE_LINEAGE_PREPARE_METAVERSE_TIMEOUT";
 
 
   void setExecutionRuntime( final String executionRuntime );
@@ -53,4 +67,60 @@ public interface IMetaverseConfig {
   void setExternalResourceCacheExpireTime( final String cacheExpire );
 
   String getExternalResourceCacheExpireTime();
+
+  void setNormalizedPathCacheSize( final String cacheSize );
+
+  String getNormalizedPathCacheSize();
+
+  void setSubMetaCacheSize( final String cacheSize );
+
+  String getSubMetaCacheSize();
+
+  void setExecutorCorePoolSize( final String corePoolSize );
+
+  String getExecutorCorePoolSize();
+
+  void setExecutorMaxPoolSize( final String maxPoolSize );
+
+  String getExecutorMaxPoolSize();
+
+  void setExecutorQueueSize( final String queueSize );
+
+  String getExecutorQueueSize();
+
+  void setExecutorRejectionPolicy( final String rejectionPolicy );
+
+  String getExecutorRejectionPolicy();
+
+  void setLineageWriterPoolSize( final String poolSize );
+
+  String getLineageWriterPoolSize();
+
+  void setLineageWriterQueueSize( final String queueSize );
+
+  String getLineageWriterQueueSize();
+
+  void setDebounceWindow( final String debounceWindow );
+
+  String getDebounceWindow();
+
+  void setExecutionOutputCompression( final String executionOutputCompression );
+
+  String getExecutionOutputCompression();
+
+  void setStepAnalysisPoolSize( final String poolSize );
+
+  String getStepAnalysisPoolSize();
+
+  void setJobEntryAnalysisPoolSize( final String poolSize );
+
+  String getJobEntryAnalysisPoolSize();
+
+  void setGraphMLDeterministicOrder( final boolean deterministicOrder );
+
+  boolean getGraphMLDeterministicOrder();
+
+  void setPrepareMetaverseTimeout( final String timeout );
+
+  String getPrepareMetaverseTimeout();
 }
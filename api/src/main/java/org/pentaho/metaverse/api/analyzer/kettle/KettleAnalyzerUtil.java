@@ -27,10 +27,13 @@ import org.pentaho.di.core.exception.KettleXMLException;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.util.FileUtil;
 import org.pentaho.di.core.util.Utils;
+import org.pentaho.di.core.variables.VariableSpace;
 import org.pentaho.di.core.vfs.KettleVFS;
 import org.pentaho.di.job.JobMeta;
+import org.pentaho.di.repository.ObjectId;
 import org.pentaho.di.repository.Repository;
 import org.pentaho.di.repository.RepositoryDirectoryInterface;
+import org.pentaho.di.repository.RepositoryObjectType;
 import org.pentaho.di.trans.ISubTransAwareMeta;
 import org.pentaho.di.trans.TransMeta;
 import org.pentaho.di.trans.step.BaseStepMeta;
@@ -58,6 +61,7 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.net.URLConnection;
 import java.util.Collection;
 import java.util.List;
@@ -68,6 +72,10 @@ public class KettleAnalyzerUtil {
 
   private static final ExternalResourceCache rowResourceCache = ExternalResourceCache.getInstance();
 
+  private static final NormalizedPathCache normalizedPathCache = NormalizedPathCache.getInstance();
+
+  private static final SubMetaCache subMetaCache = SubMetaCache.getInstance();
+
   /**
    * Utility method for normalizing file paths used in Metaverse Id generation. It will convert a valid path into a
    * consistent path regardless of URI notation or filesystem absolute path.
@@ -84,12 +92,17 @@ public class KettleAnalyzerUtil {
 
   /**
    * Utility method for normalizing file paths used in Metaverse Id generation. It will convert a valid path into a
-   * consistent path regardless of URI notation or filesystem absolute path.
+   * consistent path regardless of URI notation or filesystem absolute path. Results are memoized in the
+   * {@link NormalizedPathCache}.
    *
    * @param filePath full path to normalize
    * @return the normalized path
    */
   public static String normalizeFilePath( Bowl bowl, String filePath ) throws MetaverseException {
+    final String cachedPath = normalizedPathCache.get( bowl, filePath );
+    if ( cachedPath != null ) {
+      return cachedPath;
+    }
     try {
       String path = filePath;
       FileObject fo = KettleVFS.getInstance( bowl ) .getFileObject( filePath );
@@ -99,7 +112,9 @@ public class KettleAnalyzerUtil {
         // Something went wrong with VFS, just try the filePath
       }
       File f = new File( path );
-      return f.getAbsolutePath();
+      final String normalizedPath = f.getAbsolutePath();
+      normalizedPathCache.cache( bowl, filePath, normalizedPath );
+      return normalizedPath;
     } catch ( Exception e ) {
       throw new MetaverseException( e );
     }
@@ -250,7 +265,7 @@ public class KettleAnalyzerUtil {
       case REPOSITORY_BY_REFERENCE:
         if ( repo != null ) {
           try {
-            subTransMeta = repo.loadTransformation( meta.getTransObjectId(), null );
+            subTransMeta = loadTransformation( repo, meta.getTransObjectId() );
           } catch ( KettleException e ) {
             throw new MetaverseAnalyzerException( Messages.getString( "ERROR.SubTransNotFoundInParentTrans",
               ( meta.getTransObjectId() == null ? "N/A" : meta.getTransObjectId().toString() ), parentTransMeta
@@ -293,7 +308,7 @@ public class KettleAnalyzerUtil {
     TransMeta subTransMeta;
     try {
       RepositoryDirectoryInterface rdi = repo.findDirectory( dir );
-      subTransMeta = repo.loadTransformation( file, rdi, null, true, null );
+      subTransMeta = loadTransformation( repo, rdi, file );
     } catch ( KettleException e ) {
       throw new MetaverseAnalyzerException( Messages.getString( "ERROR.SubTransNotFoundInParentTrans",
         file, parentTransMeta.toString() ), e );
@@ -346,10 +361,175 @@ public class KettleAnalyzerUtil {
     return transPath;
   }
 
+  /**
+   * Loads the {@link TransMeta} stored in the given local file, parsing it only if it is not already in the
+   * {@link SubMetaCache} or if the file has been modified since it was cached. A cached transformation gets its
+   * variables initialized again, as loading it does.
+   */
   public static TransMeta getSubTransMeta( final String filePath ) throws FileNotFoundException, KettleXMLException,
     KettleMissingPluginsException {
-    FileInputStream fis = new FileInputStream( filePath );
-    return new TransMeta( fis, null, true, null, null );
+    final String key = SubMetaCache.getFileKey( filePath );
+    final long stamp = SubMetaCache.getFileStamp( filePath );
+    TransMeta subTransMeta = subMetaCache.getTransMeta( key, stamp );
+    if ( subTransMeta == null ) {
+      try ( FileInputStream fis = new FileInputStream( filePath ) ) {
+        subTransMeta = new TransMeta( fis, null, true, null, null );
+      } catch ( final FileNotFoundException e ) {
+        throw e;
+      } catch ( final IOException e ) {
+        throw new KettleXMLException( e );
+      }
+      subMetaCache.cache( key, stamp, subTransMeta );
+    } else {
+      initializeVariables( subTransMeta );
+    }
+    return subTransMeta;
+  }
+
+  /**
+   * Loads the {@link JobMeta} stored in the given local file, parsing it only if it is not already in the
+   * {@link SubMetaCache} or if the file has been modified since it was cached. A cached job gets its variables
+   * initialized again, as loading it does.
+   */
+  public static JobMeta getSubJobMeta( final String filePath ) throws FileNotFoundException, KettleXMLException,
+    KettleMissingPluginsException {
+    final String key = SubMetaCache.getFileKey( filePath );
+    final long stamp = SubMetaCache.getFileStamp( filePath );
+    JobMeta subJobMeta = subMetaCache.getJobMeta( key, stamp );
+    if ( subJobMeta == null ) {
+      try ( FileInputStream fis = new FileInputStream( filePath ) ) {
+        subJobMeta = new JobMeta( fis, null, null );
+      } catch ( final FileNotFoundException e ) {
+        throw e;
+      } catch ( final IOException e ) {
+        throw new KettleXMLException( e );
+      }
+      subMetaCache.cache( key, stamp, subJobMeta );
+    } else {
+      initializeVariables( subJobMeta );
+    }
+    return subJobMeta;
+  }
+
+  /**
+   * Loads the {@link JobMeta} stored in the given (possibly VFS) file, parsing it only if it is not already in the
+   * {@link SubMetaCache} or if the file has been modified since it was cached. The cached job was initialized from the
+   * variables of whoever loaded it first, so a cached job gets its variables initialized again from the given
+   * variable space.
+   */
+  public static JobMeta getSubJobMeta( final Bowl bowl, final VariableSpace variableSpace, final String filePath )
+    throws KettleXMLException, KettleMissingPluginsException {
+    final String key = SubMetaCache.getFileKey( bowl, filePath );
+    final long stamp = SubMetaCache.getFileStamp( bowl, filePath );
+    JobMeta subJobMeta = subMetaCache.getJobMeta( key, stamp );
+    if ( subJobMeta == null ) {
+      subJobMeta = new JobMeta( bowl, variableSpace, filePath, null, null, null );
+      subMetaCache.cache( key, stamp, subJobMeta );
+    } else {
+      subJobMeta.initializeVariablesFrom( variableSpace );
+      subJobMeta.setInternalKettleVariables();
+    }
+    return subJobMeta;
+  }
+
+  /**
+   * Loads the latest revision of a transformation by name from the repository, through the {@link SubMetaCache}.
+   */
+  public static TransMeta loadTransformation( final Repository repo, final RepositoryDirectoryInterface dir,
+                                              final String name ) throws KettleException {
+    ObjectId objectId = null;
+    try {
+      objectId = dir == null ? null : repo.getTransformationID( name, dir );
+    } catch ( final KettleException e ) {
+      // not cacheable, let the load below report the problem
+      log.debug( e.getMessage() );
+    }
+    final String key = SubMetaCache.getRepositoryKey( repo, objectId );
+    final long stamp = SubMetaCache.getRepositoryStamp( repo, objectId, RepositoryObjectType.TRANSFORMATION );
+    TransMeta transMeta = subMetaCache.getTransMeta( key, stamp );
+    if ( transMeta == null ) {
+      transMeta = repo.loadTransformation( name, dir, null, true, null );
+      subMetaCache.cache( key, stamp, transMeta );
+    } else {
+      initializeVariables( transMeta );
+    }
+    return transMeta;
+  }
+
+  /**
+   * Loads the latest revision of a transformation by reference from the repository, through the
+   * {@link SubMetaCache}.
+   */
+  public static TransMeta loadTransformation( final Repository repo, final ObjectId objectId )
+    throws KettleException {
+    final String key = SubMetaCache.getRepositoryKey( repo, objectId );
+    final long stamp = SubMetaCache.getRepositoryStamp( repo, objectId, RepositoryObjectType.TRANSFORMATION );
+    TransMeta transMeta = subMetaCache.getTransMeta( key, stamp );
+    if ( transMeta == null ) {
+      transMeta = repo.loadTransformation( objectId, null );
+      subMetaCache.cache( key, stamp, transMeta );
+    } else {
+      initializeVariables( transMeta );
+    }
+    return transMeta;
+  }
+
+  /**
+   * Loads the latest revision of a job by name from the repository, through the {@link SubMetaCache}.
+   */
+  public static JobMeta loadJob( final Repository repo, final RepositoryDirectoryInterface dir, final String name )
+    throws KettleException {
+    ObjectId objectId = null;
+    try {
+      objectId = dir == null ? null : repo.getJobId( name, dir );
+    } catch ( final KettleException e ) {
+      // not cacheable, let the load below report the problem
+      log.debug( e.getMessage() );
+    }
+    final String key = SubMetaCache.getRepositoryKey( repo, objectId );
+    final long stamp = SubMetaCache.getRepositoryStamp( repo, objectId, RepositoryObjectType.JOB );
+    JobMeta jobMeta = subMetaCache.getJobMeta( key, stamp );
+    if ( jobMeta == null ) {
+      jobMeta = repo.loadJob( name, dir, null, null );
+      subMetaCache.cache( key, stamp, jobMeta );
+    } else {
+      initializeVariables( jobMeta );
+    }
+    return jobMeta;
+  }
+
+  /**
+   * Loads the latest revision of a job by reference from the repository, through the {@link SubMetaCache}.
+   */
+  public static JobMeta loadJob( final Repository repo, final ObjectId objectId ) throws KettleException {
+    final String key = SubMetaCache.getRepositoryKey( repo, objectId );
+    final long stamp = SubMetaCache.getRepositoryStamp( repo, objectId, RepositoryObjectType.JOB );
+    JobMeta jobMeta = subMetaCache.getJobMeta( key, stamp );
+    if ( jobMeta == null ) {
+      jobMeta = repo.loadJob( objectId, null );
+      subMetaCache.cache( key, stamp, jobMeta );
+    } else {
+      initializeVariables( jobMeta );
+    }
+    return jobMeta;
+  }
+
+  /**
+   * The variables of a cached transformation are the ones of whoever loaded it first, initializes them again from the
+   * system properties, as loading it without a parent variable space does.
+   */
+  private static void initializeVariables( final TransMeta transMeta ) {
+    transMeta.initializeVariablesFrom( null );
+    transMeta.setInternalKettleVariables();
+  }
+
+  /**
+   * The variables of a cached job are the ones of whoever loaded it first, initializes them again from the system
+   * properties, as loading it without a parent variable space does.
+   */
+  private static void initializeVariables( final JobMeta jobMeta ) {
+    jobMeta.initializeVariablesFrom( null );
+    jobMeta.setInternalKettleVariables();
   }
 
   /**
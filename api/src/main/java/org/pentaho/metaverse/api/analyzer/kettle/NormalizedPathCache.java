@@ -0,0 +1,145 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.api.analyzer.kettle;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.pentaho.di.core.bowl.Bowl;
+import org.pentaho.metaverse.api.IMetaverseConfig;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+
+/**
+ * A bounded memo of raw file path to normalized file path, as computed by
+ * {@link KettleAnalyzerUtil#normalizeFilePath(Bowl, String)}. Normalization requires VFS resolution, and the same
+ * handful of paths gets normalized over and over (for every step candidate, cache key and row), so the results are
+ * kept per {@link Bowl} and raw path.
+ */
+public class NormalizedPathCache {
+
+  private static final Logger log = LoggerFactory.getLogger( NormalizedPathCache.class );
+
+  protected static final long DEFAULT_MAX_SIZE = 10000L;
+
+  protected Cache<PathKey, String> pathCache;
+
+  private static NormalizedPathCache INSTANCE;
+
+  public static NormalizedPathCache getInstance() {
+    if ( INSTANCE == null ) {
+      synchronized ( NormalizedPathCache.class ) {
+        if ( INSTANCE == null ) {
+          INSTANCE = new NormalizedPathCache();
+        }
+      }
+    }
+    return INSTANCE;
+  }
+
+  private NormalizedPathCache() {
+    this( PentahoSystem.get( IMetaverseConfig.class ) );
+  }
+
+  protected NormalizedPathCache( IMetaverseConfig config ) {
+    initCache( getCacheMaxSize( config ) );
+  }
+
+  protected long getCacheMaxSize( IMetaverseConfig config ) {
+    String maxSize = ( config != null ) ? config.getNormalizedPathCacheSize() : null;
+    return ( maxSize != null ) ? Long.parseLong( maxSize ) : DEFAULT_MAX_SIZE;
+  }
+
+  void initCache( long maxSize ) {
+    pathCache = CacheBuilder.newBuilder().maximumSize( maxSize ).recordStats().build();
+    log.debug( "{} cache max size set to {}", this.getClass().getSimpleName(), maxSize );
+  }
+
+  /**
+   * Returns the normalized path previously cached for the given raw path, or null if there is none.
+   */
+  public String get( final Bowl bowl, final String filePath ) {
+    if ( filePath == null ) {
+      return null;
+    }
+    return pathCache.getIfPresent( new PathKey( bowl, filePath ) );
+  }
+
+  public void cache( final Bowl bowl, final String filePath, final String normalizedPath ) {
+    if ( filePath != null && normalizedPath != null ) {
+      pathCache.put( new PathKey( bowl, filePath ), normalizedPath );
+    }
+  }
+
+  public void invalidateAll() {
+    pathCache.invalidateAll();
+  }
+
+  public long size() {
+    return pathCache.size();
+  }
+
+  public long getHitCount() {
+    return pathCache.stats().hitCount();
+  }
+
+  public long getMissCount() {
+    return pathCache.stats().missCount();
+  }
+
+  /**
+   * Returns the ratio of lookups that were served from the cache, or 1.0 when no lookup has been made yet.
+   */
+  public double getHitRate() {
+    return pathCache.stats().hitRate();
+  }
+
+  @Override
+  public String toString() {
+    return this.getClass().getSimpleName() + " [size=" + size() + ", hits=" + getHitCount() + ", misses="
+      + getMissCount() + "]";
+  }
+
+  /**
+   * Cache key, the same raw path may normalize differently depending on the {@link Bowl} it is resolved against.
+   */
+  protected static class PathKey {
+    private final Bowl bowl;
+    private final String filePath;
+
+    PathKey( final Bowl bowl, final String filePath ) {
+      this.bowl = bowl;
+      this.filePath = filePath;
+    }
+
+    @Override
+    public boolean equals( final Object obj ) {
+      if ( this == obj ) {
+        return true;
+      }
+      if ( !( obj instanceof PathKey ) ) {
+        return false;
+      }
+      final PathKey other = (PathKey) obj;
+      return Objects.equals( bowl, other.bowl ) && filePath.equals( other.filePath );
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash( bowl, filePath );
+    }
+  }
+}
@@ -0,0 +1,269 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.api.analyzer.kettle;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.pentaho.di.core.ProgressMonitorListener;
+import org.pentaho.di.core.ProgressNullMonitorListener;
+import org.pentaho.di.core.exception.KettleStepException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.StepMeta;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the row layouts of the steps of a transformation for the duration of its analysis, so that the step
+ * analyzers and serializers resolving the input and output fields of every step don't recompute them.
+ * <p/>
+ * {@link TransMeta#getPrevStepFields(StepMeta, ProgressMonitorListener)} clears the step fields cache of the
+ * transformation before resolving the fields of the previous steps recursively, which makes resolving the input fields
+ * of every step of a long transformation quadratic in the number of steps. The memo instead resolves them from the
+ * fields each previous step sends to the step, the same way the transformation does, without clearing its cache, so
+ * that each step layout is computed once, upstream first.
+ * <p/>
+ * A memo is opened by the analysis of a transformation and shared, through {@link #get(TransMeta)}, by everything that
+ * runs until the analysis closes it. Memos are keyed on the {@link TransMeta} instance, and each analysis opens a memo
+ * of its own: opening a memo discards the one a previous analysis of the same transformation left open, so that an
+ * analysis never reads the layouts of the transformation as it was before it last changed. Callers get copies of the
+ * remembered layouts.
+ * <p/>
+ * A memo may be shared by several threads. Resolving a layout that isn't remembered yet goes back to the
+ * transformation, which isn't thread-safe, so that is done while holding the lock of the transformation. Analyses
+ * running steps on several threads {@link #resolve(StepMeta) resolve} the layouts of every step beforehand, the
+ * threads then only read them.
+ */
+public class RowMetaMemo {
+
+  private static final Cache<TransMeta, RowMetaMemo> memos = CacheBuilder.newBuilder().weakKeys().build();
+
+  private static final String TARGET_SEPARATOR = "->";
+
+  private final TransMeta transMeta;
+
+  private final Map<String, RowMetaInterface> stepFields = new ConcurrentHashMap<>();
+
+  private final Map<String, RowMetaInterface> prevStepFields = new ConcurrentHashMap<>();
+
+  private final Map<String, String[]> prevStepNames = new ConcurrentHashMap<>();
+
+  protected RowMetaMemo( final TransMeta transMeta ) {
+    this.transMeta = transMeta;
+  }
+
+  /**
+   * Opens a new memo of the given transformation, in place of the one already open, if any. Every call must be
+   * matched by a call to {@link #close(RowMetaMemo)}.
+   *
+   * @param transMeta the transformation being analyzed
+   * @return the memo, or null if there is no transformation
+   */
+  public static RowMetaMemo open( final TransMeta transMeta ) {
+    if ( transMeta == null ) {
+      return null;
+    }
+    final RowMetaMemo memo = new RowMetaMemo( transMeta );
+    synchronized ( transMeta ) {
+      // don't start from layouts cached before the transformation last changed
+      transMeta.clearCaches();
+    }
+    synchronized ( RowMetaMemo.class ) {
+      memos.put( transMeta, memo );
+    }
+    return memo;
+  }
+
+  /**
+   * Closes the given memo, unless a later analysis of its transformation already opened another one.
+   *
+   * @param memo the memo opened by the analysis, may be null
+   */
+  public static void close( final RowMetaMemo memo ) {
+    if ( memo == null ) {
+      return;
+    }
+    synchronized ( RowMetaMemo.class ) {
+      if ( memos.getIfPresent( memo.transMeta ) == memo ) {
+        memos.invalidate( memo.transMeta );
+      }
+    }
+  }
+
+  /**
+   * @param transMeta the transformation
+   * @return the open memo of the given transformation, or null if it isn't being analyzed
+   */
+  public static RowMetaMemo get( final TransMeta transMeta ) {
+    return transMeta == null ? null : memos.getIfPresent( transMeta );
+  }
+
+  /**
+   * Resolves and remembers the input and output layouts of a step, as well as the layouts of the rows each previous
+   * step sends to it and the names of the previous steps. This also fills the caches of the transformation used to
+   * look up the previous steps.
+   *
+   * @param stepMeta the step
+   * @throws KettleStepException if a layout can't be resolved
+   */
+  public void resolve( final StepMeta stepMeta ) throws KettleStepException {
+    getPrevStepNames( stepMeta );
+    getPrevStepFields( stepMeta );
+    getStepFields( stepMeta, null );
+  }
+
+  /**
+   * Same as {@link TransMeta#getStepFields(StepMeta, ProgressMonitorListener)}
+   */
+  public RowMetaInterface getStepFields( final StepMeta stepMeta ) throws KettleStepException {
+    return copy( getStepFields( stepMeta, null ) );
+  }
+
+  /**
+   * Same as {@link TransMeta#getStepFields(String)}
+   */
+  public RowMetaInterface getStepFields( final String stepName ) throws KettleStepException {
+    final StepMeta stepMeta = findStep( stepName );
+    return stepMeta == null ? null : getStepFields( stepMeta );
+  }
+
+  /**
+   * Same as {@link TransMeta#getPrevStepNames(StepMeta)}
+   */
+  public String[] getPrevStepNames( final StepMeta stepMeta ) {
+    String[] names = prevStepNames.get( stepMeta.getName() );
+    if ( names == null ) {
+      // the transformation caches the previous steps of every step
+      synchronized ( transMeta ) {
+        names = transMeta.getPrevStepNames( stepMeta );
+      }
+      if ( names == null ) {
+        return null;
+      }
+      prevStepNames.put( stepMeta.getName(), names );
+    }
+    return names.clone();
+  }
+
+  /**
+   * Same as {@link TransMeta#getPrevStepNames(String)}
+   */
+  public String[] getPrevStepNames( final String stepName ) {
+    final StepMeta stepMeta = findStep( stepName );
+    if ( stepMeta == null ) {
+      synchronized ( transMeta ) {
+        return transMeta.getPrevStepNames( stepName );
+      }
+    }
+    return getPrevStepNames( stepMeta );
+  }
+
+  /**
+   * Same as {@link TransMeta#getPrevStepFields(StepMeta, ProgressMonitorListener)}
+   */
+  public RowMetaInterface getPrevStepFields( final StepMeta stepMeta ) throws KettleStepException {
+    final String key = stepMeta.getName();
+    RowMetaInterface fields = prevStepFields.get( key );
+    if ( fields == null ) {
+      fields = new RowMeta();
+      final List<StepMeta> prevSteps = getPreviousSteps( stepMeta );
+      for ( int i = 0; i < prevSteps.size(); i++ ) {
+        final RowMetaInterface add = getStepFields( prevSteps.get( i ), stepMeta );
+        if ( add == null ) {
+          continue;
+        }
+        if ( i == 0 ) {
+          fields.addRowMeta( add );
+        } else {
+          // the fields of the other previous steps are only added if not already there
+          for ( final ValueMetaInterface valueMeta : add.getValueMetaList() ) {
+            if ( fields.searchValueMeta( valueMeta.getName() ) == null ) {
+              fields.addValueMeta( valueMeta );
+            }
+          }
+        }
+      }
+      prevStepFields.put( key, fields );
+    }
+    return copy( fields );
+  }
+
+  /**
+   * Same as {@link TransMeta#getPrevStepFields(StepMeta, String, ProgressMonitorListener)}
+   */
+  public RowMetaInterface getPrevStepFields( final StepMeta stepMeta, final String prevStepName )
+    throws KettleStepException {
+    for ( final StepMeta prevStep : getPreviousSteps( stepMeta ) ) {
+      if ( prevStep.getName().equalsIgnoreCase( prevStepName ) ) {
+        return copy( getStepFields( prevStep, stepMeta ) );
+      }
+    }
+    final String key = stepMeta.getName() + TARGET_SEPARATOR + prevStepName;
+    RowMetaInterface fields = prevStepFields.get( key );
+    if ( fields == null ) {
+      synchronized ( transMeta ) {
+        fields = transMeta.getPrevStepFields( stepMeta, prevStepName, new ProgressNullMonitorListener() );
+      }
+      if ( fields == null ) {
+        return null;
+      }
+      prevStepFields.put( key, fields );
+    }
+    return copy( fields );
+  }
+
+  /**
+   * Returns the fields a step sends to the given target step, or all the fields it outputs if the target is null.
+   */
+  private RowMetaInterface getStepFields( final StepMeta stepMeta, final StepMeta targetStep )
+    throws KettleStepException {
+    final String key = targetStep == null ? stepMeta.getName()
+      : stepMeta.getName() + TARGET_SEPARATOR + targetStep.getName();
+    RowMetaInterface fields = stepFields.get( key );
+    if ( fields == null ) {
+      final ProgressNullMonitorListener progressMonitor = new ProgressNullMonitorListener();
+      synchronized ( transMeta ) {
+        fields = targetStep == null ? transMeta.getStepFields( stepMeta, progressMonitor )
+          : transMeta.getStepFields( stepMeta, targetStep, progressMonitor );
+      }
+      progressMonitor.done();
+      if ( fields == null ) {
+        return null;
+      }
+      stepFields.put( key, fields );
+    }
+    return fields;
+  }
+
+  private StepMeta findStep( final String stepName ) {
+    synchronized ( transMeta ) {
+      return transMeta.findStep( stepName );
+    }
+  }
+
+  private List<StepMeta> getPreviousSteps( final StepMeta stepMeta ) {
+    // the transformation caches the previous steps of every step
+    synchronized ( transMeta ) {
+      return transMeta.getPreviousSteps( stepMeta );
+    }
+  }
+
+  private static RowMetaInterface copy( final RowMetaInterface fields ) {
+    return fields == null ? null : fields.clone();
+  }
+}
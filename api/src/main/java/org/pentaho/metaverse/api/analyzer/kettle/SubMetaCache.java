@@ -0,0 +1,237 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.api.analyzer.kettle;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.vfs2.FileObject;
+import org.pentaho.di.base.AbstractMeta;
+import org.pentaho.di.core.bowl.Bowl;
+import org.pentaho.di.core.bowl.DefaultBowl;
+import org.pentaho.di.core.vfs.KettleVFS;
+import org.pentaho.di.job.JobMeta;
+import org.pentaho.di.repository.ObjectId;
+import org.pentaho.di.repository.Repository;
+import org.pentaho.di.repository.RepositoryElementMetaInterface;
+import org.pentaho.di.repository.RepositoryObjectType;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.metaverse.api.IMetaverseConfig;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+
+/**
+ * A bounded cache of parsed sub-transformation and sub-job metadata, shared by all the analyzers that follow
+ * references to child documents (mapping, executor, single threader, job entry analyzers). A parent that references
+ * the same child many times therefore only parses it once.
+ * <p/>
+ * Entries are keyed by normalized file path or repository object id, and are only served while the modification
+ * stamp of the source matches the one recorded when the entry was cached. Callers always get a clone of the cached
+ * metadata, since analysis copies variables into it and changes its file name.
+ */
+public class SubMetaCache {
+
+  private static final Logger log = LoggerFactory.getLogger( SubMetaCache.class );
+
+  protected static final long DEFAULT_MAX_SIZE = 100L;
+
+  protected static final long UNKNOWN_STAMP = 0L;
+
+  protected Cache<String, CachedMeta> metaCache;
+
+  private static SubMetaCache INSTANCE;
+
+  public static SubMetaCache getInstance() {
+    if ( INSTANCE == null ) {
+      synchronized ( SubMetaCache.class ) {
+        if ( INSTANCE == null ) {
+          INSTANCE = new SubMetaCache();
+        }
+      }
+    }
+    return INSTANCE;
+  }
+
+  private SubMetaCache() {
+    this( PentahoSystem.get( IMetaverseConfig.class ) );
+  }
+
+  protected SubMetaCache( IMetaverseConfig config ) {
+    initCache( getCacheMaxSize( config ) );
+  }
+
+  protected long getCacheMaxSize( IMetaverseConfig config ) {
+    String maxSize = ( config != null ) ? config.getSubMetaCacheSize() : null;
+    return ( maxSize != null ) ? Long.parseLong( maxSize ) : DEFAULT_MAX_SIZE;
+  }
+
+  void initCache( long maxSize ) {
+    metaCache = CacheBuilder.newBuilder().maximumSize( maxSize ).recordStats().build();
+    log.debug( "{} cache max size set to {}", this.getClass().getSimpleName(), maxSize );
+  }
+
+  /**
+   * Returns a copy of the {@link TransMeta} cached under {@code key}, or null if there is none, or if the cached
+   * metadata is stale with respect to the given modification {@code stamp}.
+   */
+  public TransMeta getTransMeta( final String key, final long stamp ) {
+    final AbstractMeta meta = get( key, stamp );
+    return meta instanceof TransMeta ? (TransMeta) meta : null;
+  }
+
+  /**
+   * Returns a copy of the {@link JobMeta} cached under {@code key}, or null if there is none, or if the cached
+   * metadata is stale with respect to the given modification {@code stamp}.
+   */
+  public JobMeta getJobMeta( final String key, final long stamp ) {
+    final AbstractMeta meta = get( key, stamp );
+    return meta instanceof JobMeta ? (JobMeta) meta : null;
+  }
+
+  /**
+   * Caches a copy of the given metadata, the caller remains free to modify {@code meta}. Nothing is cached when the
+   * key or the modification stamp of the source is unknown.
+   */
+  public void cache( final String key, final long stamp, final AbstractMeta meta ) {
+    if ( key == null || stamp == UNKNOWN_STAMP || meta == null ) {
+      return;
+    }
+    final AbstractMeta copy = copy( meta );
+    if ( copy != null ) {
+      metaCache.put( key, new CachedMeta( stamp, copy ) );
+    }
+  }
+
+  public void invalidateAll() {
+    metaCache.invalidateAll();
+  }
+
+  public long size() {
+    return metaCache.size();
+  }
+
+  public long getHitCount() {
+    return metaCache.stats().hitCount();
+  }
+
+  public long getMissCount() {
+    return metaCache.stats().missCount();
+  }
+
+  private AbstractMeta get( final String key, final long stamp ) {
+    if ( key == null || stamp == UNKNOWN_STAMP ) {
+      return null;
+    }
+    final CachedMeta cached = metaCache.getIfPresent( key );
+    if ( cached == null ) {
+      return null;
+    }
+    if ( cached.stamp != stamp ) {
+      metaCache.invalidate( key );
+      return null;
+    }
+    return copy( cached.meta );
+  }
+
+  protected AbstractMeta copy( final AbstractMeta meta ) {
+    if ( meta instanceof TransMeta ) {
+      return (TransMeta) ( (TransMeta) meta ).clone();
+    } else if ( meta instanceof JobMeta ) {
+      return (JobMeta) ( (JobMeta) meta ).clone();
+    }
+    return null;
+  }
+
+  /**
+   * Returns the cache key of a document loaded from the file system.
+   */
+  public static String getFileKey( final String filePath ) {
+    return getFileKey( DefaultBowl.getInstance(), filePath );
+  }
+
+  /**
+   * Returns the cache key of a document loaded from the given (possibly VFS) file, its normalized path, so that the
+   * different ways of referring to the same file share an entry.
+   */
+  public static String getFileKey( final Bowl bowl, final String filePath ) {
+    return filePath == null ? null : "file:" + KettleAnalyzerUtil.normalizeFilePathSafely( bowl, filePath );
+  }
+
+  /**
+   * Returns the cache key of a document loaded from a repository, or null if the object id is unknown.
+   */
+  public static String getRepositoryKey( final Repository repo, final ObjectId objectId ) {
+    if ( repo == null || objectId == null || objectId.getId() == null ) {
+      return null;
+    }
+    return "repo:" + repo.getName() + ":" + objectId.getId();
+  }
+
+  /**
+   * Returns the last modification time of the given local file, or {@link #UNKNOWN_STAMP} if it cannot be determined.
+   */
+  public static long getFileStamp( final String filePath ) {
+    return filePath == null ? UNKNOWN_STAMP : new File( filePath ).lastModified();
+  }
+
+  /**
+   * Returns the last modification time of the given file, resolved through VFS when it is not a local file, or
+   * {@link #UNKNOWN_STAMP} if it cannot be determined.
+   */
+  public static long getFileStamp( final Bowl bowl, final String filePath ) {
+    long stamp = getFileStamp( filePath );
+    if ( stamp == UNKNOWN_STAMP && filePath != null ) {
+      try {
+        final FileObject fileObject = KettleVFS.getInstance( bowl ).getFileObject( filePath );
+        stamp = fileObject.exists() ? fileObject.getContent().getLastModifiedTime() : UNKNOWN_STAMP;
+      } catch ( final Exception e ) {
+        log.debug( e.getMessage() );
+      }
+    }
+    return stamp;
+  }
+
+  /**
+   * Returns the last modification time of the given repository object, or {@link #UNKNOWN_STAMP} if it cannot be
+   * determined.
+   */
+  public static long getRepositoryStamp( final Repository repo, final ObjectId objectId,
+                                         final RepositoryObjectType objectType ) {
+    if ( repo == null || objectId == null ) {
+      return UNKNOWN_STAMP;
+    }
+    try {
+      final Object information = repo.getObjectInformation( objectId, objectType );
+      if ( information instanceof RepositoryElementMetaInterface
+        && ( (RepositoryElementMetaInterface) information ).getModifiedDate() != null ) {
+        return ( (RepositoryElementMetaInterface) information ).getModifiedDate().getTime();
+      }
+    } catch ( final Exception e ) {
+      log.debug( e.getMessage() );
+    }
+    return UNKNOWN_STAMP;
+  }
+
+  protected static class CachedMeta {
+    private final long stamp;
+    private final AbstractMeta meta;
+
+    CachedMeta( final long stamp, final AbstractMeta meta ) {
+      this.stamp = stamp;
+      this.meta = meta;
+    }
+  }
+}
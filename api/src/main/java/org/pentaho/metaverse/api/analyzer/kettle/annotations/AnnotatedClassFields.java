@@ -23,18 +23,33 @@ import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
-import static java.util.Arrays.stream;
+import static java.util.Arrays.asList;
 
 /**
  * Convenience class for navigating the @Metaverse.Node, @Metaverse.Property,
  * and @Metaverse.NodeLink annotations in a class.
+ * <p/>
+ * The annotated members of a class are discovered once per class, only their values are read from the instances.
  */
 public class AnnotatedClassFields {
 
+  private static final List<Class<? extends Annotation>> METAVERSE_ANNOTATIONS =
+    asList( Metaverse.Node.class, Metaverse.NodeLink.class, Metaverse.Property.class );
+
+  private static final ClassValue<ClassMembers> CLASS_MEMBERS = new ClassValue<ClassMembers>() {
+    @Override
+    protected ClassMembers computeValue( Class<?> type ) {
+      return new ClassMembers( type );
+    }
+  };
+
   private final Object meta;
   private final VariableSpace variableSpace;
 
@@ -68,18 +83,46 @@ public class AnnotatedClassFields {
   }
 
   private <T extends Annotation> Stream<AnnotatedClassField<T>> recurseObjectTree( Object object, Class<T> anno ) {
-    return Stream.concat( stream( object.getClass().getFields() ), stream( object.getClass().getMethods() ) )
+    return CLASS_MEMBERS.get( object.getClass() ).members.stream()
       .flatMap( field -> getAnnotatedFieldStream( object, anno, field ) );
   }
 
+  /**
+   * Checks whether the meta, or one of the objects it nests, has members annotated with {@code @Metaverse.Node},
+   * {@code @Metaverse.Property} or {@code @Metaverse.NodeLink}, without reading the values of the annotated members.
+   *
+   * @return true if there are annotated members
+   */
   public boolean hasMetaverseAnnotations() {
-    return props().count() > 0 || nodes().count() > 0 || links().count() > 0;
+    return hasMetaverseAnnotations( meta );
+  }
+
+  private boolean hasMetaverseAnnotations( Object object ) {
+    ClassMembers classMembers = CLASS_MEMBERS.get( object.getClass() );
+    if ( classMembers.annotated ) {
+      return true;
+    }
+    for ( AccessibleObject nested : classMembers.nested ) {
+      try {
+        Object value = accessibleValue( object, nested );
+        if ( value != null && hasMetaverseAnnotations( value ) ) {
+          return true;
+        }
+      } catch ( IllegalAccessException | InvocationTargetException e ) {
+        throw new IllegalStateException( e );
+      }
+    }
+    return false;
+  }
+
+  private static boolean isNested( AccessibleObject accessibleObject ) {
+    return accessibleObject.isAnnotationPresent( InjectionDeep.class )
+      || accessibleObject.isAnnotationPresent( InternalStepMeta.class );
   }
 
   private <T extends Annotation> Stream<? extends AnnotatedClassField<T>> getAnnotatedFieldStream(
     Object object, Class<T> annotation, AccessibleObject accessibleObject ) {
-    if ( accessibleObject.isAnnotationPresent( InjectionDeep.class )
-      || accessibleObject.isAnnotationPresent( InternalStepMeta.class ) ) {
+    if ( isNested( accessibleObject ) ) {
       try {
         return recurseObjectTree( accessibleValue( object, accessibleObject ), annotation );
       } catch ( IllegalAccessException | InvocationTargetException e ) {
@@ -168,5 +211,30 @@ public class AnnotatedClassFields {
     return annotatedName;
   }
 
+  /**
+   * The public fields and methods of a class that are either annotated, or nest other objects to look into, in the
+   * order they are navigated
+   */
+  private static class ClassMembers {
+    private final List<AccessibleObject> members = new ArrayList<>();
+    private final List<AccessibleObject> nested = new ArrayList<>();
+    private final boolean annotated;
+
+    ClassMembers( Class<?> type ) {
+      boolean hasAnnotated = false;
+      List<AccessibleObject> candidates = new ArrayList<>( asList( type.getFields() ) );
+      Collections.addAll( candidates, type.getMethods() );
+      for ( AccessibleObject candidate : candidates ) {
+        if ( isNested( candidate ) ) {
+          members.add( candidate );
+          nested.add( candidate );
+        } else if ( METAVERSE_ANNOTATIONS.stream().anyMatch( candidate::isAnnotationPresent ) ) {
+          members.add( candidate );
+          hasAnnotated = true;
+        }
+      }
+      annotated = hasAnnotated;
+    }
+  }
 
 }
@@ -40,12 +40,14 @@ import org.pentaho.metaverse.api.messages.Messages;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import static java.util.Arrays.asList;
 import static java.util.Arrays.stream;
@@ -199,9 +201,10 @@ public class AnnotationDrivenStepMetaAnalyzer extends StepAnalyzer<BaseStepMeta>
   @Override
   protected Set<StepField> getUsedFields( BaseStepMeta meta ) {
     loadStreamFields( meta );
+    final Map<String, List<String>> prevStepNamesByField = getPrevStepNamesByField();
     return new AnnotatedClassFields( meta ).props()
       .map( AnnotatedClassField::val )
-      .map( this::stepNameFieldName )
+      .map( fieldName -> stepNameFieldName( prevStepNamesByField, fieldName ) )
       .filter( Optional::isPresent )
       .map( Optional::get )
       .map( stepField -> new StepField( stepField.left, stepField.right ) )
@@ -304,16 +307,27 @@ public class AnnotationDrivenStepMetaAnalyzer extends StepAnalyzer<BaseStepMeta>
     loadInputAndOutputStreamFields( meta );
   }
 
-  private Optional<Pair<String, String>> stepNameFieldName( String fieldName ) {
-    List<Map.Entry<String, RowMetaInterface>> fieldMatches =
-      prevFields.entrySet().stream()
-        .filter( tuple -> asList( tuple.getValue().getFieldNames() ).contains( fieldName ) )
-        .collect( Collectors.toList() );
+  private Optional<Pair<String, String>> stepNameFieldName( Map<String, List<String>> prevStepNamesByField,
+                                                           String fieldName ) {
+    List<String> stepNames = prevStepNamesByField.get( fieldName );
 
-    if ( fieldMatches.size() != 1 ) {
+    if ( stepNames == null || stepNames.size() != 1 ) {
       return Optional.empty();
     }
-    return Optional.of( new Pair<>( fieldMatches.get( 0 ).getKey(), fieldName ) );
+    return Optional.of( new Pair<>( stepNames.get( 0 ), fieldName ) );
+  }
+
+  /**
+   * Indexes the previous steps by the names of the fields they send to this step
+   */
+  private Map<String, List<String>> getPrevStepNamesByField() {
+    Map<String, List<String>> prevStepNamesByField = new HashMap<>();
+    if ( prevFields != null ) {
+      prevFields.forEach( ( stepName, rowMeta ) -> new LinkedHashSet<>( asList( rowMeta.getFieldNames() ) )
+        .forEach( fieldName -> prevStepNamesByField.computeIfAbsent( fieldName, name -> new ArrayList<>() )
+          .add( stepName ) ) );
+    }
+    return prevStepNamesByField;
   }
 
   private Pair<AnnotatedClassField<Metaverse.Node>, IMetaverseNode> attachNodes( IMetaverseNode rootNode,
@@ -15,6 +15,8 @@ package org.pentaho.metaverse.api.analyzer.kettle.step;
 
 import com.google.common.base.Joiner;
 import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.KeyIndexableGraph;
 import com.tinkerpop.blueprints.Vertex;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
@@ -47,7 +49,9 @@ import org.pentaho.metaverse.api.StepField;
 import org.pentaho.metaverse.api.analyzer.kettle.BaseKettleMetaverseComponent;
 import org.pentaho.metaverse.api.analyzer.kettle.ComponentDerivationRecord;
 import org.pentaho.metaverse.api.analyzer.kettle.KettleAnalyzerUtil;
+import org.pentaho.metaverse.api.analyzer.kettle.RowMetaMemo;
 import org.pentaho.metaverse.api.messages.Messages;
+import org.pentaho.metaverse.api.model.BaseMetaverseBuilder;
 import org.pentaho.metaverse.api.model.kettle.IFieldMapping;
 
 import java.util.ArrayList;
@@ -227,15 +231,7 @@ public abstract class StepAnalyzer<T extends BaseStepMeta> extends BaseKettleMet
    * @return
    */
   protected boolean isPassthrough( StepField originalFieldName ) {
-    if ( getOutputs() != null ) {
-      Set<StepField> fieldNames = getOutputs().getFieldNames();
-      for ( StepField fieldName : fieldNames ) {
-        if ( fieldName.getFieldName().equals( originalFieldName.getFieldName() ) ) {
-          return true;
-        }
-      }
-    }
-    return false;
+    return getOutputs() != null && getOutputs().containsFieldName( originalFieldName.getFieldName() );
   }
 
   /**
@@ -406,8 +402,10 @@ public abstract class StepAnalyzer<T extends BaseStepMeta> extends BaseKettleMet
           String[] stepInputFieldNames = inputFields.getFieldNames();
           try {
             if ( !ExternalResourceStepAnalyzer.RESOURCE.equals( prevStepName ) ) {
-              final RowMetaInterface stepInputFields = parentTransMeta.getPrevStepFields(
-                parentStepMeta, prevStepName, null );
+              final RowMetaMemo rowMetaMemo = RowMetaMemo.get( parentTransMeta );
+              final RowMetaInterface stepInputFields = rowMetaMemo != null
+                ? rowMetaMemo.getPrevStepFields( parentStepMeta, prevStepName )
+                : parentTransMeta.getPrevStepFields( parentStepMeta, prevStepName, null );
               if ( stepInputFields != null ) {
                 stepInputFieldNames = stepInputFields.getFieldNames();
               }
@@ -415,8 +413,9 @@ public abstract class StepAnalyzer<T extends BaseStepMeta> extends BaseKettleMet
           } catch ( final KettleStepException e ) {
             // no-op
           }
+          final Set<String> stepInputFieldNameIndex = new HashSet<>( Arrays.asList( stepInputFieldNames ) );
           for ( ValueMetaInterface valueMetaInterface : inputFields.getValueMetaList() ) {
-            boolean addLink = Arrays.asList( stepInputFieldNames ).contains( valueMetaInterface.getName() );
+            boolean addLink = stepInputFieldNameIndex.contains( valueMetaInterface.getName() );
             IMetaverseNode prevFieldNode =
               createInputFieldNode( getDescriptor().getContext(), valueMetaInterface, prevStepName,
                 getInputNodeType() );
@@ -601,8 +600,11 @@ public abstract class StepAnalyzer<T extends BaseStepMeta> extends BaseKettleMet
       try {
         rowMeta = new HashMap();
         ProgressNullMonitorListener progressMonitor = new ProgressNullMonitorListener();
-        prevStepNames = parentTransMeta.getPrevStepNames( parentStepMeta );
-        RowMetaInterface rmi = parentTransMeta.getPrevStepFields( parentStepMeta, progressMonitor );
+        final RowMetaMemo rowMetaMemo = RowMetaMemo.get( parentTransMeta );
+        prevStepNames = rowMetaMemo != null ? rowMetaMemo.getPrevStepNames( parentStepMeta )
+          : parentTransMeta.getPrevStepNames( parentStepMeta );
+        RowMetaInterface rmi = rowMetaMemo != null ? rowMetaMemo.getPrevStepFields( parentStepMeta )
+          : parentTransMeta.getPrevStepFields( parentStepMeta, progressMonitor );
         progressMonitor.done();
         if ( !ArrayUtils.isEmpty( prevStepNames ) ) {
           populateInputFieldsRowMeta( rowMeta, rmi );
@@ -624,6 +626,35 @@ public abstract class StepAnalyzer<T extends BaseStepMeta> extends BaseKettleMet
     return getInputFields( parentTransMeta, parentStepMeta );
   }
 
+  /**
+   * Same as {@link TransMeta#getPrevStepNames(String)} on the parent transformation, through its row meta memo while it
+   * is open, as the transformation isn't thread-safe and the steps may be analyzed concurrently.
+   */
+  protected String[] getPrevStepNames( final String stepName ) {
+    final RowMetaMemo rowMetaMemo = RowMetaMemo.get( parentTransMeta );
+    return rowMetaMemo != null ? rowMetaMemo.getPrevStepNames( stepName )
+      : parentTransMeta.getPrevStepNames( stepName );
+  }
+
+  /**
+   * Same as {@link TransMeta#getPrevStepNames(StepMeta)} on the parent transformation, through its row meta memo while
+   * it is open.
+   */
+  protected String[] getPrevStepNames( final StepMeta stepMeta ) {
+    final RowMetaMemo rowMetaMemo = RowMetaMemo.get( parentTransMeta );
+    return rowMetaMemo != null ? rowMetaMemo.getPrevStepNames( stepMeta )
+      : parentTransMeta.getPrevStepNames( stepMeta );
+  }
+
+  /**
+   * Same as {@link TransMeta#getStepFields(String)} on the parent transformation, through its row meta memo while it
+   * is open.
+   */
+  protected RowMetaInterface getStepFields( final String stepName ) throws KettleStepException {
+    final RowMetaMemo rowMetaMemo = RowMetaMemo.get( parentTransMeta );
+    return rowMetaMemo != null ? rowMetaMemo.getStepFields( stepName ) : parentTransMeta.getStepFields( stepName );
+  }
+
   /**
    * Populates the {@code rowMeta} with data from all input steps, can be overridden to do otherwise.
    */
@@ -650,7 +681,9 @@ public abstract class StepAnalyzer<T extends BaseStepMeta> extends BaseKettleMet
     if ( transMeta != null ) {
       try {
         ProgressNullMonitorListener progressMonitor = new ProgressNullMonitorListener();
-        rmi = transMeta.getStepFields( stepMeta, progressMonitor );
+        final RowMetaMemo rowMetaMemo = RowMetaMemo.get( transMeta );
+        rmi = rowMetaMemo != null ? rowMetaMemo.getStepFields( stepMeta )
+          : transMeta.getStepFields( stepMeta, progressMonitor );
         progressMonitor.done();
       } catch ( KettleStepException e ) {
         rmi = null;
@@ -822,7 +855,26 @@ public abstract class StepAnalyzer<T extends BaseStepMeta> extends BaseKettleMet
    * @return a @{link List} of {@link Vertex} objects containing the requested properties
    */
   protected List<Vertex> findVertices( final Map<String, String> properties ) {
-    return findVertices( getMetaverseBuilder().getGraph().getVertices().iterator(), properties );
+    final Graph graph = getMetaverseBuilder().getGraph();
+    final String indexedKey = getIndexedKey( graph, properties );
+    return findVertices( indexedKey == null ? graph.getVertices().iterator()
+      : graph.getVertices( indexedKey, properties.get( indexedKey ) ).iterator(), properties );
+  }
+
+  /**
+   * Returns the lookup property the graph keeps a key index on, if any, so that only the vertices with a matching value
+   * need to be inspected.
+   */
+  private static String getIndexedKey( final Graph graph, final Map<String, String> properties ) {
+    if ( properties != null && graph instanceof KeyIndexableGraph ) {
+      final Set<String> indexedKeys = ( (KeyIndexableGraph) graph ).getIndexedKeys( Vertex.class );
+      for ( final String key : BaseMetaverseBuilder.INDEXED_VERTEX_KEYS ) {
+        if ( properties.get( key ) != null && indexedKeys.contains( key ) ) {
+          return key;
+        }
+      }
+    }
+    return null;
   }
 
   /**
@@ -988,15 +1040,7 @@ public abstract class StepAnalyzer<T extends BaseStepMeta> extends BaseKettleMet
    * @return the {@link Vertex} with the matching id or null
    */
   protected Vertex findVertexById( final String id ) {
-
-    final Iterator<Vertex> allVertices = getMetaverseBuilder().getGraph().getVertices().iterator();
-    while ( allVertices.hasNext() ) {
-      final Vertex vertex = allVertices.next();
-      if ( vertex.getId().equals( id ) ) {
-        return vertex;
-      }
-    }
-    return null;
+    return id == null ? null : getMetaverseBuilder().getGraph().getVertex( id );
   }
 
   /**
@@ -19,6 +19,7 @@ import org.pentaho.metaverse.api.StepField;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -32,6 +33,9 @@ public class StepNodes {
   // use LinkedHashMap to preserve order in which elements are added
   private LowerCaseKeyLinkedHashMap<String, LowerCaseKeyLinkedHashMap<String, IMetaverseNode>> store;
 
+  // the exact names of the fields of all steps, so that membership checks don't walk every step
+  private Set<String> fieldNameIndex = new HashSet<>();
+
   public StepNodes() {
     store = new LowerCaseKeyLinkedHashMap<>();
   }
@@ -45,7 +49,18 @@ public class StepNodes {
     Map<String, IMetaverseNode> stepFields = store.get( stepName );
 
     stepFields.put( fieldName, node );
+    fieldNameIndex.add( fieldName );
+
+  }
 
+  /**
+   * Checks whether any step has a field with the given name, the match is case sensitive.
+   *
+   * @param fieldName the field name
+   * @return true if a field with the given name was added
+   */
+  public boolean containsFieldName( String fieldName ) {
+    return fieldNameIndex.contains( fieldName );
   }
 
   public List<IMetaverseNode> findNodes( String fieldName ) {
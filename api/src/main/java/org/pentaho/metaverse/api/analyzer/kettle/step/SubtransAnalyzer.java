@@ -25,6 +25,7 @@ import org.pentaho.dictionary.DictionaryConst;
 import org.pentaho.metaverse.api.IComponentDescriptor;
 import org.pentaho.metaverse.api.IMetaverseNode;
 import org.pentaho.metaverse.api.MetaverseComponentDescriptor;
+import org.pentaho.metaverse.api.analyzer.kettle.RowMetaMemo;
 import org.pentaho.metaverse.api.messages.Messages;
 import org.pentaho.metaverse.api.model.BaseMetaverseBuilder;
 import org.slf4j.Logger;
@@ -98,7 +99,7 @@ public class SubtransAnalyzer<T extends BaseStepMeta> {
                                             IComponentDescriptor descriptor, Predicate<String> fieldPredicate,
                                             StepMeta step, RowsFromResultMeta rfrm, IMetaverseNode subTransStepNode ) {
     try {
-      RowMetaInterface rowMetaInterface = rfrm.getParentStepMeta().getParentTransMeta().getStepFields( step );
+      RowMetaInterface rowMetaInterface = getStepFields( rfrm.getParentStepMeta().getParentTransMeta(), step );
       for ( int i = 0; i < rowMetaInterface.getFieldNames().length; i++ ) {
         String field = rowMetaInterface.getFieldNames()[ i ];
         if ( fieldPredicate.test( field ) ) {
@@ -197,7 +198,7 @@ public class SubtransAnalyzer<T extends BaseStepMeta> {
                                            IComponentDescriptor descriptor, String resultStepName, StepMeta step,
                                            BaseStepMeta baseStepMeta, IMetaverseNode subTransStepNode ) {
     try {
-      RowMetaInterface rowMetaInterface = baseStepMeta.getParentStepMeta().getParentTransMeta().getStepFields( step );
+      RowMetaInterface rowMetaInterface = getStepFields( baseStepMeta.getParentStepMeta().getParentTransMeta(), step );
       for ( int i = 0; i < rowMetaInterface.getFieldNames().length; i++ ) {
         String field = rowMetaInterface.getFieldNames()[ i ];
         if ( streamFieldNode.getName().equals( field ) ) {
@@ -258,4 +259,20 @@ public class SubtransAnalyzer<T extends BaseStepMeta> {
     }
     return subTransField;
   }
+
+  /**
+   * Returns the fields of a step of a sub-transformation, through the row meta memo of the sub-transformation while it
+   * is open. Sub-transformations may be shared by the steps of a transformation analyzed concurrently, so they are
+   * otherwise only queried while holding their lock.
+   */
+  private static RowMetaInterface getStepFields( final TransMeta subTransMeta, final StepMeta step )
+    throws KettleStepException {
+    final RowMetaMemo rowMetaMemo = RowMetaMemo.get( subTransMeta );
+    if ( rowMetaMemo != null ) {
+      return rowMetaMemo.getStepFields( step );
+    }
+    synchronized ( subTransMeta ) {
+      return subTransMeta.getStepFields( step );
+    }
+  }
 }
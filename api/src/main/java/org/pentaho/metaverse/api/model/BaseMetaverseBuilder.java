@@ -16,6 +16,7 @@ package org.pentaho.metaverse.api.model;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.KeyIndexableGraph;
 import com.tinkerpop.blueprints.Vertex;
 import org.pentaho.dictionary.DictionaryConst;
 import org.pentaho.dictionary.DictionaryHelper;
@@ -27,10 +28,15 @@ import org.pentaho.metaverse.api.MetaverseObjectFactory;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 
 import java.util.Iterator;
+import java.util.Set;
 
 /**
  * This is the reference implementation for IMetaverseBuilder, offering the ability to add nodes, links, etc. to an
  * underlying graph
+ * <p/>
+ * The methods changing the graph are synchronized on the builder, so that the lookup of an existing vertex or edge and
+ * its creation happen as one, and analyzers running on several threads can share a builder. The graph itself must be
+ * thread-safe as well for them to do so, see {@link BaseSynchronizedGraph}.
  */
 public class BaseMetaverseBuilder extends MetaverseObjectFactory implements IMetaverseBuilder {
 
@@ -40,6 +46,13 @@ public class BaseMetaverseBuilder extends MetaverseObjectFactory implements IMet
 
   private static final String SEPARATOR = "~";
 
+  /**
+   * The vertex properties kept in a key index, the logical id for {@link #getVertexForNode(IMetaverseNode)}, and the
+   * name and type for the vertex lookups of the step analyzers
+   */
+  public static final String[] INDEXED_VERTEX_KEYS = new String[] {
+    DictionaryConst.PROPERTY_LOGICAL_ID, DictionaryConst.PROPERTY_NAME, DictionaryConst.PROPERTY_TYPE };
+
   private Graph graph;
 
   /**
@@ -55,6 +68,7 @@ public class BaseMetaverseBuilder extends MetaverseObjectFactory implements IMet
    */
   public BaseMetaverseBuilder( Graph graph ) {
     this.graph = graph;
+    indexVertexKeys( graph );
     registerStaticNodes();
   }
 
@@ -79,6 +93,25 @@ public class BaseMetaverseBuilder extends MetaverseObjectFactory implements IMet
   @Override
   public void setGraph( Graph graph ) {
     this.graph = graph;
+    indexVertexKeys( graph );
+  }
+
+  /**
+   * Makes sure the graph maintains a key index on the {@link #INDEXED_VERTEX_KEYS} vertex properties, when it supports
+   * key indices, so that lookups on these properties do not scan every vertex.
+   *
+   * @param graph the graph to index
+   */
+  protected void indexVertexKeys( Graph graph ) {
+    if ( graph instanceof KeyIndexableGraph ) {
+      final KeyIndexableGraph indexableGraph = (KeyIndexableGraph) graph;
+      final Set<String> indexedKeys = indexableGraph.getIndexedKeys( Vertex.class );
+      for ( final String key : INDEXED_VERTEX_KEYS ) {
+        if ( !indexedKeys.contains( key ) ) {
+          indexableGraph.createKeyIndex( key, Vertex.class );
+        }
+      }
+    }
   }
 
   /**
@@ -88,7 +121,7 @@ public class BaseMetaverseBuilder extends MetaverseObjectFactory implements IMet
    * @return the builder
    */
   @Override
-  public IMetaverseBuilder addLink( IMetaverseLink link ) {
+  public synchronized IMetaverseBuilder addLink( IMetaverseLink link ) {
 
     // make sure the from and to nodes exist in the graph
     Vertex fromVertex = getVertexForNode( link.getFromNode() );
@@ -137,7 +170,7 @@ public class BaseMetaverseBuilder extends MetaverseObjectFactory implements IMet
    * @return the builder
    */
   @Override
-  public IMetaverseBuilder addNode( IMetaverseNode node ) {
+  public synchronized IMetaverseBuilder addNode( IMetaverseNode node ) {
     // does the node already exist?
     Vertex v = getVertexForNode( node );
 
@@ -327,7 +360,7 @@ public class BaseMetaverseBuilder extends MetaverseObjectFactory implements IMet
   }
 
   @Override
-  public IMetaverseBuilder deleteLink( IMetaverseLink link ) {
+  public synchronized IMetaverseBuilder deleteLink( IMetaverseLink link ) {
     deleteLink( link, true );
     return this;
   }
@@ -382,7 +415,7 @@ public class BaseMetaverseBuilder extends MetaverseObjectFactory implements IMet
   }
 
   @Override
-  public IMetaverseBuilder deleteNode( IMetaverseNode node ) {
+  public synchronized IMetaverseBuilder deleteNode( IMetaverseNode node ) {
     Vertex v = getVertexForNode( node );
     if ( v != null ) {
       graph.removeVertex( v );
@@ -397,7 +430,7 @@ public class BaseMetaverseBuilder extends MetaverseObjectFactory implements IMet
    * IMetaverseBuilder#updateLink(IMetaverseLink)
    */
   @Override
-  public IMetaverseBuilder updateLinkLabel( IMetaverseLink link, String label ) {
+  public synchronized IMetaverseBuilder updateLinkLabel( IMetaverseLink link, String label ) {
     if ( label != null && deleteLink( link, false ) ) {
       link.setLabel( label );
       addLink( link );
@@ -434,7 +467,7 @@ public class BaseMetaverseBuilder extends MetaverseObjectFactory implements IMet
    * IMetaverseBuilder#updateNode(IMetaverseNode)
    */
   @Override
-  public IMetaverseBuilder updateNode( IMetaverseNode node ) {
+  public synchronized IMetaverseBuilder updateNode( IMetaverseNode node ) {
 
     Vertex v = getVertexForNode( node );
     if ( v != null ) {
@@ -463,7 +496,7 @@ public class BaseMetaverseBuilder extends MetaverseObjectFactory implements IMet
     return addLink( link );
   }
 
-  public void addLink( Vertex fromVertex, String label, Vertex toVertex ) {
+  public synchronized void addLink( Vertex fromVertex, String label, Vertex toVertex ) {
     addEdge( fromVertex, label, toVertex );
   }
 
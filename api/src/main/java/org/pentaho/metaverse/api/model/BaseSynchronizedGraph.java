@@ -14,24 +14,55 @@
 package org.pentaho.metaverse.api.model;
 
 
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Features;
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.GraphQuery;
 import com.tinkerpop.blueprints.KeyIndexableGraph;
+import com.tinkerpop.blueprints.Parameter;
 import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.VertexQuery;
+import com.tinkerpop.blueprints.util.DefaultGraphQuery;
+import com.tinkerpop.blueprints.util.DefaultVertexQuery;
+import com.tinkerpop.blueprints.util.ElementHelper;
 import com.tinkerpop.blueprints.util.wrappers.id.IdGraph;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
 /**
- * A Graph that provides thread-safe modification
+ * A Graph that provides thread-safe access.
+ * <p/>
+ * All reads and writes go through a single {@link ReadWriteLock}: lookups and iterations share the read lock, while
+ * structural changes, index changes and property changes take the write lock. This covers the vertices and edges
+ * handed out by this graph as well, since setting a property on an element updates the key indexes of the
+ * underlying graph.
+ * <p/>
+ * The vertex and edge iterables are snapshots: the references to the elements are copied while the read lock is held,
+ * and the elements are only wrapped as they are iterated, so callers may iterate them while other threads keep
+ * writing, without seeing what was written since. Taking a snapshot of the whole graph is linear in its size, the
+ * analyzers look elements up by id or through the key indexes instead.
  */
-public class BaseSynchronizedGraph implements Graph {
+public class BaseSynchronizedGraph implements KeyIndexableGraph {
 
   /**
    * The underlying graph
    */
   protected final IdGraph<KeyIndexableGraph> graph;
 
+  /**
+   * Guards every access to the underlying graph and its elements
+   */
+  protected final ReadWriteLock lock = new ReentrantReadWriteLock();
+
   /**
    * Creates a new synchronized graph
    *
@@ -48,95 +79,373 @@ public class BaseSynchronizedGraph implements Graph {
 
   @Override
   public Vertex addVertex( Object id ) {
-    Vertex vertex;
-    synchronized ( graph ) {
-      if ( id == null ) {
+    final Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      Vertex vertex = null;
+      if ( id != null ) {
+        vertex = graph.getVertex( id );
+      }
+      if ( vertex == null ) {
         vertex = graph.addVertex( id );
-      } else {
-        vertex = getVertex( id );
-        if ( vertex == null ) {
-          vertex = graph.addVertex( id );
-        }
       }
-      return vertex;
+      return wrap( vertex );
+    } finally {
+      writeLock.unlock();
     }
   }
 
   @Override
   public Vertex getVertex( Object id ) {
-    return graph.getVertex( id );
+    final Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      return wrap( graph.getVertex( id ) );
+    } finally {
+      readLock.unlock();
+    }
   }
 
   @Override
   public void removeVertex( Vertex vertex ) {
-    synchronized ( graph ) {
-      graph.removeVertex( vertex );
+    final Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      graph.removeVertex( unwrap( vertex ) );
+    } finally {
+      writeLock.unlock();
     }
   }
 
   @Override
   public Iterable<Vertex> getVertices() {
-    return graph.getVertices();
+    final Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      return wrapVertices( graph.getVertices() );
+    } finally {
+      readLock.unlock();
+    }
   }
 
   @Override
   public Iterable<Vertex> getVertices( String key, Object value ) {
-    synchronized ( graph ) {
-      return graph.getVertices( key, value );
+    final Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      return wrapVertices( graph.getVertices( key, value ) );
+    } finally {
+      readLock.unlock();
     }
   }
 
   @Override
   public Edge addEdge( Object id, Vertex outVertex, Vertex inVertex, String label ) {
-    Edge edge;
-    synchronized ( graph ) {
-      if ( id == null ) {
-        edge = graph.addEdge( id, outVertex, inVertex, label );
-      } else {
-        edge = getEdge( id );
-        if ( edge == null ) {
-          edge = graph.addEdge( id, outVertex, inVertex, label );
-        }
+    final Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      Edge edge = null;
+      if ( id != null ) {
+        edge = graph.getEdge( id );
       }
-      return edge;
+      if ( edge == null ) {
+        edge = graph.addEdge( id, unwrap( outVertex ), unwrap( inVertex ), label );
+      }
+      return wrap( edge );
+    } finally {
+      writeLock.unlock();
     }
   }
 
   @Override
   public Edge getEdge( Object id ) {
-    return graph.getEdge( id );
+    final Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      return wrap( graph.getEdge( id ) );
+    } finally {
+      readLock.unlock();
+    }
   }
 
   @Override
   public void removeEdge( Edge edge ) {
-    synchronized ( graph ) {
-      graph.removeEdge( edge );
+    final Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      graph.removeEdge( unwrap( edge ) );
+    } finally {
+      writeLock.unlock();
     }
   }
 
   @Override
   public Iterable<Edge> getEdges() {
-    return graph.getEdges();
+    final Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      return wrapEdges( graph.getEdges() );
+    } finally {
+      readLock.unlock();
+    }
   }
 
   @Override
   public Iterable<Edge> getEdges( String key, Object value ) {
-    return graph.getEdges( key, value );
+    final Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      return wrapEdges( graph.getEdges( key, value ) );
+    } finally {
+      readLock.unlock();
+    }
   }
 
+  @Override
+  public <T extends Element> void createKeyIndex( String key, Class<T> elementClass,
+                                                  Parameter... indexParameters ) {
+    final Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      graph.createKeyIndex( key, elementClass, indexParameters );
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public <T extends Element> void dropKeyIndex( String key, Class<T> elementClass ) {
+    final Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      graph.dropKeyIndex( key, elementClass );
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public <T extends Element> Set<String> getIndexedKeys( Class<T> elementClass ) {
+    final Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      return graph.getIndexedKeys( elementClass );
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * Returns a query that is evaluated against the locked vertex and edge iterables of this graph.
+   */
   @Override
   public GraphQuery query() {
-    return graph.query();
+    return new DefaultGraphQuery( this );
   }
 
   @Override
   public void shutdown() {
-    synchronized ( graph ) {
+    final Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
       graph.shutdown();
+    } finally {
+      writeLock.unlock();
     }
   }
 
   public Graph getGraph() {
     return this.graph;
   }
+
+  protected Vertex wrap( Vertex vertex ) {
+    if ( vertex == null || vertex instanceof SynchronizedVertex ) {
+      return vertex;
+    }
+    return new SynchronizedVertex( vertex );
+  }
+
+  protected Edge wrap( Edge edge ) {
+    if ( edge == null || edge instanceof SynchronizedEdge ) {
+      return edge;
+    }
+    return new SynchronizedEdge( edge );
+  }
+
+  protected Vertex unwrap( Vertex vertex ) {
+    return vertex instanceof SynchronizedVertex ? ( (SynchronizedVertex) vertex ).element : vertex;
+  }
+
+  protected Edge unwrap( Edge edge ) {
+    return edge instanceof SynchronizedEdge ? ( (SynchronizedEdge) edge ).element : edge;
+  }
+
+  /**
+   * Snapshots the given vertices, the caller must hold the read lock.
+   */
+  private Iterable<Vertex> wrapVertices( Iterable<Vertex> vertices ) {
+    if ( vertices == null ) {
+      return Collections.emptyList();
+    }
+    return Iterables.transform( Lists.newArrayList( vertices ), vertex -> wrap( vertex ) );
+  }
+
+  /**
+   * Snapshots the given edges, the caller must hold the read lock.
+   */
+  private Iterable<Edge> wrapEdges( Iterable<Edge> edges ) {
+    if ( edges == null ) {
+      return Collections.emptyList();
+    }
+    return Iterables.transform( Lists.newArrayList( edges ), edge -> wrap( edge ) );
+  }
+
+  /**
+   * An element of this graph whose property access is guarded by the graph lock.
+   */
+  protected abstract class SynchronizedElement<E extends Element> implements Element {
+
+    protected final E element;
+
+    SynchronizedElement( E element ) {
+      this.element = element;
+    }
+
+    @Override
+    public <T> T getProperty( String key ) {
+      final Lock readLock = lock.readLock();
+      readLock.lock();
+      try {
+        return element.getProperty( key );
+      } finally {
+        readLock.unlock();
+      }
+    }
+
+    @Override
+    public Set<String> getPropertyKeys() {
+      final Lock readLock = lock.readLock();
+      readLock.lock();
+      try {
+        return new HashSet<>( element.getPropertyKeys() );
+      } finally {
+        readLock.unlock();
+      }
+    }
+
+    @Override
+    public void setProperty( String key, Object value ) {
+      final Lock writeLock = lock.writeLock();
+      writeLock.lock();
+      try {
+        element.setProperty( key, value );
+      } finally {
+        writeLock.unlock();
+      }
+    }
+
+    @Override
+    public <T> T removeProperty( String key ) {
+      final Lock writeLock = lock.writeLock();
+      writeLock.lock();
+      try {
+        return element.removeProperty( key );
+      } finally {
+        writeLock.unlock();
+      }
+    }
+
+    @Override
+    public void remove() {
+      final Lock writeLock = lock.writeLock();
+      writeLock.lock();
+      try {
+        element.remove();
+      } finally {
+        writeLock.unlock();
+      }
+    }
+
+    @Override
+    public Object getId() {
+      return element.getId();
+    }
+
+    @Override
+    public boolean equals( Object object ) {
+      return ElementHelper.areEqual( this, object );
+    }
+
+    @Override
+    public int hashCode() {
+      return element.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return element.toString();
+    }
+  }
+
+  protected class SynchronizedVertex extends SynchronizedElement<Vertex> implements Vertex {
+
+    SynchronizedVertex( Vertex vertex ) {
+      super( vertex );
+    }
+
+    @Override
+    public Iterable<Edge> getEdges( Direction direction, String... labels ) {
+      final Lock readLock = lock.readLock();
+      readLock.lock();
+      try {
+        return wrapEdges( element.getEdges( direction, labels ) );
+      } finally {
+        readLock.unlock();
+      }
+    }
+
+    @Override
+    public Iterable<Vertex> getVertices( Direction direction, String... labels ) {
+      final Lock readLock = lock.readLock();
+      readLock.lock();
+      try {
+        return wrapVertices( element.getVertices( direction, labels ) );
+      } finally {
+        readLock.unlock();
+      }
+    }
+
+    @Override
+    public VertexQuery query() {
+      return new DefaultVertexQuery( this );
+    }
+
+    @Override
+    public Edge addEdge( String label, Vertex inVertex ) {
+      return BaseSynchronizedGraph.this.addEdge( null, this, inVertex, label );
+    }
+  }
+
+  protected class SynchronizedEdge extends SynchronizedElement<Edge> implements Edge {
+
+    SynchronizedEdge( Edge edge ) {
+      super( edge );
+    }
+
+    @Override
+    public Vertex getVertex( Direction direction ) throws IllegalArgumentException {
+      final Lock readLock = lock.readLock();
+      readLock.lock();
+      try {
+        return wrap( element.getVertex( direction ) );
+      } finally {
+        readLock.unlock();
+      }
+    }
+
+    @Override
+    public String getLabel() {
+      return element.getLabel();
+    }
+  }
 }
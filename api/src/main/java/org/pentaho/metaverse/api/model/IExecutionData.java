@@ -16,6 +16,7 @@ package org.pentaho.metaverse.api.model;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -85,6 +86,15 @@ public interface IExecutionData {
 
   public void addExternalResource( String consumerName, IExternalResourceInfo externalResource );
 
+  /**
+   * Merges the given resources into the ones already recorded for the given consumer, skipping duplicates. This is
+   * intended to be called once per row, so implementations should not copy the existing resources.
+   *
+   * @param consumerName      the name of the step or job entry that consumed the resources
+   * @param externalResources the resources to merge
+   */
+  public void addExternalResources( String consumerName, Collection<IExternalResourceInfo> externalResources );
+
   @JsonProperty( JSON_PROPERTY_VARIABLES )
   public Map<Object, Object> getVariables();
 
@@ -28,8 +28,10 @@ import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleFileException;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.variables.VariableSpace;
+import org.pentaho.di.core.variables.Variables;
 import org.pentaho.di.core.vfs.IKettleVFS;
 import org.pentaho.di.core.vfs.KettleVFS;
+import org.pentaho.di.job.JobMeta;
 import org.pentaho.di.repository.Repository;
 import org.pentaho.di.repository.RepositoryDirectoryInterface;
 import org.pentaho.di.trans.ISubTransAwareMeta;
@@ -50,6 +52,8 @@ import org.pentaho.metaverse.api.model.IExternalResourceInfo;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
@@ -109,6 +113,8 @@ public class KettleAnalyzerUtilTest {
       .endsWith( "temp" + File.separator + "foo" ) );
 
     IKettleVFS vfs = mock( IKettleVFS.class );
+    // the path was normalized above, drop the memoized value so that VFS is consulted again
+    NormalizedPathCache.getInstance().invalidateAll();
     // verify that when an exception is thrown, the original value is returned
     try( MockedStatic<KettleVFS> mockedKettleVFS = mockStatic( KettleVFS.class ) ) {
       mockedKettleVFS.when( () -> KettleVFS.getInstance( Mockito.<Bowl>any() ) ).thenReturn( vfs );
@@ -117,6 +123,18 @@ public class KettleAnalyzerUtilTest {
     }
   }
 
+  @Test
+  public void testNormalizeFilePathIsMemoized() throws Exception {
+    final String path = "temp/memoized";
+    final String normalized = KettleAnalyzerUtil.normalizeFilePath( DefaultBowl.getInstance(), path );
+
+    try( MockedStatic<KettleVFS> mockedKettleVFS = mockStatic( KettleVFS.class ) ) {
+      // served from the cache, VFS is not consulted again
+      assertEquals( normalized, KettleAnalyzerUtil.normalizeFilePath( DefaultBowl.getInstance(), path ) );
+      mockedKettleVFS.verify( () -> KettleVFS.getInstance( Mockito.<Bowl>any() ), Mockito.never() );
+    }
+  }
+
   @Test
   public void tesBuildDocument() throws MetaverseException {
     final IMetaverseBuilder builder = new BaseMetaverseBuilder( null );
@@ -357,6 +375,50 @@ public class KettleAnalyzerUtilTest {
     }
   }
 
+  @Test
+  public void testGetSubJobMeta_variablesOfTheCaller() throws Exception {
+    final JobMeta jobMeta = new JobMeta();
+    jobMeta.setName( "cached" );
+    final File file = File.createTempFile( "KettleAnalyzerUtilTest", ".kjb" );
+    file.deleteOnExit();
+    Files.write( file.toPath(), jobMeta.getXML().getBytes( StandardCharsets.UTF_8 ) );
+
+    final Variables first = new Variables();
+    first.setVariable( "lineage.caller", "first" );
+    final Variables second = new Variables();
+    second.setVariable( "lineage.caller", "second" );
+
+    assertEquals( "first", KettleAnalyzerUtil.getSubJobMeta( DefaultBowl.getInstance(), first,
+      file.getAbsolutePath() ).getVariable( "lineage.caller" ) );
+    // served from the cache, with the variables of the second caller
+    final JobMeta cached = KettleAnalyzerUtil.getSubJobMeta( DefaultBowl.getInstance(), second,
+      file.getAbsolutePath() );
+    assertEquals( "cached", cached.getName() );
+    assertEquals( "second", cached.getVariable( "lineage.caller" ) );
+  }
+
+  @Test
+  public void testGetSubTransMeta_variablesInitializedAgain() throws Exception {
+    final TransMeta transMeta = new TransMeta();
+    transMeta.setName( "cached" );
+    final File file = File.createTempFile( "KettleAnalyzerUtilTest", ".ktr" );
+    file.deleteOnExit();
+    Files.write( file.toPath(), transMeta.getXML().getBytes( StandardCharsets.UTF_8 ) );
+
+    final String property = "lineage.KettleAnalyzerUtilTest";
+    try {
+      System.setProperty( property, "first" );
+      assertEquals( "first", KettleAnalyzerUtil.getSubTransMeta( file.getAbsolutePath() ).getVariable( property ) );
+      // served from the cache, with the variables a load would give it now
+      System.setProperty( property, "second" );
+      final TransMeta cached = KettleAnalyzerUtil.getSubTransMeta( file.getAbsolutePath() );
+      assertEquals( "cached", cached.getName() );
+      assertEquals( "second", cached.getVariable( property ) );
+    } finally {
+      System.clearProperty( property );
+    }
+  }
+
   private IExternalResourceInfo initMocksForGetResourcesFromRowTest( String filename, BaseFileInputStep step ) {
     StepMeta stepMeta = mock( StepMeta.class );
     TransMeta transMeta = mock( TransMeta.class );
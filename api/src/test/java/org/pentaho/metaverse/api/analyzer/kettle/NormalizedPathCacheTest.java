@@ -0,0 +1,87 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.api.analyzer.kettle;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.bowl.Bowl;
+import org.pentaho.di.core.bowl.DefaultBowl;
+import org.pentaho.metaverse.api.IMetaverseConfig;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class NormalizedPathCacheTest {
+
+  private NormalizedPathCache testInstance;
+
+  @Before
+  public void setup() {
+    testInstance = new NormalizedPathCache( null );
+  }
+
+  @Test
+  public void test_getInstance() {
+    assertNotNull( NormalizedPathCache.getInstance() );
+    // verify that we have a singleton
+    assertEquals( NormalizedPathCache.getInstance(), NormalizedPathCache.getInstance() );
+  }
+
+  @Test
+  public void test_getCacheMaxSize() {
+    assertEquals( NormalizedPathCache.DEFAULT_MAX_SIZE, testInstance.getCacheMaxSize( null ) );
+    IMetaverseConfig config = mock( IMetaverseConfig.class );
+    when( config.getNormalizedPathCacheSize() ).thenReturn( "25" );
+    assertEquals( 25L, testInstance.getCacheMaxSize( config ) );
+  }
+
+  @Test
+  public void test_caching() {
+    final Bowl bowl = DefaultBowl.getInstance();
+    final Bowl otherBowl = mock( Bowl.class );
+
+    assertNull( testInstance.get( bowl, null ) );
+    assertNull( testInstance.get( bowl, "foo" ) );
+    assertEquals( 0, testInstance.getHitCount() );
+    assertEquals( 1, testInstance.getMissCount() );
+
+    testInstance.cache( bowl, "foo", "/tmp/foo" );
+    testInstance.cache( bowl, null, "/tmp/bar" );
+    testInstance.cache( bowl, "bar", null );
+    assertEquals( 1, testInstance.size() );
+
+    assertEquals( "/tmp/foo", testInstance.get( bowl, "foo" ) );
+    // the same raw path in a different bowl is a different entry
+    assertNull( testInstance.get( otherBowl, "foo" ) );
+    assertEquals( 1, testInstance.getHitCount() );
+    assertEquals( 2, testInstance.getMissCount() );
+    assertEquals( 1d / 3d, testInstance.getHitRate(), 0.0001 );
+
+    testInstance.invalidateAll();
+    assertEquals( 0, testInstance.size() );
+    assertNull( testInstance.get( bowl, "foo" ) );
+  }
+
+  @Test
+  public void test_maxSize() {
+    testInstance.initCache( 2 );
+    testInstance.cache( null, "a", "/a" );
+    testInstance.cache( null, "b", "/b" );
+    testInstance.cache( null, "c", "/c" );
+    assertEquals( 2, testInstance.size() );
+  }
+}
@@ -0,0 +1,194 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.api.analyzer.kettle;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.pentaho.di.core.KettleClientEnvironment;
+import org.pentaho.di.core.ProgressMonitorListener;
+import org.pentaho.di.core.ProgressNullMonitorListener;
+import org.pentaho.di.core.exception.KettleStepException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.trans.TransHopMeta;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.trans.steps.dummytrans.DummyTransMeta;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RowMetaMemoTest {
+
+  private static final int STEPS = 500;
+
+  private final AtomicInteger stepFieldsCalls = new AtomicInteger();
+
+  private TransMeta transMeta;
+
+  private List<StepMeta> steps;
+
+  @BeforeClass
+  public static void setUpClass() throws Exception {
+    KettleClientEnvironment.init();
+  }
+
+  @Before
+  public void setUp() {
+    // counts every resolution of a step layout, including the ones the transformation makes recursively
+    transMeta = new TransMeta() {
+      @Override
+      public RowMetaInterface getStepFields( final StepMeta stepMeta, final StepMeta targetStep,
+                                             final ProgressMonitorListener monitor ) throws KettleStepException {
+        stepFieldsCalls.incrementAndGet();
+        return super.getStepFields( stepMeta, targetStep, monitor );
+      }
+    };
+    steps = new ArrayList<>();
+    for ( int i = 0; i < STEPS; i++ ) {
+      final StepMeta stepMeta = new StepMeta( "step" + i, new DummyTransMeta() );
+      transMeta.addStep( stepMeta );
+      if ( i > 0 ) {
+        transMeta.addTransHop( new TransHopMeta( steps.get( i - 1 ), stepMeta ) );
+      }
+      steps.add( stepMeta );
+    }
+  }
+
+  @After
+  public void tearDown() {
+    RowMetaMemo.close( RowMetaMemo.get( transMeta ) );
+  }
+
+  @Test
+  public void testOpenClose() {
+    assertNull( RowMetaMemo.get( transMeta ) );
+    assertNull( RowMetaMemo.get( null ) );
+    assertNull( RowMetaMemo.open( null ) );
+
+    final RowMetaMemo memo = RowMetaMemo.open( transMeta );
+    assertSame( memo, RowMetaMemo.get( transMeta ) );
+    RowMetaMemo.close( memo );
+    assertNull( RowMetaMemo.get( transMeta ) );
+    RowMetaMemo.close( null );
+    assertNotSame( memo, RowMetaMemo.open( transMeta ) );
+  }
+
+  @Test
+  public void testSupersededAnalysis() throws Exception {
+    final StepMeta second = steps.get( 1 );
+    final RowMetaMemo superseded = RowMetaMemo.open( transMeta );
+    assertArrayEquals( new String[] { "step0" }, superseded.getPrevStepNames( second ) );
+
+    // the transformation changes while the first analysis is still running, and is analyzed again
+    final StepMeta extra = new StepMeta( "extra", new DummyTransMeta() );
+    transMeta.addStep( extra );
+    transMeta.addTransHop( new TransHopMeta( extra, second ) );
+    final RowMetaMemo memo = RowMetaMemo.open( transMeta );
+    assertNotSame( superseded, memo );
+    assertSame( memo, RowMetaMemo.get( transMeta ) );
+    assertEquals( 2, memo.getPrevStepNames( second ).length );
+
+    // the first analysis finishing doesn't close the memo of the second one
+    RowMetaMemo.close( superseded );
+    assertSame( memo, RowMetaMemo.get( transMeta ) );
+    RowMetaMemo.close( memo );
+    assertNull( RowMetaMemo.get( transMeta ) );
+  }
+
+  @Test
+  public void testSameFieldsAsTransMeta() throws Exception {
+    final StepMeta first = steps.get( 0 );
+    final StepMeta second = steps.get( 1 );
+    final StepMeta last = steps.get( STEPS - 1 );
+    final RowMetaMemo memo = RowMetaMemo.open( transMeta );
+
+    assertArrayEquals( transMeta.getStepFields( last ).getFieldNames(),
+      memo.getStepFields( last ).getFieldNames() );
+    assertArrayEquals( transMeta.getPrevStepFields( last ).getFieldNames(),
+      memo.getPrevStepFields( last ).getFieldNames() );
+    assertArrayEquals( transMeta.getPrevStepFields( second, first.getName(), null ).getFieldNames(),
+      memo.getPrevStepFields( second, first.getName() ).getFieldNames() );
+    assertEquals( 0, memo.getPrevStepFields( first ).size() );
+  }
+
+  @Test
+  public void testCopies() throws Exception {
+    final StepMeta last = steps.get( STEPS - 1 );
+    final RowMetaMemo memo = RowMetaMemo.open( transMeta );
+    final RowMetaInterface fields = memo.getStepFields( last );
+    fields.addValueMeta( new ValueMetaString( "added" ) );
+    assertNull( memo.getStepFields( last ).searchValueMeta( "added" ) );
+    assertNotNull( memo.getPrevStepFields( last ) );
+  }
+
+  @Test
+  public void testChainedSteps() throws Exception {
+    // what every step analyzer used to do: resolve the input fields of its step, then the output fields
+    for ( final StepMeta stepMeta : steps ) {
+      transMeta.getPrevStepFields( stepMeta, new ProgressNullMonitorListener() );
+      transMeta.getStepFields( stepMeta, new ProgressNullMonitorListener() );
+    }
+    final int withoutMemo = stepFieldsCalls.getAndSet( 0 );
+
+    final RowMetaMemo memo = RowMetaMemo.open( transMeta );
+    for ( final StepMeta stepMeta : steps ) {
+      memo.getPrevStepFields( stepMeta );
+      memo.getStepFields( stepMeta );
+    }
+    final int withMemo = stepFieldsCalls.getAndSet( 0 );
+
+    // every layout is resolved once, instead of every step resolving all the layouts upstream of it
+    assertTrue( "resolved " + withMemo + " layouts", withMemo <= 5 * STEPS );
+    assertTrue( "resolved " + withoutMemo + " layouts", withoutMemo >= STEPS * ( STEPS - 1 ) / 2 );
+
+    // resolving them again doesn't go back to the transformation
+    for ( int i = 1; i < STEPS; i++ ) {
+      memo.getPrevStepFields( steps.get( i ) );
+      memo.getStepFields( steps.get( i ) );
+      memo.getPrevStepFields( steps.get( i ), steps.get( i - 1 ).getName() );
+    }
+    assertEquals( 0, stepFieldsCalls.get() );
+    assertEquals( Arrays.asList( steps.get( 0 ) ), transMeta.getPreviousSteps( steps.get( 1 ) ) );
+  }
+
+  @Test
+  public void testResolve() throws Exception {
+    final RowMetaMemo memo = RowMetaMemo.open( transMeta );
+    for ( final StepMeta stepMeta : steps ) {
+      memo.resolve( stepMeta );
+    }
+    assertTrue( stepFieldsCalls.getAndSet( 0 ) > 0 );
+
+    // the step analyzers only read what was resolved
+    for ( int i = 1; i < STEPS; i++ ) {
+      memo.getPrevStepFields( steps.get( i ) );
+      memo.getStepFields( steps.get( i ) );
+      memo.getPrevStepFields( steps.get( i ), steps.get( i - 1 ).getName() );
+    }
+    assertEquals( 0, stepFieldsCalls.get() );
+  }
+}
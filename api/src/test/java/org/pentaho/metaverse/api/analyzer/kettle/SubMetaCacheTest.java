@@ -0,0 +1,153 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.api.analyzer.kettle;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.job.JobMeta;
+import org.pentaho.di.repository.ObjectId;
+import org.pentaho.di.repository.Repository;
+import org.pentaho.di.repository.RepositoryObject;
+import org.pentaho.di.repository.RepositoryObjectType;
+import org.pentaho.di.repository.StringObjectId;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.metaverse.api.IMetaverseConfig;
+
+import java.io.File;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SubMetaCacheTest {
+
+  private SubMetaCache testInstance;
+
+  @Before
+  public void setup() {
+    testInstance = new SubMetaCache( null );
+  }
+
+  @Test
+  public void test_getInstance() {
+    assertNotNull( SubMetaCache.getInstance() );
+    // verify that we have a singleton
+    assertEquals( SubMetaCache.getInstance(), SubMetaCache.getInstance() );
+  }
+
+  @Test
+  public void test_getCacheMaxSize() {
+    assertEquals( SubMetaCache.DEFAULT_MAX_SIZE, testInstance.getCacheMaxSize( null ) );
+    IMetaverseConfig config = mock( IMetaverseConfig.class );
+    when( config.getSubMetaCacheSize() ).thenReturn( "5" );
+    assertEquals( 5L, testInstance.getCacheMaxSize( config ) );
+  }
+
+  @Test
+  public void test_caching() {
+    final TransMeta transMeta = new TransMeta();
+    transMeta.setName( "child" );
+
+    testInstance.cache( "file:/tmp/child.ktr", 10L, transMeta );
+    // the cached value is a copy, later changes to the original are not visible
+    transMeta.setName( "renamed" );
+
+    final TransMeta cached = testInstance.getTransMeta( "file:/tmp/child.ktr", 10L );
+    assertNotNull( cached );
+    assertNotSame( transMeta, cached );
+    assertEquals( "child", cached.getName() );
+    // every caller gets its own copy
+    assertNotSame( cached, testInstance.getTransMeta( "file:/tmp/child.ktr", 10L ) );
+    // not a job
+    assertNull( testInstance.getJobMeta( "file:/tmp/child.ktr", 10L ) );
+    assertEquals( 3, testInstance.getHitCount() );
+
+    // the source was modified, the entry is dropped
+    assertNull( testInstance.getTransMeta( "file:/tmp/child.ktr", 11L ) );
+    assertEquals( 0, testInstance.size() );
+  }
+
+  @Test
+  public void test_unknownKeyOrStampIsNotCached() {
+    final JobMeta jobMeta = new JobMeta();
+    testInstance.cache( null, 10L, jobMeta );
+    testInstance.cache( "file:/tmp/child.kjb", SubMetaCache.UNKNOWN_STAMP, jobMeta );
+    assertEquals( 0, testInstance.size() );
+
+    testInstance.cache( "file:/tmp/child.kjb", 10L, jobMeta );
+    assertNotNull( testInstance.getJobMeta( "file:/tmp/child.kjb", 10L ) );
+    assertNull( testInstance.getJobMeta( "file:/tmp/child.kjb", SubMetaCache.UNKNOWN_STAMP ) );
+    assertNull( testInstance.getJobMeta( null, 10L ) );
+  }
+
+  @Test
+  public void test_maxSize() {
+    testInstance.initCache( 1 );
+    testInstance.cache( "a", 1L, new TransMeta() );
+    testInstance.cache( "b", 1L, new TransMeta() );
+    assertEquals( 1, testInstance.size() );
+  }
+
+  @Test
+  public void test_keysAndStamps() throws Exception {
+    assertNull( SubMetaCache.getFileKey( null ) );
+    assertEquals( "file:/tmp/child.ktr", SubMetaCache.getFileKey( "/tmp/child.ktr" ) );
+    // the same file, however it is referred to
+    assertEquals( "file:/tmp/child.ktr", SubMetaCache.getFileKey( "file:///tmp/child.ktr" ) );
+
+    File file = File.createTempFile( "child", ".ktr" );
+    file.deleteOnExit();
+    assertEquals( file.lastModified(), SubMetaCache.getFileStamp( file.getAbsolutePath() ) );
+    assertEquals( SubMetaCache.UNKNOWN_STAMP, SubMetaCache.getFileStamp( "/not/a/real/file.ktr" ) );
+    assertEquals( SubMetaCache.UNKNOWN_STAMP, SubMetaCache.getFileStamp( null ) );
+
+    Repository repo = mock( Repository.class );
+    when( repo.getName() ).thenReturn( "myRepo" );
+    ObjectId objectId = new StringObjectId( "1234" );
+    assertNull( SubMetaCache.getRepositoryKey( repo, null ) );
+    assertEquals( "repo:myRepo:1234", SubMetaCache.getRepositoryKey( repo, objectId ) );
+
+    assertEquals( SubMetaCache.UNKNOWN_STAMP,
+      SubMetaCache.getRepositoryStamp( repo, objectId, RepositoryObjectType.TRANSFORMATION ) );
+    RepositoryObject info = mock( RepositoryObject.class );
+    when( info.getModifiedDate() ).thenReturn( new Date( 42L ) );
+    doReturn( info ).when( repo ).getObjectInformation( objectId, RepositoryObjectType.TRANSFORMATION );
+    assertEquals( 42L, SubMetaCache.getRepositoryStamp( repo, objectId, RepositoryObjectType.TRANSFORMATION ) );
+  }
+
+  @Test
+  public void test_repositoryLoadsAreShared() throws Exception {
+    SubMetaCache.getInstance().invalidateAll();
+    Repository repo = mock( Repository.class );
+    when( repo.getName() ).thenReturn( "myRepo" );
+    ObjectId objectId = new StringObjectId( "5678" );
+    RepositoryObject info = mock( RepositoryObject.class );
+    when( info.getModifiedDate() ).thenReturn( new Date( 42L ) );
+    doReturn( info ).when( repo ).getObjectInformation( objectId, RepositoryObjectType.TRANSFORMATION );
+    TransMeta child = new TransMeta();
+    child.setName( "child" );
+    when( repo.loadTransformation( objectId, null ) ).thenReturn( child );
+
+    assertEquals( "child", KettleAnalyzerUtil.loadTransformation( repo, objectId ).getName() );
+    assertEquals( "child", KettleAnalyzerUtil.loadTransformation( repo, objectId ).getName() );
+    verify( repo, times( 1 ) ).loadTransformation( objectId, null );
+  }
+}
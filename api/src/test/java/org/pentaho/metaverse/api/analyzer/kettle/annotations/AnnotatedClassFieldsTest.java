@@ -16,6 +16,7 @@ package org.pentaho.metaverse.api.analyzer.kettle.annotations;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.pentaho.di.core.KettleClientEnvironment;
+import org.pentaho.di.core.injection.InjectionDeep;
 import org.pentaho.di.core.plugins.PluginRegistry;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.value.ValueMetaPluginType;
@@ -43,9 +44,29 @@ public class AnnotatedClassFieldsTest {
     assertThat( fields.links().count(), equalTo( 1L ) );
   }
 
+  @Test public void testHasMetaverseAnnotations() {
+    assertThat( fields.hasMetaverseAnnotations(), equalTo( true ) );
+    assertThat( new AnnotatedClassFields( "plain", null ).hasMetaverseAnnotations(), equalTo( false ) );
+
+    Nesting nesting = new Nesting();
+    assertThat( new AnnotatedClassFields( nesting, null ).hasMetaverseAnnotations(), equalTo( false ) );
+    nesting.nested = new Nested();
+    assertThat( new AnnotatedClassFields( nesting, null ).hasMetaverseAnnotations(), equalTo( true ) );
+  }
+
   @Test public void testGetNode() {
     assertThat( fields.node( "test_name" ).isPresent(), equalTo( true ) );
     assertThat( fields.node( "test_name" ).get().annotation.type(), equalTo( "test_type" ) );
     assertThat( fields.node( "test_name" ).get().val(), equalTo( "ServernameOrWhatever" ) );
   }
+
+  public static class Nesting {
+    @InjectionDeep
+    public Nested nested;
+  }
+
+  public static class Nested {
+    @Metaverse.Property( name = "nestedProperty" )
+    public String property = "value";
+  }
 }
@@ -13,6 +13,8 @@
 
 package org.pentaho.metaverse.api.analyzer.kettle.step;
 
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
 import org.apache.commons.collections.CollectionUtils;
 import org.junit.Before;
 import org.junit.Test;
@@ -38,11 +40,13 @@ import org.pentaho.metaverse.api.MetaverseAnalyzerException;
 import org.pentaho.metaverse.api.MetaverseObjectFactory;
 import org.pentaho.metaverse.api.StepField;
 import org.pentaho.metaverse.api.analyzer.kettle.ComponentDerivationRecord;
+import org.pentaho.metaverse.api.model.BaseMetaverseBuilder;
 import org.pentaho.metaverse.api.model.Operation;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -843,4 +847,38 @@ public class StepAnalyzerTest {
     verify( analyzer, times( changeRecords.size() ) ).mapChange( any( ComponentDerivationRecord.class ) );
     verify( analyzer ).customAnalyze( baseStepMeta, analyzedNode );
   }
+
+  @Test
+  public void testFindStepVertex_indexedGraph() throws Exception {
+    final TinkerGraph graph = new TinkerGraph();
+    // the builder indexes the lookup keys of the graph
+    new BaseMetaverseBuilder( graph );
+    doReturn( graph ).when( builder ).getGraph();
+    when( parentTransMeta.getFilename() ).thenReturn( "/lineage/parent.ktr" );
+
+    final Vertex parentStep = addStepVertex( graph, "/lineage/parent.ktr", "step" );
+    addStepVertex( graph, "/lineage/parent.ktr", "other step" );
+    addStepVertex( graph, "/lineage/sub.ktr", "step" );
+
+    assertEquals( parentStep, analyzer.findStepVertex( parentTransMeta, "step" ) );
+    assertNull( analyzer.findStepVertex( parentTransMeta, "missing step" ) );
+    assertEquals( 2, analyzer.findStepVertices( parentTransMeta, null ).size() );
+    assertEquals( parentStep, analyzer.findVertexById( (String) parentStep.getId() ) );
+    assertNull( analyzer.findVertexById( null ) );
+  }
+
+  private Vertex addStepVertex( final TinkerGraph graph, final String transPath, final String stepName ) {
+    final Iterator<Vertex> transVertices = graph.getVertices( DictionaryConst.PROPERTY_PATH, transPath ).iterator();
+    Vertex transVertex = transVertices.hasNext() ? transVertices.next() : null;
+    if ( transVertex == null ) {
+      transVertex = graph.addVertex( null );
+      transVertex.setProperty( DictionaryConst.PROPERTY_TYPE, DictionaryConst.NODE_TYPE_TRANS );
+      transVertex.setProperty( DictionaryConst.PROPERTY_PATH, transPath );
+    }
+    final Vertex stepVertex = graph.addVertex( null );
+    stepVertex.setProperty( DictionaryConst.PROPERTY_TYPE, DictionaryConst.NODE_TYPE_TRANS_STEP );
+    stepVertex.setProperty( DictionaryConst.PROPERTY_NAME, stepName );
+    graph.addEdge( null, transVertex, stepVertex, DictionaryConst.LINK_CONTAINS );
+    return stepVertex;
+  }
 }
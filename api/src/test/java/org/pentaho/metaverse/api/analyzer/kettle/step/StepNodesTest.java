@@ -15,11 +15,14 @@ package org.pentaho.metaverse.api.analyzer.kettle.step;
 
 import org.junit.Assert;
 import org.junit.Test;
+import org.pentaho.metaverse.api.IMetaverseNode;
 
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
 
 public class StepNodesTest {
 
@@ -34,4 +37,18 @@ public class StepNodesTest {
     assertTrue( map.containsKey( "FOO" ) );
     assertTrue( map.containsKey( "foo" ) );
   }
+
+  @Test
+  public void testContainsFieldName() {
+    final StepNodes stepNodes = new StepNodes();
+    assertFalse( stepNodes.containsFieldName( "name" ) );
+
+    stepNodes.addNode( "step1", "name", mock( IMetaverseNode.class ) );
+    stepNodes.addNode( "step2", "Address", mock( IMetaverseNode.class ) );
+    assertTrue( stepNodes.containsFieldName( "name" ) );
+    assertTrue( stepNodes.containsFieldName( "Address" ) );
+    // unlike the node lookups, the field name match is exact
+    assertFalse( stepNodes.containsFieldName( "address" ) );
+    assertFalse( stepNodes.containsFieldName( "step1" ) );
+  }
 }
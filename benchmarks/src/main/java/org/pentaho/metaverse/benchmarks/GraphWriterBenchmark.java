@@ -0,0 +1,146 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.benchmarks;
+
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.util.GraphHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pentaho.metaverse.graph.BaseGraphWriter;
+import org.pentaho.metaverse.graph.GraphCsvWriter;
+import org.pentaho.metaverse.graph.GraphMLWriter;
+import org.pentaho.metaverse.graph.GraphSONWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adjusts and writes the lineage graph of synthetic transformations. The writers are given a graph that was adjusted
+ * already, their own adjustment pass then only looks for what to change, and they write to a stream that only counts
+ * the bytes.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+public class GraphWriterBenchmark {
+
+  @Param( { "10", "100" } )
+  public int transformations;
+
+  @Param( { "20" } )
+  public int steps;
+
+  private Graph lineageGraph;
+
+  private Graph adjustedGraph;
+
+  private Graph graphToAdjust;
+
+  private final GraphMLWriter graphMLWriter = new GraphMLWriter();
+
+  private final GraphSONWriter graphSONWriter = new GraphSONWriter();
+
+  private final GraphCsvWriter graphCsvWriter = new GraphCsvWriter();
+
+  @Setup
+  public void setUp() throws Exception {
+    SyntheticLineage.init();
+    lineageGraph = SyntheticLineage.createLineageGraph( transformations, steps );
+    adjustedGraph = copy( lineageGraph );
+    BaseGraphWriter.adjustGraph( adjustedGraph );
+  }
+
+  /**
+   * The adjustment changes the graph, every invocation adjusts a new copy of the analyzed graph
+   */
+  @Setup( Level.Invocation )
+  public void copyLineageGraph() {
+    graphToAdjust = copy( lineageGraph );
+  }
+
+  @Benchmark
+  public Graph adjustGraph() {
+    BaseGraphWriter.adjustGraph( graphToAdjust );
+    return graphToAdjust;
+  }
+
+  @Benchmark
+  public long writeGraphML() throws IOException {
+    return write( graphMLWriter );
+  }
+
+  @Benchmark
+  public long writeGraphMLDeterministic() throws IOException {
+    graphMLWriter.setDeterministicOrder( true );
+    try {
+      return write( graphMLWriter );
+    } finally {
+      graphMLWriter.setDeterministicOrder( false );
+    }
+  }
+
+  @Benchmark
+  public long writeGraphSON() throws IOException {
+    return write( graphSONWriter );
+  }
+
+  @Benchmark
+  public long writeCsv() throws IOException {
+    return write( graphCsvWriter );
+  }
+
+  private long write( final BaseGraphWriter writer ) throws IOException {
+    final CountingOutputStream out = new CountingOutputStream();
+    writer.outputGraph( adjustedGraph, out );
+    return out.count;
+  }
+
+  private static Graph copy( final Graph graph ) {
+    final Graph copy = new TinkerGraph();
+    GraphHelper.copyGraph( graph, copy );
+    return copy;
+  }
+
+  /**
+   * Discards what is written, counting the bytes so that the writing can't be optimized away
+   */
+  private static class CountingOutputStream extends OutputStream {
+    private long count;
+
+    @Override
+    public void write( final int b ) {
+      count++;
+    }
+
+    @Override
+    public void write( final byte[] b, final int off, final int len ) {
+      count += len;
+    }
+  }
+}
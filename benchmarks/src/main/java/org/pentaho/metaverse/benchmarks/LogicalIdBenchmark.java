@@ -0,0 +1,90 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pentaho.dictionary.DictionaryConst;
+import org.pentaho.metaverse.api.ILogicalIdGenerator;
+import org.pentaho.metaverse.api.MetaverseLogicalIdGenerator;
+import org.pentaho.metaverse.api.PropertiesHolder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates the logical id of a step field with {@link MetaverseLogicalIdGenerator#generateId}, its namespace being
+ * the logical id of its step, which is itself nested in the logical id of the transformation.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+public class LogicalIdBenchmark {
+
+  private final ILogicalIdGenerator defaultGenerator = DictionaryConst.LOGICAL_ID_GENERATOR_DEFAULT;
+
+  private final ILogicalIdGenerator targetAwareGenerator = DictionaryConst.LOGICAL_ID_GENERATOR_TARGET_AWARE;
+
+  private PropertiesHolder field;
+
+  private PropertiesHolder escapedField;
+
+  @Setup
+  public void setUp() {
+    final PropertiesHolder trans = new PropertiesHolder();
+    trans.setProperty( DictionaryConst.PROPERTY_NAMESPACE, SyntheticLineage.NAMESPACE );
+    trans.setProperty( DictionaryConst.PROPERTY_TYPE, DictionaryConst.NODE_TYPE_TRANS );
+    trans.setProperty( DictionaryConst.PROPERTY_PATH, "/home/etl/transformations/trans_0.ktr" );
+    final PropertiesHolder step = new PropertiesHolder();
+    step.setProperty( DictionaryConst.PROPERTY_NAMESPACE,
+      DictionaryConst.LOGICAL_ID_GENERATOR_DOCUMENT.generateId( trans ) );
+    step.setProperty( DictionaryConst.PROPERTY_TYPE, DictionaryConst.NODE_TYPE_TRANS_STEP );
+    step.setProperty( DictionaryConst.PROPERTY_NAME, "trans_0_step_0" );
+
+    field = new PropertiesHolder();
+    field.setProperty( DictionaryConst.PROPERTY_NAMESPACE, defaultGenerator.generateId( step ) );
+    field.setProperty( DictionaryConst.PROPERTY_TYPE, DictionaryConst.NODE_TYPE_TRANS_FIELD );
+    field.setProperty( DictionaryConst.PROPERTY_NAME, "trans_0_step_0_field" );
+    field.setProperty( DictionaryConst.PROPERTY_TARGET_STEP, "trans_0_step_1" );
+
+    escapedField = new PropertiesHolder();
+    escapedField.setProperties( field.getProperties() );
+    escapedField.setProperty( DictionaryConst.PROPERTY_NAME, "\"quoted\" field\\with\ttabs" );
+  }
+
+  @Benchmark
+  public String generateId() {
+    return defaultGenerator.generateId( field );
+  }
+
+  @Benchmark
+  public String generateTargetAwareId() {
+    return targetAwareGenerator.generateId( field );
+  }
+
+  @Benchmark
+  public String generateEscapedId() {
+    return defaultGenerator.generateId( escapedField );
+  }
+}
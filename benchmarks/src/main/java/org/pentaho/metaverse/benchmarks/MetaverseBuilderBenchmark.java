@@ -0,0 +1,91 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.benchmarks;
+
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pentaho.dictionary.DictionaryConst;
+import org.pentaho.metaverse.api.IMetaverseNode;
+import org.pentaho.metaverse.api.Namespace;
+import org.pentaho.metaverse.impl.MetaverseBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Links field nodes into a graph through {@link MetaverseBuilder#addLink(IMetaverseNode, String, IMetaverseNode)},
+ * every node deriving the next one.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+public class MetaverseBuilderBenchmark {
+
+  @Param( { "1000", "10000" } )
+  public int nodes;
+
+  private IMetaverseNode[] fieldNodes;
+
+  private MetaverseBuilder linkedBuilder;
+
+  @Setup
+  public void setUp() {
+    final MetaverseBuilder factory = new MetaverseBuilder( new TinkerGraph() );
+    final Namespace namespace = new Namespace( SyntheticLineage.NAMESPACE );
+    fieldNodes = new IMetaverseNode[ nodes ];
+    for ( int i = 0; i < nodes; i++ ) {
+      fieldNodes[ i ] = factory.createNodeObject( namespace, "field_" + i, DictionaryConst.NODE_TYPE_TRANS_FIELD );
+    }
+    linkedBuilder = new MetaverseBuilder( new TinkerGraph() );
+    linkAll( linkedBuilder );
+  }
+
+  /**
+   * Links the nodes into an empty graph, which adds every vertex and edge
+   */
+  @Benchmark
+  public Graph addLinks() {
+    final MetaverseBuilder builder = new MetaverseBuilder( new TinkerGraph() );
+    linkAll( builder );
+    return builder.getGraph();
+  }
+
+  /**
+   * Links the nodes again into a graph that has all the links, which finds and updates the vertices and edges
+   */
+  @Benchmark
+  public Graph addExistingLinks() {
+    linkAll( linkedBuilder );
+    return linkedBuilder.getGraph();
+  }
+
+  private void linkAll( final MetaverseBuilder builder ) {
+    for ( int i = 1; i < fieldNodes.length; i++ ) {
+      builder.addLink( fieldNodes[ i - 1 ], DictionaryConst.LINK_DERIVES, fieldNodes[ i ] );
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.benchmarks;
+
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.BaseStepMeta;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.dictionary.DictionaryConst;
+import org.pentaho.metaverse.analyzer.kettle.step.GenericStepMetaAnalyzer;
+import org.pentaho.metaverse.api.IComponentDescriptor;
+import org.pentaho.metaverse.api.IMetaverseNode;
+import org.pentaho.metaverse.api.MetaverseComponentDescriptor;
+import org.pentaho.metaverse.api.Namespace;
+import org.pentaho.metaverse.api.analyzer.kettle.RowMetaMemo;
+import org.pentaho.metaverse.api.analyzer.kettle.step.StepAnalyzer;
+import org.pentaho.metaverse.api.analyzer.kettle.step.StepNodes;
+import org.pentaho.metaverse.impl.MetaverseBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Links the input fields of the last step of a synthetic transformation to it through
+ * {@link StepAnalyzer#processInputs}, the step reading one field from each step before it. The row layouts are
+ * either remembered by the {@link RowMetaMemo} of the transformation, as they are during its analysis, or resolved
+ * by the transformation every time.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+public class StepAnalyzerBenchmark {
+
+  @Param( { "10", "100" } )
+  public int steps;
+
+  @Param( { "true", "false" } )
+  public boolean rowMetaMemo;
+
+  private TransMeta transMeta;
+
+  private RowMetaMemo memo;
+
+  private BaseStepMeta lastStepMeta;
+
+  private InputsStepAnalyzer analyzer;
+
+  @Setup
+  public void setUp() throws Exception {
+    SyntheticLineage.init();
+    transMeta = SyntheticLineage.createTransMeta( "trans", steps );
+    if ( rowMetaMemo ) {
+      memo = RowMetaMemo.open( transMeta );
+    }
+    final StepMeta lastStep = transMeta.getStep( steps - 1 );
+    lastStepMeta = (BaseStepMeta) lastStep.getStepMetaInterface();
+    lastStepMeta.setParentStepMeta( lastStep );
+    lastStep.setParentTransMeta( transMeta );
+
+    final MetaverseBuilder builder = new MetaverseBuilder( new TinkerGraph() );
+    final Namespace namespace = new Namespace( SyntheticLineage.NAMESPACE );
+    final IMetaverseNode transNode =
+      builder.createNodeObject( namespace, transMeta.getName(), DictionaryConst.NODE_TYPE_TRANS );
+    transNode.setLogicalIdGenerator( DictionaryConst.LOGICAL_ID_GENERATOR_DOCUMENT );
+    builder.addNode( transNode );
+    final IComponentDescriptor descriptor =
+      new MetaverseComponentDescriptor( lastStep.getName(), DictionaryConst.NODE_TYPE_TRANS_STEP, transNode );
+
+    // the analysis of the step sets the analyzer up, and writes the step and field vertices the inputs link
+    analyzer = new InputsStepAnalyzer();
+    analyzer.setMetaverseBuilder( builder );
+    analyzer.analyze( descriptor, lastStepMeta );
+  }
+
+  @TearDown
+  public void tearDown() {
+    RowMetaMemo.close( memo );
+  }
+
+  @Benchmark
+  public StepNodes processInputs() {
+    return analyzer.processInputs( lastStepMeta );
+  }
+
+  /**
+   * Exposes the inputs processing of the generic step analyzer
+   */
+  private static class InputsStepAnalyzer extends GenericStepMetaAnalyzer {
+    @Override
+    public StepNodes processInputs( final BaseStepMeta meta ) {
+      return super.processInputs( meta );
+    }
+  }
+}
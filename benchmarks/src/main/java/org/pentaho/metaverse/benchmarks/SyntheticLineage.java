@@ -0,0 +1,136 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.benchmarks;
+
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleStepException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.variables.VariableSpace;
+import org.pentaho.di.repository.Repository;
+import org.pentaho.di.trans.TransHopMeta;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.trans.steps.dummytrans.DummyTransMeta;
+import org.pentaho.dictionary.DictionaryConst;
+import org.pentaho.metastore.api.IMetaStore;
+import org.pentaho.metaverse.analyzer.kettle.TransformationAnalyzer;
+import org.pentaho.metaverse.api.IComponentDescriptor;
+import org.pentaho.metaverse.api.IMetaverseNode;
+import org.pentaho.metaverse.api.MetaverseAnalyzerException;
+import org.pentaho.metaverse.api.MetaverseComponentDescriptor;
+import org.pentaho.metaverse.api.Namespace;
+import org.pentaho.metaverse.impl.MetaverseBuilder;
+
+/**
+ * Builds the transformations and lineage graphs the benchmarks run on, in memory and of any size.
+ * <p/>
+ * A synthetic transformation is a chain of steps that each pass their input on and add a field named after
+ * themselves, so the n-th step reads n - 1 fields and outputs n. The steps are analyzed by the generic step analyzer,
+ * the same way steps without a dedicated analyzer are.
+ */
+public final class SyntheticLineage {
+
+  public static final String NAMESPACE = "benchmarks";
+
+  /**
+   * The plugin id of the steps, the steps are loaded back from XML as Dummy steps
+   */
+  private static final String STEP_ID = "Dummy";
+
+  private SyntheticLineage() {
+  }
+
+  /**
+   * Initializes the Kettle environment, which the steps need to resolve their plugins
+   */
+  public static synchronized void init() throws KettleException {
+    if ( !KettleEnvironment.isInitialized() ) {
+      KettleEnvironment.init();
+    }
+  }
+
+  /**
+   * @param name  the name of the transformation
+   * @param steps the number of steps in the chain
+   * @return a chain of steps each adding a field
+   */
+  public static TransMeta createTransMeta( final String name, final int steps ) {
+    final TransMeta transMeta = new TransMeta();
+    transMeta.setName( name );
+    StepMeta previous = null;
+    for ( int i = 0; i < steps; i++ ) {
+      final StepMeta stepMeta = new StepMeta( name + "_step_" + i, new FieldsMeta() );
+      stepMeta.setStepID( STEP_ID );
+      stepMeta.setLocation( i * 100, 100 );
+      transMeta.addStep( stepMeta );
+      if ( previous != null ) {
+        transMeta.addTransHop( new TransHopMeta( previous, stepMeta ) );
+      }
+      previous = stepMeta;
+    }
+    return transMeta;
+  }
+
+  /**
+   * Analyzes a transformation into the given graph, the way the document analysis of a .ktr file does
+   *
+   * @return the transformation vertex
+   */
+  public static IMetaverseNode analyze( final Graph graph, final TransMeta transMeta )
+    throws MetaverseAnalyzerException {
+    final MetaverseBuilder builder = new MetaverseBuilder( graph );
+    final TransformationAnalyzer analyzer = new TransformationAnalyzer();
+    analyzer.setMetaverseBuilder( builder );
+
+    final Namespace namespace = new Namespace( NAMESPACE );
+    final IComponentDescriptor descriptor =
+      new MetaverseComponentDescriptor( transMeta.getName(), DictionaryConst.NODE_TYPE_TRANS, namespace );
+    final IMetaverseNode transNode =
+      builder.createNodeObject( namespace, transMeta.getName(), DictionaryConst.NODE_TYPE_TRANS );
+    transNode.setLogicalIdGenerator( DictionaryConst.LOGICAL_ID_GENERATOR_DOCUMENT );
+    return analyzer.analyze( descriptor, transMeta, transNode, "/" + transMeta.getName() + ".ktr" );
+  }
+
+  /**
+   * @param transformations the number of transformations analyzed into the graph
+   * @param steps           the number of steps of each transformation
+   * @return the lineage graph of the transformations, before the writers adjust it
+   */
+  public static Graph createLineageGraph( final int transformations, final int steps )
+    throws MetaverseAnalyzerException {
+    final Graph graph = new TinkerGraph();
+    for ( int i = 0; i < transformations; i++ ) {
+      analyze( graph, createTransMeta( "trans_" + i, steps ) );
+    }
+    return graph;
+  }
+
+  /**
+   * Passes the rows on, adding a field named after the step
+   */
+  public static class FieldsMeta extends DummyTransMeta {
+    @Override
+    public void getFields( final RowMetaInterface inputRowMeta, final String name, final RowMetaInterface[] info,
+                           final StepMeta nextStep, final VariableSpace space, final Repository repository,
+                           final IMetaStore metaStore ) throws KettleStepException {
+      final ValueMetaString valueMeta = new ValueMetaString( name + "_field" );
+      valueMeta.setOrigin( name );
+      inputRowMeta.addValueMeta( valueMeta );
+    }
+  }
+}
@@ -20,14 +20,24 @@ import org.pentaho.metaverse.api.IDocument;
 import org.pentaho.metaverse.api.IMetaverseNode;
 import org.pentaho.metaverse.api.MetaverseAnalyzerException;
 import org.pentaho.metaverse.api.analyzer.kettle.BaseKettleMetaverseComponent;
+import org.pentaho.metaverse.api.analyzer.kettle.jobentry.IClonableJobEntryAnalyzer;
+import org.pentaho.metaverse.api.analyzer.kettle.step.IClonableStepAnalyzer;
 import org.pentaho.metaverse.messages.Messages;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Created by gmoran on 8/11/14.
  */
 public abstract class BaseDocumentAnalyzer extends BaseKettleMetaverseComponent
   implements IClonableDocumentAnalyzer<IMetaverseNode> {
 
+  /**
+   * Whether the step and job entry analyzers of each class are shared by all the components they analyze
+   */
+  private static final Map<Class<?>, Boolean> sharedAnalyzerClasses = new ConcurrentHashMap<>();
+
   /**
    * This method handles null checks for state validation
    *
@@ -78,6 +88,25 @@ public abstract class BaseDocumentAnalyzer extends BaseKettleMetaverseComponent
 
   }
 
+  /**
+   * Checks whether a step or job entry analyzer is shared by all the components it analyzes, either because it can't
+   * be cloned or because its clones are the analyzer itself. Components analyzed by a shared analyzer can't be
+   * analyzed concurrently. This is decided once per analyzer class.
+   *
+   * @param analyzer the step or job entry analyzer
+   * @return true if the analyzer is shared
+   */
+  protected static boolean isSharedAnalyzer( final Object analyzer ) {
+    return sharedAnalyzerClasses.computeIfAbsent( analyzer.getClass(), analyzerClass -> {
+      if ( analyzer instanceof IClonableStepAnalyzer ) {
+        return ( (IClonableStepAnalyzer) analyzer ).cloneAnalyzer() == analyzer;
+      } else if ( analyzer instanceof IClonableJobEntryAnalyzer ) {
+        return ( (IClonableJobEntryAnalyzer) analyzer ).cloneAnalyzer() == analyzer;
+      }
+      return true;
+    } );
+  }
+
   @Override
   public IClonableDocumentAnalyzer cloneAnalyzer() {
     final IClonableDocumentAnalyzer newInstance = newInstance();
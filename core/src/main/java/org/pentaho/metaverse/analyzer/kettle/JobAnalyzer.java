@@ -28,6 +28,7 @@ import org.pentaho.metaverse.analyzer.kettle.jobentry.JobEntryAnalyzerProvider;
 import org.pentaho.metaverse.api.IClonableDocumentAnalyzer;
 import org.pentaho.metaverse.api.IComponentDescriptor;
 import org.pentaho.metaverse.api.IDocument;
+import org.pentaho.metaverse.api.IMetaverseConfig;
 import org.pentaho.metaverse.api.IMetaverseNode;
 import org.pentaho.metaverse.api.INamespace;
 import org.pentaho.metaverse.api.MetaverseAnalyzerException;
@@ -39,15 +40,20 @@ import org.pentaho.metaverse.api.analyzer.kettle.annotations.AnnotationDrivenJob
 import org.pentaho.metaverse.api.analyzer.kettle.jobentry.IClonableJobEntryAnalyzer;
 import org.pentaho.metaverse.api.analyzer.kettle.jobentry.IJobEntryAnalyzer;
 import org.pentaho.metaverse.api.analyzer.kettle.jobentry.IJobEntryAnalyzerProvider;
+import org.pentaho.metaverse.api.model.BaseSynchronizedGraph;
+import org.pentaho.metaverse.impl.MetaverseConfig;
+import org.pentaho.metaverse.impl.ParallelTaskRunner;
 import org.pentaho.metaverse.messages.Messages;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -69,8 +75,10 @@ public class JobAnalyzer extends BaseDocumentAnalyzer {
 
   private static final Logger log = LoggerFactory.getLogger( JobAnalyzer.class );
 
+  private static final String JOB_ENTRY_ANALYSIS_THREAD_NAME = "lineage-job-entry-analysis";
+
   @Override
-  public synchronized IMetaverseNode analyze( IComponentDescriptor descriptor, IDocument document )
+  public IMetaverseNode analyze( IComponentDescriptor descriptor, IDocument document )
     throws MetaverseAnalyzerException {
 
     validateState( document );
@@ -110,12 +118,34 @@ public class JobAnalyzer extends BaseDocumentAnalyzer {
       (String) document.getProperty( DictionaryConst.PROPERTY_PATH ) );
   }
 
+  /**
+   * Analyzes the job. The analyses of this analyzer run one at a time, unless the entries are analyzed concurrently,
+   * see {@link #getJobEntryAnalysisRunner()}.
+   */
   @Override
-  public synchronized IMetaverseNode analyze(
+  public IMetaverseNode analyze(
     final IComponentDescriptor documentDescriptor, final AbstractMeta meta, final IMetaverseNode node,
     final String documentPath ) throws MetaverseAnalyzerException {
 
-    final JobMeta jobMeta = (JobMeta) meta;
+    final ParallelTaskRunner runner = getJobEntryAnalysisRunner();
+    if ( runner.getParallelism() > 1 && metaverseBuilder != null
+      && metaverseBuilder.getGraph() instanceof BaseSynchronizedGraph ) {
+      // the builder and the graph take care of the concurrent updates, this analyzer doesn't need to be locked, which
+      // also lets the entries running a sub-job analyze it with this analyzer from other threads
+      return analyzeJobMeta( documentDescriptor, (JobMeta) meta, node, documentPath, runner );
+    }
+    synchronized ( this ) {
+      return analyzeJobMeta( documentDescriptor, (JobMeta) meta, node, documentPath, null );
+    }
+  }
+
+  /**
+   * @param runner the runner analyzing the entries concurrently, null to analyze them one after the other
+   */
+  protected IMetaverseNode analyzeJobMeta(
+    final IComponentDescriptor documentDescriptor, final JobMeta jobMeta, final IMetaverseNode node,
+    final String documentPath, final ParallelTaskRunner runner ) throws MetaverseAnalyzerException {
+
     Job j = new Job( null, jobMeta );
     j.setInternalKettleVariables( jobMeta );
 
@@ -183,58 +213,19 @@ public class JobAnalyzer extends BaseDocumentAnalyzer {
       }
     }
     // handle the entries
+    final List<JobEntryCopy> entries = new ArrayList<>();
     for ( int i = 0; i < jobMeta.nrJobEntries(); i++ ) {
-      JobEntryCopy entry = jobMeta.getJobEntry( i );
-      try {
-        if ( entry != null ) {
-          entry.getEntry().setParentJob( j );
-          IMetaverseNode jobEntryNode = null;
-          JobEntryInterface jobEntryInterface = entry.getEntry();
-
-          IComponentDescriptor entryDescriptor = new MetaverseComponentDescriptor( entry.getName(),
-            DictionaryConst.NODE_TYPE_JOB_ENTRY, node, documentDescriptor.getContext() );
-
-          Set<IJobEntryAnalyzer> jobEntryAnalyzers = getJobEntryAnalyzers( jobEntryInterface );
-          if ( jobEntryAnalyzers != null && !jobEntryAnalyzers.isEmpty() ) {
-            for ( IJobEntryAnalyzer jobEntryAnalyzer : jobEntryAnalyzers ) {
-              // the analyzers provided by the provider are singletons created at startup time - in order to be able
-              // to analyze multiple jobs concurrently, we need to clone the analyzer, such that each job entry has
-              // its own dedicated analyzer with a metaverseBuilder that is unique to the job execution and does not
-              // change while the job is being analyzed
-              if ( jobEntryAnalyzer instanceof IClonableJobEntryAnalyzer ) {
-                jobEntryAnalyzer = ( (IClonableJobEntryAnalyzer) jobEntryAnalyzer ).cloneAnalyzer();
-                ( (IClonableJobEntryAnalyzer) jobEntryAnalyzer ).setDocumentAnalyzer( this );
-                ( (IClonableJobEntryAnalyzer) jobEntryAnalyzer ).setDocumentDescriptor( documentDescriptor );
-                ( (IClonableJobEntryAnalyzer) jobEntryAnalyzer ).setDocumentPath( documentPath );
-              } else {
-                log.debug( Messages.getString( "WARNING.CannotCloneAnalyzer" ), jobEntryAnalyzer );
-              }
-              jobEntryAnalyzer.setMetaverseBuilder( metaverseBuilder );
-              jobEntryNode = (IMetaverseNode) jobEntryAnalyzer.analyze( entryDescriptor, entry.getEntry() );
-            }
-          } else if ( new AnnotatedClassFields( jobEntryInterface, jobEntryInterface.getParentJobMeta() )
-            .hasMetaverseAnnotations() ) {
-            AnnotationDrivenJobAnalyzer annotationDrivenJobAnalyzer = new AnnotationDrivenJobAnalyzer( jobEntryInterface );
-            annotationDrivenJobAnalyzer.setMetaverseBuilder( metaverseBuilder );
-            annotationDrivenJobAnalyzer.setDocumentAnalyzer( this );
-            annotationDrivenJobAnalyzer.setDocumentDescriptor( documentDescriptor );
-            annotationDrivenJobAnalyzer.setDocumentPath( documentPath );
-            jobEntryNode = annotationDrivenJobAnalyzer.analyze( entryDescriptor, jobEntryInterface );
-          } else {
-            GenericJobEntryMetaAnalyzer defaultJobEntryAnalyzer = new GenericJobEntryMetaAnalyzer();
-            defaultJobEntryAnalyzer.setMetaverseBuilder( metaverseBuilder );
-            jobEntryNode = defaultJobEntryAnalyzer.analyze( entryDescriptor, jobEntryInterface );
-          }
-          if ( jobEntryNode != null ) {
-            metaverseBuilder.addLink( node, DictionaryConst.LINK_CONTAINS, jobEntryNode );
-          }
-        }
-      } catch ( Exception mae ) {
-        //Don't throw an exception, just log and carry on
-        log.warn( Messages.getString( "ERROR.ErrorDuringAnalysis", entry.getName(),
-          Const.NVL( mae.getLocalizedMessage(), "Unspecified" ) ) );
-        log.debug( Messages.getString( "ERROR.ErrorDuringAnalysisStackTrace" ), mae );
+      final JobEntryCopy entry = jobMeta.getJobEntry( i );
+      if ( entry != null ) {
+        entries.add( entry );
+      }
+    }
+    if ( runner == null ) {
+      for ( final JobEntryCopy entry : entries ) {
+        analyzeEntry( documentDescriptor, j, node, documentPath, entry );
       }
+    } else {
+      analyzeEntriesConcurrently( documentDescriptor, j, node, documentPath, entries, runner );
     }
 
     // Model the hops between steps
@@ -266,6 +257,140 @@ public class JobAnalyzer extends BaseDocumentAnalyzer {
     return node;
   }
 
+  /**
+   * Analyzes the entries on the threads of the given runner, along with the transformations and jobs they run. The
+   * entries analyzed by a shared job entry analyzer are analyzed on this thread, and the analyzer is locked while it
+   * analyzes them, as the sibling jobs analyzed in parallel may use it at the same time on their own threads. All the entries have been analyzed
+   * when this returns.
+   */
+  private void analyzeEntriesConcurrently(
+    final IComponentDescriptor documentDescriptor, final Job job, final IMetaverseNode node,
+    final String documentPath, final List<JobEntryCopy> entries, final ParallelTaskRunner runner ) {
+
+    final List<Runnable> tasks = new ArrayList<>();
+    for ( final JobEntryCopy entry : entries ) {
+      if ( entry.getEntry() != null ) {
+        entry.getEntry().setParentJob( job );
+      }
+      if ( hasSharedAnalyzer( entry ) ) {
+        analyzeEntry( documentDescriptor, job, node, documentPath, entry );
+      } else {
+        tasks.add( () -> analyzeEntry( documentDescriptor, job, node, documentPath, entry ) );
+      }
+    }
+    runner.runAll( tasks );
+  }
+
+  /**
+   * Checks whether one of the analyzers of an entry is shared by all the entries it analyzes, either because it can't
+   * be cloned or because its clones are the analyzer itself.
+   */
+  private boolean hasSharedAnalyzer( final JobEntryCopy entry ) {
+    try {
+      for ( final IJobEntryAnalyzer jobEntryAnalyzer : getJobEntryAnalyzers( entry.getEntry() ) ) {
+        if ( isSharedAnalyzer( jobEntryAnalyzer ) ) {
+          return true;
+        }
+      }
+      return false;
+    } catch ( final RuntimeException e ) {
+      return true;
+    }
+  }
+
+  /**
+   * Analyzes a job entry, adding it to the graph.
+   */
+  private void analyzeEntry( final IComponentDescriptor documentDescriptor, final Job j, final IMetaverseNode node,
+                             final String documentPath, final JobEntryCopy entry ) {
+    try {
+      entry.getEntry().setParentJob( j );
+      IMetaverseNode jobEntryNode = null;
+      JobEntryInterface jobEntryInterface = entry.getEntry();
+
+      IComponentDescriptor entryDescriptor = new MetaverseComponentDescriptor( entry.getName(),
+        DictionaryConst.NODE_TYPE_JOB_ENTRY, node, documentDescriptor.getContext() );
+
+      Set<IJobEntryAnalyzer> jobEntryAnalyzers = getJobEntryAnalyzers( jobEntryInterface );
+      if ( jobEntryAnalyzers != null && !jobEntryAnalyzers.isEmpty() ) {
+        for ( IJobEntryAnalyzer jobEntryAnalyzer : jobEntryAnalyzers ) {
+          if ( isSharedAnalyzer( jobEntryAnalyzer ) ) {
+            // the same analyzer may be analyzing an entry of another job on another thread
+            synchronized ( jobEntryAnalyzer ) {
+              jobEntryNode =
+                runJobEntryAnalyzer( documentDescriptor, documentPath, entryDescriptor, entry, jobEntryAnalyzer );
+            }
+          } else {
+            jobEntryNode =
+              runJobEntryAnalyzer( documentDescriptor, documentPath, entryDescriptor, entry, jobEntryAnalyzer );
+          }
+        }
+      } else if ( new AnnotatedClassFields( jobEntryInterface, jobEntryInterface.getParentJobMeta() )
+        .hasMetaverseAnnotations() ) {
+        AnnotationDrivenJobAnalyzer annotationDrivenJobAnalyzer = new AnnotationDrivenJobAnalyzer( jobEntryInterface );
+        annotationDrivenJobAnalyzer.setMetaverseBuilder( metaverseBuilder );
+        annotationDrivenJobAnalyzer.setDocumentAnalyzer( this );
+        annotationDrivenJobAnalyzer.setDocumentDescriptor( documentDescriptor );
+        annotationDrivenJobAnalyzer.setDocumentPath( documentPath );
+        jobEntryNode = annotationDrivenJobAnalyzer.analyze( entryDescriptor, jobEntryInterface );
+      } else {
+        GenericJobEntryMetaAnalyzer defaultJobEntryAnalyzer = new GenericJobEntryMetaAnalyzer();
+        defaultJobEntryAnalyzer.setMetaverseBuilder( metaverseBuilder );
+        jobEntryNode = defaultJobEntryAnalyzer.analyze( entryDescriptor, jobEntryInterface );
+      }
+      if ( jobEntryNode != null ) {
+        metaverseBuilder.addLink( node, DictionaryConst.LINK_CONTAINS, jobEntryNode );
+      }
+    } catch ( Exception mae ) {
+      //Don't throw an exception, just log and carry on
+      log.warn( Messages.getString( "ERROR.ErrorDuringAnalysis", entry.getName(),
+        Const.NVL( mae.getLocalizedMessage(), "Unspecified" ) ) );
+      log.debug( Messages.getString( "ERROR.ErrorDuringAnalysisStackTrace" ), mae );
+    }
+  }
+
+  /**
+   * Analyzes a job entry with one of its analyzers.
+   *
+   * @return the job entry node
+   */
+  private IMetaverseNode runJobEntryAnalyzer(
+    final IComponentDescriptor documentDescriptor, final String documentPath,
+    final IComponentDescriptor entryDescriptor, final JobEntryCopy entry, IJobEntryAnalyzer jobEntryAnalyzer )
+    throws MetaverseAnalyzerException {
+
+    // the analyzers provided by the provider are singletons created at startup time - in order to be able
+    // to analyze multiple jobs concurrently, we need to clone the analyzer, such that each job entry has
+    // its own dedicated analyzer with a metaverseBuilder that is unique to the job execution and does not
+    // change while the job is being analyzed
+    if ( jobEntryAnalyzer instanceof IClonableJobEntryAnalyzer ) {
+      jobEntryAnalyzer = ( (IClonableJobEntryAnalyzer) jobEntryAnalyzer ).cloneAnalyzer();
+      ( (IClonableJobEntryAnalyzer) jobEntryAnalyzer ).setDocumentAnalyzer( this );
+      ( (IClonableJobEntryAnalyzer) jobEntryAnalyzer ).setDocumentDescriptor( documentDescriptor );
+      ( (IClonableJobEntryAnalyzer) jobEntryAnalyzer ).setDocumentPath( documentPath );
+    } else {
+      log.debug( Messages.getString( "WARNING.CannotCloneAnalyzer" ), jobEntryAnalyzer );
+    }
+    jobEntryAnalyzer.setMetaverseBuilder( metaverseBuilder );
+    return (IMetaverseNode) jobEntryAnalyzer.analyze( entryDescriptor, entry.getEntry() );
+  }
+
+  /**
+   * Returns the runner analyzing the entries of the jobs, sized by
+   * {@link IMetaverseConfig#KETTLE_LINEAGE_JOB_ENTRY_ANALYSIS_POOL_SIZE}. With a size above 1, the entries of a job,
+   * and the transformations and jobs they run, are analyzed concurrently, and so are the jobs given to this analyzer,
+   * as long as the graph of the metaverse builder is a {@link BaseSynchronizedGraph}. Otherwise the entries are
+   * analyzed one after the other, and the analyses of this analyzer run one at a time.
+   *
+   * @return the runner
+   */
+  protected static ParallelTaskRunner getJobEntryAnalysisRunner() {
+    final IMetaverseConfig config = MetaverseConfig.getConfigured();
+    return ParallelTaskRunner.getShared( JOB_ENTRY_ANALYSIS_THREAD_NAME,
+      config == null ? null : config.getJobEntryAnalysisPoolSize(),
+      IMetaverseConfig.KETTLE_LINEAGE_JOB_ENTRY_ANALYSIS_POOL_SIZE );
+  }
+
   /**
    * Returns a set of strings corresponding to which types of content are supported by this analyzer
    *
@@ -0,0 +1,342 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.analyzer.kettle;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.trans.TransHopMeta;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.dictionary.DictionaryConst;
+import org.pentaho.dictionary.DictionaryHelper;
+import org.pentaho.metaverse.api.IMetaverseNode;
+import org.pentaho.metaverse.api.IMetaverseObjectFactory;
+import org.pentaho.metaverse.api.Namespace;
+import org.pentaho.metaverse.api.analyzer.kettle.RowMetaMemo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Remembers what the lineage graph of a transformation being edited was built from, so that the next analysis of the
+ * same {@link TransMeta} only needs to re-run the steps that changed.
+ * <p/>
+ * Every step is fingerprinted by its definition (its XML, minus its location on the canvas) and by the layout of the
+ * rows it outputs. A step is re-analyzed when its definition changed, or when the layout of its input rows changed,
+ * which is the case when a step upstream of it outputs a different layout. The transformation hops are fingerprinted
+ * as a whole: when they change, the graph can't be patched and must be rebuilt from scratch.
+ * <p/>
+ * Removing a step also removes the external resources (files, tables, connections) that no other step reads, writes
+ * or depends on anymore, so that a patched graph holds what a from scratch analysis would.
+ * <p/>
+ * Snapshots are weakly keyed on the {@link TransMeta} instance, they go away with the transformation.
+ */
+public class TransLineageSnapshot {
+
+  private static final Logger log = LoggerFactory.getLogger( TransLineageSnapshot.class );
+
+  private static final Pattern GUI_XML = Pattern.compile( "<GUI>.*?</GUI>", Pattern.DOTALL );
+
+  private static final Cache<TransMeta, TransLineageSnapshot> snapshots =
+    CacheBuilder.newBuilder().weakKeys().build();
+
+  private final Graph graph;
+
+  /**
+   * The hops of the last analysis, null until an analysis has completed
+   */
+  private Set<String> hops;
+
+  private Map<String, StepFingerprint> steps = new HashMap<>();
+
+  protected TransLineageSnapshot( final Graph graph ) {
+    this.graph = graph;
+  }
+
+  /**
+   * Starts tracking the lineage graph of the given transformation, replacing any previous snapshot. The next analysis
+   * of the transformation into this graph is a full one.
+   *
+   * @param transMeta the transformation
+   * @param graph     the graph its lineage is going to be written to
+   * @return the new snapshot
+   */
+  public static TransLineageSnapshot track( final TransMeta transMeta, final Graph graph ) {
+    final TransLineageSnapshot snapshot = new TransLineageSnapshot( graph );
+    snapshots.put( transMeta, snapshot );
+    return snapshot;
+  }
+
+  /**
+   * @param transMeta the transformation
+   * @return the snapshot of the lineage graph of the given transformation, or null if it isn't tracked
+   */
+  public static TransLineageSnapshot get( final TransMeta transMeta ) {
+    return transMeta == null ? null : snapshots.getIfPresent( transMeta );
+  }
+
+  /**
+   * @return the graph holding the lineage of the transformation
+   */
+  public Graph getGraph() {
+    return graph;
+  }
+
+  /**
+   * Checks whether the graph can be patched to reflect the current state of the transformation, which is not possible
+   * until it has been fully analyzed once, or when its hops have changed since.
+   *
+   * @param transMeta the transformation
+   * @return true if the graph can be patched
+   */
+  public synchronized boolean canPatch( final TransMeta transMeta ) {
+    return hops != null && hops.equals( getHopFingerprints( transMeta ) );
+  }
+
+  /**
+   * Works out which steps need to be analyzed again, and removes what their previous analysis added to the graph, as
+   * well as the steps that no longer exist.
+   *
+   * @param transMeta     the transformation
+   * @param transNode     the transformation node, the namespace of the step nodes
+   * @param objectFactory the factory used to create the step nodes
+   * @return the plan of the analysis, to be passed to {@link #update(Plan)} once the analysis is done
+   */
+  public synchronized Plan plan( final TransMeta transMeta, final IMetaverseNode transNode,
+                                 final IMetaverseObjectFactory objectFactory ) {
+
+    final Plan plan = new Plan( getHopFingerprints( transMeta ) );
+    final boolean full = !plan.hops.equals( hops );
+
+    final Deque<StepMeta> queue = new ArrayDeque<>();
+    for ( final StepMeta stepMeta : transMeta.getSteps() ) {
+      final StepFingerprint previous = steps.get( stepMeta.getName() );
+      final StepFingerprint current =
+        new StepFingerprint( getMetaFingerprint( stepMeta ), previous == null ? null : previous.layout );
+      plan.steps.put( stepMeta.getName(), current );
+      if ( full || previous == null || !same( current.meta, previous.meta ) ) {
+        plan.analyzed.add( stepMeta.getName() );
+        queue.add( stepMeta );
+      }
+    }
+
+    // a step whose output layout changed changes the input layout of the steps it feeds
+    final Set<String> layoutChanged = new HashSet<>();
+    while ( !queue.isEmpty() ) {
+      final StepMeta stepMeta = queue.poll();
+      final StepFingerprint current = plan.steps.get( stepMeta.getName() );
+      final String layout = getLayoutFingerprint( transMeta, stepMeta );
+      if ( !same( layout, current.layout ) ) {
+        layoutChanged.add( stepMeta.getName() );
+        for ( final StepMeta nextStep : transMeta.findNextSteps( stepMeta ) ) {
+          if ( plan.analyzed.add( nextStep.getName() ) ) {
+            queue.add( nextStep );
+          }
+        }
+      }
+      current.layout = layout;
+    }
+
+    final Set<Vertex> resources = new HashSet<>();
+    for ( final String stepName : steps.keySet() ) {
+      if ( !plan.steps.containsKey( stepName ) ) {
+        removeStep( transNode, objectFactory, stepName, true, resources );
+      } else if ( plan.analyzed.contains( stepName ) ) {
+        removeStep( transNode, objectFactory, stepName, full || layoutChanged.contains( stepName ), resources );
+      }
+    }
+    removeUnusedResources( resources );
+    log.debug( "Analyzing {} of {} steps of {}", plan.analyzed.size(), plan.steps.size(), transMeta.getName() );
+    return plan;
+  }
+
+  /**
+   * Records the fingerprints of a completed analysis.
+   *
+   * @param plan the plan of the analysis
+   */
+  public synchronized void update( final Plan plan ) {
+    hops = plan.hops;
+    steps = plan.steps;
+  }
+
+  /**
+   * Records that the graph no longer reflects the snapshot, when an analysis patching it did not complete. The graph
+   * is then rebuilt from scratch by the next analysis.
+   */
+  public synchronized void invalidate() {
+    hops = null;
+  }
+
+  /**
+   * Removes a step vertex from the graph, along with its fields. Output fields read by other steps are only removed
+   * when the step is going to output a different layout, otherwise only the links from their input fields are. The
+   * resources the step reads, writes or depends on are added to the given set.
+   */
+  private void removeStep( final IMetaverseNode transNode, final IMetaverseObjectFactory objectFactory,
+                           final String stepName, final boolean removeFields, final Set<Vertex> resources ) {
+    final IMetaverseNode stepNode = objectFactory.createNodeObject(
+      new Namespace( transNode.getLogicalId() ), stepName, DictionaryConst.NODE_TYPE_TRANS_STEP );
+
+    for ( final Vertex stepVertex : Lists.newArrayList(
+      graph.getVertices( DictionaryConst.PROPERTY_LOGICAL_ID, stepNode.getLogicalId() ) ) ) {
+
+      Iterables.addAll( resources, stepVertex.getVertices( Direction.IN, DictionaryConst.LINK_READBY,
+        DictionaryConst.LINK_DEPENDENCYOF ) );
+      Iterables.addAll( resources, stepVertex.getVertices( Direction.OUT, DictionaryConst.LINK_WRITESTO ) );
+
+      for ( final Vertex fieldVertex : Lists.newArrayList( stepVertex.getVertices( Direction.OUT,
+        DictionaryConst.LINK_OUTPUTS, DictionaryConst.LINK_TRANSIENT ) ) ) {
+        if ( removeFields ) {
+          fieldVertex.remove();
+        } else {
+          for ( final Edge edge : Lists.newArrayList( fieldVertex.getEdges( Direction.IN ) ) ) {
+            if ( !DictionaryHelper.getNonEntityToEntityLinkType().equals( edge.getLabel() ) ) {
+              edge.remove();
+            }
+          }
+        }
+      }
+      stepVertex.remove();
+    }
+  }
+
+  /**
+   * Removes the given resources that no step reads, writes or depends on anymore, along with the fields they contain.
+   * The connections a removed resource depends on are removed as well when nothing else depends on them.
+   */
+  private static void removeUnusedResources( final Set<Vertex> resources ) {
+    final Deque<Vertex> queue = new ArrayDeque<>( resources );
+    final Set<Object> removed = new HashSet<>();
+    while ( !queue.isEmpty() ) {
+      final Vertex resource = queue.poll();
+      if ( removed.contains( resource.getId() ) || isUsed( resource ) ) {
+        continue;
+      }
+      final List<Vertex> dependencies =
+        Lists.newArrayList( resource.getVertices( Direction.IN, DictionaryConst.LINK_DEPENDENCYOF ) );
+      for ( final Vertex field : Lists.newArrayList(
+        resource.getVertices( Direction.OUT, DictionaryConst.LINK_CONTAINS ) ) ) {
+        field.remove();
+      }
+      removed.add( resource.getId() );
+      resource.remove();
+      queue.addAll( dependencies );
+    }
+  }
+
+  private static boolean isUsed( final Vertex resource ) {
+    return resource.getEdges( Direction.OUT, DictionaryConst.LINK_READBY, DictionaryConst.LINK_DEPENDENCYOF )
+      .iterator().hasNext()
+      || resource.getEdges( Direction.IN, DictionaryConst.LINK_WRITESTO ).iterator().hasNext();
+  }
+
+  protected static Set<String> getHopFingerprints( final TransMeta transMeta ) {
+    final Set<String> fingerprints = new HashSet<>();
+    for ( int i = 0; i < transMeta.nrTransHops(); i++ ) {
+      final TransHopMeta hop = transMeta.getTransHop( i );
+      final StepMeta fromStep = hop.getFromStep();
+      final StepMeta toStep = hop.getToStep();
+      if ( fromStep != null && toStep != null ) {
+        fingerprints.add( fromStep.getName() + "->" + toStep.getName() + ":" + hop.isEnabled() + ":"
+          + fromStep.isSendingErrorRowsToStep( toStep ) );
+      }
+    }
+    return fingerprints;
+  }
+
+  protected static String getMetaFingerprint( final StepMeta stepMeta ) {
+    try {
+      // moving a step around the canvas doesn't change its lineage
+      return GUI_XML.matcher( stepMeta.getXML() ).replaceAll( "" );
+    } catch ( final KettleException | RuntimeException e ) {
+      log.debug( "Unable to fingerprint step {}", stepMeta.getName(), e );
+      return null;
+    }
+  }
+
+  protected static String getLayoutFingerprint( final TransMeta transMeta, final StepMeta stepMeta ) {
+    try {
+      final RowMetaMemo rowMetaMemo = RowMetaMemo.get( transMeta );
+      final RowMetaInterface rowMeta =
+        rowMetaMemo != null ? rowMetaMemo.getStepFields( stepMeta ) : transMeta.getStepFields( stepMeta );
+      return rowMeta == null ? "" : rowMeta.toStringMeta();
+    } catch ( final KettleException | RuntimeException e ) {
+      log.debug( "Unable to fingerprint the output of step {}", stepMeta.getName(), e );
+      return null;
+    }
+  }
+
+  /**
+   * Fingerprints that could not be computed are never the same
+   */
+  private static boolean same( final String fingerprint, final String other ) {
+    return fingerprint != null && fingerprint.equals( other );
+  }
+
+  private static class StepFingerprint {
+    private final String meta;
+    private String layout;
+
+    StepFingerprint( final String meta, final String layout ) {
+      this.meta = meta;
+      this.layout = layout;
+    }
+  }
+
+  /**
+   * The steps an analysis is going to run, and the fingerprints it is going to leave behind.
+   */
+  public static class Plan {
+    private final Set<String> hops;
+    private final Map<String, StepFingerprint> steps = new HashMap<>();
+    private final Set<String> analyzed = new HashSet<>();
+
+    Plan( final Set<String> hops ) {
+      this.hops = hops;
+    }
+
+    /**
+     * @param stepName the name of a step
+     * @return true if the step needs to be analyzed
+     */
+    public boolean isAnalyzed( final String stepName ) {
+      return analyzed.contains( stepName );
+    }
+
+    /**
+     * @return the names of the steps that need to be analyzed
+     */
+    public Set<String> getAnalyzedSteps() {
+      return Collections.unmodifiableSet( analyzed );
+    }
+  }
+}
@@ -16,6 +16,7 @@ package org.pentaho.metaverse.analyzer.kettle;
 import org.pentaho.di.base.AbstractMeta;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleStepException;
 import org.pentaho.di.core.parameters.UnknownParamException;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransHopMeta;
@@ -29,6 +30,7 @@ import org.pentaho.metaverse.analyzer.kettle.step.StepAnalyzerProvider;
 import org.pentaho.metaverse.api.IClonableDocumentAnalyzer;
 import org.pentaho.metaverse.api.IComponentDescriptor;
 import org.pentaho.metaverse.api.IDocument;
+import org.pentaho.metaverse.api.IMetaverseConfig;
 import org.pentaho.metaverse.api.IMetaverseLink;
 import org.pentaho.metaverse.api.IMetaverseNode;
 import org.pentaho.metaverse.api.INamespace;
@@ -36,11 +38,15 @@ import org.pentaho.metaverse.api.MetaverseAnalyzerException;
 import org.pentaho.metaverse.api.MetaverseComponentDescriptor;
 import org.pentaho.metaverse.api.Namespace;
 import org.pentaho.metaverse.api.PropertiesHolder;
+import org.pentaho.metaverse.api.analyzer.kettle.RowMetaMemo;
 import org.pentaho.metaverse.api.analyzer.kettle.annotations.AnnotatedClassFields;
 import org.pentaho.metaverse.api.analyzer.kettle.annotations.AnnotationDrivenStepMetaAnalyzer;
 import org.pentaho.metaverse.api.analyzer.kettle.step.IClonableStepAnalyzer;
 import org.pentaho.metaverse.api.analyzer.kettle.step.IStepAnalyzer;
 import org.pentaho.metaverse.api.analyzer.kettle.step.IStepAnalyzerProvider;
+import org.pentaho.metaverse.api.model.BaseSynchronizedGraph;
+import org.pentaho.metaverse.impl.MetaverseConfig;
+import org.pentaho.metaverse.impl.ParallelTaskRunner;
 import org.pentaho.metaverse.messages.Messages;
 import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.slf4j.Logger;
@@ -48,6 +54,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
@@ -78,8 +85,11 @@ public class TransformationAnalyzer extends BaseDocumentAnalyzer {
 
   private static final Logger log = LoggerFactory.getLogger( TransformationAnalyzer.class );
 
+  private static final String STEP_ANALYSIS_THREAD_NAME = "lineage-step-analysis";
+
+
   @Override
-  public synchronized IMetaverseNode analyze( IComponentDescriptor descriptor, IDocument document )
+  public IMetaverseNode analyze( IComponentDescriptor descriptor, IDocument document )
     throws MetaverseAnalyzerException {
 
     validateState( document );
@@ -117,12 +127,52 @@ public class TransformationAnalyzer extends BaseDocumentAnalyzer {
       (String) document.getProperty( DictionaryConst.PROPERTY_PATH ) );
   }
 
+  /**
+   * Analyzes the transformation. The analyses of this analyzer run one at a time, unless the steps are analyzed
+   * concurrently, see {@link #getStepAnalysisRunner()}.
+   */
   @Override
-  public synchronized IMetaverseNode analyze(
+  public IMetaverseNode analyze(
+    final IComponentDescriptor documentDescriptor, final AbstractMeta meta, final IMetaverseNode node,
+    final String documentPath ) throws MetaverseAnalyzerException {
+
+    final ParallelTaskRunner runner = getStepAnalysisRunner();
+    if ( runner.getParallelism() > 1 && metaverseBuilder != null
+      && metaverseBuilder.getGraph() instanceof BaseSynchronizedGraph ) {
+      // the builder and the graph take care of the concurrent updates, this analyzer doesn't need to be locked
+      return analyzeTransformation( documentDescriptor, meta, node, documentPath, runner );
+    }
+    synchronized ( this ) {
+      return analyzeTransformation( documentDescriptor, meta, node, documentPath, null );
+    }
+  }
+
+  private IMetaverseNode analyzeTransformation(
     final IComponentDescriptor documentDescriptor, final AbstractMeta meta, final IMetaverseNode node,
+    final String documentPath, final ParallelTaskRunner runner ) throws MetaverseAnalyzerException {
+
+    // the step analyzers resolve the input and output fields of every step, they share the layouts resolved so far
+    final RowMetaMemo rowMetaMemo = RowMetaMemo.open( (TransMeta) meta );
+    try {
+      return analyzeTransMeta( documentDescriptor, (TransMeta) meta, node, documentPath, runner );
+    } finally {
+      RowMetaMemo.close( rowMetaMemo );
+    }
+  }
+
+  protected IMetaverseNode analyzeTransMeta(
+    final IComponentDescriptor documentDescriptor, final TransMeta transMeta, final IMetaverseNode node,
     final String documentPath ) throws MetaverseAnalyzerException {
+    return analyzeTransMeta( documentDescriptor, transMeta, node, documentPath, null );
+  }
+
+  /**
+   * @param runner the runner analyzing the steps concurrently, null to analyze them one after the other
+   */
+  protected IMetaverseNode analyzeTransMeta(
+    final IComponentDescriptor documentDescriptor, final TransMeta transMeta, final IMetaverseNode node,
+    final String documentPath, final ParallelTaskRunner runner ) throws MetaverseAnalyzerException {
 
-    final TransMeta transMeta = (TransMeta) meta;
     Trans t = new Trans( transMeta );
     t.setInternalKettleVariables( transMeta );
 
@@ -188,123 +238,281 @@ public class TransformationAnalyzer extends BaseDocumentAnalyzer {
         }
       }
     }
-    final List<AnalyzerHolder> analyzerHolders = new ArrayList();
 
-    // handle the step
-    for ( int stepNr = 0; stepNr < transMeta.nrSteps(); stepNr++ ) {
-      StepMeta stepMeta = transMeta.getStep( stepNr );
-      try {
-        if ( stepMeta != null ) {
-          if ( stepMeta.getParentTransMeta() == null ) {
-            stepMeta.setParentTransMeta( transMeta );
+    // when the graph already holds a previous analysis of this transformation, only the steps that changed since are
+    // analyzed again
+    final TransLineageSnapshot snapshot = TransLineageSnapshot.get( transMeta );
+    final TransLineageSnapshot.Plan plan = snapshot != null && metaverseBuilder != null
+      && snapshot.getGraph() == metaverseBuilder.getGraph()
+      ? snapshot.plan( transMeta, node, metaverseObjectFactory ) : null;
+
+    boolean completed = false;
+    try {
+      // handle the steps
+      final List<StepMeta> analyzedSteps = new ArrayList<>();
+      for ( int stepNr = 0; stepNr < transMeta.nrSteps(); stepNr++ ) {
+        final StepMeta stepMeta = transMeta.getStep( stepNr );
+        if ( stepMeta != null && ( plan == null || plan.isAnalyzed( stepMeta.getName() ) ) ) {
+          analyzedSteps.add( stepMeta );
+        }
+      }
+      final List<AnalyzerHolder> analyzerHolders = runner == null
+        ? analyzeSteps( documentDescriptor, transMeta, node, documentPath, analyzedSteps )
+        : analyzeStepsConcurrently( documentDescriptor, transMeta, node, documentPath, analyzedSteps, runner );
+
+      // Model the hops between steps
+      int numHops = transMeta.nrTransHops();
+      for ( int i = 0; i < numHops; i++ ) {
+        TransHopMeta hop = transMeta.getTransHop( i );
+        StepMeta fromStep = hop.getFromStep();
+        StepMeta toStep = hop.getToStep();
+        INamespace childNs = new Namespace( node.getLogicalId() );
+
+        // process legitimate hops
+        if ( fromStep != null && toStep != null ) {
+          IMetaverseNode fromStepNode = metaverseObjectFactory.createNodeObject(
+            childNs,
+            fromStep.getName(),
+            DictionaryConst.NODE_TYPE_TRANS_STEP );
+
+          IMetaverseNode toStepNode = metaverseObjectFactory.createNodeObject(
+            childNs,
+            toStep.getName(),
+            DictionaryConst.NODE_TYPE_TRANS_STEP );
+
+          // Create and decorate the link between the steps
+          IMetaverseLink link = metaverseObjectFactory.createLinkObject();
+          link.setFromNode( fromStepNode );
+          link.setLabel( DictionaryConst.LINK_HOPSTO );
+          link.setToNode( toStepNode );
+
+          // Is this hop enabled?
+          link.setProperty( DictionaryConst.PROPERTY_ENABLED, hop.isEnabled() );
+
+          // Add metadata about the type of stream (target, error, info) it is. Default to "target".
+          String linkType = "target";
+          if ( fromStep.isSendingErrorRowsToStep( toStep ) ) {
+            linkType = "error";
+          } else {
+            String[] infoStepnames = toStep.getStepMetaInterface().getStepIOMeta().getInfoStepnames();
+            // If the "from" step is the source of an info stream to the "to" step, it's an "info" hop
+            if ( Const.indexOfString( fromStep.getName(), infoStepnames ) >= 0 ) {
+              linkType = "info";
+            }
           }
+          link.setProperty( DictionaryConst.PROPERTY_TYPE, linkType );
+          metaverseBuilder.addLink( link );
+        }
+      }
 
-          IMetaverseNode stepNode = null;
-          IComponentDescriptor stepDescriptor = new MetaverseComponentDescriptor( stepMeta.getName(),
-            DictionaryConst.NODE_TYPE_TRANS_STEP, node, documentDescriptor.getContext() );
-          Set<IStepAnalyzer> stepAnalyzers = getStepAnalyzers( stepMeta );
-          final BaseStepMeta baseStepMeta = getBaseStepMetaFromStepMeta( stepMeta );
-          if ( stepAnalyzers != null && !stepAnalyzers.isEmpty() ) {
-            for ( IStepAnalyzer stepAnalyzer : stepAnalyzers ) {
-              // the analyzers provided by the provider are singletons created at startup time - in order to be able
-              // to analyze multiple transformations concurrently, we need to clone the analyzer, such that each
-              // transformation step has its own dedicated analyzer with a metaverseBuilder that is unique to the
-              // transformation execution and does not change while the transformation is being analyzed
-              if ( stepAnalyzer instanceof IClonableStepAnalyzer ) {
-                stepAnalyzer = ( (IClonableStepAnalyzer) stepAnalyzer ).cloneAnalyzer();
-                ( (IClonableStepAnalyzer) stepAnalyzer ).setDocumentAnalyzer( this );
-                ( (IClonableStepAnalyzer) stepAnalyzer ).setDocumentDescriptor( documentDescriptor );
-                ( (IClonableStepAnalyzer) stepAnalyzer ).setDocumentPath( documentPath );
-              } else {
-                log.debug( Messages.getString( "WARNING.CannotCloneAnalyzer" ), stepAnalyzer );
-              }
-              stepAnalyzer.setMetaverseBuilder( metaverseBuilder );
-              stepNode = (IMetaverseNode) stepAnalyzer.analyze( stepDescriptor, baseStepMeta );
-              analyzerHolders.add( new AnalyzerHolder( stepAnalyzer, baseStepMeta, stepNode ) );
+      metaverseBuilder.addNode( node );
+      addParentLink( documentDescriptor, node );
+
+      // perform any necessary post processing - currently only supported on IClonableStepAnalyzers
+      for ( final AnalyzerHolder analyzerHolder : analyzerHolders ) {
+        if ( analyzerHolder.getAnalyzer() instanceof IClonableStepAnalyzer ) {
+          final IClonableStepAnalyzer clonableAnalyzer = (IClonableStepAnalyzer) analyzerHolder.getAnalyzer();
+          if ( isSharedAnalyzer( clonableAnalyzer ) ) {
+            synchronized ( clonableAnalyzer ) {
+              clonableAnalyzer.postAnalyze( analyzerHolder.getMeta() );
             }
-          } else if ( ( new AnnotatedClassFields( baseStepMeta ) ).hasMetaverseAnnotations() ) {
-            AnnotationDrivenStepMetaAnalyzer annotationDrivenStepMetaAnalyzer =
-              new AnnotationDrivenStepMetaAnalyzer( baseStepMeta );
-            annotationDrivenStepMetaAnalyzer.setMetaverseBuilder( metaverseBuilder );
-            annotationDrivenStepMetaAnalyzer.setDocumentAnalyzer( this );
-            annotationDrivenStepMetaAnalyzer.setDocumentDescriptor( documentDescriptor );
-            annotationDrivenStepMetaAnalyzer.setDocumentPath( documentPath );
-            stepNode = annotationDrivenStepMetaAnalyzer.analyze( stepDescriptor, baseStepMeta );
-            analyzerHolders.add( new AnalyzerHolder( annotationDrivenStepMetaAnalyzer, baseStepMeta, stepNode ) );
           } else {
-            GenericStepMetaAnalyzer defaultStepAnalyzer = new GenericStepMetaAnalyzer();
-            defaultStepAnalyzer.setMetaverseBuilder( metaverseBuilder );
-            stepNode = defaultStepAnalyzer.analyze( stepDescriptor, getBaseStepMetaFromStepMeta( stepMeta ) );
-          }
-          if ( stepNode != null ) {
-            metaverseBuilder.addLink( node, DictionaryConst.LINK_CONTAINS, stepNode );
+            clonableAnalyzer.postAnalyze( analyzerHolder.getMeta() );
           }
         }
-      } catch ( Throwable mae ) {
-        //Don't throw an exception, just log and carry on
-        log.warn( Messages.getString( "ERROR.ErrorDuringAnalysis", stepMeta.getName(),
-          Const.NVL( mae.getLocalizedMessage(), "Unspecified" ) ) );
-        log.debug( Messages.getString( "ERROR.ErrorDuringAnalysisStackTrace" ), mae );
+      }
+      completed = true;
+    } finally {
+      if ( plan != null ) {
+        if ( completed ) {
+          snapshot.update( plan );
+        } else {
+          // the graph is only partly patched, it can't be patched any further
+          snapshot.invalidate();
+        }
       }
     }
 
-    // Model the hops between steps
-    int numHops = transMeta.nrTransHops();
-    for ( int i = 0; i < numHops; i++ ) {
-      TransHopMeta hop = transMeta.getTransHop( i );
-      StepMeta fromStep = hop.getFromStep();
-      StepMeta toStep = hop.getToStep();
-      INamespace childNs = new Namespace( node.getLogicalId() );
-
-      // process legitimate hops
-      if ( fromStep != null && toStep != null ) {
-        IMetaverseNode fromStepNode = metaverseObjectFactory.createNodeObject(
-          childNs,
-          fromStep.getName(),
-          DictionaryConst.NODE_TYPE_TRANS_STEP );
-
-        IMetaverseNode toStepNode = metaverseObjectFactory.createNodeObject(
-          childNs,
-          toStep.getName(),
-          DictionaryConst.NODE_TYPE_TRANS_STEP );
-
-        // Create and decorate the link between the steps
-        IMetaverseLink link = metaverseObjectFactory.createLinkObject();
-        link.setFromNode( fromStepNode );
-        link.setLabel( DictionaryConst.LINK_HOPSTO );
-        link.setToNode( toStepNode );
-
-        // Is this hop enabled?
-        link.setProperty( DictionaryConst.PROPERTY_ENABLED, hop.isEnabled() );
-
-        // Add metadata about the type of stream (target, error, info) it is. Default to "target".
-        String linkType = "target";
-        if ( fromStep.isSendingErrorRowsToStep( toStep ) ) {
-          linkType = "error";
-        } else {
-          String[] infoStepnames = toStep.getStepMetaInterface().getStepIOMeta().getInfoStepnames();
-          // If the "from" step is the source of an info stream to the "to" step, it's an "info" hop
-          if ( Const.indexOfString( fromStep.getName(), infoStepnames ) >= 0 ) {
-            linkType = "info";
-          }
+    return node;
+  }
+
+  private List<AnalyzerHolder> analyzeSteps(
+    final IComponentDescriptor documentDescriptor, final TransMeta transMeta, final IMetaverseNode node,
+    final String documentPath, final List<StepMeta> steps ) {
+
+    final List<AnalyzerHolder> analyzerHolders = new ArrayList<>();
+    for ( final StepMeta stepMeta : steps ) {
+      analyzerHolders.addAll( analyzeStep( documentDescriptor, transMeta, node, documentPath, stepMeta ) );
+    }
+    return analyzerHolders;
+  }
+
+  /**
+   * Analyzes the steps on the threads of the given runner. The layouts of the steps are resolved beforehand, as the
+   * transformation they are resolved from isn't thread-safe, and the steps analyzed by a shared step analyzer are
+   * analyzed on this thread. A shared analyzer is still locked while it analyzes a step, as the sibling
+   * transformations of a job analyzed in parallel may use it at the same time on their own threads. The analyzers are returned in the order of the steps, as when the steps are analyzed one
+   * after the other.
+   */
+  private List<AnalyzerHolder> analyzeStepsConcurrently(
+    final IComponentDescriptor documentDescriptor, final TransMeta transMeta, final IMetaverseNode node,
+    final String documentPath, final List<StepMeta> steps, final ParallelTaskRunner runner ) {
+
+    final RowMetaMemo rowMetaMemo = RowMetaMemo.get( transMeta );
+    for ( final StepMeta stepMeta : steps ) {
+      if ( stepMeta.getParentTransMeta() == null ) {
+        stepMeta.setParentTransMeta( transMeta );
+      }
+      if ( rowMetaMemo != null ) {
+        try {
+          rowMetaMemo.resolve( stepMeta );
+        } catch ( final KettleStepException | RuntimeException e ) {
+          // the analysis of the step runs into it again, and reports it
+          log.debug( "Unable to resolve the layouts of step {}", stepMeta.getName(), e );
         }
-        link.setProperty( DictionaryConst.PROPERTY_TYPE, linkType );
-        metaverseBuilder.addLink( link );
       }
     }
 
-    metaverseBuilder.addNode( node );
-    addParentLink( documentDescriptor, node );
+    final List<List<AnalyzerHolder>> stepHolders = new ArrayList<>( Collections.nCopies( steps.size(), null ) );
+    final List<Runnable> tasks = new ArrayList<>();
+    for ( int i = 0; i < steps.size(); i++ ) {
+      final int stepIndex = i;
+      final StepMeta stepMeta = steps.get( i );
+      if ( hasSharedAnalyzer( stepMeta ) ) {
+        stepHolders.set( i, analyzeStep( documentDescriptor, transMeta, node, documentPath, stepMeta ) );
+      } else {
+        tasks.add( () -> stepHolders.set( stepIndex,
+          analyzeStep( documentDescriptor, transMeta, node, documentPath, stepMeta ) ) );
+      }
+    }
+    runner.runAll( tasks );
+
+    final List<AnalyzerHolder> analyzerHolders = new ArrayList<>();
+    for ( final List<AnalyzerHolder> holders : stepHolders ) {
+      analyzerHolders.addAll( holders );
+    }
+    return analyzerHolders;
+  }
 
-    // perform any necessary post processing - currently only supported on IClonableStepAnalyzers
-    for ( final AnalyzerHolder analyzerHolder : analyzerHolders ) {
-      if ( analyzerHolder.getAnalyzer() instanceof IClonableStepAnalyzer ) {
-        final IClonableStepAnalyzer clonableAnalyzer = (IClonableStepAnalyzer) analyzerHolder.getAnalyzer();
-        clonableAnalyzer.postAnalyze( analyzerHolder.getMeta() );
+  /**
+   * Checks whether one of the analyzers of a step is shared by all the steps it analyzes, either because it can't be
+   * cloned or because its clones are the analyzer itself.
+   */
+  private boolean hasSharedAnalyzer( final StepMeta stepMeta ) {
+    try {
+      for ( final IStepAnalyzer stepAnalyzer : getStepAnalyzers( stepMeta ) ) {
+        if ( isSharedAnalyzer( stepAnalyzer ) ) {
+          return true;
+        }
       }
+      return false;
+    } catch ( final RuntimeException e ) {
+      return true;
     }
+  }
 
-    return node;
+  /**
+   * Analyzes a step, adding it to the graph.
+   *
+   * @return the analyzers that analyzed the step, to post process it
+   */
+  private List<AnalyzerHolder> analyzeStep(
+    final IComponentDescriptor documentDescriptor, final TransMeta transMeta, final IMetaverseNode node,
+    final String documentPath, final StepMeta stepMeta ) {
+
+    final List<AnalyzerHolder> analyzerHolders = new ArrayList<>();
+    try {
+      if ( stepMeta.getParentTransMeta() == null ) {
+        stepMeta.setParentTransMeta( transMeta );
+      }
+
+      IMetaverseNode stepNode = null;
+      IComponentDescriptor stepDescriptor = new MetaverseComponentDescriptor( stepMeta.getName(),
+        DictionaryConst.NODE_TYPE_TRANS_STEP, node, documentDescriptor.getContext() );
+      Set<IStepAnalyzer> stepAnalyzers = getStepAnalyzers( stepMeta );
+      final BaseStepMeta baseStepMeta = getBaseStepMetaFromStepMeta( stepMeta );
+      if ( stepAnalyzers != null && !stepAnalyzers.isEmpty() ) {
+        for ( IStepAnalyzer stepAnalyzer : stepAnalyzers ) {
+          final AnalyzerHolder analyzerHolder;
+          if ( isSharedAnalyzer( stepAnalyzer ) ) {
+            // the same analyzer may be analyzing a step of another transformation on another thread
+            synchronized ( stepAnalyzer ) {
+              analyzerHolder =
+                runStepAnalyzer( documentDescriptor, documentPath, stepDescriptor, baseStepMeta, stepAnalyzer );
+            }
+          } else {
+            analyzerHolder =
+              runStepAnalyzer( documentDescriptor, documentPath, stepDescriptor, baseStepMeta, stepAnalyzer );
+          }
+          stepNode = analyzerHolder.getNode();
+          analyzerHolders.add( analyzerHolder );
+        }
+      } else if ( ( new AnnotatedClassFields( baseStepMeta ) ).hasMetaverseAnnotations() ) {
+        AnnotationDrivenStepMetaAnalyzer annotationDrivenStepMetaAnalyzer =
+          new AnnotationDrivenStepMetaAnalyzer( baseStepMeta );
+        annotationDrivenStepMetaAnalyzer.setMetaverseBuilder( metaverseBuilder );
+        annotationDrivenStepMetaAnalyzer.setDocumentAnalyzer( this );
+        annotationDrivenStepMetaAnalyzer.setDocumentDescriptor( documentDescriptor );
+        annotationDrivenStepMetaAnalyzer.setDocumentPath( documentPath );
+        stepNode = annotationDrivenStepMetaAnalyzer.analyze( stepDescriptor, baseStepMeta );
+        analyzerHolders.add( new AnalyzerHolder( annotationDrivenStepMetaAnalyzer, baseStepMeta, stepNode ) );
+      } else {
+        GenericStepMetaAnalyzer defaultStepAnalyzer = new GenericStepMetaAnalyzer();
+        defaultStepAnalyzer.setMetaverseBuilder( metaverseBuilder );
+        stepNode = defaultStepAnalyzer.analyze( stepDescriptor, getBaseStepMetaFromStepMeta( stepMeta ) );
+      }
+      if ( stepNode != null ) {
+        metaverseBuilder.addLink( node, DictionaryConst.LINK_CONTAINS, stepNode );
+      }
+    } catch ( Throwable mae ) {
+      //Don't throw an exception, just log and carry on
+      log.warn( Messages.getString( "ERROR.ErrorDuringAnalysis", stepMeta.getName(),
+        Const.NVL( mae.getLocalizedMessage(), "Unspecified" ) ) );
+      log.debug( Messages.getString( "ERROR.ErrorDuringAnalysisStackTrace" ), mae );
+    }
+    return analyzerHolders;
+  }
+
+  /**
+   * Analyzes a step with one of its analyzers.
+   *
+   * @return the analyzer that analyzed the step, to post process it
+   */
+  private AnalyzerHolder runStepAnalyzer(
+    final IComponentDescriptor documentDescriptor, final String documentPath, final IComponentDescriptor stepDescriptor,
+    final BaseStepMeta baseStepMeta, IStepAnalyzer stepAnalyzer ) throws MetaverseAnalyzerException {
+
+    // the analyzers provided by the provider are singletons created at startup time - in order to be able
+    // to analyze multiple transformations concurrently, we need to clone the analyzer, such that each
+    // transformation step has its own dedicated analyzer with a metaverseBuilder that is unique to the
+    // transformation execution and does not change while the transformation is being analyzed
+    if ( stepAnalyzer instanceof IClonableStepAnalyzer ) {
+      stepAnalyzer = ( (IClonableStepAnalyzer) stepAnalyzer ).cloneAnalyzer();
+      ( (IClonableStepAnalyzer) stepAnalyzer ).setDocumentAnalyzer( this );
+      ( (IClonableStepAnalyzer) stepAnalyzer ).setDocumentDescriptor( documentDescriptor );
+      ( (IClonableStepAnalyzer) stepAnalyzer ).setDocumentPath( documentPath );
+    } else {
+      log.debug( Messages.getString( "WARNING.CannotCloneAnalyzer" ), stepAnalyzer );
+    }
+    stepAnalyzer.setMetaverseBuilder( metaverseBuilder );
+    final IMetaverseNode stepNode = (IMetaverseNode) stepAnalyzer.analyze( stepDescriptor, baseStepMeta );
+    return new AnalyzerHolder( stepAnalyzer, baseStepMeta, stepNode );
+  }
+
+  /**
+   * Returns the runner analyzing the steps of the transformations, sized by
+   * {@link IMetaverseConfig#KETTLE_LINEAGE_STEP_ANALYSIS_POOL_SIZE}. With a size above 1, the steps of a transformation
+   * are analyzed concurrently, and so are the transformations given to this analyzer, as long as the graph of the
+   * metaverse builder is a {@link BaseSynchronizedGraph}. Otherwise the steps are analyzed one after the other, and
+   * the analyses of this analyzer run one at a time.
+   *
+   * @return the runner
+   */
+  protected static ParallelTaskRunner getStepAnalysisRunner() {
+    final IMetaverseConfig config = MetaverseConfig.getConfigured();
+    return ParallelTaskRunner.getShared( STEP_ANALYSIS_THREAD_NAME,
+      config == null ? null : config.getStepAnalysisPoolSize(),
+      IMetaverseConfig.KETTLE_LINEAGE_STEP_ANALYSIS_POOL_SIZE );
   }
 
   /**
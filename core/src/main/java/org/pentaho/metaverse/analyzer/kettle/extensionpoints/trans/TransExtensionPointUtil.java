@@ -18,6 +18,7 @@ import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
 import org.pentaho.di.core.KettleClientEnvironment;
 import org.pentaho.di.trans.TransMeta;
 import org.pentaho.dictionary.DictionaryConst;
+import org.pentaho.metaverse.analyzer.kettle.TransLineageSnapshot;
 import org.pentaho.metaverse.api.IDocument;
 import org.pentaho.metaverse.api.IMetaverseBuilder;
 import org.pentaho.metaverse.api.IMetaverseNode;
@@ -26,6 +27,7 @@ import org.pentaho.metaverse.api.INamespace;
 import org.pentaho.metaverse.api.MetaverseException;
 import org.pentaho.metaverse.api.Namespace;
 import org.pentaho.metaverse.api.analyzer.kettle.KettleAnalyzerUtil;
+import org.pentaho.metaverse.graph.LineageGraphMap;
 import org.pentaho.metaverse.impl.MetaverseBuilder;
 import org.pentaho.metaverse.messages.Messages;
 import org.pentaho.metaverse.util.MetaverseUtil;
@@ -46,7 +48,7 @@ public class TransExtensionPointUtil {
     // Get the "natural" filename (repo-based if in repository, filesystem-based otherwise)
     String filename = getFilename( transMeta );
 
-    final Graph graph = new TinkerGraph();
+    final Graph graph = getLineageGraph( transMeta );
     final IMetaverseBuilder metaverseBuilder = new MetaverseBuilder( graph );
     final IMetaverseObjectFactory objFactory = MetaverseUtil.getDocumentController().getMetaverseObjectFactory();
 
@@ -71,6 +73,27 @@ public class TransExtensionPointUtil {
     MetaverseUtil.addLineageGraph( document, graph );
   }
 
+  /**
+   * Returns the graph the lineage of the given transformation is to be written to. That is the graph of its previous
+   * analysis, which is patched in place, when that analysis has completed and the hops of the transformation haven't
+   * changed since. Otherwise, the transformation gets a new graph and is analyzed from scratch. Either way, the pending
+   * analysis of the transformation is cancelled.
+   *
+   * @param transMeta the transformation
+   * @return the graph
+   */
+  protected static Graph getLineageGraph( final TransMeta transMeta ) {
+    final Graph previousGraph = LineageGraphMap.supersede( transMeta );
+    final TransLineageSnapshot snapshot = TransLineageSnapshot.get( transMeta );
+    if ( previousGraph != null && snapshot != null && snapshot.getGraph() == previousGraph
+      && snapshot.canPatch( transMeta ) ) {
+      return previousGraph;
+    }
+    final Graph graph = new TinkerGraph();
+    TransLineageSnapshot.track( transMeta, graph );
+    return graph;
+  }
+
   public static String getFilename( TransMeta transMeta ) {
     return KettleAnalyzerUtil.getFilename( transMeta );
   }
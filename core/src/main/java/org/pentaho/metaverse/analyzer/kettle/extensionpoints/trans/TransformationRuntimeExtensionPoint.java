@@ -49,6 +49,7 @@ import org.pentaho.metaverse.api.model.kettle.MetaverseExtensionPoint;
 import org.pentaho.metaverse.graph.GraphCatalogWriter;
 import org.pentaho.metaverse.graph.GraphMLWriter;
 import org.pentaho.metaverse.impl.MetaverseCompletionService;
+import org.pentaho.metaverse.impl.LineageGraphWriteService;
 import org.pentaho.metaverse.impl.MetaverseConfig;
 import org.pentaho.metaverse.impl.VfsLineageWriter;
 import org.pentaho.metaverse.impl.model.ExecutionProfile;
@@ -288,16 +289,8 @@ public class TransformationRuntimeExtensionPoint extends BaseRuntimeExtensionPoi
   }
 
   protected void createLineGraphAsync( Trans trans ) {
-    // Need to spin this processing off into its own thread, so we don't hold up normal PDI processing
-    Thread lineageWorker = new Thread( new Runnable() {
-
-      @Override
-      public void run() {
-        createLineGraph( trans );
-      }
-    } );
-
-    lineageWorker.start();
+    // Need to spin this processing off to the lineage writer pool, so we don't hold up normal PDI processing
+    LineageGraphWriteService.getInstance().submit( () -> createLineGraph( trans ) );
   }
 
   private void removeSensitiveDataFromHolder( LineageHolder holder ) {
@@ -23,12 +23,7 @@ import org.pentaho.metaverse.api.analyzer.kettle.step.IStepExternalResourceConsu
 import org.pentaho.metaverse.api.model.IExecutionProfile;
 import org.pentaho.metaverse.api.model.IExternalResourceInfo;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 public class StepExternalConsumerRowListener extends RowAdapter {
 
@@ -50,7 +45,6 @@ public class StepExternalConsumerRowListener extends RowAdapter {
    * Object[])
    */
   @Override
-  @SuppressWarnings( "unchecked" )
   public void rowReadEvent( RowMetaInterface rowMeta, Object[] row ) throws KettleStepException {
 
     Collection<IExternalResourceInfo> resources =
@@ -60,18 +54,8 @@ public class StepExternalConsumerRowListener extends RowAdapter {
       IExecutionProfile executionProfile =
         TransLineageHolderMap.getInstance().getLineageHolder( step.getTrans() ).getExecutionProfile();
       if ( executionProfile != null ) {
-        String stepName = step.getStepname();
-        Map<String, List<IExternalResourceInfo>> resourceMap =
-          executionProfile.getExecutionData().getExternalResources();
-        final List<IExternalResourceInfo> existingResources = resourceMap.get( stepName );
-        Set<IExternalResourceInfo> externalResources = existingResources == null ? new HashSet()
-          : new HashSet( resourceMap.get( stepName ) );
-        if ( externalResources == null ) {
-          externalResources = new HashSet();
-        }
-        // avoid adding duplicates
-        externalResources.addAll( new HashSet<>( resources ) );
-        resourceMap.put( stepName, new ArrayList( externalResources ) );
+        // merge in place, duplicates are skipped without copying the resources already recorded for the step
+        executionProfile.getExecutionData().addExternalResources( step.getStepname(), resources );
       }
     }
   }
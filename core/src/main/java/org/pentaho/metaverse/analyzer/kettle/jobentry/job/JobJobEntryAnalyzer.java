@@ -35,7 +35,6 @@ import org.pentaho.metaverse.api.messages.Messages;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.util.HashSet;
 import java.util.Set;
@@ -84,7 +83,7 @@ public class JobJobEntryAnalyzer extends JobEntryAnalyzer<JobEntryJob> {
           String file = parentJobMeta.environmentSubstitute( entry.getJobName() );
           try {
             RepositoryDirectoryInterface rdi = repo.findDirectory( dir );
-            subJobMeta = repo.loadJob( file, rdi, null, null );
+            subJobMeta = KettleAnalyzerUtil.loadJob( repo, rdi, file );
             String filename = subJobMeta.getFilename() == null ? subJobMeta.toString() : subJobMeta.getFilename();
             jobPath = filename + "." + subJobMeta.getDefaultExtension();
           } catch ( KettleException e ) {
@@ -99,7 +98,7 @@ public class JobJobEntryAnalyzer extends JobEntryAnalyzer<JobEntryJob> {
       case REPOSITORY_BY_REFERENCE:
         if ( repo != null ) {
           try {
-            subJobMeta = repo.loadJob( entry.getJobObjectId(), null );
+            subJobMeta = KettleAnalyzerUtil.loadJob( repo, entry.getJobObjectId() );
             String filename = subJobMeta.getFilename() == null ? subJobMeta.toString() : subJobMeta.getFilename();
             jobPath = filename + "." + subJobMeta.getDefaultExtension();
           } catch ( KettleException e ) {
@@ -150,8 +149,7 @@ public class JobJobEntryAnalyzer extends JobEntryAnalyzer<JobEntryJob> {
 
   protected JobMeta getSubJobMeta( String filePath ) throws FileNotFoundException, KettleXMLException,
     KettleMissingPluginsException {
-    FileInputStream fis = new FileInputStream( filePath );
-    return new JobMeta( fis, null, null );
+    return KettleAnalyzerUtil.getSubJobMeta( filePath );
   }
 
   @Override
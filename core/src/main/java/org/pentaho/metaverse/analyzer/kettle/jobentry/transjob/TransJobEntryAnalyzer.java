@@ -39,7 +39,6 @@ import org.pentaho.platform.engine.core.system.PentahoSystem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.util.HashSet;
 import java.util.Set;
@@ -89,7 +88,7 @@ public class TransJobEntryAnalyzer extends JobEntryAnalyzer<JobEntryTrans> {
           String file = parentJobMeta.environmentSubstitute( entry.getTransname() );
           try {
             RepositoryDirectoryInterface rdi = repo.findDirectory( dir );
-            subTransMeta = repo.loadTransformation( file, rdi, null, true, null );
+            subTransMeta = KettleAnalyzerUtil.loadTransformation( repo, rdi, file );
             transPath = subTransMeta.getPathAndName() + "." + subTransMeta.getDefaultExtension();
           } catch ( KettleException e ) {
             exception = new MetaverseAnalyzerException( Messages.getString( "ERROR.SubTransNotFoundInParentJob", file,
@@ -103,7 +102,7 @@ public class TransJobEntryAnalyzer extends JobEntryAnalyzer<JobEntryTrans> {
       case REPOSITORY_BY_REFERENCE:
         if ( repo != null ) {
           try {
-            subTransMeta = repo.loadTransformation( entry.getTransObjectId(), null );
+            subTransMeta = KettleAnalyzerUtil.loadTransformation( repo, entry.getTransObjectId() );
             transPath = subTransMeta.getPathAndName() + "." + subTransMeta.getDefaultExtension();
           } catch ( KettleException e ) {
             exception = new MetaverseAnalyzerException( Messages.getString( "ERROR.SubTransNotFoundInParentJob",
@@ -156,8 +155,7 @@ public class TransJobEntryAnalyzer extends JobEntryAnalyzer<JobEntryTrans> {
 
   protected TransMeta getSubTransMeta( String filePath ) throws FileNotFoundException, KettleXMLException,
     KettleMissingPluginsException {
-    FileInputStream fis = new FileInputStream( filePath );
-    return new TransMeta( fis, null, true, null, null );
+    return KettleAnalyzerUtil.getSubTransMeta( filePath );
   }
 
   @Override
@@ -39,6 +39,7 @@ import org.pentaho.metaverse.api.MetaverseAnalyzerException;
 import org.pentaho.metaverse.api.MetaverseComponentDescriptor;
 import org.pentaho.metaverse.api.StepField;
 import org.pentaho.metaverse.api.analyzer.kettle.KettleAnalyzerUtil;
+import org.pentaho.metaverse.api.analyzer.kettle.RowMetaMemo;
 import org.pentaho.metaverse.api.analyzer.kettle.jobentry.IJobEntryAnalyzerProvider;
 import org.pentaho.metaverse.api.analyzer.kettle.step.IClonableStepAnalyzer;
 import org.pentaho.metaverse.api.analyzer.kettle.step.StepAnalyzer;
@@ -107,7 +108,7 @@ public class JobExecutorStepAnalyzer extends StepAnalyzer<JobExecutorMeta> {
           String file = parentTransMeta.environmentSubstitute( meta.getJobName() );
           try {
             RepositoryDirectoryInterface rdi = repo.findDirectory( dir );
-            subJobMeta = repo.loadJob( file, rdi, null, null );
+            subJobMeta = KettleAnalyzerUtil.loadJob( repo, rdi, file );
             String filename = subJobMeta.getFilename() == null ? subJobMeta.toString() : subJobMeta.getFilename();
             jobPath = filename + "." + subJobMeta.getDefaultExtension();
           } catch ( KettleException e ) {
@@ -122,7 +123,7 @@ public class JobExecutorStepAnalyzer extends StepAnalyzer<JobExecutorMeta> {
       case REPOSITORY_BY_REFERENCE:
         if ( repo != null ) {
           try {
-            subJobMeta = repo.loadJob( meta.getJobObjectId(), null );
+            subJobMeta = KettleAnalyzerUtil.loadJob( repo, meta.getJobObjectId() );
             String filename = subJobMeta.getFilename() == null ? subJobMeta.toString() : subJobMeta.getFilename();
             jobPath = filename + "." + subJobMeta.getDefaultExtension();
           } catch ( KettleException e ) {
@@ -190,7 +191,7 @@ public class JobExecutorStepAnalyzer extends StepAnalyzer<JobExecutorMeta> {
 
   protected JobMeta getSubJobMeta( Bowl bowl, VariableSpace variableSpace, String filePath )
     throws FileNotFoundException, KettleXMLException, KettleMissingPluginsException {
-    return new JobMeta( bowl, variableSpace, filePath, null, null, null );
+    return KettleAnalyzerUtil.getSubJobMeta( bowl, variableSpace, filePath );
   }
 
   protected void connectToSubJobOutputFields( JobExecutorMeta meta, JobMeta subJobMeta,
@@ -222,7 +223,9 @@ public class JobExecutorStepAnalyzer extends StepAnalyzer<JobExecutorMeta> {
       StepMeta step = parentTransMeta.findStep( nextStepName );
       ProgressNullMonitorListener progressMonitor = new ProgressNullMonitorListener();
       try {
-        RowMetaInterface prevStepFields = parentTransMeta.getPrevStepFields( step, progressMonitor );
+        final RowMetaMemo rowMetaMemo = RowMetaMemo.get( parentTransMeta );
+        RowMetaInterface prevStepFields = rowMetaMemo != null ? rowMetaMemo.getPrevStepFields( step )
+          : parentTransMeta.getPrevStepFields( step, progressMonitor );
         outputFields.put( nextStepName, prevStepFields );
         progressMonitor.done();
       } catch ( KettleStepException e ) {
@@ -25,6 +25,7 @@ import org.pentaho.metaverse.api.IMetaverseNode;
 import org.pentaho.metaverse.api.MetaverseAnalyzerException;
 import org.pentaho.metaverse.api.StepField;
 import org.pentaho.metaverse.api.analyzer.kettle.ComponentDerivationRecord;
+import org.pentaho.metaverse.api.analyzer.kettle.RowMetaMemo;
 import org.pentaho.metaverse.api.analyzer.kettle.step.IClonableStepAnalyzer;
 import org.pentaho.metaverse.api.analyzer.kettle.step.StepAnalyzer;
 import org.pentaho.metaverse.api.model.Operation;
@@ -52,7 +53,7 @@ public class MergeJoinStepAnalyzer extends StepAnalyzer<MergeJoinMeta> {
     String[] keyFields1 = mergeJoinMeta.getKeyFields1();
     String[] keyFields2 = mergeJoinMeta.getKeyFields2();
     String joinType = mergeJoinMeta.getJoinType();
-    String[] prevStepNames = parentTransMeta.getPrevStepNames( getStepName() );
+    String[] prevStepNames = getPrevStepNames( getStepName() );
 
     node.setProperty( DictionaryConst.PROPERTY_JOIN_TYPE, joinType );
     node.setProperty( DictionaryConst.PROPERTY_JOIN_FIELDS_LEFT, Arrays.asList( keyFields1 ) );
@@ -91,7 +92,7 @@ public class MergeJoinStepAnalyzer extends StepAnalyzer<MergeJoinMeta> {
   @Override
   public Set<ComponentDerivationRecord> getChangeRecords( MergeJoinMeta meta ) throws MetaverseAnalyzerException {
     Set<ComponentDerivationRecord> changeRecords = new HashSet<>();
-    String[] prevStepNames = parentTransMeta.getPrevStepNames( getStepName() );
+    String[] prevStepNames = getPrevStepNames( getStepName() );
     if ( getOutputs() != null ) {
       Set<StepField> outputFields = getOutputs().getFieldNames();
 
@@ -119,7 +120,7 @@ public class MergeJoinStepAnalyzer extends StepAnalyzer<MergeJoinMeta> {
     String[] keyFields1 = meta.getKeyFields1();
     String[] keyFields2 = meta.getKeyFields2();
 
-    String[] prevStepNames = parentTransMeta.getPrevStepNames( getStepName() );
+    String[] prevStepNames = getPrevStepNames( getStepName() );
 
     for ( int i = 0; i < keyFields1.length; i++ ) {
       String leftField = keyFields1[ i ];
@@ -143,14 +144,17 @@ public class MergeJoinStepAnalyzer extends StepAnalyzer<MergeJoinMeta> {
     if ( parentTransMeta != null ) {
       rowMeta = new HashMap<>();
       try {
+        final RowMetaMemo rowMetaMemo = RowMetaMemo.get( parentTransMeta );
         StepMeta stepMeta1 = meta.getStepIOMeta().getInfoStreams().get( 0 ).getStepMeta();
         ProgressNullMonitorListener progress = new ProgressNullMonitorListener();
-        leftStepFields = parentTransMeta.getStepFields( stepMeta1, progress );
+        leftStepFields = rowMetaMemo != null ? rowMetaMemo.getStepFields( stepMeta1 )
+          : parentTransMeta.getStepFields( stepMeta1, progress );
         progress.done();
 
         progress = new ProgressNullMonitorListener();
         StepMeta stepMeta2 = meta.getStepIOMeta().getInfoStreams().get( 1 ).getStepMeta();
-        rightStepFields = parentTransMeta.getStepFields( stepMeta2, progress );
+        rightStepFields = rowMetaMemo != null ? rowMetaMemo.getStepFields( stepMeta2 )
+          : parentTransMeta.getStepFields( stepMeta2, progress );
         progress.done();
         rowMeta.put( stepMeta1.getName(), leftStepFields );
         rowMeta.put( stepMeta2.getName(), rightStepFields );
@@ -165,7 +169,7 @@ public class MergeJoinStepAnalyzer extends StepAnalyzer<MergeJoinMeta> {
   @Override
   protected boolean isPassthrough( StepField originalField ) {
     List<IMetaverseNode> inputFieldNamesMatching = getInputs().findNodes( originalField.getFieldName() );
-    String[] prevStepNames = parentTransMeta.getPrevStepNames( getStepName() );
+    String[] prevStepNames = getPrevStepNames( getStepName() );
 
     boolean isRightSideOfJoin = originalField.getStepName().equals( prevStepNames[ 1 ] );
     boolean isBothSidesOfJoin = inputFieldNamesMatching.size() > 1;
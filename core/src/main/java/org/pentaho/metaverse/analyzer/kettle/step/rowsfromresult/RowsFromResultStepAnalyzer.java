@@ -23,6 +23,7 @@ import org.pentaho.dictionary.DictionaryConst;
 import org.pentaho.metaverse.api.IMetaverseNode;
 import org.pentaho.metaverse.api.MetaverseAnalyzerException;
 import org.pentaho.metaverse.api.StepField;
+import org.pentaho.metaverse.api.analyzer.kettle.RowMetaMemo;
 import org.pentaho.metaverse.api.analyzer.kettle.step.StepAnalyzer;
 import org.pentaho.metaverse.api.analyzer.kettle.step.StepNodes;
 
@@ -45,7 +46,9 @@ public class RowsFromResultStepAnalyzer extends StepAnalyzer<RowsFromResultMeta>
       String fieldName = fieldNames[ j ];
       RowMetaInterface rmi = null;
       try {
-        rmi = parentTransMeta.getStepFields( parentStepMeta );
+        final RowMetaMemo rowMetaMemo = RowMetaMemo.get( parentTransMeta );
+        rmi = rowMetaMemo != null ? rowMetaMemo.getStepFields( parentStepMeta )
+          : parentTransMeta.getStepFields( parentStepMeta );
         int type = rmi.getValueMeta( j ).getType();
         ValueMetaInterface vmi = rmi.getValueMeta( j );
         //        IMetaverseNode prevFieldNode = createInputFieldNode( StepAnalyzer.NONE, fieldName, type );
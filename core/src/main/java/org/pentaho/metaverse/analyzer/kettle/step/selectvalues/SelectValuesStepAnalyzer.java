@@ -153,7 +153,7 @@ public class SelectValuesStepAnalyzer extends StepAnalyzer<SelectValuesMeta> {
     // super.analyze() will notice and created a "deleted" relationship for each
 
     if ( !Const.isEmpty( selectValuesMeta.getMeta() ) ) {
-      String[] prevStepNames = parentTransMeta.getPrevStepNames( getStepName() );
+      String[] prevStepNames = getPrevStepNames( getStepName() );
       if ( metadataChanges != null ) {
         for ( SelectMetadataChange metadataChange : metadataChanges ) {
           final String inputFieldName = metadataChange.getName();
@@ -59,10 +59,10 @@ public class StreamLookupStepAnalyzer extends StepAnalyzer<StreamLookupMeta> {
     Map<String, RowMetaInterface> rowMeta = super.getInputFields( meta );
 
     if ( parentTransMeta != null ) {
-      for ( String prevStepName : parentTransMeta.getPrevStepNames( parentStepMeta ) ) {
+      for ( String prevStepName : getPrevStepNames( parentStepMeta ) ) {
         if ( !rowMeta.containsKey( prevStepName ) ) {
           try {
-            rowMeta.put( prevStepName, parentTransMeta.getStepFields( prevStepName ) );
+            rowMeta.put( prevStepName, getStepFields( prevStepName ) );
           } catch ( KettleStepException e ) {
             LOGGER.warn( Messages.getString( "WARNING.CannotDetermineRowMeta", prevStepName, e.toString() ) );
           }
@@ -79,7 +79,7 @@ public class StreamLookupStepAnalyzer extends StepAnalyzer<StreamLookupMeta> {
     keyStreams = meta.getKeystream();
     values = meta.getValue();
 
-    String[] prevStepNames = parentTransMeta.getPrevStepNames( getStepName() );
+    String[] prevStepNames = getPrevStepNames( getStepName() );
     lookupStep = meta.getStepIOMeta().getInfoStreams().get( 0 ).getStepname();
 
     for ( int i = 0; i < keyLookups.length; i++ ) {
@@ -103,7 +103,7 @@ public class StreamLookupStepAnalyzer extends StepAnalyzer<StreamLookupMeta> {
     values = meta.getValue();
     valueNames = meta.getValueName();
     lookupStep = meta.getStepIOMeta().getInfoStreams().get( 0 ).getStepname();
-    String[] prevStepNames = parentTransMeta.getPrevStepNames( getStepName() );
+    String[] prevStepNames = getPrevStepNames( getStepName() );
 
     for ( int i = 0; i < keyLookups.length; i++ ) {
       IMetaverseNode keyNode = getInputs().findNode( prevStepNames[0], keyStreams[i] );
@@ -158,12 +158,12 @@ public class StreamLookupStepAnalyzer extends StepAnalyzer<StreamLookupMeta> {
   protected boolean newFieldNameExistsInMainInputStream( String newFieldName ) {
     if ( parentTransMeta != null ) {
       String lookupStepName = baseStepMeta.getStepIOMeta().getInfoStreams().get( 0 ).getStepname();
-      String[] prevStepNames = parentTransMeta.getPrevStepNames( parentStepMeta );
+      String[] prevStepNames = getPrevStepNames( parentStepMeta );
       for ( int i = 0; i < prevStepNames.length; i++ ) {
         String prevStepName = prevStepNames[ i ];
         if ( !prevStepName.equals( lookupStepName ) ) {
           try {
-            RowMetaInterface stepFields = parentTransMeta.getStepFields( prevStepName );
+            RowMetaInterface stepFields = getStepFields( prevStepName );
             if ( stepFields != null ) {
               ValueMetaInterface valueMetaInterface = stepFields.searchValueMeta( newFieldName );
               return valueMetaInterface != null;
@@ -40,7 +40,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Future;
 
 /**
  * LineageClient is a collection of methods that provide specific data- and metadata-lineage information, such as which
@@ -76,9 +75,9 @@ public class LineageClient implements ILineageClient, ServiceProviderInterface<I
     Map<String, Set<StepField>> originStepsMap = new HashMap<>();
 
     try {
-      Future<Graph> lineageGraphTask = LineageGraphMap.getInstance().get( transMeta );
-      if ( lineageGraphTask != null ) {
-        Graph lineageGraph = lineageGraphTask.get();
+      // don't wait for a pending analysis when a previous one has completed
+      Graph lineageGraph = LineageGraphMap.getGraph( transMeta );
+      if ( lineageGraph != null ) {
         List<Vertex> targetFields = getTargetFields( lineageGraph, targetStepName, fieldNames );
 
         GremlinPipeline pipe = getOriginStepsPipe( targetFields );
@@ -135,44 +134,41 @@ public class LineageClient implements ILineageClient, ServiceProviderInterface<I
     Map<String, Set<List<StepFieldOperations>>> operationPathMap = new HashMap<>();
 
     try {
-      Future<Graph> lineageGraphTask = LineageGraphMap.getInstance().get( transMeta );
-      if ( lineageGraphTask != null ) {
-        Graph lineageGraph = lineageGraphTask.get();
-
-        if ( lineageGraph != null ) {
-
-          // Get the creator field nodes for all the field names passed in
-          List<Vertex> getTargetFields = getTargetFields( lineageGraph, targetStepName, fieldNames );
-
-
-          // The "origin steps pipe" with a second param of true returns a pipeline that will return paths between
-          // the origin field nodes and the target field node.
-          GremlinPipeline pipe = getOriginStepsPipe( getTargetFields );
-          List<List<Vertex>> pathList = pipe.toList();
-          if ( pathList != null ) {
-
-            for ( List<Vertex> path : pathList ) {
-              // Transform each path of vertices into a "path" of StepFieldOperations objects (basically save off
-              // properties of each vertex into a new list)
-              List<StepFieldOperations> stepFieldOps = new ArrayList<>();
-              String targetField = path.get( 0 ).getProperty( DictionaryConst.PROPERTY_NAME );
-              Set<List<StepFieldOperations>> pathSet = operationPathMap.get( targetField );
-
-              if ( pathSet == null ) {
-                pathSet = new HashSet<>();
-                operationPathMap.put( targetField, pathSet );
-              }
-              for ( Vertex v : path ) {
-                Map<String, String> stepField = STEPFIELDOPS_PIPE_FUNC.compute( v );
-                String stepName = stepField.get( "stepName" );
-                String fieldName = stepField.get( "fieldName" );
-                Operations operations = MetaverseUtil.convertOperationsStringToMap(
-                  (String) v.getProperty( DictionaryConst.PROPERTY_OPERATIONS ) );
-
-                stepFieldOps.add( 0, new StepFieldOperations( stepName, fieldName, operations ) );
-              }
-              pathSet.add( stepFieldOps );
+      // don't wait for a pending analysis when a previous one has completed
+      Graph lineageGraph = LineageGraphMap.getGraph( transMeta );
+      if ( lineageGraph != null ) {
+
+        // Get the creator field nodes for all the field names passed in
+        List<Vertex> getTargetFields = getTargetFields( lineageGraph, targetStepName, fieldNames );
+
+
+        // The "origin steps pipe" with a second param of true returns a pipeline that will return paths between
+        // the origin field nodes and the target field node.
+        GremlinPipeline pipe = getOriginStepsPipe( getTargetFields );
+        List<List<Vertex>> pathList = pipe.toList();
+        if ( pathList != null ) {
+
+          for ( List<Vertex> path : pathList ) {
+            // Transform each path of vertices into a "path" of StepFieldOperations objects (basically save off
+            // properties of each vertex into a new list)
+            List<StepFieldOperations> stepFieldOps = new ArrayList<>();
+            String targetField = path.get( 0 ).getProperty( DictionaryConst.PROPERTY_NAME );
+            Set<List<StepFieldOperations>> pathSet = operationPathMap.get( targetField );
+
+            if ( pathSet == null ) {
+              pathSet = new HashSet<>();
+              operationPathMap.put( targetField, pathSet );
+            }
+            for ( Vertex v : path ) {
+              Map<String, String> stepField = STEPFIELDOPS_PIPE_FUNC.compute( v );
+              String stepName = stepField.get( "stepName" );
+              String fieldName = stepField.get( "fieldName" );
+              Operations operations = MetaverseUtil.convertOperationsStringToMap(
+                (String) v.getProperty( DictionaryConst.PROPERTY_OPERATIONS ) );
+
+              stepFieldOps.add( 0, new StepFieldOperations( stepName, fieldName, operations ) );
             }
+            pathSet.add( stepFieldOps );
           }
         }
       }
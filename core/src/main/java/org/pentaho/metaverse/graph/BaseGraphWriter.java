@@ -39,19 +39,23 @@ import java.util.Set;
 public abstract class BaseGraphWriter implements IGraphWriter {
 
   public static void adjustGraph( final Graph graph ) {
-    mergeOutputsAndInputs( graph );
+    // the adjustments only add and remove fields and edges, the document element and external resource vertices they
+    // look up don't change, so a single pass over the vertices serves all of them
+    final VertexIndex vertexIndex = new VertexIndex( graph );
+
+    mergeOutputsAndInputs( graph, vertexIndex );
 
     if ( MetaverseConfig.deduplicateTransformationFields() ) {
-      deduplicateTransFields( graph );
+      deduplicateTransFields( graph, vertexIndex );
     }
 
     if ( MetaverseConfig.adjustExternalResourceFields() ) {
       // first add the missing links from each external resources to their fields
-      addExternalResourceContainsFieldsLinks( graph );
+      addExternalResourceContainsFieldsLinks( graph, vertexIndex );
 
       // if a single step reads more than one external resource, we will now likely have duplicate fields "contain"ed by
       // each resource, which need to be de-duplicated
-      deduplicateExternalResourceFields( graph );
+      deduplicateExternalResourceFields( graph, vertexIndex );
     }
   }
 
@@ -64,33 +68,14 @@ public abstract class BaseGraphWriter implements IGraphWriter {
 
   protected abstract void outputGraphImpl( final Graph graph, final OutputStream outputStream ) throws IOException;
 
-  private static Set<Vertex> getVerticesByCategoryAndName( final Graph graph, final String category,
-                                                           final String name ) {
-    final Iterator<Vertex> allVertices = graph.getVertices().iterator();
-
-    final Set<Vertex> documentElementVertices = new HashSet();
-    while ( allVertices.hasNext() ) {
-      final Vertex vertex = allVertices.next();
-      if ( ( category == null || category.equals( vertex.getProperty( DictionaryConst.PROPERTY_CATEGORY ) ) )
-        && ( name == null || name.equals( vertex.getProperty( DictionaryConst.PROPERTY_NAME ) ) ) ) {
-        documentElementVertices.add( vertex );
-      }
-    }
-    return documentElementVertices;
-  }
-
-  private static Set<Vertex> getVerticesByCategory( final Graph graph, final String category ) {
-    return getVerticesByCategoryAndName( graph, category, null );
-  }
-
   /**
    * Returns all vertices categorized as "documentelement", which corresponds to all Step and Job Entry vertices.
    *
-   * @param graph the {@link Graph}
+   * @param vertexIndex the {@link VertexIndex} of the graph
    * @return a {@link Set} of vertices corresponding to Steps and Job Enties.
    */
-  private static Set<Vertex> getDocumentElementVertices( final Graph graph ) {
-    return getVerticesByCategory( graph, DictionaryConst.CATEGORY_DOCUMENT_ELEMENT );
+  private static Set<Vertex> getDocumentElementVertices( final VertexIndex vertexIndex ) {
+    return vertexIndex.getVerticesByCategory( DictionaryConst.CATEGORY_DOCUMENT_ELEMENT );
   }
 
   /**
@@ -99,9 +84,9 @@ public abstract class BaseGraphWriter implements IGraphWriter {
    * IN "outputs" link, and check whether there are any matching "output" fields in the steps that hop to the given
    * step. If so, merge the fields, OR if there are multiple fields that match, add appropriate missing links.
    */
-  private static void mergeOutputsAndInputs( final Graph graph ) {
+  private static void mergeOutputsAndInputs( final Graph graph, final VertexIndex vertexIndex ) {
     // get all Step and Job Entry nodes
-    final Iterator<Vertex> documentElementVertices = getDocumentElementVertices( graph ).iterator();
+    final Iterator<Vertex> documentElementVertices = getDocumentElementVertices( vertexIndex ).iterator();
 
     while ( documentElementVertices.hasNext() ) {
       final Vertex documentElementVertex = documentElementVertices.next();
@@ -155,9 +140,9 @@ public abstract class BaseGraphWriter implements IGraphWriter {
     }
   }
 
-  private static void deduplicateTransFields( final Graph graph ) {
+  private static void deduplicateTransFields( final Graph graph, final VertexIndex vertexIndex ) {
     // get all Step and Job Entry nodes
-    final Iterator<Vertex> documentElementVertices = getDocumentElementVertices( graph ).iterator();
+    final Iterator<Vertex> documentElementVertices = getDocumentElementVertices( vertexIndex ).iterator();
 
     while ( documentElementVertices.hasNext() ) {
       final Vertex documentElementVertex = documentElementVertices.next();
@@ -214,11 +199,11 @@ public abstract class BaseGraphWriter implements IGraphWriter {
 
   private static void rewireEdges( final Graph graph, final Vertex vertexToKeep, final Vertex vertexToMerge,
                                    final Direction direction ) {
-    final Iterator<Edge> links = vertexToMerge.getEdges( direction ).iterator();
-    while ( links.hasNext() ) {
-      // remove this edge and recreate one that points to 'fieldVertexToKeep' instead of 'fieldVertexToMerge',
-      // where it pointed originally
-      final Edge originalLink = links.next();
+    // take the edges out of the vertex first, rather than removing them from under its edge iterator
+    final List<Edge> originalLinks = IteratorUtils.toList( vertexToMerge.getEdges( direction ).iterator() );
+    for ( final Edge originalLink : originalLinks ) {
+      // recreate this edge so that it points to 'fieldVertexToKeep' instead of 'fieldVertexToMerge', where it pointed
+      // originally
       final String newLinkId = direction == Direction.OUT
         ? BaseMetaverseBuilder.getEdgeId(
         vertexToKeep, originalLink.getLabel(), originalLink.getVertex( Direction.IN ) )
@@ -233,22 +218,24 @@ public abstract class BaseGraphWriter implements IGraphWriter {
             originalLink.getLabel() ).setProperty( "text", originalLink.getLabel() );
         }
       }
-      // remove the original link
+    }
+    // remove the original links
+    for ( final Edge originalLink : originalLinks ) {
       originalLink.remove();
     }
   }
 
-  private static Set<Vertex> getCollectionVertices( final Graph graph ) {
-    return getVerticesByCategory( graph, DictionaryConst.CATEGORY_FIELD_COLLECTION );
+  private static Set<Vertex> getCollectionVertices( final VertexIndex vertexIndex ) {
+    return vertexIndex.getVerticesByCategory( DictionaryConst.CATEGORY_FIELD_COLLECTION );
   }
 
-  private static Set<Vertex> getSQLVertices( final Graph graph ) {
-    return getVerticesByCategoryAndName( graph, DictionaryConst.CATEGORY_OTHER, DictionaryConst.NODE_NAME_SQL );
+  private static Set<Vertex> getSQLVertices( final VertexIndex vertexIndex ) {
+    return vertexIndex.getVerticesByCategoryAndName( DictionaryConst.CATEGORY_OTHER, DictionaryConst.NODE_NAME_SQL );
   }
 
-  private static Set<Vertex> getExternalResourceVertices( final Graph graph ) {
-    final Set<Vertex> externalResourceVertexSet = getCollectionVertices( graph );
-    externalResourceVertexSet.addAll( getSQLVertices( graph ) );
+  private static Set<Vertex> getExternalResourceVertices( final VertexIndex vertexIndex ) {
+    final Set<Vertex> externalResourceVertexSet = getCollectionVertices( vertexIndex );
+    externalResourceVertexSet.addAll( getSQLVertices( vertexIndex ) );
     return externalResourceVertexSet;
   }
 
@@ -298,9 +285,9 @@ public abstract class BaseGraphWriter implements IGraphWriter {
   }
 
   // add "contains" edges only to fields and columns which input into the step
-  private static void addExternalResourceContainsFieldsLinks( final Graph graph ) {
+  private static void addExternalResourceContainsFieldsLinks( final Graph graph, final VertexIndex vertexIndex ) {
     // get all external resources (files, SQL queries, database tables etc...)
-    final Iterator<Vertex> externalResourceVertices = getExternalResourceVertices( graph ).iterator();
+    final Iterator<Vertex> externalResourceVertices = getExternalResourceVertices( vertexIndex ).iterator();
 
     while ( externalResourceVertices.hasNext() ) {
       final Vertex externalResourceVertex = externalResourceVertices.next();
@@ -334,9 +321,9 @@ public abstract class BaseGraphWriter implements IGraphWriter {
     }
   }
 
-  private static void deduplicateExternalResourceFields( final Graph graph ) {
+  private static void deduplicateExternalResourceFields( final Graph graph, final VertexIndex vertexIndex ) {
     // get all external resources (files, SQL queries, database tables etc...)
-    final Iterator<Vertex> externalResourceVertices = getExternalResourceVertices( graph ).iterator();
+    final Iterator<Vertex> externalResourceVertices = getExternalResourceVertices( vertexIndex ).iterator();
 
     // traverse the links and see if there are any that point to fields with the same names, if so, they need to be
     // merged
@@ -346,4 +333,45 @@ public abstract class BaseGraphWriter implements IGraphWriter {
       mergeFields( graph, vertex, Direction.OUT, DictionaryConst.LINK_CONTAINS, false );
     }
   }
+
+  /**
+   * The vertices of a graph bucketed by category and name, built in a single pass over the graph. Each bucket keeps
+   * the vertices in the order the graph returned them.
+   */
+  private static class VertexIndex {
+
+    private final Map<Object, List<Vertex>> verticesByCategory = new HashMap();
+    private final Map<Object, Map<Object, List<Vertex>>> verticesByCategoryAndName = new HashMap();
+
+    VertexIndex( final Graph graph ) {
+      for ( final Vertex vertex : graph.getVertices() ) {
+        final Object category = vertex.getProperty( DictionaryConst.PROPERTY_CATEGORY );
+        if ( category != null ) {
+          final Object name = vertex.getProperty( DictionaryConst.PROPERTY_NAME );
+          verticesByCategory.computeIfAbsent( category, key -> new ArrayList() ).add( vertex );
+          verticesByCategoryAndName.computeIfAbsent( category, key -> new HashMap() )
+            .computeIfAbsent( name, key -> new ArrayList() ).add( vertex );
+        }
+      }
+    }
+
+    Set<Vertex> getVerticesByCategory( final String category ) {
+      return toSet( verticesByCategory.get( category ) );
+    }
+
+    Set<Vertex> getVerticesByCategoryAndName( final String category, final String name ) {
+      final Map<Object, List<Vertex>> verticesByName = verticesByCategoryAndName.get( category );
+      return toSet( verticesByName == null ? null : verticesByName.get( name ) );
+    }
+
+    private static Set<Vertex> toSet( final List<Vertex> vertices ) {
+      // filled one vertex at a time, like the scans this index replaced, so that the adjustments visit the vertices in
+      // the same order and produce the same graph
+      final Set<Vertex> vertexSet = new HashSet();
+      if ( vertices != null ) {
+        vertexSet.addAll( vertices );
+      }
+      return vertexSet;
+    }
+  }
 }
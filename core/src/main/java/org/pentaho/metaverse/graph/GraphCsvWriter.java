@@ -19,21 +19,34 @@ import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.Vertex;
 import org.pentaho.dictionary.DictionaryConst;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
 
 /**
- * The GraphMLWriter class contains methods for writing a metaverse graph model in GraphML format
+ * The GraphCsvWriter class contains methods for writing a metaverse graph model in CSV format, one line per edge. The
+ * output is UTF-8, and fields are quoted as described in RFC 4180.
  * 
  */
 public class GraphCsvWriter extends BaseGraphWriter {
 
   private static final String CSV_ENCLOSURE = "\"";
 
+  private static final String CSV_ESCAPED_ENCLOSURE = "\"\"";
+
+  private static final String CSV_SEPARATOR = ",";
+
+  private static final String CSV_LINE_SEPARATOR = "\n";
+
   @Override
-  public void outputGraphImpl( Graph graph, OutputStream out ) throws IOException {
+  public void outputGraphImpl( Graph graph, OutputStream outputStream ) throws IOException {
 
+    // the stream belongs to the caller, it is flushed but not closed
+    final Writer out = new BufferedWriter( new OutputStreamWriter( outputStream, StandardCharsets.UTF_8 ) );
     Iterable<Edge> iterable = graph.getEdges();
     Iterator<Edge> it = iterable.iterator();
     writeCSVField( "SourceId", out, true, false );
@@ -67,33 +80,57 @@ public class GraphCsvWriter extends BaseGraphWriter {
       writeCSVField( toV.getProperty( DictionaryConst.PROPERTY_AUTHOR ), out, false, false );
       writeCSVField( toV.getProperty( DictionaryConst.PROPERTY_LAST_MODIFIED ), out, false, true );
     }
+    out.flush();
 
   }
 
   /**
    * Writes out a line of CSV
    * @param obj The object (String, Date etc) to write out
-   * @param out The output stream to write to
+   * @param out The writer to write to
    * @param isFirst Is this the first field on the line
    * @param isLast Is this the last field on the line
-   * @throws IOException If the output stream cannot be written to
+   * @throws IOException If the writer cannot be written to
    */
-  protected void writeCSVField( Object obj, OutputStream out, boolean isFirst, boolean isLast ) throws IOException {
+  protected void writeCSVField( Object obj, Writer out, boolean isFirst, boolean isLast ) throws IOException {
     if ( !isFirst ) {
-      out.write( ",".getBytes() );
+      out.write( CSV_SEPARATOR );
     }
     if ( obj != null ) {
-      if ( obj instanceof String ) {
-        out.write( CSV_ENCLOSURE.getBytes() );
-        out.write( obj.toString().replace( CSV_ENCLOSURE, "\\\"" ).getBytes() );
-        out.write( CSV_ENCLOSURE.getBytes() );
-      } else {
-        out.write( obj.toString().getBytes() );
-      }
+      out.write( toCSVField( obj ) );
     }
     if ( isLast ) {
-      out.write( "\n".getBytes() );
+      out.write( CSV_LINE_SEPARATOR );
+    }
+  }
+
+  /**
+   * Writes out a line of CSV
+   * @param obj The object (String, Date etc) to write out
+   * @param out The output stream to write to
+   * @param isFirst Is this the first field on the line
+   * @param isLast Is this the last field on the line
+   * @throws IOException If the output stream cannot be written to
+   * @deprecated writes every field straight to the stream, use {@link #writeCSVField(Object, Writer, boolean, boolean)}
+   */
+  @Deprecated
+  protected void writeCSVField( Object obj, OutputStream out, boolean isFirst, boolean isLast ) throws IOException {
+    final Writer writer = new OutputStreamWriter( out, StandardCharsets.UTF_8 );
+    writeCSVField( obj, writer, isFirst, isLast );
+    writer.flush();
+  }
+
+  /**
+   * Strings are always enclosed in quotes, other values only when they contain a separator, a quote or a line break.
+   * Quotes within a field are doubled.
+   */
+  protected String toCSVField( Object obj ) {
+    final String value = obj.toString();
+    if ( obj instanceof String || value.contains( CSV_SEPARATOR ) || value.contains( CSV_ENCLOSURE )
+      || value.contains( CSV_LINE_SEPARATOR ) || value.contains( "\r" ) ) {
+      return CSV_ENCLOSURE + value.replace( CSV_ENCLOSURE, CSV_ESCAPED_ENCLOSURE ) + CSV_ENCLOSURE;
     }
+    return value;
   }
 
 }
@@ -13,22 +13,218 @@
 
 package org.pentaho.metaverse.graph;
 
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.io.graphml.GraphMLTokens;
+import org.pentaho.metaverse.impl.MetaverseConfig;
 
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * The GraphMLWriter class contains methods for writing a metaverse graph model in GraphML format
+ * <p/>
+ * Vertices and edges are written as the graph iterates them, the output can be read back with the Blueprints
+ * {@link com.tinkerpop.blueprints.util.io.graphml.GraphMLReader}. When the deterministic order is on, the vertices and
+ * edges are written in the order of their ids, which only requires holding on to the ids, and their properties in the
+ * order of their keys. The deterministic order defaults to
+ * {@link MetaverseConfig#getGraphMLDeterministicOrder()}, which is on unless configured otherwise.
  */
 public class GraphMLWriter extends BaseGraphWriter {
 
+  private static final String ENCODING = "UTF-8";
+
+  private static final String XML_VERSION = "1.0";
+
+  private static final String INDENT = "  ";
+
+  private static final String XSI_PREFIX = "xsi";
+
+  private static final String SCHEMA_LOCATION =
+    GraphMLTokens.GRAPHML_XMLNS + " http://graphml.graphdrawing.org/xmlns/1.1/graphml.xsd";
+
+  private static final Comparator<Object> ID_ORDER = Comparator.comparing( Object::toString );
+
+  private boolean deterministicOrder = MetaverseConfig.graphMLDeterministicOrder();
+
+  public boolean isDeterministicOrder() {
+    return deterministicOrder;
+  }
+
+  /**
+   * @param deterministicOrder true to write the vertices, edges and properties sorted, so that the same graph is always
+   *                           written the same way
+   */
+  public void setDeterministicOrder( final boolean deterministicOrder ) {
+    this.deterministicOrder = deterministicOrder;
+  }
+
   @Override
   public void outputGraphImpl( Graph graph, OutputStream graphMLOutputStream ) throws IOException {
-    com.tinkerpop.blueprints.util.io.graphml.GraphMLWriter writer =
-      new com.tinkerpop.blueprints.util.io.graphml.GraphMLWriter( graph );
+    // the keys have to be declared before the graph, which takes a first pass over the properties
+    final Map<String, String> vertexKeyTypes = new TreeMap<>();
+    final Map<String, String> edgeKeyTypes = new TreeMap<>();
+    for ( final Vertex vertex : graph.getVertices() ) {
+      addKeyTypes( vertex, vertexKeyTypes );
+    }
+    for ( final Edge edge : graph.getEdges() ) {
+      addKeyTypes( edge, edgeKeyTypes );
+    }
+
+    try {
+      final XMLStreamWriter writer =
+        XMLOutputFactory.newInstance().createXMLStreamWriter( graphMLOutputStream, ENCODING );
+      writer.writeStartDocument( ENCODING, XML_VERSION );
+      newLine( writer, 0 );
+      writer.writeStartElement( GraphMLTokens.GRAPHML );
+      writer.writeAttribute( GraphMLTokens.XMLNS, GraphMLTokens.GRAPHML_XMLNS );
+      writer.writeAttribute( GraphMLTokens.XMLNS + ":" + XSI_PREFIX, XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI );
+      writer.writeAttribute( XSI_PREFIX + ":schemaLocation", SCHEMA_LOCATION );
+
+      writeKeys( writer, GraphMLTokens.NODE, vertexKeyTypes );
+      writeKeys( writer, GraphMLTokens.EDGE, edgeKeyTypes );
+
+      newLine( writer, 1 );
+      writer.writeStartElement( GraphMLTokens.GRAPH );
+      writer.writeAttribute( GraphMLTokens.ID, GraphMLTokens.G );
+      writer.writeAttribute( GraphMLTokens.EDGEDEFAULT, GraphMLTokens.DIRECTED );
+
+      if ( deterministicOrder ) {
+        for ( final Object id : getSortedIds( graph.getVertices() ) ) {
+          writeVertex( writer, graph.getVertex( id ) );
+        }
+        for ( final Object id : getSortedIds( graph.getEdges() ) ) {
+          writeEdge( writer, graph.getEdge( id ) );
+        }
+      } else {
+        for ( final Vertex vertex : graph.getVertices() ) {
+          writeVertex( writer, vertex );
+        }
+        for ( final Edge edge : graph.getEdges() ) {
+          writeEdge( writer, edge );
+        }
+      }
+
+      newLine( writer, 1 );
+      writer.writeEndElement(); // graph
+      newLine( writer, 0 );
+      writer.writeEndElement(); // graphml
+      writer.writeEndDocument();
+      writer.flush();
+      writer.close();
+    } catch ( final XMLStreamException e ) {
+      throw new IOException( e );
+    }
+  }
+
+  private void writeKeys( final XMLStreamWriter writer, final String keyFor, final Map<String, String> keyTypes )
+    throws XMLStreamException {
+    for ( final Map.Entry<String, String> keyType : keyTypes.entrySet() ) {
+      newLine( writer, 1 );
+      writer.writeEmptyElement( GraphMLTokens.KEY );
+      writer.writeAttribute( GraphMLTokens.ID, keyType.getKey() );
+      writer.writeAttribute( GraphMLTokens.FOR, keyFor );
+      writer.writeAttribute( GraphMLTokens.ATTR_NAME, keyType.getKey() );
+      writer.writeAttribute( GraphMLTokens.ATTR_TYPE, keyType.getValue() );
+    }
+  }
+
+  private void writeVertex( final XMLStreamWriter writer, final Vertex vertex ) throws XMLStreamException {
+    newLine( writer, 2 );
+    writer.writeStartElement( GraphMLTokens.NODE );
+    writer.writeAttribute( GraphMLTokens.ID, vertex.getId().toString() );
+    writeProperties( writer, vertex );
+    writer.writeEndElement();
+  }
+
+  private void writeEdge( final XMLStreamWriter writer, final Edge edge ) throws XMLStreamException {
+    newLine( writer, 2 );
+    writer.writeStartElement( GraphMLTokens.EDGE );
+    writer.writeAttribute( GraphMLTokens.ID, edge.getId().toString() );
+    writer.writeAttribute( GraphMLTokens.SOURCE, edge.getVertex( Direction.OUT ).getId().toString() );
+    writer.writeAttribute( GraphMLTokens.TARGET, edge.getVertex( Direction.IN ).getId().toString() );
+    writer.writeAttribute( GraphMLTokens.LABEL, edge.getLabel() );
+    writeProperties( writer, edge );
+    writer.writeEndElement();
+  }
+
+  private void writeProperties( final XMLStreamWriter writer, final Element element ) throws XMLStreamException {
+    Collection<String> keys = element.getPropertyKeys();
+    if ( keys.isEmpty() ) {
+      return;
+    }
+    if ( deterministicOrder ) {
+      final List<String> sortedKeys = new ArrayList<>( keys );
+      Collections.sort( sortedKeys );
+      keys = sortedKeys;
+    }
+    for ( final String key : keys ) {
+      newLine( writer, 3 );
+      writer.writeStartElement( GraphMLTokens.DATA );
+      writer.writeAttribute( GraphMLTokens.KEY, key );
+      final Object value = element.getProperty( key );
+      if ( value != null ) {
+        writer.writeCharacters( value.toString() );
+      }
+      writer.writeEndElement();
+    }
+    newLine( writer, 2 );
+  }
+
+  private static void newLine( final XMLStreamWriter writer, final int depth ) throws XMLStreamException {
+    final StringBuilder indent = new StringBuilder( "\n" );
+    for ( int i = 0; i < depth; i++ ) {
+      indent.append( INDENT );
+    }
+    writer.writeCharacters( indent.toString() );
+  }
+
+  private static List<Object> getSortedIds( final Iterable<? extends Element> elements ) {
+    final List<Object> ids = new ArrayList<>();
+    for ( final Element element : elements ) {
+      ids.add( element.getId() );
+    }
+    ids.sort( ID_ORDER );
+    return ids;
+  }
+
+  private static void addKeyTypes( final Element element, final Map<String, String> keyTypes ) {
+    for ( final String key : element.getPropertyKeys() ) {
+      if ( !keyTypes.containsKey( key ) ) {
+        keyTypes.put( key, getKeyType( element.getProperty( key ) ) );
+      }
+    }
+  }
 
-    writer.setNormalize( true );
-    writer.outputGraph( graphMLOutputStream );
+  /**
+   * Returns the GraphML type of a property value, the same way the Blueprints writer does
+   */
+  private static String getKeyType( final Object value ) {
+    if ( value instanceof Integer ) {
+      return GraphMLTokens.INT;
+    } else if ( value instanceof Long ) {
+      return GraphMLTokens.LONG;
+    } else if ( value instanceof Float ) {
+      return GraphMLTokens.FLOAT;
+    } else if ( value instanceof Double ) {
+      return GraphMLTokens.DOUBLE;
+    } else if ( value instanceof Boolean ) {
+      return GraphMLTokens.BOOLEAN;
+    }
+    return GraphMLTokens.STRING;
   }
 }
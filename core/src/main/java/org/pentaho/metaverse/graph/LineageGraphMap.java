@@ -13,22 +13,214 @@
 
 package org.pentaho.metaverse.graph;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.tinkerpop.blueprints.Graph;
+import org.pentaho.metaverse.api.IMetaverseConfig;
+import org.pentaho.metaverse.impl.MetaverseConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * LineageGraphMap is a singleton that maintains a map from document content objects to a Future task that will return
  * a Graph object. The graph is a representation of the lineage analysis performed on the document content object.
+ * <p/>
+ * Analyses submitted through {@link #submit(Object, Runnable, Graph)} are debounced: they only start once the document
+ * has not changed for the configured debounce window, and a new analysis of a document cancels the one it supersedes.
+ * The graph of the most recent completed analysis remains available through {@link #getGraph(Object)} while the next
+ * one is pending.
  */
 public class LineageGraphMap {
+
+  private static final Logger log = LoggerFactory.getLogger( LineageGraphMap.class );
+
+  protected static final long DEFAULT_DEBOUNCE_WINDOW = 250L;
+
   public static final Map<Object, Future<Graph>> lineageGraphMap
     = new ConcurrentHashMap<Object, Future<Graph>>();
 
+  /**
+   * The most recent completed analysis of each document, weakly keyed so that closed documents go away
+   */
+  private static final Cache<Object, LineageGraphTask> completedTasks = CacheBuilder.newBuilder().weakKeys().build();
+
+  /**
+   * The most recent analysis of each document that was not cancelled before it started
+   */
+  private static final Cache<Object, LineageGraphTask> startedTasks = CacheBuilder.newBuilder().weakKeys().build();
+
+  private static final Object lock = new Object();
+
+  private static final AtomicLong sequence = new AtomicLong();
+
+  private static final ScheduledExecutorService scheduler = new ScheduledThreadPoolExecutor( 1, runnable -> {
+    final Thread thread = new Thread( runnable, "lineage-debounce" );
+    thread.setDaemon( true );
+    return thread;
+  } );
 
   public static Map<Object, Future<Graph>> getInstance() {
     return lineageGraphMap;
   }
+
+  /**
+   * Schedules the lineage analysis of a document, once the configured debounce window has elapsed, cancelling the
+   * previous analysis of the same document if it hasn't completed yet.
+   *
+   * @param content  the document content
+   * @param analysis the analysis, writing to {@code graph}
+   * @param graph    the graph holding the result of the analysis
+   * @return the future result of the analysis, which is also the one registered for the document
+   */
+  public static Future<Graph> submit( final Object content, final Runnable analysis, final Graph graph ) {
+    return submit( content, analysis, graph, getDebounceWindow() );
+  }
+
+  static Future<Graph> submit( final Object content, final Runnable analysis, final Graph graph,
+                               final long debounceWindow ) {
+    final LineageGraphTask task = new LineageGraphTask( content, analysis, graph );
+    final Future<Graph> superseded = lineageGraphMap.put( content, task );
+    if ( superseded != null && !superseded.isDone() ) {
+      log.debug( "Cancelling superseded lineage analysis of {}", content );
+      superseded.cancel( true );
+    }
+    if ( debounceWindow > 0 ) {
+      scheduler.schedule( task::start, debounceWindow, TimeUnit.MILLISECONDS );
+    } else {
+      task.start();
+    }
+    return task;
+  }
+
+  /**
+   * Returns the lineage graph of a document without waiting for a pending analysis, if a previous analysis has
+   * completed. Otherwise, waits for the pending analysis to complete.
+   *
+   * @param content the document content
+   * @return the graph, or null if the document has never been submitted for analysis
+   * @throws InterruptedException if interrupted while waiting for the analysis
+   * @throws ExecutionException   if the analysis failed
+   */
+  public static Graph getGraph( final Object content ) throws InterruptedException, ExecutionException {
+    final Future<Graph> latest = lineageGraphMap.get( content );
+    if ( latest == null ) {
+      return null;
+    }
+    if ( !latest.isDone() ) {
+      final LineageGraphTask completed = completedTasks.getIfPresent( content );
+      // a pending analysis may be patching the graph of the previous one, which can't be read until it is done
+      if ( completed != null && !( latest instanceof LineageGraphTask
+        && ( (LineageGraphTask) latest ).graph == completed.graph ) ) {
+        return completed.graph;
+      }
+    }
+    return latest.get();
+  }
+
+  /**
+   * Cancels the pending analysis of a document ahead of a new one, and returns the graph of its previous analysis if
+   * that graph can be updated in place, which is the case when the last analysis to start has completed successfully,
+   * so that no other analysis is writing to its graph.
+   *
+   * @param content the document content
+   * @return the graph of the previous analysis, or null if the new analysis needs a new graph
+   */
+  public static Graph supersede( final Object content ) {
+    synchronized ( lock ) {
+      final Future<Graph> latest = lineageGraphMap.get( content );
+      if ( latest != null && !latest.isDone() ) {
+        latest.cancel( true );
+      }
+      final LineageGraphTask started = startedTasks.getIfPresent( content );
+      if ( started != null ) {
+        started.recordCompletion();
+      }
+      final LineageGraphTask completed = completedTasks.getIfPresent( content );
+      return completed != null && completed == started ? completed.graph : null;
+    }
+  }
+
+  static long getDebounceWindow() {
+    final IMetaverseConfig config = MetaverseConfig.getConfigured();
+    final String value = config == null ? null : config.getDebounceWindow();
+    if ( value != null && !value.trim().isEmpty() ) {
+      try {
+        final long window = Long.parseLong( value.trim() );
+        if ( window >= 0 ) {
+          return window;
+        }
+      } catch ( final NumberFormatException e ) {
+        // fall through to the default
+      }
+      log.warn( "Invalid value '{}' for {}, using {}", value, IMetaverseConfig.KETTLE_LINEAGE_DEBOUNCE_WINDOW,
+        DEFAULT_DEBOUNCE_WINDOW );
+    }
+    return DEFAULT_DEBOUNCE_WINDOW;
+  }
+
+  /**
+   * The analysis of a document, run on the {@link LineageGraphCompletionService} once started. Cancelling it before it
+   * starts means it never runs, cancelling it while it runs interrupts it.
+   */
+  private static class LineageGraphTask extends FutureTask<Graph> {
+    private final Object content;
+    private final Graph graph;
+    private final long number = sequence.incrementAndGet();
+    private boolean started;
+
+    LineageGraphTask( final Object content, final Runnable analysis, final Graph graph ) {
+      super( analysis, graph );
+      this.content = content;
+      this.graph = graph;
+    }
+
+    void start() {
+      synchronized ( lock ) {
+        if ( started || isDone() ) {
+          return;
+        }
+        started = true;
+        startedTasks.put( content, this );
+      }
+      LineageGraphCompletionService.getInstance().submit( this, graph );
+    }
+
+    /**
+     * Called once the task is done
+     */
+    @Override
+    protected void done() {
+      recordCompletion();
+    }
+
+    /**
+     * Records the task as completed, only if its analysis ran to completion. The result of an analysis that finishes
+     * after its task was cancelled is discarded. Readers call this too, as threads waiting for the task are released
+     * before {@link #done()} runs; recording the same task again changes nothing.
+     */
+    void recordCompletion() {
+      if ( !isDone() || isCancelled() ) {
+        return;
+      }
+      try {
+        get();
+      } catch ( final InterruptedException | ExecutionException | CancellationException e ) {
+        return;
+      }
+      // analyses may complete out of order, an older one doesn't replace a newer one
+      completedTasks.asMap().merge( content, this,
+        ( previous, current ) -> current.number > previous.number ? current : previous );
+    }
+  }
 }
@@ -0,0 +1,207 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link CompletionService} backed by a {@link MetaverseThreadPoolExecutor}, which keeps track of the tasks that
+ * have been submitted but whose result has not been retrieved yet.
+ * <p/>
+ * Tracking is a counter rather than a collection of futures, and every completed task signals the threads blocked in
+ * {@link #waitTillEmpty(long, TimeUnit)}, so waiters wake up as soon as the last task finishes.
+ *
+ * @param <T> the result type of the tasks
+ */
+public class BaseCompletionService<T> implements CompletionService<T> {
+
+  private static final Logger log = LoggerFactory.getLogger( BaseCompletionService.class );
+
+  protected final MetaverseThreadPoolExecutor executor;
+
+  private final ExecutorCompletionService<T> executionCompletionService;
+
+  private final AtomicInteger pendingCount = new AtomicInteger();
+
+  private final Lock lock = new ReentrantLock();
+
+  private final Condition changed = lock.newCondition();
+
+  protected BaseCompletionService( final MetaverseThreadPoolExecutor executor ) {
+    this.executor = executor;
+    // the executor adds every completed task to this queue, which is where waiters get notified
+    final BlockingQueue<Future<T>> completionQueue = new LinkedBlockingQueue<Future<T>>() {
+      @Override
+      public boolean add( final Future<T> future ) {
+        final boolean added = super.add( future );
+        signal();
+        return added;
+      }
+    };
+    executionCompletionService = new ExecutorCompletionService<T>( executor, completionQueue );
+  }
+
+  @Override
+  public Future<T> submit( final Callable<T> task ) {
+    log.debug( "Submitting Callable task --> " + task.toString() );
+    pendingCount.incrementAndGet();
+    try {
+      return executionCompletionService.submit( task );
+    } catch ( final RuntimeException e ) {
+      retrieved();
+      throw e;
+    }
+  }
+
+  @Override
+  public Future<T> submit( final Runnable task, final T result ) {
+    log.debug( "Submitting Runnable task --> " + result );
+    pendingCount.incrementAndGet();
+    try {
+      return executionCompletionService.submit( task, result );
+    } catch ( final RuntimeException e ) {
+      retrieved();
+      throw e;
+    }
+  }
+
+  @Override
+  public Future<T> take() throws InterruptedException {
+    final Future<T> result = executionCompletionService.take();
+    retrieved();
+    return result;
+  }
+
+  @Override
+  public Future<T> poll() {
+    final Future<T> result = executionCompletionService.poll();
+    if ( result != null ) {
+      retrieved();
+    }
+    return result;
+  }
+
+  @Override
+  public Future<T> poll( final long timeout, final TimeUnit unit ) throws InterruptedException {
+    final Future<T> result = executionCompletionService.poll( timeout, unit );
+    if ( result != null ) {
+      retrieved();
+    }
+    return result;
+  }
+
+  /**
+   * Waits until every submitted task has finished, logging the results that nobody else retrieved.
+   */
+  public void waitTillEmpty() throws InterruptedException, ExecutionException {
+    waitTillEmpty( Long.MAX_VALUE, TimeUnit.NANOSECONDS );
+  }
+
+  /**
+   * Waits until every submitted task has finished, or until the timeout elapses, logging the results that nobody
+   * else retrieved.
+   *
+   * @param timeout the maximum time to wait
+   * @param unit    the unit of {@code timeout}
+   * @return true if all the tasks have finished, false if the timeout elapsed first
+   */
+  public boolean waitTillEmpty( final long timeout, final TimeUnit unit )
+    throws InterruptedException, ExecutionException {
+    long remaining = unit.toNanos( timeout );
+    lock.lock();
+    try {
+      while ( true ) {
+        Future<T> result;
+        while ( ( result = poll() ) != null ) {
+          logResult( result );
+        }
+        if ( pendingCount.get() <= 0 ) {
+          return true;
+        }
+        if ( remaining <= 0 ) {
+          return false;
+        }
+        remaining = changed.awaitNanos( remaining );
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return the number of submitted tasks whose result has not been retrieved yet
+   */
+  public int getPendingCount() {
+    return pendingCount.get();
+  }
+
+  /**
+   * @return the number of tasks waiting for a thread of the underlying pool
+   */
+  public int getQueueDepth() {
+    return executor.getQueueDepth();
+  }
+
+  /**
+   * @return the number of threads of the underlying pool that are running a task
+   */
+  public int getActiveCount() {
+    return executor.getActiveCount();
+  }
+
+  /**
+   * @return the number of tasks submitted while the underlying pool and its queue were full
+   */
+  public long getSaturatedCount() {
+    return executor.getSaturatedCount();
+  }
+
+  private void logResult( final Future<T> result ) throws InterruptedException {
+    if ( !result.isCancelled() ) {
+      try {
+        log.debug( "Process Finished --> " + result.get() );
+      } catch ( final ExecutionException e ) {
+        log.warn( e.getMessage(), e );
+      }
+    }
+  }
+
+  private void retrieved() {
+    pendingCount.decrementAndGet();
+    signal();
+  }
+
+  private void signal() {
+    lock.lock();
+    try {
+      changed.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+}
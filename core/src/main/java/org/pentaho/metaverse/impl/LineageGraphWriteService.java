@@ -0,0 +1,147 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.impl;
+
+import org.pentaho.metaverse.api.IMetaverseConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the lineage graph writes of finished transformations and jobs, so that they don't hold up PDI processing.
+ * <p/>
+ * Writes run on a small bounded pool rather than on a new thread each, which caps the number of concurrent writes to
+ * the lineage output. When the pool falls behind and its queue is full, the finishing transformation or job writes
+ * its own lineage. Pending writes are drained when the JVM shuts down.
+ */
+public class LineageGraphWriteService {
+
+  private static final Logger log = LoggerFactory.getLogger( LineageGraphWriteService.class );
+
+  protected static final int DEFAULT_POOL_SIZE = 2;
+  protected static final int DEFAULT_QUEUE_SIZE = 1000;
+  protected static final long SHUTDOWN_TIMEOUT_SECONDS = 60L;
+
+  private final MetaverseThreadPoolExecutor executor;
+
+  private final AtomicInteger pendingCount = new AtomicInteger();
+
+  private static class Holder {
+    private static final LineageGraphWriteService INSTANCE =
+      new LineageGraphWriteService( MetaverseConfig.getConfigured() );
+
+    static {
+      Runtime.getRuntime().addShutdownHook( new Thread(
+        () -> INSTANCE.shutdown( SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS ), "lineage-writer-shutdown" ) );
+    }
+  }
+
+  public static LineageGraphWriteService getInstance() {
+    return Holder.INSTANCE;
+  }
+
+  protected LineageGraphWriteService( final IMetaverseConfig config ) {
+    final int poolSize = MetaverseThreadPoolExecutor.getSize( config == null ? null : config.getLineageWriterPoolSize(),
+      DEFAULT_POOL_SIZE, IMetaverseConfig.KETTLE_LINEAGE_WRITER_POOL_SIZE );
+    final int queueSize = MetaverseThreadPoolExecutor.getSize(
+      config == null ? null : config.getLineageWriterQueueSize(), DEFAULT_QUEUE_SIZE,
+      IMetaverseConfig.KETTLE_LINEAGE_WRITER_QUEUE_SIZE );
+    executor = new MetaverseThreadPoolExecutor( "lineage-writer", poolSize, poolSize, queueSize,
+      MetaverseThreadPoolExecutor.REJECTION_POLICY_CALLER_RUNS );
+  }
+
+  /**
+   * Schedules a lineage write. The write runs on the calling thread if the service has been shut down, including when
+   * it shuts down while the write is being scheduled: the pool then discards the write, or may still run it from its
+   * queue, and whichever of the pool and the calling thread gets to the write first runs it.
+   *
+   * @param write the write to run
+   */
+  public void submit( final Runnable write ) {
+    pendingCount.incrementAndGet();
+    final AtomicBoolean claimed = new AtomicBoolean();
+    final Runnable task = () -> {
+      if ( !claimed.compareAndSet( false, true ) ) {
+        return;
+      }
+      try {
+        write.run();
+      } finally {
+        pendingCount.decrementAndGet();
+      }
+    };
+    if ( !executor.isShutdown() ) {
+      try {
+        executor.execute( task );
+      } catch ( final RejectedExecutionException e ) {
+        log.debug( "Lineage write rejected, running it on the calling thread", e );
+      }
+    }
+    if ( executor.isShutdown() ) {
+      task.run();
+    }
+  }
+
+  /**
+   * Stops accepting writes and waits for the pending ones to complete.
+   *
+   * @param timeout the maximum time to wait
+   * @param unit    the unit of {@code timeout}
+   * @return true if all the pending writes completed
+   */
+  public boolean shutdown( final long timeout, final TimeUnit unit ) {
+    executor.shutdown();
+    try {
+      if ( executor.awaitTermination( timeout, unit ) ) {
+        return true;
+      }
+    } catch ( final InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+    log.warn( "{} lineage writes did not complete before shutdown", getPendingCount() );
+    return false;
+  }
+
+  /**
+   * @return the number of lineage writes that have been submitted and have not completed yet
+   */
+  public int getPendingCount() {
+    return pendingCount.get();
+  }
+
+  /**
+   * @return the number of lineage writes waiting for a thread
+   */
+  public int getQueueDepth() {
+    return executor.getQueueDepth();
+  }
+
+  /**
+   * @return the number of lineage writes in progress on the pool
+   */
+  public int getActiveCount() {
+    return executor.getActiveCount();
+  }
+
+  /**
+   * @return the number of lineage writes that ran on the submitting thread because the pool was full
+   */
+  public long getSaturatedCount() {
+    return executor.getSaturatedCount();
+  }
+}
@@ -14,6 +14,7 @@
 package org.pentaho.metaverse.impl;
 
 import org.pentaho.metaverse.api.IMetaverseConfig;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
 
 /**
  * A single point of access for all metaverse osgi configuration properties.
@@ -21,15 +22,31 @@ import org.pentaho.metaverse.api.IMetaverseConfig;
 public class MetaverseConfig implements IMetaverseConfig {
 
   private static final String EXECUTION_RUNTIME_OFF = "off";
+  public static final String EXECUTION_OUTPUT_COMPRESSION_NONE = "none";
+  public static final String EXECUTION_OUTPUT_COMPRESSION_GZIP = "gzip";
   private String executionRuntime = EXECUTION_RUNTIME_OFF;
   private String executionOutputFolder = "./pentaho-lineage-output";
   private String executionGenerationStrategy = "latest";
   private String externalResourceCacheExpireTime = "21600";
+  private String normalizedPathCacheSize = "10000";
+  private String subMetaCacheSize = "100";
+  private String executorCorePoolSize = "4";
+  private String executorMaxPoolSize = "16";
+  private String executorQueueSize = "1000";
+  private String executorRejectionPolicy = "callerRuns";
+  private String lineageWriterPoolSize = "2";
+  private String lineageWriterQueueSize = "1000";
+  private String debounceWindow = "250";
+  private String executionOutputCompression = EXECUTION_OUTPUT_COMPRESSION_NONE;
+  private String stepAnalysisPoolSize = "1";
+  private String jobEntryAnalysisPoolSize = "1";
+  private String prepareMetaverseTimeout = "300";
   private boolean resolveExternalResources = true;
   private boolean deduplicateTransformationFields = true;
   private boolean adjustExternalResourceFields = true;
   private boolean generateSubGraphs = true;
   private boolean consolidateSubGraphs = true;
+  private boolean graphMLDeterministicOrder = true;
 
   private static MetaverseConfig instance;
 
@@ -44,16 +61,39 @@ public class MetaverseConfig implements IMetaverseConfig {
     return instance;
   }
 
+  /**
+   * Returns the configuration the metaverse bundle exports, the one set from its blueprint properties, or the one read
+   * from the system properties when there is none, as outside of the platform.
+   */
+  public static IMetaverseConfig getConfigured() {
+    final IMetaverseConfig config = PentahoSystem.get( IMetaverseConfig.class );
+    return config != null ? config : getInstance();
+  }
+
   MetaverseConfig() {
     executionRuntime = System.getProperty( KETTLE_LINEAGE_EXECUTION_RUNTIME, executionRuntime );
     executionOutputFolder = System.getProperty( KETTLE_LINEAGE_EXECUTION_OUTPUT_FOLDER, executionOutputFolder );
     executionGenerationStrategy = System.getProperty( KETTLE_LINEAGE_EXECUTION_GENERATION_STRATEGY, executionGenerationStrategy );
     externalResourceCacheExpireTime = System.getProperty( KETTLE_LINEAGE_EXTERNAL_RESOURCE_CACHE_EXPIRE_TIME, externalResourceCacheExpireTime );
+    normalizedPathCacheSize = System.getProperty( KETTLE_LINEAGE_NORMALIZED_PATH_CACHE_SIZE, normalizedPathCacheSize );
+    subMetaCacheSize = System.getProperty( KETTLE_LINEAGE_SUB_META_CACHE_SIZE, subMetaCacheSize );
+    executorCorePoolSize = System.getProperty( KETTLE_LINEAGE_EXECUTOR_CORE_POOL_SIZE, executorCorePoolSize );
+    executorMaxPoolSize = System.getProperty( KETTLE_LINEAGE_EXECUTOR_MAX_POOL_SIZE, executorMaxPoolSize );
+    executorQueueSize = System.getProperty( KETTLE_LINEAGE_EXECUTOR_QUEUE_SIZE, executorQueueSize );
+    executorRejectionPolicy = System.getProperty( KETTLE_LINEAGE_EXECUTOR_REJECTION_POLICY, executorRejectionPolicy );
+    lineageWriterPoolSize = System.getProperty( KETTLE_LINEAGE_WRITER_POOL_SIZE, lineageWriterPoolSize );
+    lineageWriterQueueSize = System.getProperty( KETTLE_LINEAGE_WRITER_QUEUE_SIZE, lineageWriterQueueSize );
+    debounceWindow = System.getProperty( KETTLE_LINEAGE_DEBOUNCE_WINDOW, debounceWindow );
+    executionOutputCompression = System.getProperty( KETTLE_LINEAGE_EXECUTION_OUTPUT_COMPRESSION, executionOutputCompression );
+    stepAnalysisPoolSize = System.getProperty( KETTLE_LINEAGE_STEP_ANALYSIS_POOL_SIZE, stepAnalysisPoolSize );
+    jobEntryAnalysisPoolSize = System.getProperty( KETTLE_LINEAGE_JOB_ENTRY_ANALYSIS_POOL_SIZE, jobEntryAnalysisPoolSize );
+    prepareMetaverseTimeout = System.getProperty( KETTLE_LINEAGE_PREPARE_METAVERSE_TIMEOUT, prepareMetaverseTimeout );
     resolveExternalResources = "true".equalsIgnoreCase( System.getProperty( KETTLE_LINEAGE_RESOLVE_EXTERNAL_RESOURCES, Boolean.toString( resolveExternalResources ) ) );
     deduplicateTransformationFields = "true".equalsIgnoreCase( System.getProperty( KETTLE_LINEAGE_DEDUPLICATE_TRANSFORMATION_FIELDS, Boolean.toString( deduplicateTransformationFields ) ) );
     adjustExternalResourceFields = "true".equalsIgnoreCase( System.getProperty( KETTLE_LINEAGE_ADJUST_EXTERNAL_RESOURCE_FIELDS, Boolean.toString( adjustExternalResourceFields ) ) );
     generateSubGraphs = "true".equalsIgnoreCase( System.getProperty( KETTLE_LINEAGE_GENERATE_SUBGRAPHS, Boolean.toString( generateSubGraphs ) ) );
     consolidateSubGraphs = "true".equalsIgnoreCase( System.getProperty( KETTLE_LINEAGE_CONSOLIDATE_SUBGRAPHS, Boolean.toString( consolidateSubGraphs ) ) );
+    graphMLDeterministicOrder = "true".equalsIgnoreCase( System.getProperty( KETTLE_LINEAGE_GRAPHML_DETERMINISTIC_ORDER, Boolean.toString( graphMLDeterministicOrder ) ) );
   }
 
   public void setExecutionRuntime( final String executionRuntime ) {
@@ -151,6 +191,123 @@ public class MetaverseConfig implements IMetaverseConfig {
     return this.externalResourceCacheExpireTime;
   }
 
+  public void setNormalizedPathCacheSize( final String normalizedPathCacheSize ) {
+    this.normalizedPathCacheSize = normalizedPathCacheSize;
+  }
+
+  public String getNormalizedPathCacheSize() {
+    return this.normalizedPathCacheSize;
+  }
+
+  public void setSubMetaCacheSize( final String subMetaCacheSize ) {
+    this.subMetaCacheSize = subMetaCacheSize;
+  }
+
+  public String getSubMetaCacheSize() {
+    return this.subMetaCacheSize;
+  }
+
+  public void setExecutorCorePoolSize( final String executorCorePoolSize ) {
+    this.executorCorePoolSize = executorCorePoolSize;
+  }
+
+  public String getExecutorCorePoolSize() {
+    return this.executorCorePoolSize;
+  }
+
+  public void setExecutorMaxPoolSize( final String executorMaxPoolSize ) {
+    this.executorMaxPoolSize = executorMaxPoolSize;
+  }
+
+  public String getExecutorMaxPoolSize() {
+    return this.executorMaxPoolSize;
+  }
+
+  public void setExecutorQueueSize( final String executorQueueSize ) {
+    this.executorQueueSize = executorQueueSize;
+  }
+
+  public String getExecutorQueueSize() {
+    return this.executorQueueSize;
+  }
+
+  public void setExecutorRejectionPolicy( final String executorRejectionPolicy ) {
+    this.executorRejectionPolicy = executorRejectionPolicy;
+  }
+
+  public String getExecutorRejectionPolicy() {
+    return this.executorRejectionPolicy;
+  }
+
+  public void setLineageWriterPoolSize( final String lineageWriterPoolSize ) {
+    this.lineageWriterPoolSize = lineageWriterPoolSize;
+  }
+
+  public String getLineageWriterPoolSize() {
+    return this.lineageWriterPoolSize;
+  }
+
+  public void setLineageWriterQueueSize( final String lineageWriterQueueSize ) {
+    this.lineageWriterQueueSize = lineageWriterQueueSize;
+  }
+
+  public String getLineageWriterQueueSize() {
+    return this.lineageWriterQueueSize;
+  }
+
+  public void setDebounceWindow( final String debounceWindow ) {
+    this.debounceWindow = debounceWindow;
+  }
+
+  public String getDebounceWindow() {
+    return this.debounceWindow;
+  }
+
+  public void setExecutionOutputCompression( final String executionOutputCompression ) {
+    this.executionOutputCompression = executionOutputCompression;
+  }
+
+  public String getExecutionOutputCompression() {
+    return this.executionOutputCompression;
+  }
+
+  public void setStepAnalysisPoolSize( final String stepAnalysisPoolSize ) {
+    this.stepAnalysisPoolSize = stepAnalysisPoolSize;
+  }
+
+  public String getStepAnalysisPoolSize() {
+    return this.stepAnalysisPoolSize;
+  }
+
+  public void setJobEntryAnalysisPoolSize( final String jobEntryAnalysisPoolSize ) {
+    this.jobEntryAnalysisPoolSize = jobEntryAnalysisPoolSize;
+  }
+
+  public String getJobEntryAnalysisPoolSize() {
+    return this.jobEntryAnalysisPoolSize;
+  }
+
+  public void setPrepareMetaverseTimeout( final String prepareMetaverseTimeout ) {
+    this.prepareMetaverseTimeout = prepareMetaverseTimeout;
+  }
+
+  public String getPrepareMetaverseTimeout() {
+    return this.prepareMetaverseTimeout;
+  }
+
+  public void setGraphMLDeterministicOrder( final boolean graphMLDeterministicOrder ) {
+    this.graphMLDeterministicOrder = graphMLDeterministicOrder;
+  }
+
+  public boolean getGraphMLDeterministicOrder() {
+    return this.graphMLDeterministicOrder;
+  }
+
+  public static boolean graphMLDeterministicOrder() {
+    final IMetaverseConfig config = getConfigured();
+    return config != null && config.getGraphMLDeterministicOrder();
+  }
+
   public static boolean consolidateSubGraphs() {
     final MetaverseConfig config = getInstance();
     return config != null && config.getConsolidateSubGraphs();
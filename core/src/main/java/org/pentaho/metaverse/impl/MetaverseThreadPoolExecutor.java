@@ -0,0 +1,161 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.impl;
+
+import org.pentaho.metaverse.api.IMetaverseConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded thread pool for the metaverse completion services, replacing the unbounded cached thread pools they used
+ * to run on. The pool has a bounded work queue and runs named daemon threads. When both the pool and the queue are
+ * full, new tasks are either run by the submitting thread ({@link #REJECTION_POLICY_CALLER_RUNS}) or the submitting
+ * thread waits for room in the queue ({@link #REJECTION_POLICY_BLOCK}).
+ * <p/>
+ * Sizes and policy are read from {@link IMetaverseConfig}. Note that the blocking policy may deadlock if tasks running
+ * on the pool submit more work to the same pool, the caller-runs policy (the default) does not have this problem.
+ */
+public class MetaverseThreadPoolExecutor extends ThreadPoolExecutor {
+
+  private static final Logger log = LoggerFactory.getLogger( MetaverseThreadPoolExecutor.class );
+
+  public static final String REJECTION_POLICY_CALLER_RUNS = "callerRuns";
+  public static final String REJECTION_POLICY_BLOCK = "block";
+
+  protected static final int DEFAULT_CORE_POOL_SIZE = 4;
+  protected static final int DEFAULT_MAX_POOL_SIZE = 16;
+  protected static final int DEFAULT_QUEUE_SIZE = 1000;
+  protected static final long KEEP_ALIVE_SECONDS = 60L;
+
+  private final AtomicLong saturatedCount = new AtomicLong();
+
+  /**
+   * Creates a pool whose threads are named after {@code name}, sized according to the given configuration.
+   *
+   * @param name   the thread name prefix
+   * @param config the metaverse configuration, may be null in which case the defaults are used
+   * @return the new pool
+   */
+  public static MetaverseThreadPoolExecutor create( final String name, final IMetaverseConfig config ) {
+    final int corePoolSize = getSize( config == null ? null : config.getExecutorCorePoolSize(),
+      DEFAULT_CORE_POOL_SIZE, IMetaverseConfig.KETTLE_LINEAGE_EXECUTOR_CORE_POOL_SIZE );
+    final int maxPoolSize = getSize( config == null ? null : config.getExecutorMaxPoolSize(),
+      DEFAULT_MAX_POOL_SIZE, IMetaverseConfig.KETTLE_LINEAGE_EXECUTOR_MAX_POOL_SIZE );
+    final int queueSize = getSize( config == null ? null : config.getExecutorQueueSize(),
+      DEFAULT_QUEUE_SIZE, IMetaverseConfig.KETTLE_LINEAGE_EXECUTOR_QUEUE_SIZE );
+    final String rejectionPolicy = config == null ? null : config.getExecutorRejectionPolicy();
+    return new MetaverseThreadPoolExecutor( name, corePoolSize, Math.max( corePoolSize, maxPoolSize ), queueSize,
+      rejectionPolicy );
+  }
+
+  public MetaverseThreadPoolExecutor( final String name, final int corePoolSize, final int maxPoolSize,
+                                      final int queueSize, final String rejectionPolicy ) {
+    super( corePoolSize, maxPoolSize, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+      new ArrayBlockingQueue<Runnable>( queueSize ), new NamedDaemonThreadFactory( name ) );
+    // idle pools should not hold on to threads, as the cached thread pools used to
+    allowCoreThreadTimeOut( true );
+    setRejectedExecutionHandler( REJECTION_POLICY_BLOCK.equalsIgnoreCase( rejectionPolicy )
+      ? new BlockPolicy() : new CountingCallerRunsPolicy() );
+    log.debug( "{} pool created with core size {}, max size {}, queue size {} and {} rejection policy", name,
+      corePoolSize, maxPoolSize, queueSize, rejectionPolicy );
+  }
+
+  /**
+   * @return the number of tasks waiting in the work queue
+   */
+  public int getQueueDepth() {
+    return getQueue().size();
+  }
+
+  /**
+   * @return the number of tasks that found both the pool and the work queue full
+   */
+  public long getSaturatedCount() {
+    return saturatedCount.get();
+  }
+
+  static int getSize( final String value, final int defaultValue, final String name ) {
+    if ( value != null && !value.trim().isEmpty() ) {
+      try {
+        final int size = Integer.parseInt( value.trim() );
+        if ( size > 0 ) {
+          return size;
+        }
+      } catch ( final NumberFormatException e ) {
+        // fall through to the default
+      }
+      log.warn( "Invalid value '{}' for {}, using {}", value, name, defaultValue );
+    }
+    return defaultValue;
+  }
+
+  /**
+   * Runs the task on the submitting thread, which slows down submission until the pool catches up.
+   */
+  private class CountingCallerRunsPolicy extends ThreadPoolExecutor.CallerRunsPolicy {
+    @Override
+    public void rejectedExecution( final Runnable task, final ThreadPoolExecutor executor ) {
+      saturatedCount.incrementAndGet();
+      super.rejectedExecution( task, executor );
+    }
+  }
+
+  /**
+   * Blocks the submitting thread until there is room for the task in the work queue.
+   */
+  private class BlockPolicy implements RejectedExecutionHandler {
+    @Override
+    public void rejectedExecution( final Runnable task, final ThreadPoolExecutor executor ) {
+      saturatedCount.incrementAndGet();
+      if ( executor.isShutdown() ) {
+        throw new RejectedExecutionException( "Executor has been shut down" );
+      }
+      try {
+        executor.getQueue().put( task );
+      } catch ( final InterruptedException e ) {
+        Thread.currentThread().interrupt();
+        throw new RejectedExecutionException( e );
+      }
+      // all the workers may have timed out while we were waiting
+      if ( executor.getPoolSize() == 0 ) {
+        executor.prestartCoreThread();
+      }
+    }
+  }
+
+  private static class NamedDaemonThreadFactory implements ThreadFactory {
+    private final String name;
+    private final AtomicInteger threadNumber = new AtomicInteger( 1 );
+
+    NamedDaemonThreadFactory( final String name ) {
+      this.name = name;
+    }
+
+    @Override
+    public Thread newThread( final Runnable runnable ) {
+      final Thread thread = new Thread( runnable, name + "-" + threadNumber.getAndIncrement() );
+      thread.setDaemon( true );
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,176 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.impl;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs a batch of independent tasks on up to {@link #getParallelism()} threads, the calling thread being one of them,
+ * and returns once they have all completed.
+ * <p/>
+ * The calling thread and the pool threads take the tasks from the batch in order until there are none left. Since the
+ * calling thread works through the batch too, a task may run another batch on the same runner without risking a
+ * deadlock: when every pool thread is busy, the calling threads simply run their batches themselves.
+ */
+public class ParallelTaskRunner {
+
+  /**
+   * The shared runners by name, guarded by the class lock
+   */
+  private static final Map<String, ParallelTaskRunner> sharedRunners = new HashMap<>();
+
+  private final int parallelism;
+
+  private final MetaverseThreadPoolExecutor executor;
+
+  /**
+   * @param name        the thread name prefix of the pool
+   * @param parallelism the number of threads running a batch, including the calling thread, 1 runs the tasks on the
+   *                    calling thread only
+   */
+  public ParallelTaskRunner( final String name, final int parallelism ) {
+    this.parallelism = Math.max( 1, parallelism );
+    this.executor = this.parallelism > 1 ? new MetaverseThreadPoolExecutor( name, this.parallelism - 1,
+      this.parallelism - 1, this.parallelism, MetaverseThreadPoolExecutor.REJECTION_POLICY_CALLER_RUNS ) : null;
+  }
+
+  /**
+   * Parses a configured pool size, as the metaverse thread pools do.
+   *
+   * @param value the configured value
+   * @param name  the name of the configuration property, for logging
+   * @return the pool size, 1 if the value is missing or invalid
+   */
+  public static int getPoolSize( final String value, final String name ) {
+    return MetaverseThreadPoolExecutor.getSize( value, 1, name );
+  }
+
+  /**
+   * Returns the runner shared under the given name, sized by a configured pool size. The runner is replaced, and the
+   * previous one shut down, when the configured size changes; batches running on the previous one complete on their
+   * calling threads.
+   *
+   * @param name           the thread name prefix of the pool, which also names the shared runner
+   * @param configuredSize the configured pool size
+   * @param property       the name of the configuration property, for logging
+   * @return the runner
+   */
+  public static ParallelTaskRunner getShared( final String name, final String configuredSize,
+                                              final String property ) {
+    final int poolSize = getPoolSize( configuredSize, property );
+    synchronized ( ParallelTaskRunner.class ) {
+      ParallelTaskRunner runner = sharedRunners.get( name );
+      if ( runner == null || runner.getParallelism() != poolSize ) {
+        if ( runner != null ) {
+          runner.shutdown();
+        }
+        runner = new ParallelTaskRunner( name, poolSize );
+        sharedRunners.put( name, runner );
+      }
+      return runner;
+    }
+  }
+
+  /**
+   * @return the number of threads running a batch, including the calling thread
+   */
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  /**
+   * Runs the given tasks and waits for all of them to complete. The first task failing with an unchecked exception or
+   * an error fails the batch once every task has completed.
+   *
+   * @param tasks the tasks to run
+   */
+  public void runAll( final List<? extends Runnable> tasks ) {
+    if ( executor == null || tasks.size() < 2 ) {
+      for ( final Runnable task : tasks ) {
+        task.run();
+      }
+      return;
+    }
+
+    final Batch batch = new Batch( tasks );
+    final int helpers = Math.min( parallelism, tasks.size() ) - 1;
+    for ( int i = 0; i < helpers; i++ ) {
+      // a helper that only starts once the batch is done has nothing left to take
+      executor.execute( batch );
+    }
+    batch.run();
+    batch.await();
+  }
+
+  /**
+   * Stops the pool threads once they are idle, running batches complete on their calling threads.
+   */
+  public void shutdown() {
+    if ( executor != null ) {
+      executor.shutdown();
+    }
+  }
+
+  private static class Batch implements Runnable {
+    private final List<? extends Runnable> tasks;
+    private final AtomicInteger next = new AtomicInteger();
+    private final CountDownLatch completed;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    Batch( final List<? extends Runnable> tasks ) {
+      this.tasks = tasks;
+      this.completed = new CountDownLatch( tasks.size() );
+    }
+
+    @Override
+    public void run() {
+      for ( int i = next.getAndIncrement(); i < tasks.size(); i = next.getAndIncrement() ) {
+        try {
+          tasks.get( i ).run();
+        } catch ( final RuntimeException | Error e ) {
+          failure.compareAndSet( null, e );
+        } finally {
+          completed.countDown();
+        }
+      }
+    }
+
+    void await() {
+      boolean interrupted = false;
+      while ( true ) {
+        try {
+          // only waits for the tasks other threads have taken, and are running
+          completed.await();
+          break;
+        } catch ( final InterruptedException e ) {
+          interrupted = true;
+        }
+      }
+      if ( interrupted ) {
+        Thread.currentThread().interrupt();
+      }
+      final Throwable e = failure.get();
+      if ( e instanceof Error ) {
+        throw (Error) e;
+      } else if ( e != null ) {
+        throw (RuntimeException) e;
+      }
+    }
+  }
+}
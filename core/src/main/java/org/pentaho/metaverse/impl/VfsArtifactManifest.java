@@ -0,0 +1,349 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.impl;
+
+import org.apache.commons.vfs2.FileDepthSelector;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.FileType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The manifest of the lineage artifacts written to a date folder, which spares the collectors from walking the folder
+ * to list them.
+ * <p/>
+ * The manifest is a file in the date folder, to which the writers append a line for every artifact they write, for
+ * every artifact folder they create and for every artifact folder they clean, with the path relative to the date
+ * folder. Lines are never rewritten, the state of the folder is the result of replaying them in order. A date folder without a manifest, written before manifests
+ * existed or on a file system that can't append to files, is walked instead, and the manifest is rebuilt from the walk.
+ * <p/>
+ * A manifest is only trusted while the date folder hasn't been modified since the manifest was last written, a newer
+ * date folder means something was written to it without going through the manifest, and the folder is walked instead.
+ * The writers create and delete their artifact folders through the manifest, so that doing so doesn't outdate it.
+ * Only the date folder itself is checked, not its sub folders, so a folder still being written to, the one of the
+ * current day, can be listed from a walk regardless of its manifest.
+ * <p/>
+ * Updates are serialized within the JVM only, writers in different processes sharing the same output folder may lose
+ * each other's updates while a manifest is being rebuilt.
+ */
+public class VfsArtifactManifest {
+
+  public static final String MANIFEST_NAME = ".lineage-artifacts";
+
+  private static final Logger log = LoggerFactory.getLogger( VfsArtifactManifest.class );
+
+  private static final char ADDED = '+';
+
+  private static final char REMOVED = '-';
+
+  private static final char CREATED = '/';
+
+  private static final String SEPARATOR = "/";
+
+  private static final Object LOCK = new Object();
+
+  private final FileObject dateFolder;
+
+  private final boolean walk;
+
+  private final boolean writeRebuilt;
+
+  public VfsArtifactManifest( FileObject dateFolder ) {
+    this( dateFolder, false, true );
+  }
+
+  /**
+   * @param dateFolder   the date folder
+   * @param walk         whether to list the artifacts from a walk of the date folder even if it has an up to date
+   *                     manifest, for a folder still being written to
+   * @param writeRebuilt whether listing a date folder without an up to date manifest writes the manifest rebuilt from
+   *                     the walk
+   */
+  public VfsArtifactManifest( FileObject dateFolder, boolean walk, boolean writeRebuilt ) {
+    this.dateFolder = dateFolder;
+    this.walk = walk;
+    this.writeRebuilt = writeRebuilt;
+  }
+
+  /**
+   * Records an artifact that has been written to the date folder, or to one of its sub folders
+   *
+   * @param artifact the artifact
+   */
+  public void add( FileObject artifact ) {
+    final String path = getRelativePath( artifact );
+    if ( path != null ) {
+      update( ADDED, path );
+    }
+  }
+
+  /**
+   * Records that the artifacts of a folder of the date folder, and of its sub folders, have been removed
+   *
+   * @param folder the folder
+   */
+  public void remove( FileObject folder ) {
+    final String path = getRelativePath( folder );
+    if ( path != null ) {
+      update( REMOVED, path );
+    }
+  }
+
+  /**
+   * Creates a folder of the date folder, or one of its sub folders, for artifacts about to be written to it. If the
+   * manifest was up to date, the folder is recorded so that the manifest remains up to date.
+   *
+   * @param folder the folder
+   * @throws FileSystemException if the folder can't be created
+   */
+  public void createFolder( FileObject folder ) throws FileSystemException {
+    synchronized ( LOCK ) {
+      if ( folder.exists() ) {
+        return;
+      }
+      final FileObject manifest = getManifest();
+      final boolean upToDate = isUpToDate( manifest );
+      folder.createFolder();
+      final String path = getRelativePath( folder );
+      if ( upToDate && path != null ) {
+        append( manifest, CREATED, path );
+      }
+    }
+  }
+
+  /**
+   * Deletes a folder of the date folder, or one of its sub folders, and records that its artifacts have been removed
+   *
+   * @param folder the folder
+   * @throws FileSystemException if the folder can't be deleted
+   */
+  public void deleteFolder( FileObject folder ) throws FileSystemException {
+    synchronized ( LOCK ) {
+      final FileObject manifest = getManifest();
+      final boolean upToDate = isUpToDate( manifest );
+      folder.deleteAll();
+      final String path = getRelativePath( folder );
+      if ( path == null ) {
+        return;
+      }
+      if ( upToDate ) {
+        append( manifest, REMOVED, path );
+      } else {
+        update( REMOVED, path );
+      }
+    }
+  }
+
+  /**
+   * Lists the artifacts of the date folder, from its manifest if it has an up to date one, from a walk of the folder
+   * otherwise, in which case the manifest is rebuilt unless this manifest doesn't write rebuilt manifests
+   *
+   * @return the paths of the artifacts
+   * @throws IOException if the date folder can't be read
+   */
+  public List<String> list() throws IOException {
+    final Map<String, Set<String>> artifacts;
+    synchronized ( LOCK ) {
+      final FileObject manifest = getManifest();
+      if ( walk ) {
+        artifacts = walk( null );
+      } else if ( isUpToDate( manifest ) ) {
+        artifacts = read( manifest );
+      } else {
+        artifacts = writeRebuilt ? rebuild( manifest ) : walk( null );
+      }
+    }
+    final String root = dateFolder.getName().getPath();
+    final List<String> paths = new ArrayList<>();
+    for ( final Map.Entry<String, Set<String>> folder : artifacts.entrySet() ) {
+      final String folderPath = folder.getKey().isEmpty() ? root : root + SEPARATOR + folder.getKey();
+      for ( final String name : folder.getValue() ) {
+        paths.add( folderPath + SEPARATOR + name );
+      }
+    }
+    return paths;
+  }
+
+  /**
+   * Lists the artifacts written directly to the folders of the date folder whose path ends with the given path
+   *
+   * @param pathToArtifact the path of the artifact folders, relative to a sub folder of the date folder
+   * @return the paths of the artifacts
+   * @throws IOException if the date folder can't be read
+   */
+  public List<String> listForFile( String pathToArtifact ) throws IOException {
+    String suffix = pathToArtifact.replace( '\\', '/' );
+    while ( suffix.endsWith( SEPARATOR ) ) {
+      suffix = suffix.substring( 0, suffix.length() - 1 );
+    }
+    suffix = suffix.startsWith( SEPARATOR ) ? suffix : SEPARATOR + suffix;
+    final List<String> paths = new ArrayList<>();
+    final String root = dateFolder.getName().getPath() + SEPARATOR;
+    for ( final String path : list() ) {
+      final int nameIndex = path.lastIndexOf( SEPARATOR );
+      if ( nameIndex > root.length() && path.substring( 0, nameIndex ).endsWith( suffix ) ) {
+        paths.add( path );
+      }
+    }
+    return paths;
+  }
+
+  protected FileObject getManifest() throws FileSystemException {
+    return dateFolder.resolveFile( MANIFEST_NAME );
+  }
+
+  private void update( final char operation, final String path ) {
+    synchronized ( LOCK ) {
+      FileObject manifest = null;
+      try {
+        manifest = getManifest();
+        if ( !isUpToDate( manifest ) ) {
+          // the walk picks up what is being recorded
+          rebuild( manifest );
+          return;
+        }
+        append( manifest, operation, path );
+      } catch ( IOException e ) {
+        log.debug( "Unable to update the lineage artifact manifest of {}", dateFolder.getName().getPath(), e );
+        // an incomplete manifest would hide artifacts, without one the folder is walked
+        delete( manifest );
+      }
+    }
+  }
+
+  /**
+   * Appends a line to a manifest known to be up to date, deleting the manifest if the line can't be written
+   */
+  private void append( final FileObject manifest, final char operation, final String path ) {
+    try ( Writer writer = new OutputStreamWriter( manifest.getContent().getOutputStream( true ),
+      StandardCharsets.UTF_8 ) ) {
+      writer.write( operation + path + "\n" );
+    } catch ( IOException e ) {
+      log.debug( "Unable to update the lineage artifact manifest of {}", dateFolder.getName().getPath(), e );
+      // an incomplete manifest would hide artifacts, without one the folder is walked
+      delete( manifest );
+    }
+  }
+
+  private Map<String, Set<String>> read( final FileObject manifest ) throws IOException {
+    final Map<String, Set<String>> artifacts = new LinkedHashMap<>();
+    try ( InputStream is = manifest.getContent().getInputStream();
+          BufferedReader reader = new BufferedReader( new InputStreamReader( is, StandardCharsets.UTF_8 ) ) ) {
+      String line;
+      while ( ( line = reader.readLine() ) != null ) {
+        if ( line.length() < 2 ) {
+          continue;
+        }
+        final String path = line.substring( 1 );
+        if ( line.charAt( 0 ) == ADDED ) {
+          final int nameIndex = path.lastIndexOf( SEPARATOR );
+          final String folder = nameIndex < 0 ? "" : path.substring( 0, nameIndex );
+          artifacts.computeIfAbsent( folder, key -> new LinkedHashSet<>() ).add( path.substring( nameIndex + 1 ) );
+        } else if ( line.charAt( 0 ) == REMOVED ) {
+          final Iterator<String> folders = artifacts.keySet().iterator();
+          while ( folders.hasNext() ) {
+            final String folder = folders.next();
+            if ( folder.equals( path ) || folder.startsWith( path + SEPARATOR ) ) {
+              folders.remove();
+            }
+          }
+        }
+      }
+    }
+    return artifacts;
+  }
+
+  /**
+   * Checks that the manifest exists, and that the date folder hasn't been modified since the manifest was last written
+   */
+  private boolean isUpToDate( final FileObject manifest ) {
+    try {
+      return manifest.exists()
+        && dateFolder.getContent().getLastModifiedTime() <= manifest.getContent().getLastModifiedTime();
+    } catch ( FileSystemException e ) {
+      log.debug( "Unable to check the lineage artifact manifest of {}", dateFolder.getName().getPath(), e );
+      return false;
+    }
+  }
+
+  private Map<String, Set<String>> rebuild( final FileObject manifest ) throws IOException {
+    final StringBuilder lines = new StringBuilder();
+    final Map<String, Set<String>> artifacts = walk( lines );
+    try ( OutputStream os = manifest.getContent().getOutputStream() ) {
+      os.write( lines.toString().getBytes( StandardCharsets.UTF_8 ) );
+    } catch ( IOException e ) {
+      log.warn( "Unable to write the lineage artifact manifest of {}, the folder will be walked again",
+        dateFolder.getName().getPath(), e );
+      delete( manifest );
+    }
+    return artifacts;
+  }
+
+  /**
+   * Walks the date folder, appending the manifest lines of the artifacts found to {@code lines} if not null
+   */
+  private Map<String, Set<String>> walk( final StringBuilder lines ) throws IOException {
+    final Map<String, Set<String>> artifacts = new LinkedHashMap<>();
+    if ( dateFolder.exists() ) {
+      for ( final FileObject file : dateFolder.findFiles( new FileDepthSelector( 1, 256 ) ) ) {
+        final String path = getRelativePath( file );
+        if ( file.getType() == FileType.FILE && path != null && !MANIFEST_NAME.equals( path ) ) {
+          final int nameIndex = path.lastIndexOf( SEPARATOR );
+          final String folder = nameIndex < 0 ? "" : path.substring( 0, nameIndex );
+          artifacts.computeIfAbsent( folder, key -> new LinkedHashSet<>() ).add( path.substring( nameIndex + 1 ) );
+          if ( lines != null ) {
+            lines.append( ADDED ).append( path ).append( '\n' );
+          }
+        }
+      }
+    }
+    return artifacts;
+  }
+
+  private String getRelativePath( final FileObject file ) {
+    try {
+      final String path = dateFolder.getName().getRelativeName( file.getName() );
+      return path.isEmpty() || ".".equals( path ) || path.startsWith( ".." ) ? null : path;
+    } catch ( FileSystemException e ) {
+      return null;
+    }
+  }
+
+  private static void delete( final FileObject file ) {
+    try {
+      if ( file != null ) {
+        file.delete();
+      }
+    } catch ( FileSystemException e ) {
+      log.debug( "Unable to delete {}", file.getName().getPath(), e );
+    }
+  }
+}
@@ -14,9 +14,7 @@
 package org.pentaho.metaverse.impl;
 
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.vfs2.FileDepthSelector;
 import org.apache.commons.vfs2.FileObject;
-import org.apache.commons.vfs2.FileSelector;
 import org.apache.commons.vfs2.FileSystemOptions;
 import org.apache.commons.vfs2.FileType;
 import org.pentaho.di.core.bowl.DefaultBowl;
@@ -34,7 +32,11 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -42,7 +44,10 @@ public class VfsLineageCollector implements ILineageCollector {
 
   public static final String DEFAULT_OUTPUT_FOLDER = "tmp://dir";
 
+  private static final int COPY_BUFFER_SIZE = 8192;
+
   private String outputFolder = DEFAULT_OUTPUT_FOLDER;
+  private boolean rebuildManifests = true;
   private static final Logger log = LoggerFactory.getLogger( VfsLineageCollector.class );
   protected SimpleDateFormat format = new SimpleDateFormat( "yyyyMMdd" );
 
@@ -90,6 +95,24 @@ public class VfsLineageCollector implements ILineageCollector {
     }
   }
 
+  /**
+   * @return whether listing a date folder without an up to date artifact manifest writes the manifest rebuilt from a
+   * walk of the folder
+   */
+  public boolean isRebuildManifests() {
+    return rebuildManifests;
+  }
+
+  /**
+   * Sets whether listing a date folder without an up to date artifact manifest writes the manifest rebuilt from a walk
+   * of the folder. Without it, listing never writes to the output folder, and such folders are walked every time.
+   *
+   * @param rebuildManifests whether to write rebuilt manifests
+   */
+  public void setRebuildManifests( boolean rebuildManifests ) {
+    this.rebuildManifests = rebuildManifests;
+  }
+
   @Override
   public List<String> listArtifacts() throws IllegalArgumentException {
     return listArtifacts( null, null );
@@ -103,28 +126,14 @@ public class VfsLineageCollector implements ILineageCollector {
   @Override
   public List<String> listArtifacts( final String startingDate, final String endingDate )
     throws IllegalArgumentException {
-    List<String> paths = new ArrayList<>();
+    Set<String> paths = new LinkedHashSet<>();
     try {
-      FileSystemOptions opts = new FileSystemOptions();
-      FileObject lineageRootFolder = KettleVFS.getInstance( DefaultBowl.getInstance() )
-        .getFileObject( getOutputFolder(), opts );
-
-      FileSelector dateRangeFilter = new VfsDateRangeFilter( format, startingDate, endingDate );
-      FileSelector depthFilter = new FileDepthSelector( 1, 256 );
-
-      if ( lineageRootFolder.exists() && lineageRootFolder.getType() == FileType.FOLDER ) {
-        // get the folders that come on or after the startingDate
-        FileObject[] dayFolders = lineageRootFolder.findFiles( dateRangeFilter );
-        for ( FileObject dayFolder : dayFolders ) {
-          FileObject[] listThisFolder = dayFolder.findFiles( depthFilter );
-          for ( FileObject currentFile : listThisFolder ) {
-            if ( currentFile.getType() == FileType.FILE ) {
-              paths.add( currentFile.getName().getPath() );
-            }
-          }
+      for ( FileObject dayFolder : getDayFolders( startingDate, endingDate ) ) {
+        for ( String path : getManifest( dayFolder ).list() ) {
+          paths.add( getArtifactPath( path ) );
         }
       }
-      return paths;
+      return new ArrayList<>( paths );
     } catch ( Exception e ) {
       throw new IllegalArgumentException( e );
     }
@@ -143,41 +152,51 @@ public class VfsLineageCollector implements ILineageCollector {
   @Override
   public List<String> listArtifactsForFile( String pathToArtifact, String startingDate, String endingDate )
     throws IllegalArgumentException {
-    List<String> paths = new ArrayList<>();
+    Set<String> paths = new LinkedHashSet<>();
 
     try {
-      FileSystemOptions opts = new FileSystemOptions();
-      FileObject lineageRootFolder = KettleVFS.getInstance( DefaultBowl.getInstance() )
-        .getFileObject( getOutputFolder(), opts );
-
-      FileSelector dateRangeFilter = new VfsDateRangeFilter( format, startingDate, endingDate );
-      FileSelector depthFilter = new FileDepthSelector( 1, 256 );
-
-      if ( lineageRootFolder.exists() && lineageRootFolder.getType() == FileType.FOLDER ) {
-
-        // get all of the date folders of lineage we have
-        FileObject[] dayFolders = lineageRootFolder.findFiles( dateRangeFilter );
-        for ( FileObject dayFolder : dayFolders ) {
-          FileObject[] listThisFolder = dayFolder.findFiles( depthFilter );
-          for ( FileObject currentFile : listThisFolder ) {
-            FileObject requested = currentFile.resolveFile( pathToArtifact );
-            if ( requested.exists() && requested.getType() == FileType.FOLDER ) {
-              FileObject[] requestedChildren = requested.getChildren();
-              for ( FileObject requestedChild : requestedChildren ) {
-                if ( requestedChild.getType() == FileType.FILE ) {
-                  paths.add( requestedChild.getName().getPath() );
-                }
-              }
-            }
-          }
+      for ( FileObject dayFolder : getDayFolders( startingDate, endingDate ) ) {
+        for ( String path : getManifest( dayFolder ).listForFile( pathToArtifact ) ) {
+          paths.add( getArtifactPath( path ) );
         }
       }
-      return paths;
+      return new ArrayList<>( paths );
     } catch ( Exception e ) {
       throw new IllegalArgumentException( e );
     }
   }
 
+  /**
+   * Returns the artifact manifest of a date folder. The folder of the current day is still being written to, its
+   * artifacts are listed from a walk of the folder.
+   */
+  protected VfsArtifactManifest getManifest( FileObject dayFolder ) {
+    final boolean today = format.format( new Date() ).equals( dayFolder.getName().getBaseName() );
+    return new VfsArtifactManifest( dayFolder, today, rebuildManifests );
+  }
+
+  /**
+   * Returns the date folders in the given range, the artifacts of each are listed from its manifest
+   */
+  protected FileObject[] getDayFolders( String startingDate, String endingDate ) throws Exception {
+    FileSystemOptions opts = new FileSystemOptions();
+    FileObject lineageRootFolder = KettleVFS.getInstance( DefaultBowl.getInstance() )
+      .getFileObject( getOutputFolder(), opts );
+
+    VfsDateRangeFilter dateRangeFilter = new VfsDateRangeFilter( format, startingDate, endingDate );
+    if ( lineageRootFolder.exists() && lineageRootFolder.getType() == FileType.FOLDER ) {
+      // the date folders are the children of the root folder, there is no need to look any deeper
+      List<FileObject> dayFolders = new ArrayList<>();
+      for ( FileObject child : lineageRootFolder.getChildren() ) {
+        if ( dateRangeFilter.includeFolder( child ) ) {
+          dayFolders.add( child );
+        }
+      }
+      return dayFolders.toArray( new FileObject[ 0 ] );
+    }
+    return new FileObject[ 0 ];
+  }
+
   @Override
   public void compressArtifacts( List<String> paths, OutputStream os ) {
     ZipOutputStream zos = null;
@@ -185,16 +204,24 @@ public class VfsLineageCollector implements ILineageCollector {
       FileSystemOptions opts = new FileSystemOptions();
 
       zos = new ZipOutputStream( os );
+      // the artifacts are copied through a single buffer, the zip stream writes them out as they are read
+      byte[] buffer = new byte[ COPY_BUFFER_SIZE ];
       for ( String path : paths ) {
         FileObject file = KettleVFS.getInstance( DefaultBowl.getInstance() ).getFileObject( path, opts );
         try {
+          FileObject source = resolveArtifact( file );
+
           // register the file as an entry in the zip file
           ZipEntry zipEntry = new ZipEntry( file.getName().getPath() );
+          long lastModified = getLastModifiedTime( source );
+          if ( lastModified > 0 ) {
+            zipEntry.setTime( lastModified );
+          }
           zos.putNextEntry( zipEntry );
 
           // write the file's bytes to the zip stream
-          try ( InputStream fis = file.getContent().getInputStream() ) {
-            zos.write( IOUtils.toByteArray( fis ) );
+          try ( InputStream fis = openArtifact( file, source ) ) {
+            IOUtils.copyLarge( fis, zos, buffer );
           }
         } catch ( IOException e ) {
           log.error( Messages.getString( "ERROR.FailedAddingFileToZip", file.getName().getPath() ) );
@@ -213,4 +240,48 @@ public class VfsLineageCollector implements ILineageCollector {
       IOUtils.closeQuietly( zos );
     }
   }
+
+  /**
+   * Returns the path an artifact is listed under, artifacts written compressed are listed under their uncompressed
+   * name
+   */
+  protected String getArtifactPath( String path ) {
+    if ( path.endsWith( VfsLineageWriter.COMPRESSED_EXTENSION ) ) {
+      path = path.substring( 0, path.length() - VfsLineageWriter.COMPRESSED_EXTENSION.length() );
+    }
+    return path;
+  }
+
+  /**
+   * Returns the file holding the content of an artifact, which is its compressed sibling if it was written compressed
+   */
+  protected FileObject resolveArtifact( FileObject file ) throws IOException {
+    if ( !file.exists() && file.getParent() != null ) {
+      FileObject compressed =
+        file.getParent().resolveFile( file.getName().getBaseName() + VfsLineageWriter.COMPRESSED_EXTENSION );
+      if ( compressed.exists() ) {
+        return compressed;
+      }
+    }
+    return file;
+  }
+
+  /**
+   * Opens the content of an artifact, uncompressing it if it was written compressed
+   *
+   * @param file   the artifact
+   * @param source the file holding its content, see {@link #resolveArtifact(FileObject)}
+   */
+  protected InputStream openArtifact( FileObject file, FileObject source ) throws IOException {
+    InputStream is = source.getContent().getInputStream();
+    return source.equals( file ) ? is : new GZIPInputStream( is );
+  }
+
+  private static long getLastModifiedTime( FileObject file ) {
+    try {
+      return file.getContent().getLastModifiedTime();
+    } catch ( IOException e ) {
+      return -1;
+    }
+  }
 }
@@ -19,6 +19,7 @@ import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
 
 import org.apache.commons.vfs2.FileContent;
 import org.apache.commons.vfs2.FileObject;
@@ -50,6 +51,11 @@ public class VfsLineageWriter implements ILineageWriter {
 
   public static final String DEFAULT_OUTPUT_FOLDER = "tmp://dir";
 
+  /**
+   * The extension appended to the name of the artifacts written compressed
+   */
+  public static final String COMPRESSED_EXTENSION = ".gz";
+
   private static final Logger log = LoggerFactory.getLogger( VfsLineageWriter.class );
   private static final String UNKNOWN_ARTIFACT = "unknown_artifact";
   private static final int MAX_NAME_LEN = 150;  // should be a safe, conservative number
@@ -60,6 +66,7 @@ public class VfsLineageWriter implements ILineageWriter {
   //TODO: try to get these properties from kettle first, fallback to defaults
   private String outputFolder = DEFAULT_OUTPUT_FOLDER;
   private String outputStrategy = DEFAULT_OUTPUT_STRATEGY;
+  private String outputCompression = MetaverseConfig.EXECUTION_OUTPUT_COMPRESSION_NONE;
 
   protected static SimpleDateFormat dateFolderFormat = new SimpleDateFormat( "YYYYMMdd" );
   private Bowl bowl;
@@ -67,6 +74,7 @@ public class VfsLineageWriter implements ILineageWriter {
   public VfsLineageWriter( Bowl bowl ) {
     this.bowl = bowl;
     this.setOutputStrategy( MetaverseConfig.getInstance().getExecutionGenerationStrategy() );
+    this.setOutputCompression( MetaverseConfig.getConfigured().getExecutionOutputCompression() );
   }
 
   public GraphCatalogWriter getCatalogWriter() {
@@ -146,6 +154,29 @@ public class VfsLineageWriter implements ILineageWriter {
     return outputFolder;
   }
 
+  /**
+   * Gets the compression (none, gzip) of the artifacts written by this writer
+   *
+   * @return The String name of the output compression
+   */
+  public String getOutputCompression() {
+    return outputCompression;
+  }
+
+  /**
+   * Sets the compression (none, gzip) of the artifacts written by this writer. Compressed artifacts are written with
+   * the {@link #COMPRESSED_EXTENSION} appended to their name.
+   *
+   * @param outputCompression The compression to use when outputting lineage information
+   */
+  public void setOutputCompression( String outputCompression ) {
+    this.outputCompression = outputCompression;
+  }
+
+  protected boolean isOutputCompressed() {
+    return MetaverseConfig.EXECUTION_OUTPUT_COMPRESSION_GZIP.equalsIgnoreCase( outputCompression );
+  }
+
   public static boolean isVFSPrefix( String prefix ) {
     for ( VFS_Prefixes vfs_prefix : VFS_Prefixes.values() ) {
       if ( vfs_prefix.name().equalsIgnoreCase( prefix ) ) {
@@ -191,9 +222,13 @@ public class VfsLineageWriter implements ILineageWriter {
         String timestampString = Long.toString( profile.getExecutionData().getStartTime().getTime() );
         FileObject destFolder = getOutputDirectoryAsFile( holder );
         String name = cleanseName( Const.NVL( profile.getName(), "unknown" ) );
-        FileObject file = destFolder.resolveFile( timestampString + "_" + name + extension );
+        final boolean compressed = isOutputCompressed();
+        FileObject file = destFolder.resolveFile( timestampString + "_" + name + extension
+          + ( compressed ? COMPRESSED_EXTENSION : "" ) );
         FileContent content = file.getContent();
-        return content.getOutputStream();
+        OutputStream outputStream = content.getOutputStream();
+        new VfsArtifactManifest( getDateFolder( holder ) ).add( file );
+        return compressed ? new GZIPOutputStream( outputStream ) : outputStream;
       } catch ( Exception e ) {
         log.error( Messages.getErrorString( "ERROR.CantCreateOutputStream" ), e );
         return null;
@@ -210,7 +245,8 @@ public class VfsLineageWriter implements ILineageWriter {
       String id = getNameForHolder( dateRootFolder, holder );
       try {
         FileObject folder = dateRootFolder.resolveFile( id );
-        folder.createFolder();
+        // through the manifest, creating the folder would otherwise outdate it
+        new VfsArtifactManifest( dateRootFolder ).createFolder( folder );
         if ( folder.isFile() ) {
           // must be a folder
           throw new IllegalStateException( Messages.getErrorString( "ERROR.OutputFolderWrongType", folder.getName()
@@ -309,8 +345,8 @@ public class VfsLineageWriter implements ILineageWriter {
     try {
       FileObject folder = getOutputDirectoryAsFile( holder );
       folderName = folder.getName().getPath();
-      folder.deleteAll();
-    } catch ( IOException ioe ) {
+      new VfsArtifactManifest( getDateFolder( holder ) ).deleteFolder( folder );
+    } catch ( IOException | KettleFileException ioe ) {
       log.error( Messages.getErrorString( "ERROR.CouldNotDeleteFile", folderName ), ioe );
     }
   }
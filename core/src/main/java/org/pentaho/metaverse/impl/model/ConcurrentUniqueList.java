@@ -0,0 +1,124 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.impl.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A thread-safe {@link List} with set semantics: each element is kept only once, in the order in which it was first
+ * added. Membership checks and additions are amortized O(1), so callers can merge elements in place (one row at a
+ * time, for instance) without copying the existing contents. Null elements are ignored.
+ *
+ * @param <E> the type of elements held in this list
+ */
+public class ConcurrentUniqueList<E> extends AbstractList<E> implements RandomAccess {
+
+  private final Set<E> members = ConcurrentHashMap.newKeySet();
+  private final List<E> elements = new ArrayList<>();
+
+  public ConcurrentUniqueList() {
+  }
+
+  public ConcurrentUniqueList( Collection<? extends E> initial ) {
+    if ( initial != null ) {
+      addAll( initial );
+    }
+  }
+
+  @Override
+  public boolean add( E element ) {
+    if ( element == null || !members.add( element ) ) {
+      return false;
+    }
+    synchronized ( elements ) {
+      elements.add( element );
+    }
+    return true;
+  }
+
+  @Override
+  public boolean addAll( Collection<? extends E> collection ) {
+    boolean changed = false;
+    for ( E element : collection ) {
+      changed |= add( element );
+    }
+    return changed;
+  }
+
+  @Override
+  public boolean contains( Object element ) {
+    return element != null && members.contains( element );
+  }
+
+  @Override
+  public E get( int index ) {
+    synchronized ( elements ) {
+      return elements.get( index );
+    }
+  }
+
+  @Override
+  public E remove( int index ) {
+    synchronized ( elements ) {
+      E removed = elements.remove( index );
+      members.remove( removed );
+      return removed;
+    }
+  }
+
+  @Override
+  public boolean remove( Object element ) {
+    if ( element == null || !members.remove( element ) ) {
+      return false;
+    }
+    synchronized ( elements ) {
+      elements.remove( element );
+    }
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    synchronized ( elements ) {
+      elements.clear();
+      members.clear();
+    }
+  }
+
+  @Override
+  public int size() {
+    synchronized ( elements ) {
+      return elements.size();
+    }
+  }
+
+  /**
+   * Returns an iterator over a snapshot of the current contents, so callers (the JSON serializer, for instance) can
+   * iterate safely while other threads keep adding elements.
+   */
+  @Override
+  public Iterator<E> iterator() {
+    synchronized ( elements ) {
+      return Collections.unmodifiableList( new ArrayList<>( elements ) ).iterator();
+    }
+  }
+}
@@ -20,12 +20,13 @@ import org.pentaho.metaverse.api.model.IParamInfo;
 import org.pentaho.metaverse.api.model.IUserMetadata;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ExecutionData implements IExecutionData {
   private Date startTime;
@@ -37,7 +38,7 @@ public class ExecutionData implements IExecutionData {
   private String loggingChannelId;
   private List<IParamInfo<String>> parameters = new ArrayList<IParamInfo<String>>();
   private Map<String, List<IExternalResourceInfo>> externalResources =
-    new HashMap<String, List<IExternalResourceInfo>>();
+    new ConcurrentHashMap<String, List<IExternalResourceInfo>>();
   private Map<Object, Object> variables = new Hashtable<Object, Object>();
   private List<Object> arguments = new ArrayList<Object>();
   private IArtifactMetadata artifactMetadata;
@@ -148,6 +149,22 @@ public class ExecutionData implements IExecutionData {
     this.externalResources.put( consumerName, resources );
   }
 
+  @Override
+  public void addExternalResources( String consumerName, Collection<IExternalResourceInfo> resources ) {
+    List<IExternalResourceInfo> existingResources = externalResources.get( consumerName );
+    if ( !( existingResources instanceof ConcurrentUniqueList ) ) {
+      synchronized ( this ) {
+        existingResources = externalResources.get( consumerName );
+        if ( !( existingResources instanceof ConcurrentUniqueList ) ) {
+          // first resources for this consumer (or a plain list set from elsewhere), switch to a de-duplicating list
+          existingResources = new ConcurrentUniqueList<IExternalResourceInfo>( existingResources );
+          externalResources.put( consumerName, existingResources );
+        }
+      }
+    }
+    existingResources.addAll( resources );
+  }
+
   @Override
   public Map<Object, Object> getVariables() {
     return variables;
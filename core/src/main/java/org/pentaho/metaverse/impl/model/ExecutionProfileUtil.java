@@ -14,50 +14,67 @@
 package org.pentaho.metaverse.impl.model;
 
 import com.cronutils.utils.VisibleForTesting;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import org.apache.commons.io.IOUtils;
 import org.pentaho.metaverse.api.model.IExecutionProfile;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.PrintStream;
 
 /**
  * A collection of utilities for working with Execution Profile documents
  */
 public class ExecutionProfileUtil {
 
+  /**
+   * Configured once and shared, the mapper and its writers are thread-safe. Jackson doesn't close the target streams,
+   * so that the trailing newline can still be written, {@link #outputExecutionProfile(OutputStream, IExecutionProfile,
+   * ObjectWriter)} closes them once done.
+   */
+  private static final ObjectMapper MAPPER = new ObjectMapper()
+    .disable( SerializationFeature.FAIL_ON_EMPTY_BEANS )
+    .enable( SerializationFeature.WRAP_EXCEPTIONS )
+    .disable( JsonGenerator.Feature.AUTO_CLOSE_TARGET );
+
+  private static final ObjectWriter WRITER = MAPPER.writer();
+
+  private static final ObjectWriter PRETTY_WRITER = MAPPER.writerWithDefaultPrettyPrinter();
+
   protected ExecutionProfileUtil() {
     // Protected per Singleton pattern (but available for testing)
   }
 
   public static void outputExecutionProfile( OutputStream outputStream, IExecutionProfile executionProfile )
     throws IOException {
-    outputExecutionProfile( outputStream, executionProfile, new ObjectMapper() );
+    outputExecutionProfile( outputStream, executionProfile, false );
+  }
+
+  /**
+   * Writes an execution profile as JSON, in UTF-8, and closes the stream.
+   *
+   * @param outputStream     the stream to write to
+   * @param executionProfile the execution profile
+   * @param prettyPrint      true to indent the JSON, which makes it larger
+   * @throws IOException if the profile could not be serialized or written
+   */
+  public static void outputExecutionProfile( OutputStream outputStream, IExecutionProfile executionProfile,
+                                             boolean prettyPrint ) throws IOException {
+    outputExecutionProfile( outputStream, executionProfile, prettyPrint ? PRETTY_WRITER : WRITER );
   }
 
   @VisibleForTesting
-  protected static void outputExecutionProfile( OutputStream outputStream, IExecutionProfile executionProfile, ObjectMapper mapper )
-    throws IOException {
-    PrintStream out = null;
+  protected static void outputExecutionProfile( OutputStream outputStream, IExecutionProfile executionProfile,
+                                                ObjectWriter writer ) throws IOException {
     try {
-      if ( outputStream instanceof PrintStream ) {
-        out = (PrintStream) outputStream;
-      } else {
-        out = new PrintStream( outputStream );
-      }
-      mapper.enable( SerializationFeature.INDENT_OUTPUT );
-      mapper.disable( SerializationFeature.FAIL_ON_EMPTY_BEANS );
-      mapper.enable( SerializationFeature.WRAP_EXCEPTIONS );
-      try {
-        out.println( mapper.writeValueAsString( executionProfile ) );
-      } catch ( JsonProcessingException jpe ) {
-        throw new IOException( jpe );
-      }
+      // the profile is serialized straight to the stream, through the buffer of the JSON generator
+      writer.writeValue( outputStream, executionProfile );
+      outputStream.write( '\n' );
+      outputStream.flush();
     } finally {
-      IOUtils.closeQuietly( out );
+      IOUtils.closeQuietly( outputStream );
     }
   }
 }
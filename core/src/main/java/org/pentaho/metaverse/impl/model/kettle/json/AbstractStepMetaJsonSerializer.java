@@ -31,6 +31,7 @@ import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.metaverse.analyzer.kettle.step.GenericStepMetaAnalyzer;
 import org.pentaho.metaverse.api.MetaverseAnalyzerException;
 import org.pentaho.metaverse.api.analyzer.kettle.ComponentDerivationRecord;
+import org.pentaho.metaverse.api.analyzer.kettle.RowMetaMemo;
 import org.pentaho.metaverse.api.analyzer.kettle.step.IFieldLineageMetadataProvider;
 import org.pentaho.metaverse.api.analyzer.kettle.step.IStepAnalyzer;
 import org.pentaho.metaverse.api.analyzer.kettle.step.IStepAnalyzerProvider;
@@ -228,7 +229,9 @@ public abstract class AbstractStepMetaJsonSerializer<T extends BaseStepMeta>
     TransMeta parentTransMeta = parentStepMeta.getParentTransMeta();
     if ( parentTransMeta != null ) {
       try {
-        RowMetaInterface stepFields = parentTransMeta.getStepFields( parentStepMeta );
+        final RowMetaMemo rowMetaMemo = RowMetaMemo.get( parentTransMeta );
+        RowMetaInterface stepFields = rowMetaMemo != null ? rowMetaMemo.getStepFields( parentStepMeta )
+          : parentTransMeta.getStepFields( parentStepMeta );
         writeFields( json, stepFields, JSON_PROPERTY_OUTPUT_FIELDS );
       } catch ( KettleStepException e ) {
         LOGGER.warn( Messages.getString( "WARNING.Serialization.Step.OutputFields",
@@ -34,7 +34,6 @@ import org.pentaho.metaverse.api.MetaverseException;
 import org.pentaho.metaverse.api.model.IOperation;
 import org.pentaho.metaverse.api.model.Operation;
 import org.pentaho.metaverse.api.model.Operations;
-import org.pentaho.metaverse.graph.LineageGraphCompletionService;
 import org.pentaho.metaverse.graph.LineageGraphMap;
 import org.pentaho.metaverse.impl.MetaverseBuilder;
 import org.pentaho.metaverse.impl.MetaverseConfig;
@@ -44,7 +43,6 @@ import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Future;
 
 
 /**
@@ -128,11 +126,10 @@ public class MetaverseUtil {
           Runnable analyzerRunner = getAnalyzerRunner( analyzer, document );
 
           Graph g = ( graph != null ) ? graph : new TinkerGraph();
-          Future<Graph> transAnalysis =
-            LineageGraphCompletionService.getInstance().submit( analyzerRunner, g );
 
-          // Save this Future, the client will call it when the analysis is needed
-          LineageGraphMap.getInstance().put( document.getContent(), transAnalysis );
+          // Registers the Future the client will call when the analysis is needed, the analysis itself starts once
+          // the document has stopped changing
+          LineageGraphMap.submit( document.getContent(), analyzerRunner, g );
         }
       }
     }
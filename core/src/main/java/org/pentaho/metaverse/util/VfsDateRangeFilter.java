@@ -14,6 +14,7 @@
 package org.pentaho.metaverse.util;
 
 import org.apache.commons.vfs2.FileDepthSelector;
+import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSelectInfo;
 import org.apache.commons.vfs2.FileType;
 import org.pentaho.metaverse.messages.Messages;
@@ -91,10 +92,24 @@ public class VfsDateRangeFilter extends FileDepthSelector {
   @Override
   public boolean includeFile( FileSelectInfo fileInfo ) {
     try {
-      boolean result = super.includeFile( fileInfo );
-      if ( fileInfo.getFile().getType() == FileType.FOLDER ) {
+      return super.includeFile( fileInfo ) && includeFolder( fileInfo.getFile() );
+    } catch ( Exception e ) {
+      // [PDI-17775] Doing a full exception catch due to the extended class throwing a general exception
+      return false;
+    }
+  }
+
+  /**
+   * Checks whether a folder is named after a date in the range
+   *
+   * @param file the folder
+   * @return true if the file is a folder named after a date in the range
+   */
+  public boolean includeFolder( FileObject file ) {
+    try {
+      if ( file.getType() == FileType.FOLDER ) {
 
-        Date folderDate = format.parse( fileInfo.getFile().getName().getBaseName() );
+        Date folderDate = format.parse( file.getName().getBaseName() );
 
         // assume a match on start & end dates
         int startCompare = 0;
@@ -108,13 +123,12 @@ public class VfsDateRangeFilter extends FileDepthSelector {
           endCompare = folderDate.compareTo( endingDate );
         }
 
-        return startCompare >= 0 && endCompare <= 0 && result;
+        return startCompare >= 0 && endCompare <= 0;
       } else {
         return false;
       }
     } catch ( Exception e ) {
       // folder name is not a valid date string, reject it
-      // [PDI-17775] Doing a full exception catch due to the extended class throwing a general exception
       return false;
     }
   }
@@ -0,0 +1,291 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.analyzer.kettle;
+
+import com.tinkerpop.blueprints.Graph;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.ObjectLocationSpecificationMethod;
+import org.pentaho.di.job.JobHopMeta;
+import org.pentaho.di.job.JobMeta;
+import org.pentaho.di.job.entries.job.JobEntryJob;
+import org.pentaho.di.job.entries.success.JobEntrySuccess;
+import org.pentaho.di.job.entries.trans.JobEntryTrans;
+import org.pentaho.di.job.entry.JobEntryCopy;
+import org.pentaho.di.job.entry.JobEntryInterface;
+import org.pentaho.di.trans.TransHopMeta;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.BaseStepMeta;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.trans.steps.dummytrans.DummyTransMeta;
+import org.pentaho.dictionary.DictionaryConst;
+import org.pentaho.metaverse.analyzer.kettle.jobentry.GenericJobEntryMetaAnalyzer;
+import org.pentaho.metaverse.analyzer.kettle.jobentry.job.JobJobEntryAnalyzer;
+import org.pentaho.metaverse.analyzer.kettle.jobentry.transjob.TransJobEntryAnalyzer;
+import org.pentaho.metaverse.analyzer.kettle.step.GenericStepMetaAnalyzer;
+import org.pentaho.metaverse.api.IComponentDescriptor;
+import org.pentaho.metaverse.api.IMetaverseNode;
+import org.pentaho.metaverse.api.MetaverseAnalyzerException;
+import org.pentaho.metaverse.api.MetaverseComponentDescriptor;
+import org.pentaho.metaverse.api.Namespace;
+import org.pentaho.metaverse.api.analyzer.kettle.jobentry.IClonableJobEntryAnalyzer;
+import org.pentaho.metaverse.api.analyzer.kettle.jobentry.IJobEntryAnalyzer;
+import org.pentaho.metaverse.api.analyzer.kettle.jobentry.IJobEntryAnalyzerProvider;
+import org.pentaho.metaverse.api.analyzer.kettle.step.IStepAnalyzer;
+import org.pentaho.metaverse.api.analyzer.kettle.step.IStepAnalyzerProvider;
+import org.pentaho.metaverse.api.model.BaseSynchronizedGraph;
+import org.pentaho.metaverse.graph.SynchronizedGraphFactory;
+import org.pentaho.metaverse.impl.MetaverseBuilder;
+import org.pentaho.metaverse.impl.MetaverseConfig;
+import org.pentaho.metaverse.testutils.MetaverseTestUtils;
+import org.pentaho.platform.api.engine.IPentahoObjectRegistration;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Analyzes the same job with its entries analyzed one after the other, then concurrently, and compares the graphs.
+ * Most vertex ids are random, vertices are compared by logical id. Some of the entries run the same transformation
+ * or the same job, which are analyzed along with them.
+ */
+public class JobAnalyzerConcurrencyTest {
+
+  private static final int ENTRIES = 100;
+
+  /**
+   * Every how many entries an entry runs the child transformation, and the one after it the child job
+   */
+  private static final int CHILD_DOCUMENT_INTERVAL = 20;
+
+  /**
+   * How many entries run the same transformation in {@link #testSharedStepAnalyzer_parallelSubTransformations()}
+   */
+  private static final int SUB_TRANSFORMATIONS = 8;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final String configuredPoolSize = MetaverseConfig.getInstance().getJobEntryAnalysisPoolSize();
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    KettleEnvironment.init();
+  }
+
+  @After
+  public void tearDown() {
+    MetaverseConfig.getInstance().setJobEntryAnalysisPoolSize( configuredPoolSize );
+  }
+
+  @Test( timeout = 60000 )
+  public void testSameGraph() throws Exception {
+    final JobMeta jobMeta = createJobMeta( createChildTransformation(), createChildJob() );
+
+    final Graph sequential = analyze( jobMeta, "1" );
+    final Graph concurrent = analyze( jobMeta, "4" );
+
+    final List<String> vertices = MetaverseTestUtils.describeVertices( sequential );
+    // the entries, the job and the entity types
+    assertTrue( vertices.size() > ENTRIES );
+    assertTrue( vertices.stream().anyMatch( vertex -> vertex.contains( "child_transformation" ) ) );
+    assertTrue( vertices.stream().anyMatch( vertex -> vertex.contains( "child_job" ) ) );
+    assertEquals( vertices, MetaverseTestUtils.describeVertices( concurrent ) );
+    final List<String> edges = MetaverseTestUtils.describeEdges( sequential );
+    // every entry is contained by the job and hops to the next one
+    assertTrue( edges.size() >= 2 * ENTRIES - 1 );
+    assertEquals( edges, MetaverseTestUtils.describeEdges( concurrent ) );
+
+    // analyzing it again gives the same graph again
+    assertEquals( vertices, MetaverseTestUtils.describeVertices( analyze( jobMeta, "4" ) ) );
+  }
+
+  @Test( timeout = 60000 )
+  public void testSharedStepAnalyzer_parallelSubTransformations() throws Exception {
+    final File childTransformation = createChildTransformation();
+    final JobMeta jobMeta = new JobMeta();
+    jobMeta.setName( "shared" );
+    for ( int i = 0; i < SUB_TRANSFORMATIONS; i++ ) {
+      final JobEntryTrans transEntry = new JobEntryTrans( "run_" + i );
+      transEntry.setSpecificationMethod( ObjectLocationSpecificationMethod.FILENAME );
+      transEntry.setFileName( childTransformation.getAbsolutePath() );
+      jobMeta.addJobEntry( new JobEntryCopy( transEntry ) );
+    }
+
+    // the sibling sub-transformations are analyzed on different threads, by the same step analyzer
+    final ExclusiveStepAnalyzer stepAnalyzer = new ExclusiveStepAnalyzer();
+    final IStepAnalyzerProvider stepAnalyzerProvider = mock( IStepAnalyzerProvider.class );
+    when( stepAnalyzerProvider.getAnalyzers( any() ) )
+      .thenReturn( Collections.<IStepAnalyzer>singletonList( stepAnalyzer ) );
+    final IPentahoObjectRegistration registration = PentahoSystem.registerObject( stepAnalyzerProvider );
+    try {
+      analyze( jobMeta, "4" );
+    } finally {
+      registration.remove();
+    }
+
+    // two steps per sub-transformation
+    assertEquals( 2 * SUB_TRANSFORMATIONS, stepAnalyzer.analyzed.get() );
+    assertFalse( stepAnalyzer.overlapped );
+  }
+
+  private Graph analyze( final JobMeta jobMeta, final String poolSize ) throws Exception {
+    MetaverseConfig.getInstance().setJobEntryAnalysisPoolSize( poolSize );
+
+    final Map<String, String> config = new HashMap<>();
+    config.put( "blueprints.graph", "com.tinkerpop.blueprints.impls.tg.TinkerGraph" );
+    final Graph graph = SynchronizedGraphFactory.open( config );
+    assertTrue( graph instanceof BaseSynchronizedGraph );
+    final MetaverseBuilder builder = new MetaverseBuilder( graph );
+
+    final IJobEntryAnalyzerProvider jobEntryAnalyzerProvider = mock( IJobEntryAnalyzerProvider.class );
+    when( jobEntryAnalyzerProvider.getAnalyzers( any() ) ).thenAnswer( invocation -> {
+      final Collection<Class<?>> entryClasses = invocation.getArgument( 0 );
+      if ( entryClasses.contains( JobEntryTrans.class ) ) {
+        return Collections.<IJobEntryAnalyzer>singletonList( new TransJobEntryAnalyzer() );
+      } else if ( entryClasses.contains( JobEntryJob.class ) ) {
+        return Collections.<IJobEntryAnalyzer>singletonList( new JobJobEntryAnalyzer() );
+      }
+      return Collections.<IJobEntryAnalyzer>singletonList( new ClonableJobEntryAnalyzer() );
+    } );
+
+    final JobAnalyzer analyzer = new JobAnalyzer();
+    analyzer.setMetaverseBuilder( builder );
+    analyzer.setJobEntryAnalyzerProvider( jobEntryAnalyzerProvider );
+
+    final Namespace namespace = new Namespace( "namespace" );
+    final IComponentDescriptor descriptor =
+      new MetaverseComponentDescriptor( jobMeta.getName(), DictionaryConst.NODE_TYPE_JOB, namespace );
+    final IMetaverseNode jobNode =
+      builder.createNodeObject( namespace, jobMeta.getName(), DictionaryConst.NODE_TYPE_JOB );
+    jobNode.setLogicalIdGenerator( DictionaryConst.LOGICAL_ID_GENERATOR_DOCUMENT );
+    analyzer.analyze( descriptor, jobMeta, jobNode, "/concurrency.kjb" );
+    return graph;
+  }
+
+  /**
+   * A chain of entries, each one hopping to the next, some of them running the given transformation or job
+   */
+  private static JobMeta createJobMeta( final File childTransformation, final File childJob ) {
+    final JobMeta jobMeta = new JobMeta();
+    jobMeta.setName( "concurrency" );
+    JobEntryCopy previous = null;
+    for ( int i = 0; i < ENTRIES; i++ ) {
+      final String name = "entry_" + i;
+      final JobEntryInterface jobEntry;
+      if ( i % CHILD_DOCUMENT_INTERVAL == 1 ) {
+        final JobEntryTrans transEntry = new JobEntryTrans( name );
+        transEntry.setSpecificationMethod( ObjectLocationSpecificationMethod.FILENAME );
+        transEntry.setFileName( childTransformation.getAbsolutePath() );
+        jobEntry = transEntry;
+      } else if ( i % CHILD_DOCUMENT_INTERVAL == 2 ) {
+        final JobEntryJob jobJobEntry = new JobEntryJob( name );
+        jobJobEntry.setSpecificationMethod( ObjectLocationSpecificationMethod.FILENAME );
+        jobJobEntry.setFileName( childJob.getAbsolutePath() );
+        jobEntry = jobJobEntry;
+      } else {
+        jobEntry = new JobEntrySuccess( name, "" );
+      }
+      final JobEntryCopy entry = new JobEntryCopy( jobEntry );
+      jobMeta.addJobEntry( entry );
+      if ( previous != null ) {
+        jobMeta.addJobHop( new JobHopMeta( previous, entry ) );
+      }
+      previous = entry;
+    }
+    return jobMeta;
+  }
+
+  private File createChildTransformation() throws Exception {
+    final TransMeta transMeta = new TransMeta();
+    transMeta.setName( "child_transformation" );
+    final StepMeta first = new StepMeta( "child_step_1", new DummyTransMeta() );
+    first.setStepID( "Dummy" );
+    final StepMeta second = new StepMeta( "child_step_2", new DummyTransMeta() );
+    second.setStepID( "Dummy" );
+    transMeta.addStep( first );
+    transMeta.addStep( second );
+    transMeta.addTransHop( new TransHopMeta( first, second ) );
+    return write( "child.ktr", transMeta.getXML() );
+  }
+
+  private File createChildJob() throws Exception {
+    final JobMeta jobMeta = new JobMeta();
+    jobMeta.setName( "child_job" );
+    jobMeta.addJobEntry( new JobEntryCopy( new JobEntrySuccess( "child_entry", "" ) ) );
+    return write( "child.kjb", jobMeta.getXML() );
+  }
+
+  private File write( final String name, final String xml ) throws Exception {
+    final File file = temporaryFolder.newFile( name );
+    Files.write( file.toPath(), xml.getBytes( StandardCharsets.UTF_8 ) );
+    return file;
+  }
+
+  /**
+   * A job entry analyzer that can be cloned, the provided analyzer is shared by every entry
+   */
+  /**
+   * A step analyzer that can't be cloned, and that records whether it ever analyzed two steps at the same time
+   */
+  private static class ExclusiveStepAnalyzer extends GenericStepMetaAnalyzer {
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger analyzed = new AtomicInteger();
+    private volatile boolean overlapped;
+
+    @Override
+    public IMetaverseNode analyze( final IComponentDescriptor descriptor, final BaseStepMeta meta )
+      throws MetaverseAnalyzerException {
+      if ( running.incrementAndGet() > 1 ) {
+        overlapped = true;
+      }
+      try {
+        // long enough for the other sub-transformations to get here
+        Thread.sleep( 10 );
+        analyzed.incrementAndGet();
+        return super.analyze( descriptor, meta );
+      } catch ( final InterruptedException e ) {
+        Thread.currentThread().interrupt();
+        throw new MetaverseAnalyzerException( e );
+      } finally {
+        running.decrementAndGet();
+      }
+    }
+  }
+
+  private static class ClonableJobEntryAnalyzer extends GenericJobEntryMetaAnalyzer {
+    @Override
+    protected IClonableJobEntryAnalyzer newInstance() {
+      return new ClonableJobEntryAnalyzer();
+    }
+  }
+}
@@ -0,0 +1,335 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.analyzer.kettle;
+
+import com.google.common.collect.Iterables;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.trans.TransHopMeta;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.dictionary.DictionaryConst;
+import org.pentaho.metaverse.api.IMetaverseNode;
+import org.pentaho.metaverse.api.Namespace;
+import org.pentaho.metaverse.impl.MetaverseBuilder;
+import org.pentaho.metaverse.testutils.MetaverseTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TransLineageSnapshotTest {
+
+  private TransMeta transMeta;
+  private StepMeta stepA;
+  private StepMeta stepB;
+  private StepMeta stepC;
+  private TransHopMeta hopAB;
+  private Graph graph;
+  private MetaverseBuilder builder;
+  private IMetaverseNode transNode;
+  private TransLineageSnapshot snapshot;
+
+  @Before
+  public void setUp() throws Exception {
+    // A -> B -> C
+    transMeta = mock( TransMeta.class );
+    stepA = mockStep( "A" );
+    stepB = mockStep( "B" );
+    stepC = mockStep( "C" );
+    when( transMeta.getSteps() ).thenReturn( new ArrayList<>( Arrays.asList( stepA, stepB, stepC ) ) );
+    hopAB = mockHop( stepA, stepB );
+    final TransHopMeta hopBC = mockHop( stepB, stepC );
+    when( transMeta.nrTransHops() ).thenReturn( 2 );
+    when( transMeta.getTransHop( 0 ) ).thenReturn( hopAB );
+    when( transMeta.getTransHop( 1 ) ).thenReturn( hopBC );
+    when( transMeta.findNextSteps( stepA ) ).thenReturn( Collections.singletonList( stepB ) );
+    when( transMeta.findNextSteps( stepB ) ).thenReturn( Collections.singletonList( stepC ) );
+    when( transMeta.findNextSteps( stepC ) ).thenReturn( Collections.<StepMeta>emptyList() );
+    mockLayout( stepA, "a" );
+    mockLayout( stepB, "a,b" );
+    mockLayout( stepC, "a,b,c" );
+
+    analyzeFromScratch( "a.csv" );
+  }
+
+  /**
+   * The first analysis, into a new graph, which writes the step vertices, the fields they output, the file A reads and
+   * the file C writes
+   */
+  private void analyzeFromScratch( final String fileOfA ) {
+    graph = new TinkerGraph();
+    builder = new MetaverseBuilder( graph );
+    transNode = builder.createNodeObject( "trans", "trans", DictionaryConst.NODE_TYPE_TRANS );
+    builder.addNode( transNode );
+    snapshot = TransLineageSnapshot.track( transMeta, graph );
+
+    final TransLineageSnapshot.Plan plan = snapshot.plan( transMeta, transNode, builder );
+    assertEquals( new HashSet<>( Arrays.asList( "A", "B", "C" ) ), plan.getAnalyzedSteps() );
+    analyze( "A" );
+    reads( "A", fileOfA );
+    analyze( "B" );
+    analyze( "C" );
+    writes( "C", "out.csv" );
+    builder.addLink( fieldNode( "A" ), DictionaryConst.LINK_DERIVES, fieldNode( "B" ) );
+    builder.addLink( fieldNode( "B" ), DictionaryConst.LINK_DERIVES, fieldNode( "C" ) );
+    snapshot.update( plan );
+  }
+
+  @Test
+  public void testTrack() {
+    assertSame( snapshot, TransLineageSnapshot.get( transMeta ) );
+    assertSame( graph, snapshot.getGraph() );
+    assertNull( TransLineageSnapshot.get( mock( TransMeta.class ) ) );
+    assertNull( TransLineageSnapshot.get( null ) );
+    assertFalse( TransLineageSnapshot.track( transMeta, new TinkerGraph() ).canPatch( transMeta ) );
+  }
+
+  @Test
+  public void testNothingChanged() {
+    assertTrue( snapshot.canPatch( transMeta ) );
+    assertTrue( snapshot.plan( transMeta, transNode, builder ).getAnalyzedSteps().isEmpty() );
+    assertNotNull( getStepVertex( "A" ) );
+    assertNotNull( getStepVertex( "B" ) );
+    assertNotNull( getStepVertex( "C" ) );
+  }
+
+  @Test
+  public void testStepMoved() throws Exception {
+    when( stepB.getXML() ).thenReturn( "<step><name>B</name><GUI><xloc>400</xloc></GUI></step>" );
+    assertTrue( snapshot.plan( transMeta, transNode, builder ).getAnalyzedSteps().isEmpty() );
+  }
+
+  @Test
+  public void testStepChanged_sameLayout() throws Exception {
+    when( stepB.getXML() ).thenReturn( "<step><name>B</name><changed/></step>" );
+    final TransLineageSnapshot.Plan plan = snapshot.plan( transMeta, transNode, builder );
+    assertEquals( Collections.singleton( "B" ), plan.getAnalyzedSteps() );
+    assertTrue( plan.isAnalyzed( "B" ) );
+    assertFalse( plan.isAnalyzed( "C" ) );
+
+    assertNull( getStepVertex( "B" ) );
+    // C still reads the field B outputs, but B is going to derive it again
+    final Vertex fieldB = getFieldVertex( "B" );
+    assertNotNull( fieldB );
+    assertEquals( 0, Iterables.size( fieldB.getEdges( Direction.IN, DictionaryConst.LINK_DERIVES ) ) );
+    assertEquals( 1, Iterables.size( fieldB.getEdges( Direction.OUT, DictionaryConst.LINK_DERIVES ) ) );
+    assertNotNull( getStepVertex( "A" ) );
+    assertNotNull( getStepVertex( "C" ) );
+  }
+
+  @Test
+  public void testStepChanged_fileChanged() throws Exception {
+    when( stepA.getXML() ).thenReturn( "<step><name>A</name><filename>b.csv</filename></step>" );
+    final TransLineageSnapshot.Plan plan = snapshot.plan( transMeta, transNode, builder );
+    assertEquals( Collections.singleton( "A" ), plan.getAnalyzedSteps() );
+    // nothing reads the previous file anymore
+    assertNull( getFileVertex( "a.csv" ) );
+    assertNull( getFileFieldVertex( "a.csv" ) );
+    assertNotNull( getFileVertex( "out.csv" ) );
+    analyze( "A" );
+    reads( "A", "b.csv" );
+    snapshot.update( plan );
+    final Graph patched = graph;
+
+    // the patched graph is the graph a from scratch analysis of the changed transformation writes
+    analyzeFromScratch( "b.csv" );
+    assertEquals( MetaverseTestUtils.describeVertices( graph ), MetaverseTestUtils.describeVertices( patched ) );
+    assertEquals( MetaverseTestUtils.describeEdges( graph ), MetaverseTestUtils.describeEdges( patched ) );
+  }
+
+  @Test
+  public void testStepChanged_layoutChanged() throws Exception {
+    when( stepA.getXML() ).thenReturn( "<step><name>A</name><changed/></step>" );
+    mockLayout( stepA, "a,z" );
+    final TransLineageSnapshot.Plan plan = snapshot.plan( transMeta, transNode, builder );
+    // B reads a different layout, but outputs the same one, C is not affected
+    assertEquals( new HashSet<>( Arrays.asList( "A", "B" ) ), plan.getAnalyzedSteps() );
+    assertNull( getStepVertex( "A" ) );
+    assertNull( getFieldVertex( "A" ) );
+    assertNull( getStepVertex( "B" ) );
+    assertNotNull( getFieldVertex( "B" ) );
+    assertNotNull( getStepVertex( "C" ) );
+    snapshot.update( plan );
+
+    assertTrue( snapshot.plan( transMeta, transNode, builder ).getAnalyzedSteps().isEmpty() );
+  }
+
+  @Test
+  public void testLayoutChangePropagates() throws Exception {
+    when( stepA.getXML() ).thenReturn( "<step><name>A</name><changed/></step>" );
+    mockLayout( stepA, "a,z" );
+    mockLayout( stepB, "a,z,b" );
+    mockLayout( stepC, "a,z,b,c" );
+    final TransLineageSnapshot.Plan plan = snapshot.plan( transMeta, transNode, builder );
+    assertEquals( new HashSet<>( Arrays.asList( "A", "B", "C" ) ), plan.getAnalyzedSteps() );
+    assertNull( getFieldVertex( "B" ) );
+    assertNull( getFieldVertex( "C" ) );
+  }
+
+  @Test
+  public void testStepRemoved() {
+    when( transMeta.getSteps() ).thenReturn( new ArrayList<>( Arrays.asList( stepA, stepB ) ) );
+    assertTrue( snapshot.plan( transMeta, transNode, builder ).getAnalyzedSteps().isEmpty() );
+    assertNull( getStepVertex( "C" ) );
+    assertNull( getFieldVertex( "C" ) );
+    assertNull( getFileVertex( "out.csv" ) );
+    assertNotNull( getFileVertex( "a.csv" ) );
+  }
+
+  @Test
+  public void testStepAdded() throws Exception {
+    final StepMeta stepD = mockStep( "D" );
+    mockLayout( stepD, "d" );
+    when( transMeta.getSteps() ).thenReturn( new ArrayList<>( Arrays.asList( stepA, stepB, stepC, stepD ) ) );
+    assertEquals( Collections.singleton( "D" ), snapshot.plan( transMeta, transNode, builder ).getAnalyzedSteps() );
+  }
+
+  @Test
+  public void testFingerprintFailure() throws Exception {
+    when( stepC.getXML() ).thenThrow( new RuntimeException( "broken" ) );
+    TransLineageSnapshot.Plan plan = snapshot.plan( transMeta, transNode, builder );
+    assertEquals( Collections.singleton( "C" ), plan.getAnalyzedSteps() );
+    snapshot.update( plan );
+    // steps that can't be fingerprinted are always analyzed
+    plan = snapshot.plan( transMeta, transNode, builder );
+    assertEquals( Collections.singleton( "C" ), plan.getAnalyzedSteps() );
+  }
+
+  @Test
+  public void testHopsChanged() {
+    when( hopAB.isEnabled() ).thenReturn( false );
+    assertFalse( snapshot.canPatch( transMeta ) );
+    final TransLineageSnapshot.Plan plan = snapshot.plan( transMeta, transNode, builder );
+    assertEquals( new HashSet<>( Arrays.asList( "A", "B", "C" ) ), plan.getAnalyzedSteps() );
+    assertNull( getStepVertex( "A" ) );
+    assertNull( getFieldVertex( "A" ) );
+    assertNull( getStepVertex( "C" ) );
+    assertNull( getFieldVertex( "C" ) );
+    // the steps are all analyzed again, the files they read and write go with them
+    assertNull( getFileVertex( "a.csv" ) );
+    assertNull( getFileFieldVertex( "a.csv" ) );
+    assertNull( getFileVertex( "out.csv" ) );
+    snapshot.update( plan );
+    assertTrue( snapshot.canPatch( transMeta ) );
+  }
+
+  @Test
+  public void testInvalidate() {
+    assertTrue( snapshot.canPatch( transMeta ) );
+    snapshot.invalidate();
+    assertFalse( snapshot.canPatch( transMeta ) );
+  }
+
+  private void analyze( final String stepName ) {
+    final IMetaverseNode stepNode = stepNode( stepName );
+    builder.addNode( stepNode );
+    builder.addLink( transNode, DictionaryConst.LINK_CONTAINS, stepNode );
+    builder.addLink( stepNode, DictionaryConst.LINK_OUTPUTS, fieldNode( stepName ) );
+  }
+
+  private void reads( final String stepName, final String fileName ) {
+    builder.addNode( fileNode( fileName ) );
+    builder.addLink( fileNode( fileName ), DictionaryConst.LINK_READBY, stepNode( stepName ) );
+    builder.addLink( fileNode( fileName ), DictionaryConst.LINK_CONTAINS, fileFieldNode( fileName ) );
+    builder.addLink( fileFieldNode( fileName ), DictionaryConst.LINK_POPULATES, fieldNode( stepName ) );
+  }
+
+  private void writes( final String stepName, final String fileName ) {
+    builder.addNode( fileNode( fileName ) );
+    builder.addLink( stepNode( stepName ), DictionaryConst.LINK_WRITESTO, fileNode( fileName ) );
+    builder.addLink( fileNode( fileName ), DictionaryConst.LINK_CONTAINS, fileFieldNode( fileName ) );
+    builder.addLink( fieldNode( stepName ), DictionaryConst.LINK_POPULATES, fileFieldNode( fileName ) );
+  }
+
+  private IMetaverseNode stepNode( final String stepName ) {
+    final IMetaverseNode node = builder.createNodeObject( new Namespace( transNode.getLogicalId() ), stepName,
+      DictionaryConst.NODE_TYPE_TRANS_STEP );
+    node.setProperty( DictionaryConst.NODE_VIRTUAL, false );
+    return node;
+  }
+
+  private IMetaverseNode fieldNode( final String stepName ) {
+    final IMetaverseNode node = builder.createNodeObject( new Namespace( transNode.getLogicalId() ),
+      "field_" + stepName, DictionaryConst.NODE_TYPE_TRANS_FIELD );
+    node.setProperty( DictionaryConst.NODE_VIRTUAL, false );
+    return node;
+  }
+
+  private IMetaverseNode fileNode( final String fileName ) {
+    final IMetaverseNode node = builder.createNodeObject( fileName, fileName, DictionaryConst.NODE_TYPE_FILE );
+    node.setProperty( DictionaryConst.NODE_VIRTUAL, false );
+    return node;
+  }
+
+  private IMetaverseNode fileFieldNode( final String fileName ) {
+    final IMetaverseNode node = builder.createNodeObject( new Namespace( fileName ), "line",
+      DictionaryConst.NODE_TYPE_FILE_FIELD );
+    node.setProperty( DictionaryConst.NODE_VIRTUAL, false );
+    return node;
+  }
+
+  private Vertex getFileVertex( final String fileName ) {
+    return builder.getVertexForNode( fileNode( fileName ) );
+  }
+
+  private Vertex getFileFieldVertex( final String fileName ) {
+    return builder.getVertexForNode( fileFieldNode( fileName ) );
+  }
+
+  private Vertex getStepVertex( final String stepName ) {
+    return builder.getVertexForNode( stepNode( stepName ) );
+  }
+
+  private Vertex getFieldVertex( final String stepName ) {
+    return builder.getVertexForNode( fieldNode( stepName ) );
+  }
+
+  private StepMeta mockStep( final String name ) throws Exception {
+    final StepMeta stepMeta = mock( StepMeta.class );
+    when( stepMeta.getName() ).thenReturn( name );
+    when( stepMeta.getXML() ).thenReturn( "<step><name>" + name + "</name><GUI><xloc>100</xloc></GUI></step>" );
+    return stepMeta;
+  }
+
+  private TransHopMeta mockHop( final StepMeta from, final StepMeta to ) {
+    final TransHopMeta hop = mock( TransHopMeta.class );
+    when( hop.getFromStep() ).thenReturn( from );
+    when( hop.getToStep() ).thenReturn( to );
+    when( hop.isEnabled() ).thenReturn( true );
+    return hop;
+  }
+
+  private void mockLayout( final StepMeta stepMeta, final String layout ) throws Exception {
+    final RowMetaInterface rowMeta = mock( RowMetaInterface.class );
+    when( rowMeta.toStringMeta() ).thenReturn( layout );
+    when( transMeta.getStepFields( stepMeta ) ).thenReturn( rowMeta );
+  }
+}
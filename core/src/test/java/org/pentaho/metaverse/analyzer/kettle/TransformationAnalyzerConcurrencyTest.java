@@ -0,0 +1,224 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.analyzer.kettle;
+
+import com.tinkerpop.blueprints.Graph;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.exception.KettleStepException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.variables.VariableSpace;
+import org.pentaho.di.repository.Repository;
+import org.pentaho.di.trans.TransHopMeta;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.trans.step.StepMetaInterface;
+import org.pentaho.di.trans.step.errorhandling.StreamInterface;
+import org.pentaho.di.trans.steps.dummytrans.DummyTransMeta;
+import org.pentaho.di.trans.steps.mergejoin.MergeJoinMeta;
+import org.pentaho.di.trans.steps.streamlookup.StreamLookupMeta;
+import org.pentaho.dictionary.DictionaryConst;
+import org.pentaho.metastore.api.IMetaStore;
+import org.pentaho.metaverse.analyzer.kettle.step.GenericStepMetaAnalyzer;
+import org.pentaho.metaverse.analyzer.kettle.step.mergejoin.MergeJoinStepAnalyzer;
+import org.pentaho.metaverse.analyzer.kettle.step.streamlookup.StreamLookupStepAnalyzer;
+import org.pentaho.metaverse.api.IComponentDescriptor;
+import org.pentaho.metaverse.api.IMetaverseNode;
+import org.pentaho.metaverse.api.MetaverseComponentDescriptor;
+import org.pentaho.metaverse.api.Namespace;
+import org.pentaho.metaverse.api.analyzer.kettle.step.IClonableStepAnalyzer;
+import org.pentaho.metaverse.api.analyzer.kettle.step.IStepAnalyzer;
+import org.pentaho.metaverse.api.analyzer.kettle.step.IStepAnalyzerProvider;
+import org.pentaho.metaverse.api.model.BaseSynchronizedGraph;
+import org.pentaho.metaverse.graph.SynchronizedGraphFactory;
+import org.pentaho.metaverse.impl.MetaverseBuilder;
+import org.pentaho.metaverse.impl.MetaverseConfig;
+import org.pentaho.metaverse.testutils.MetaverseTestUtils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Analyzes the same transformation with its steps analyzed one after the other, then concurrently, and compares the
+ * graphs. Most vertex ids are random, vertices are compared by logical id. The branches of the transformation are
+ * joined by steps whose analyzers look up the layouts of other steps themselves.
+ */
+public class TransformationAnalyzerConcurrencyTest {
+
+  private static final int BRANCHES = 4;
+
+  private static final int BRANCH_LENGTH = 25;
+
+  private final String configuredPoolSize = MetaverseConfig.getInstance().getStepAnalysisPoolSize();
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    KettleEnvironment.init();
+  }
+
+  @After
+  public void tearDown() {
+    MetaverseConfig.getInstance().setStepAnalysisPoolSize( configuredPoolSize );
+  }
+
+  @Test( timeout = 60000 )
+  public void testSameGraph() throws Exception {
+    final TransMeta transMeta = createTransMeta();
+
+    final Graph sequential = analyze( transMeta, "1" );
+    final Graph concurrent = analyze( transMeta, "4" );
+
+    final List<String> vertices = MetaverseTestUtils.describeVertices( sequential );
+    // the steps, their fields, the transformation and the entity types
+    assertTrue( vertices.size() > 2 * BRANCHES * BRANCH_LENGTH );
+    assertTrue( vertices.stream().anyMatch( vertex -> vertex.contains( "looked_up" ) ) );
+    assertEquals( vertices, MetaverseTestUtils.describeVertices( concurrent ) );
+    assertEquals( MetaverseTestUtils.describeEdges( sequential ), MetaverseTestUtils.describeEdges( concurrent ) );
+
+    // analyzing it again gives the same graph again
+    assertEquals( vertices, MetaverseTestUtils.describeVertices( analyze( transMeta, "4" ) ) );
+  }
+
+  private Graph analyze( final TransMeta transMeta, final String poolSize ) throws Exception {
+    MetaverseConfig.getInstance().setStepAnalysisPoolSize( poolSize );
+
+    final Map<String, String> config = new HashMap<>();
+    config.put( "blueprints.graph", "com.tinkerpop.blueprints.impls.tg.TinkerGraph" );
+    final Graph graph = SynchronizedGraphFactory.open( config );
+    assertTrue( graph instanceof BaseSynchronizedGraph );
+    final MetaverseBuilder builder = new MetaverseBuilder( graph );
+
+    final IStepAnalyzerProvider stepAnalyzerProvider = mock( IStepAnalyzerProvider.class );
+    when( stepAnalyzerProvider.getAnalyzers( any() ) ).thenAnswer( invocation -> {
+      final Set<Class<?>> metaClasses = invocation.getArgument( 0 );
+      if ( metaClasses.contains( MergeJoinMeta.class ) ) {
+        return Collections.<IStepAnalyzer>singletonList( new MergeJoinStepAnalyzer() );
+      } else if ( metaClasses.contains( StreamLookupMeta.class ) ) {
+        return Collections.<IStepAnalyzer>singletonList( new StreamLookupStepAnalyzer() );
+      }
+      return Collections.<IStepAnalyzer>singletonList( new FieldsStepAnalyzer() );
+    } );
+
+    final TransformationAnalyzer analyzer = new TransformationAnalyzer();
+    analyzer.setMetaverseBuilder( builder );
+    analyzer.setStepAnalyzerProvider( stepAnalyzerProvider );
+
+    final Namespace namespace = new Namespace( "namespace" );
+    final IComponentDescriptor descriptor =
+      new MetaverseComponentDescriptor( transMeta.getName(), DictionaryConst.NODE_TYPE_TRANS, namespace );
+    final IMetaverseNode transNode =
+      builder.createNodeObject( namespace, transMeta.getName(), DictionaryConst.NODE_TYPE_TRANS );
+    transNode.setLogicalIdGenerator( DictionaryConst.LOGICAL_ID_GENERATOR_DOCUMENT );
+    analyzer.analyze( descriptor, transMeta, transNode, "/concurrency.ktr" );
+    return graph;
+  }
+
+  /**
+   * A source step feeding branches of steps that all add a field. The first two branches are merged by a merge join,
+   * the last branch is looked up by the third one, and both joins feed a last step.
+   */
+  private static TransMeta createTransMeta() {
+    final TransMeta transMeta = new TransMeta();
+    transMeta.setName( "concurrency" );
+    final StepMeta source = addStep( transMeta, "source" );
+    final StepMeta[] branchEnds = new StepMeta[ BRANCHES ];
+    for ( int branch = 0; branch < BRANCHES; branch++ ) {
+      StepMeta previous = source;
+      for ( int i = 0; i < BRANCH_LENGTH; i++ ) {
+        final StepMeta stepMeta = addStep( transMeta, "step_" + branch + "_" + i );
+        transMeta.addTransHop( new TransHopMeta( previous, stepMeta ) );
+        previous = stepMeta;
+      }
+      branchEnds[ branch ] = previous;
+    }
+
+    final MergeJoinMeta mergeJoinMeta = new MergeJoinMeta();
+    mergeJoinMeta.allocate( 1, 1 );
+    mergeJoinMeta.setKeyFields1( new String[] { "source_field" } );
+    mergeJoinMeta.setKeyFields2( new String[] { "source_field" } );
+    mergeJoinMeta.setJoinType( MergeJoinMeta.join_types[ 0 ] );
+    final List<StreamInterface> joinedStreams = mergeJoinMeta.getStepIOMeta().getInfoStreams();
+    joinedStreams.get( 0 ).setStepMeta( branchEnds[ 0 ] );
+    joinedStreams.get( 1 ).setStepMeta( branchEnds[ 1 ] );
+    final StepMeta mergeJoin = addStep( transMeta, "merge_join", mergeJoinMeta, "MergeJoin" );
+    transMeta.addTransHop( new TransHopMeta( branchEnds[ 0 ], mergeJoin ) );
+    transMeta.addTransHop( new TransHopMeta( branchEnds[ 1 ], mergeJoin ) );
+
+    final StreamLookupMeta streamLookupMeta = new StreamLookupMeta();
+    streamLookupMeta.allocate( 1, 1 );
+    streamLookupMeta.setKeystream( new String[] { "source_field" } );
+    streamLookupMeta.setKeylookup( new String[] { "source_field" } );
+    streamLookupMeta.setValue( new String[] { "step_3_" + ( BRANCH_LENGTH - 1 ) + "_field" } );
+    streamLookupMeta.setValueName( new String[] { "looked_up" } );
+    streamLookupMeta.setValueDefault( new String[] { null } );
+    streamLookupMeta.setValueDefaultType( new int[] { ValueMetaString.TYPE_STRING } );
+    streamLookupMeta.getStepIOMeta().getInfoStreams().get( 0 ).setStepMeta( branchEnds[ 3 ] );
+    final StepMeta streamLookup = addStep( transMeta, "stream_lookup", streamLookupMeta, "StreamLookup" );
+    transMeta.addTransHop( new TransHopMeta( branchEnds[ 2 ], streamLookup ) );
+    transMeta.addTransHop( new TransHopMeta( branchEnds[ 3 ], streamLookup ) );
+
+    final StepMeta target = addStep( transMeta, "target" );
+    transMeta.addTransHop( new TransHopMeta( mergeJoin, target ) );
+    transMeta.addTransHop( new TransHopMeta( streamLookup, target ) );
+    return transMeta;
+  }
+
+  private static StepMeta addStep( final TransMeta transMeta, final String name ) {
+    return addStep( transMeta, name, new FieldsMeta(), "Dummy" );
+  }
+
+  private static StepMeta addStep( final TransMeta transMeta, final String name,
+                                   final StepMetaInterface meta, final String stepId ) {
+    final StepMeta stepMeta = new StepMeta( name, meta );
+    stepMeta.setStepID( stepId );
+    transMeta.addStep( stepMeta );
+    return stepMeta;
+  }
+
+  /**
+   * Passes the rows on, adding a field named after the step
+   */
+  public static class FieldsMeta extends DummyTransMeta {
+    @Override
+    public void getFields( final RowMetaInterface inputRowMeta, final String name, final RowMetaInterface[] info,
+                           final StepMeta nextStep, final VariableSpace space, final Repository repository,
+                           final IMetaStore metaStore ) throws KettleStepException {
+      final ValueMetaString valueMeta = new ValueMetaString( name + "_field" );
+      valueMeta.setOrigin( name );
+      inputRowMeta.addValueMeta( valueMeta );
+    }
+  }
+
+  /**
+   * A step analyzer that can be cloned, the provided analyzer is shared by every step
+   */
+  private static class FieldsStepAnalyzer extends GenericStepMetaAnalyzer {
+    @Override
+    protected IClonableStepAnalyzer newInstance() {
+      return new FieldsStepAnalyzer();
+    }
+  }
+}
@@ -13,6 +13,7 @@
 
 package org.pentaho.metaverse.analyzer.kettle.extensionpoints.trans;
 
+import com.tinkerpop.blueprints.Graph;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -20,13 +21,22 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.pentaho.di.core.KettleClientEnvironment;
 import org.pentaho.di.trans.TransMeta;
+import org.pentaho.metaverse.analyzer.kettle.TransLineageSnapshot;
 import org.pentaho.metaverse.api.IDocumentController;
+import org.pentaho.metaverse.api.IMetaverseNode;
 import org.pentaho.metaverse.api.IMetaverseObjectFactory;
 import org.pentaho.metaverse.api.MetaverseException;
+import org.pentaho.metaverse.graph.LineageGraphMap;
 import org.pentaho.metaverse.testutils.MetaverseTestUtils;
 import org.pentaho.metaverse.util.MetaverseUtil;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -63,4 +73,34 @@ public class TransExtensionPointUtilTest {
     when( transMeta.getPathAndName() ).thenReturn( "/Transformation 1" );
     TransExtensionPointUtil.addLineageGraph( transMeta );
   }
+
+  @Test
+  public void testGetLineageGraph() throws Exception {
+    Graph graph = TransExtensionPointUtil.getLineageGraph( transMeta );
+    TransLineageSnapshot snapshot = TransLineageSnapshot.get( transMeta );
+    assertSame( graph, snapshot.getGraph() );
+    // there is no analysis to patch yet
+    assertNotSame( graph, TransExtensionPointUtil.getLineageGraph( transMeta ) );
+
+    graph = TransExtensionPointUtil.getLineageGraph( transMeta );
+    snapshot = TransLineageSnapshot.get( transMeta );
+    snapshot.update( snapshot.plan( transMeta, mock( IMetaverseNode.class ),
+      MetaverseTestUtils.getMetaverseObjectFactory() ) );
+    try {
+      LineageGraphMap.submit( transMeta, () -> { }, graph ).get( 10, TimeUnit.SECONDS );
+      assertSame( graph, TransExtensionPointUtil.getLineageGraph( transMeta ) );
+
+      // the previous analysis failed, start over
+      try {
+        LineageGraphMap.submit( transMeta, () -> {
+          throw new IllegalStateException( "failed" );
+        }, graph ).get( 10, TimeUnit.SECONDS );
+        fail();
+      } catch ( final ExecutionException e ) {
+        assertNotSame( graph, TransExtensionPointUtil.getLineageGraph( transMeta ) );
+      }
+    } finally {
+      LineageGraphMap.getInstance().remove( transMeta );
+    }
+  }
 }
@@ -24,14 +24,17 @@ import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.step.StepMetaInterface;
 import org.pentaho.metaverse.analyzer.kettle.extensionpoints.trans.TransLineageHolderMap;
 import org.pentaho.metaverse.api.analyzer.kettle.step.IStepExternalResourceConsumer;
+import org.pentaho.metaverse.api.model.BaseResourceInfo;
 import org.pentaho.metaverse.api.model.IExecutionProfile;
 import org.pentaho.metaverse.api.model.IExternalResourceInfo;
 import org.pentaho.metaverse.api.model.LineageHolder;
 import org.pentaho.metaverse.impl.model.ExecutionProfile;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
@@ -102,4 +105,63 @@ public class StepExternalConsumerRowListenerTest {
     assertTrue( resources.contains( resource2 ) );
     assertTrue( resources.contains( resource3 ) );
   }
+
+  @Test
+  public void testRowReadEventCostDoesNotGrowWithDistinctResources() throws Exception {
+    // hash lookups performed for a row carrying a known resource must not depend on how many resources were seen
+    assertEquals( hashCodeCallsForRepeatedRow( 10 ), hashCodeCallsForRepeatedRow( 5000 ) );
+  }
+
+  private int hashCodeCallsForRepeatedRow( int distinctResources ) throws Exception {
+    BaseStep mockStep = mock( BaseStep.class, withSettings().extraInterfaces( StepInterface.class ) );
+    when( mockStep.getStepname() ).thenReturn( "http_step" );
+    Trans mockTrans = mock( Trans.class );
+    when( mockStep.getTrans() ).thenReturn( mockTrans );
+
+    LineageHolder holder = TransLineageHolderMap.getInstance().getLineageHolder( mockTrans );
+    holder.setExecutionProfile( new ExecutionProfile() );
+    TransLineageHolderMap.getInstance().putLineageHolder( mockTrans, holder );
+
+    IStepExternalResourceConsumer consumer = mock( IStepExternalResourceConsumer.class );
+    RowMetaInterface rmi = mock( RowMetaInterface.class );
+    StepExternalConsumerRowListener listener = new StepExternalConsumerRowListener( consumer, mockStep );
+
+    AtomicInteger hashCodeCalls = new AtomicInteger();
+    for ( int i = 0; i < distinctResources; i++ ) {
+      Object[] row = new Object[] { "url" + i };
+      when( consumer.getResourcesFromRow( mockStep, rmi, row ) ).thenReturn(
+        Collections.singletonList( new CountingResourceInfo( "url" + i, hashCodeCalls ) ) );
+      listener.rowReadEvent( rmi, row );
+    }
+
+    Object[] repeatedRow = new Object[] { "url0" };
+    when( consumer.getResourcesFromRow( mockStep, rmi, repeatedRow ) ).thenReturn(
+      Collections.singletonList( new CountingResourceInfo( "url0", hashCodeCalls ) ) );
+    hashCodeCalls.set( 0 );
+    listener.rowReadEvent( rmi, repeatedRow );
+
+    List resources = holder.getExecutionProfile().getExecutionData().getExternalResources().get( "http_step" );
+    assertEquals( distinctResources, resources.size() );
+    return hashCodeCalls.get();
+  }
+
+  private static class CountingResourceInfo extends BaseResourceInfo {
+    private final AtomicInteger hashCodeCalls;
+
+    CountingResourceInfo( String name, AtomicInteger hashCodeCalls ) {
+      this.hashCodeCalls = hashCodeCalls;
+      setName( name );
+    }
+
+    @Override
+    public int hashCode() {
+      hashCodeCalls.incrementAndGet();
+      return super.hashCode();
+    }
+
+    @Override
+    public boolean equals( Object obj ) {
+      return super.equals( obj );
+    }
+  }
 }
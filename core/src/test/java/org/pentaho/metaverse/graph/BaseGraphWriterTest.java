@@ -0,0 +1,151 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.graph;
+
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.dictionary.DictionaryConst;
+import org.pentaho.metaverse.api.model.BaseMetaverseBuilder;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class BaseGraphWriterTest {
+
+  private Graph graph;
+
+  @Before
+  public void setUp() {
+    graph = new TinkerGraph();
+
+    // Input hops to Output, the output field "a" of Input reaches Output through an orphaned copy of it
+    final Vertex input = addVertex( "input", DictionaryConst.CATEGORY_DOCUMENT_ELEMENT,
+      DictionaryConst.NODE_TYPE_TRANS_STEP, "Input" );
+    final Vertex output = addVertex( "output", DictionaryConst.CATEGORY_DOCUMENT_ELEMENT,
+      DictionaryConst.NODE_TYPE_TRANS_STEP, "Output" );
+    addEdge( input, DictionaryConst.LINK_HOPSTO, output );
+    final Vertex fieldA = addTransField( "fieldA", "a" );
+    addEdge( input, DictionaryConst.LINK_OUTPUTS, fieldA );
+    final Vertex orphanedFieldA = addTransField( "orphanedFieldA", "a" );
+    addEdge( orphanedFieldA, DictionaryConst.LINK_INPUTS, output );
+
+    // Input outputs the field "b" twice
+    final Vertex fieldB1 = addTransField( "fieldB1", "b" );
+    final Vertex fieldB2 = addTransField( "fieldB2", "b" );
+    final Vertex fieldC = addTransField( "fieldC", "c" );
+    addEdge( input, DictionaryConst.LINK_OUTPUTS, fieldB1 );
+    addEdge( input, DictionaryConst.LINK_OUTPUTS, fieldB2 );
+    addEdge( output, DictionaryConst.LINK_OUTPUTS, fieldC );
+    addEdge( fieldB1, DictionaryConst.LINK_DERIVES, fieldC );
+
+    // Input reads the column "x" of a file twice
+    final Vertex file = addVertex( "file", DictionaryConst.CATEGORY_FIELD_COLLECTION, DictionaryConst.NODE_TYPE_FILE,
+      "file.csv" );
+    final Vertex fileFieldX1 = addVertex( "fileFieldX1", DictionaryConst.CATEGORY_FIELD,
+      DictionaryConst.NODE_TYPE_FILE_FIELD, "x" );
+    final Vertex fileFieldX2 = addVertex( "fileFieldX2", DictionaryConst.CATEGORY_FIELD,
+      DictionaryConst.NODE_TYPE_FILE_FIELD, "x" );
+    addEdge( file, DictionaryConst.LINK_READBY, input );
+    addEdge( fileFieldX1, DictionaryConst.LINK_INPUTS, input );
+    addEdge( fileFieldX2, DictionaryConst.LINK_INPUTS, input );
+
+    // Output writes the column "y" with SQL
+    final Vertex sql = addVertex( "sql", DictionaryConst.CATEGORY_OTHER, DictionaryConst.NODE_TYPE_SQL_QUERY,
+      DictionaryConst.NODE_NAME_SQL );
+    final Vertex columnY = addVertex( "columnY", DictionaryConst.CATEGORY_FIELD,
+      DictionaryConst.NODE_TYPE_DATA_COLUMN, "y" );
+    addEdge( output, DictionaryConst.LINK_WRITESTO, sql );
+    addEdge( output, DictionaryConst.LINK_OUTPUTS, columnY );
+  }
+
+  @Test
+  public void testAdjustGraph() {
+    BaseGraphWriter.adjustGraph( graph );
+
+    assertEquals( new HashSet<>( Arrays.asList( "input", "output", "fieldA", "fieldB2", "fieldC", "file",
+      "fileFieldX1", "sql", "columnY" ) ), getVertexIds() );
+    assertEquals( new HashSet<>( Arrays.asList(
+      "input~hops_to~output",
+      "input~outputs~fieldA",
+      "fieldA~inputs~output",
+      "input~outputs~fieldB2",
+      "fieldB2~derives~fieldC",
+      "output~outputs~fieldC",
+      "file~isreadby~input",
+      "fileFieldX1~inputs~input",
+      "file~contains~fileFieldX1",
+      "output~writesto~sql",
+      "output~outputs~columnY",
+      "sql~contains~columnY" ) ), getEdgeIds() );
+    // the edges added by the adjustments are labelled like the edges the builder adds
+    assertEquals( DictionaryConst.LINK_INPUTS, graph.getEdge( "fieldA~inputs~output" ).getProperty( "text" ) );
+    assertEquals( DictionaryConst.LINK_DERIVES, graph.getEdge( "fieldB2~derives~fieldC" ).getProperty( "text" ) );
+    assertEquals( DictionaryConst.LINK_CONTAINS, graph.getEdge( "sql~contains~columnY" ).getProperty( "text" ) );
+
+    // there is nothing left to adjust
+    BaseGraphWriter.adjustGraph( graph );
+    assertEquals( 9, getVertexIds().size() );
+    assertEquals( 12, getEdgeIds().size() );
+  }
+
+  @Test
+  public void testAdjustGraph_singleScan() {
+    final Graph spyGraph = spy( new TinkerGraph() );
+    BaseGraphWriter.adjustGraph( spyGraph );
+    verify( spyGraph, times( 1 ) ).getVertices();
+  }
+
+  private Vertex addVertex( final String id, final String category, final String type, final String name ) {
+    final Vertex vertex = graph.addVertex( id );
+    vertex.setProperty( DictionaryConst.PROPERTY_CATEGORY, category );
+    vertex.setProperty( DictionaryConst.PROPERTY_TYPE, type );
+    vertex.setProperty( DictionaryConst.PROPERTY_NAME, name );
+    return vertex;
+  }
+
+  private Vertex addTransField( final String id, final String name ) {
+    return addVertex( id, DictionaryConst.CATEGORY_FIELD, DictionaryConst.NODE_TYPE_TRANS_FIELD, name );
+  }
+
+  private void addEdge( final Vertex from, final String label, final Vertex to ) {
+    graph.addEdge( BaseMetaverseBuilder.getEdgeId( from, label, to ), from, to, label )
+      .setProperty( "text", label );
+  }
+
+  private Set<Object> getVertexIds() {
+    final Set<Object> ids = new HashSet<>();
+    for ( final Vertex vertex : graph.getVertices() ) {
+      ids.add( vertex.getId() );
+    }
+    return ids;
+  }
+
+  private Set<Object> getEdgeIds() {
+    final Set<Object> ids = new HashSet<>();
+    for ( final Edge edge : graph.getEdges() ) {
+      ids.add( edge.getId() );
+    }
+    return ids;
+  }
+}
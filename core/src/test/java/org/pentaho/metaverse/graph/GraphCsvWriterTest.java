@@ -0,0 +1,110 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.graph;
+
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import org.junit.Test;
+import org.pentaho.dictionary.DictionaryConst;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GraphCsvWriterTest {
+
+  private static final int EDGES = 100000;
+
+  @Test
+  public void testOutputGraph() throws IOException {
+    Graph graph = new TinkerGraph();
+    Vertex from = graph.addVertex( "from" );
+    from.setProperty( DictionaryConst.PROPERTY_NAME, "Käse, \"fresh\"" );
+    from.setProperty( DictionaryConst.NODE_VIRTUAL, false );
+    Vertex to = graph.addVertex( 42L );
+    to.setProperty( DictionaryConst.PROPERTY_NAME, "line\nbreak" );
+    graph.addEdge( null, from, to, "derives" );
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new GraphCsvWriter().outputGraph( graph, out );
+    String[] lines = new String( out.toByteArray(), StandardCharsets.UTF_8 ).split( "\n", 2 );
+
+    assertEquals( "\"SourceId\",\"SourceVirtual\",\"SourceFileType\",\"SourceName\",\"SourceAuthor\","
+      + "\"SourceModified\",\"LinkType\",\"DestinationId\",\"DestinationVirtual\",\"DestinationFileType\","
+      + "\"DestinationName\",\"DestinationAuthor\",\"DestinationModified\"", lines[ 0 ] );
+    assertEquals( "\"from\",false,,\"Käse, \"\"fresh\"\"\",,,\"derives\",42,,,\"line\nbreak\",,\n", lines[ 1 ] );
+  }
+
+  @Test
+  public void testToCSVField() {
+    GraphCsvWriter writer = new GraphCsvWriter();
+    assertEquals( "\"a\"", writer.toCSVField( "a" ) );
+    assertEquals( "\"\"\"\"", writer.toCSVField( "\"" ) );
+    assertEquals( "12", writer.toCSVField( 12 ) );
+    assertEquals( "true", writer.toCSVField( Boolean.TRUE ) );
+  }
+
+  @Test( timeout = 60000 )
+  public void testOutputLargeGraph() throws IOException {
+    Graph graph = new TinkerGraph();
+    Vertex previous = graph.addVertex( null );
+    previous.setProperty( DictionaryConst.PROPERTY_NAME, "field0" );
+    for ( int i = 1; i <= EDGES; i++ ) {
+      Vertex vertex = graph.addVertex( null );
+      vertex.setProperty( DictionaryConst.PROPERTY_NAME, "field" + i );
+      graph.addEdge( null, previous, vertex, DictionaryConst.LINK_DERIVES );
+      previous = vertex;
+    }
+
+    CountingOutputStream out = new CountingOutputStream();
+    long start = System.nanoTime();
+    new GraphCsvWriter().outputGraphImpl( graph, out );
+    long elapsed = TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start );
+
+    assertTrue( "wrote the graph in " + elapsed + "ms", elapsed < 30000 );
+    // a header and one line per edge, in buffer sized writes rather than one write per field
+    assertEquals( EDGES + 1, out.lines );
+    assertTrue( out.writes + " writes of " + out.size() + " bytes", out.writes < out.size() / 1000 );
+  }
+
+  private static class CountingOutputStream extends ByteArrayOutputStream {
+    private int writes;
+    private int lines;
+
+    @Override
+    public synchronized void write( int b ) {
+      writes++;
+      if ( b == '\n' ) {
+        lines++;
+      }
+      super.write( b );
+    }
+
+    @Override
+    public synchronized void write( byte[] b, int off, int len ) {
+      writes++;
+      for ( int i = off; i < off + len; i++ ) {
+        if ( b[ i ] == '\n' ) {
+          lines++;
+        }
+      }
+      super.write( b, off, len );
+    }
+  }
+}
@@ -13,18 +13,29 @@
 
 package org.pentaho.metaverse.graph;
 
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
 import com.tinkerpop.blueprints.impls.tg.TinkerGraphFactory;
+import com.tinkerpop.blueprints.util.io.graphml.GraphMLReader;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.pentaho.metaverse.impl.MetaverseConfig;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author mburgess
@@ -70,4 +81,91 @@ public class GraphMLWriterTest {
     assertNotNull( outStream.toString() );
   }
 
+  @Test
+  public void testOutputGraph_readBack() throws IOException {
+    final Graph g = TinkerGraphFactory.createTinkerGraph();
+    g.getVertex( "1" ).setProperty( "description", "<escaped> & \"quoted\"" );
+    final ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+    new GraphMLWriter().outputGraph( g, outStream );
+
+    final Graph readBack = new TinkerGraph();
+    GraphMLReader.inputGraph( readBack, new ByteArrayInputStream( outStream.toByteArray() ) );
+    assertSameGraph( g, readBack );
+  }
+
+  @Test
+  public void testOutputGraph_deterministicOrder() throws IOException {
+    final Graph g = new TinkerGraph();
+    final Vertex b = g.addVertex( "b" );
+    b.setProperty( "z", "last" );
+    b.setProperty( "a", "first" );
+    final Vertex a = g.addVertex( "a" );
+    g.addEdge( "b~knows~a", b, a, "knows" );
+    g.addEdge( "a~knows~b", a, b, "knows" );
+
+    final GraphMLWriter writer = new GraphMLWriter();
+    // on by default, as configured
+    assertTrue( writer.isDeterministicOrder() );
+    final ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+    writer.outputGraph( g, outStream );
+    final String graphML = new String( outStream.toByteArray(), StandardCharsets.UTF_8 );
+
+    assertTrue( graphML.indexOf( "<node id=\"a\"" ) < graphML.indexOf( "<node id=\"b\"" ) );
+    assertTrue( graphML.indexOf( "<edge id=\"a~knows~b\"" ) < graphML.indexOf( "<edge id=\"b~knows~a\"" ) );
+    assertTrue( graphML.indexOf( "<data key=\"a\">first" ) < graphML.indexOf( "<data key=\"z\">last" ) );
+
+    // the same graph is always written the same way
+    final ByteArrayOutputStream otherOutStream = new ByteArrayOutputStream();
+    writer.outputGraph( g, otherOutStream );
+    assertEquals( graphML, new String( otherOutStream.toByteArray(), StandardCharsets.UTF_8 ) );
+  }
+
+  @Test
+  public void testOutputGraph_deterministicOrderConfigured() {
+    final MetaverseConfig config = MetaverseConfig.getInstance();
+    final boolean configured = config.getGraphMLDeterministicOrder();
+    try {
+      config.setGraphMLDeterministicOrder( false );
+      assertFalse( new GraphMLWriter().isDeterministicOrder() );
+      config.setGraphMLDeterministicOrder( true );
+      assertTrue( new GraphMLWriter().isDeterministicOrder() );
+    } finally {
+      config.setGraphMLDeterministicOrder( configured );
+    }
+  }
+
+  private static void assertSameGraph( final Graph expected, final Graph actual ) {
+    int vertexCount = 0;
+    for ( final Vertex vertex : expected.getVertices() ) {
+      final Vertex actualVertex = actual.getVertex( vertex.getId() );
+      assertNotNull( actualVertex );
+      assertEquals( vertex.getPropertyKeys(), actualVertex.getPropertyKeys() );
+      for ( final String key : vertex.getPropertyKeys() ) {
+        assertEquals( vertex.getProperty( key ), actualVertex.getProperty( key ) );
+      }
+      vertexCount++;
+    }
+    int edgeCount = 0;
+    for ( final Edge edge : expected.getEdges() ) {
+      final Edge actualEdge = actual.getEdge( edge.getId() );
+      assertNotNull( actualEdge );
+      assertEquals( edge.getLabel(), actualEdge.getLabel() );
+      assertEquals( edge.getVertex( Direction.OUT ).getId(), actualEdge.getVertex( Direction.OUT ).getId() );
+      assertEquals( edge.getVertex( Direction.IN ).getId(), actualEdge.getVertex( Direction.IN ).getId() );
+      for ( final String key : edge.getPropertyKeys() ) {
+        assertEquals( edge.getProperty( key ), actualEdge.getProperty( key ) );
+      }
+      edgeCount++;
+    }
+    int actualVertexCount = 0;
+    for ( final Vertex vertex : actual.getVertices() ) {
+      actualVertexCount++;
+    }
+    int actualEdgeCount = 0;
+    for ( final Edge edge : actual.getEdges() ) {
+      actualEdgeCount++;
+    }
+    assertEquals( vertexCount, actualVertexCount );
+    assertEquals( edgeCount, actualEdgeCount );
+  }
 }
@@ -14,13 +14,29 @@
 package org.pentaho.metaverse.graph;
 
 import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
 import org.junit.Test;
+import org.pentaho.metaverse.api.IMetaverseConfig;
+import org.pentaho.platform.api.engine.IPentahoObjectRegistration;
+import org.pentaho.platform.engine.core.system.PentahoSystem;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class LineageGraphMapTest {
 
@@ -38,4 +54,137 @@ public class LineageGraphMapTest {
     assertEquals( map1, map2 );
 
   }
+
+  @Test
+  public void testSubmit_coalesces() throws Exception {
+    final Object content = new Object();
+    final AtomicInteger runs = new AtomicInteger();
+    final List<Future<Graph>> analyses = new ArrayList<>();
+    for ( int i = 0; i < 5; i++ ) {
+      analyses.add( LineageGraphMap.submit( content, runs::incrementAndGet, new TinkerGraph(), 200L ) );
+    }
+    final Future<Graph> latest = analyses.get( analyses.size() - 1 );
+    assertSame( latest, LineageGraphMap.getInstance().get( content ) );
+    assertNotNull( latest.get( 10, TimeUnit.SECONDS ) );
+    for ( final Future<Graph> superseded : analyses.subList( 0, analyses.size() - 1 ) ) {
+      assertTrue( superseded.isCancelled() );
+    }
+    assertEquals( 1, runs.get() );
+    LineageGraphMap.getInstance().remove( content );
+  }
+
+  @Test
+  public void testGetGraph_doesNotWaitForPendingAnalysis() throws Exception {
+    final Object content = new Object();
+    assertNull( LineageGraphMap.getGraph( content ) );
+
+    final Graph completed = new TinkerGraph();
+    LineageGraphMap.submit( content, () -> { }, completed, 0L ).get( 10, TimeUnit.SECONDS );
+    assertSame( completed, LineageGraphMap.getGraph( content ) );
+
+    final CountDownLatch release = new CountDownLatch( 1 );
+    final Future<Graph> pending = LineageGraphMap.submit( content, () -> {
+      try {
+        release.await();
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+      }
+    }, new TinkerGraph(), 0L );
+    assertSame( completed, LineageGraphMap.getGraph( content ) );
+    release.countDown();
+    assertNotSame( completed, pending.get( 10, TimeUnit.SECONDS ) );
+    assertSame( pending.get(), LineageGraphMap.getGraph( content ) );
+    LineageGraphMap.getInstance().remove( content );
+  }
+
+  @Test
+  public void testGetGraph_waitsForAnalysisPatchingTheGraph() throws Exception {
+    final Object content = new Object();
+    final Graph graph = new TinkerGraph();
+    LineageGraphMap.submit( content, () -> { }, graph, 0L ).get( 10, TimeUnit.SECONDS );
+    final Future<Graph> pending = LineageGraphMap.submit( content, () -> { }, graph, 200L );
+    assertFalse( pending.isDone() );
+    assertSame( graph, LineageGraphMap.getGraph( content ) );
+    assertTrue( pending.isDone() );
+    LineageGraphMap.getInstance().remove( content );
+  }
+
+  @Test
+  public void testSupersede() throws Exception {
+    final Object content = new Object();
+    assertNull( LineageGraphMap.supersede( content ) );
+
+    final Graph graph = new TinkerGraph();
+    LineageGraphMap.submit( content, () -> { }, graph, 0L ).get( 10, TimeUnit.SECONDS );
+    assertSame( graph, LineageGraphMap.supersede( content ) );
+
+    // an analysis that hasn't started yet never will
+    final Future<Graph> pending = LineageGraphMap.submit( content, () -> { }, new TinkerGraph(), 10000L );
+    assertSame( graph, LineageGraphMap.supersede( content ) );
+    assertTrue( pending.isCancelled() );
+
+    // an analysis that has started may still be writing to its graph
+    final CountDownLatch started = new CountDownLatch( 1 );
+    final CountDownLatch release = new CountDownLatch( 1 );
+    LineageGraphMap.submit( content, () -> {
+      started.countDown();
+      try {
+        release.await();
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+      }
+    }, graph, 0L );
+    assertTrue( started.await( 10, TimeUnit.SECONDS ) );
+    assertNull( LineageGraphMap.supersede( content ) );
+    release.countDown();
+    LineageGraphMap.getInstance().remove( content );
+  }
+
+  @Test
+  public void testSupersede_cancelledAnalysisIsNotCompleted() throws Exception {
+    final Object content = new Object();
+    final Graph graph = new TinkerGraph();
+    LineageGraphMap.submit( content, () -> { }, graph, 0L ).get( 10, TimeUnit.SECONDS );
+
+    // an analysis that runs to its end even though it is cancelled
+    final CountDownLatch started = new CountDownLatch( 1 );
+    final CountDownLatch release = new CountDownLatch( 1 );
+    final CountDownLatch finished = new CountDownLatch( 1 );
+    final Future<Graph> cancelled = LineageGraphMap.submit( content, () -> {
+      started.countDown();
+      while ( true ) {
+        try {
+          release.await();
+          break;
+        } catch ( InterruptedException e ) {
+          // keep running
+        }
+      }
+      finished.countDown();
+    }, graph, 0L );
+    assertTrue( started.await( 10, TimeUnit.SECONDS ) );
+    assertNull( LineageGraphMap.supersede( content ) );
+    assertTrue( cancelled.isCancelled() );
+    release.countDown();
+    assertTrue( finished.await( 10, TimeUnit.SECONDS ) );
+
+    // its graph may be half written, it is never handed out for patching
+    assertNull( LineageGraphMap.supersede( content ) );
+    LineageGraphMap.getInstance().remove( content );
+  }
+
+  @Test
+  public void testGetDebounceWindow() {
+    assertTrue( LineageGraphMap.getDebounceWindow() >= 0 );
+
+    // the configuration exported by the bundle, set from its blueprint, wins over the system properties
+    final IMetaverseConfig config = mock( IMetaverseConfig.class );
+    when( config.getDebounceWindow() ).thenReturn( "1234" );
+    final IPentahoObjectRegistration registration = PentahoSystem.registerObject( config );
+    try {
+      assertEquals( 1234L, LineageGraphMap.getDebounceWindow() );
+    } finally {
+      registration.remove();
+    }
+  }
 }
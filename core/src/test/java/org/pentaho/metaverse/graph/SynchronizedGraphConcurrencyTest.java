@@ -0,0 +1,192 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.graph;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.KeyIndexableGraph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.util.wrappers.id.IdGraph;
+import com.tinkerpop.blueprints.util.wrappers.id.IdVertex;
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.dictionary.DictionaryConst;
+import org.pentaho.dictionary.MetaverseLink;
+import org.pentaho.dictionary.MetaverseTransientNode;
+import org.pentaho.metaverse.api.IMetaverseBuilder;
+import org.pentaho.metaverse.api.IMetaverseNode;
+import org.pentaho.metaverse.impl.MetaverseBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Builds a single {@link SynchronizedGraph} from many concurrent builders, while other threads keep reading it.
+ */
+public class SynchronizedGraphConcurrencyTest {
+
+  private static final int WRITERS = 8;
+  private static final int READERS = 2;
+  private static final int SHARED_NODES = 50;
+  private static final int NODES_PER_WRITER = 100;
+
+  private SynchronizedGraph graph;
+
+  @Before
+  public void setUp() throws Exception {
+    graph = new SynchronizedGraph( new IdGraph<KeyIndexableGraph>( new TinkerGraph() ) );
+  }
+
+  @Test
+  public void testConcurrentBuildersAndReaders() throws Exception {
+    // the builders register their static nodes up front, count them as the baseline
+    final List<IMetaverseBuilder> builders = new ArrayList<>();
+    for ( int i = 0; i < WRITERS; i++ ) {
+      builders.add( new MetaverseBuilder( graph ) );
+    }
+    final int baseVertices = count( graph.getVertices() );
+    final int baseEdges = count( graph.getEdges() );
+
+    final ExecutorService executor = Executors.newFixedThreadPool( WRITERS + READERS );
+    final CountDownLatch start = new CountDownLatch( 1 );
+    final AtomicBoolean writing = new AtomicBoolean( true );
+    final List<Future<?>> writers = new ArrayList<>();
+    final List<Future<?>> readers = new ArrayList<>();
+    try {
+      for ( int w = 0; w < WRITERS; w++ ) {
+        final int writer = w;
+        final IMetaverseBuilder builder = builders.get( w );
+        writers.add( executor.submit( (Callable<Void>) () -> {
+          start.await();
+          for ( int i = 0; i < NODES_PER_WRITER; i++ ) {
+            final IMetaverseNode shared = node( "shared_" + ( i % SHARED_NODES ) );
+            final IMetaverseNode next = node( "shared_" + ( ( i + 1 ) % SHARED_NODES ) );
+            final IMetaverseNode own = node( "writer_" + writer + "_" + i );
+            builder.addNode( shared );
+            builder.addNode( own );
+            builder.addLink( new MetaverseLink( shared, DictionaryConst.LINK_CONTAINS, own ) );
+            // every writer adds the same links between shared nodes, they must not be duplicated
+            builder.addLink( new MetaverseLink( shared, DictionaryConst.LINK_DEPENDENCYOF, next ) );
+          }
+          return null;
+        } ) );
+      }
+      for ( int r = 0; r < READERS; r++ ) {
+        readers.add( executor.submit( (Callable<Void>) () -> {
+          start.await();
+          while ( writing.get() ) {
+            for ( Vertex vertex : graph.getVertices() ) {
+              vertex.getProperty( DictionaryConst.PROPERTY_NAME );
+              count( vertex.getEdges( Direction.OUT ) );
+            }
+            for ( Edge edge : graph.getEdges() ) {
+              assertNotNull( edge.getVertex( Direction.IN ) );
+            }
+            graph.getVertices( DictionaryConst.PROPERTY_LOGICAL_ID, "shared_0" );
+          }
+          return null;
+        } ) );
+      }
+      start.countDown();
+      for ( Future<?> future : writers ) {
+        future.get( 60, TimeUnit.SECONDS );
+      }
+      writing.set( false );
+      for ( Future<?> future : readers ) {
+        future.get( 60, TimeUnit.SECONDS );
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals( baseVertices + SHARED_NODES + WRITERS * NODES_PER_WRITER, count( graph.getVertices() ) );
+    assertEquals( baseEdges + SHARED_NODES + WRITERS * NODES_PER_WRITER, count( graph.getEdges() ) );
+    for ( int i = 0; i < SHARED_NODES; i++ ) {
+      final Vertex shared = graph.getVertex( "shared_" + i );
+      assertNotNull( shared );
+      assertEquals( WRITERS * NODES_PER_WRITER / SHARED_NODES + 1, count( shared.getEdges( Direction.OUT ) ) );
+    }
+  }
+
+  @Test
+  public void testElementsAreWrapped() throws Exception {
+    final Vertex from = graph.addVertex( "from" );
+    final Vertex to = graph.addVertex( "to" );
+    final Edge edge = from.addEdge( "link", to );
+
+    assertEquals( from, graph.getVertex( "from" ) );
+    assertEquals( from.hashCode(), graph.getVertex( "from" ).hashCode() );
+    assertEquals( edge, graph.getEdge( edge.getId() ) );
+    assertEquals( to, edge.getVertex( Direction.IN ) );
+    assertEquals( 0, count( graph.query().has( "name", "x" ).vertices() ) );
+
+    from.setProperty( "name", "x" );
+    assertEquals( "x", graph.getVertex( "from" ).getProperty( "name" ) );
+    assertTrue( graph.getVertex( "from" ).getPropertyKeys().contains( "name" ) );
+    assertEquals( 1, count( graph.query().has( "name", "x" ).vertices() ) );
+    assertEquals( 1, count( from.query().direction( Direction.OUT ).edges() ) );
+
+    graph.removeEdge( edge );
+    assertEquals( 0, count( graph.getEdges() ) );
+    to.remove();
+    assertEquals( 1, count( graph.getVertices() ) );
+  }
+
+  @Test
+  public void testIterablesAreSnapshots() throws Exception {
+    final Vertex from = graph.addVertex( "from" );
+    final Iterable<Vertex> vertices = graph.getVertices();
+    final Iterable<Edge> edges = graph.getEdges();
+
+    // written after the snapshots were taken
+    from.addEdge( "link", graph.addVertex( "to" ) );
+    assertEquals( 1, count( vertices ) );
+    assertEquals( 0, count( edges ) );
+    for ( Vertex vertex : vertices ) {
+      // wrapped, not the vertex of the underlying graph
+      assertFalse( vertex instanceof IdVertex );
+      assertEquals( from, vertex );
+    }
+    assertEquals( 2, count( graph.getVertices() ) );
+    assertEquals( 1, count( graph.getEdges() ) );
+  }
+
+  private static IMetaverseNode node( String id ) {
+    final MetaverseTransientNode node = new MetaverseTransientNode( id );
+    node.setName( id );
+    node.setType( DictionaryConst.NODE_TYPE_DATA_COLUMN );
+    return node;
+  }
+
+  private static int count( Iterable<?> iterable ) {
+    int count = 0;
+    for ( Object ignored : iterable ) {
+      count++;
+    }
+    return count;
+  }
+}
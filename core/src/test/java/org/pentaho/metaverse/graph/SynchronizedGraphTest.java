@@ -15,6 +15,7 @@ package org.pentaho.metaverse.graph;
 
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.DefaultGraphQuery;
 import com.tinkerpop.blueprints.util.wrappers.id.IdGraph;
 import org.junit.Before;
 import org.junit.Test;
@@ -22,6 +23,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.never;
@@ -116,8 +118,18 @@ public class SynchronizedGraphTest {
     synchronizedGraph.getVertices( "key", "value" );
     verify( mockGraph, times( 1 ) ).getVertices( "key", "value" );
 
-    synchronizedGraph.query();
-    verify( mockGraph, times( 1 ) ).query();
+    // queries are evaluated against the locked iterables of the synchronized graph
+    assertTrue( synchronizedGraph.query() instanceof DefaultGraphQuery );
+    verify( mockGraph, never() ).query();
+
+    synchronizedGraph.createKeyIndex( "key", Vertex.class );
+    verify( mockGraph, times( 1 ) ).createKeyIndex( "key", Vertex.class );
+
+    synchronizedGraph.getIndexedKeys( Vertex.class );
+    verify( mockGraph, times( 1 ) ).getIndexedKeys( Vertex.class );
+
+    synchronizedGraph.dropKeyIndex( "key", Vertex.class );
+    verify( mockGraph, times( 1 ) ).dropKeyIndex( "key", Vertex.class );
 
     synchronizedGraph.shutdown();
     verify( mockGraph, times( 1 ) ).shutdown();
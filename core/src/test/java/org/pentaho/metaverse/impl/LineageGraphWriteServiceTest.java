@@ -0,0 +1,106 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.metaverse.api.IMetaverseConfig;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LineageGraphWriteServiceTest {
+
+  private LineageGraphWriteService service;
+
+  @Before
+  public void setUp() throws Exception {
+    IMetaverseConfig config = mock( IMetaverseConfig.class );
+    when( config.getLineageWriterPoolSize() ).thenReturn( "1" );
+    when( config.getLineageWriterQueueSize() ).thenReturn( "1" );
+    service = new LineageGraphWriteService( config );
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    service.shutdown( 10, TimeUnit.SECONDS );
+  }
+
+  @Test
+  public void testGetInstance() {
+    assertNotNull( LineageGraphWriteService.getInstance() );
+    assertEquals( LineageGraphWriteService.getInstance(), LineageGraphWriteService.getInstance() );
+  }
+
+  @Test
+  public void testPendingWrites() throws Exception {
+    final CountDownLatch started = new CountDownLatch( 1 );
+    final CountDownLatch release = new CountDownLatch( 1 );
+    final AtomicInteger written = new AtomicInteger();
+    service.submit( () -> {
+      started.countDown();
+      try {
+        release.await();
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+      }
+      written.incrementAndGet();
+    } );
+    assertTrue( started.await( 10, TimeUnit.SECONDS ) );
+    service.submit( written::incrementAndGet );
+    assertEquals( 2, service.getPendingCount() );
+    assertEquals( 1, service.getActiveCount() );
+    assertEquals( 1, service.getQueueDepth() );
+
+    // the pool and its queue are full, the write runs on this thread
+    service.submit( written::incrementAndGet );
+    assertEquals( 1, written.get() );
+    assertEquals( 1, service.getSaturatedCount() );
+
+    release.countDown();
+    assertTrue( service.shutdown( 10, TimeUnit.SECONDS ) );
+    assertEquals( 3, written.get() );
+    assertEquals( 0, service.getPendingCount() );
+  }
+
+  @Test
+  public void testSubmitAfterShutdown() throws Exception {
+    final CountDownLatch release = new CountDownLatch( 1 );
+    service.submit( () -> {
+      try {
+        release.await();
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+      }
+    } );
+    assertFalse( service.shutdown( 50, TimeUnit.MILLISECONDS ) );
+
+    // no longer accepting writes, but they are not lost either
+    final AtomicInteger written = new AtomicInteger();
+    service.submit( written::incrementAndGet );
+    assertEquals( 1, written.get() );
+    // only the write blocked on the pool is still pending
+    assertEquals( 1, service.getPendingCount() );
+    release.countDown();
+  }
+}
@@ -13,13 +13,16 @@
 
 package org.pentaho.metaverse.impl;
 
+import java.util.Arrays;
 import java.util.stream.StreamSupport;
 
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.KeyIndexableGraph;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.util.wrappers.id.IdGraph;
 import org.junit.Before;
 import org.junit.Test;
 import org.pentaho.dictionary.DictionaryConst;
@@ -30,6 +33,7 @@ import org.pentaho.metaverse.api.IMetaverseLink;
 import org.pentaho.metaverse.api.IMetaverseNode;
 import org.pentaho.metaverse.api.IMetaverseObjectFactory;
 import org.pentaho.metaverse.api.model.BaseMetaverseBuilder;
+import org.pentaho.metaverse.graph.SynchronizedGraph;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.mock;
@@ -61,6 +65,48 @@ public class MetaverseBuilderTest {
     assertNull( builder.getGraph() );
   }
 
+  @Test
+  public void testLogicalIdIsIndexed() {
+    assertTrue( ( (TinkerGraph) graph ).getIndexedKeys( Vertex.class ).contains( DictionaryConst.PROPERTY_LOGICAL_ID ) );
+
+    TinkerGraph otherGraph = new TinkerGraph();
+    builder.setGraph( otherGraph );
+    assertTrue( otherGraph.getIndexedKeys( Vertex.class ).contains( DictionaryConst.PROPERTY_LOGICAL_ID ) );
+
+    Graph synchronizedGraph = new SynchronizedGraph( new IdGraph<KeyIndexableGraph>( new TinkerGraph() ) );
+    builder.setGraph( synchronizedGraph );
+    assertTrue( ( (KeyIndexableGraph) synchronizedGraph ).getIndexedKeys( Vertex.class )
+      .contains( DictionaryConst.PROPERTY_LOGICAL_ID ) );
+  }
+
+  @Test
+  public void testLookupKeysAreIndexed() {
+    TinkerGraph otherGraph = new TinkerGraph();
+    otherGraph.createKeyIndex( DictionaryConst.PROPERTY_NAME, Vertex.class );
+    builder.setGraph( otherGraph );
+    assertTrue( otherGraph.getIndexedKeys( Vertex.class ).containsAll( Arrays.asList(
+      DictionaryConst.PROPERTY_LOGICAL_ID, DictionaryConst.PROPERTY_NAME, DictionaryConst.PROPERTY_TYPE ) ) );
+  }
+
+  @Test
+  public void testGetVertexForNodeByLogicalId() {
+    Vertex vertex = graph.addVertex( "physical id" );
+    vertex.setProperty( DictionaryConst.PROPERTY_LOGICAL_ID, "logical id" );
+
+    IMetaverseNode lookup = mock( IMetaverseNode.class );
+    when( lookup.getStringID() ).thenReturn( "another physical id" );
+    when( lookup.getLogicalId() ).thenReturn( "logical id" );
+    assertEquals( vertex, builder.getVertexForNode( lookup ) );
+
+    // the index follows property changes and removals
+    vertex.setProperty( DictionaryConst.PROPERTY_LOGICAL_ID, "changed logical id" );
+    assertNull( builder.getVertexForNode( lookup ) );
+    when( lookup.getLogicalId() ).thenReturn( "changed logical id" );
+    assertEquals( vertex, builder.getVertexForNode( lookup ) );
+    graph.removeVertex( vertex );
+    assertNull( builder.getVertexForNode( lookup ) );
+  }
+
   @Test
   public void testGetSetMetaverseObjectFactory() {
 
@@ -17,10 +17,15 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class MetaverseCompletionServiceTest {
 
@@ -88,8 +93,51 @@ public class MetaverseCompletionServiceTest {
 
     // there shouldn't be anything left to process
     assertNull( mcs.poll() );
+    assertEquals( 0, mcs.getPendingCount() );
   }
 
+  @Test
+  public void testWaitTillEmpty_Timeout() throws Exception {
+    final CountDownLatch release = new CountDownLatch( 1 );
+    mcs.submit( new Callable<String>() {
+      @Override public String call() throws Exception {
+        release.await();
+        return HELLO_WORLD;
+      }
+    } );
+
+    assertFalse( mcs.waitTillEmpty( 50, TimeUnit.MILLISECONDS ) );
+    assertEquals( 1, mcs.getPendingCount() );
+
+    release.countDown();
+    assertTrue( mcs.waitTillEmpty( 10, TimeUnit.SECONDS ) );
+    assertEquals( 0, mcs.getPendingCount() );
+  }
 
+  @Test
+  public void testWaitTillEmpty_WakesWhenResultIsRetrievedElsewhere() throws Exception {
+    final CountDownLatch release = new CountDownLatch( 1 );
+    mcs.submit( new Callable<String>() {
+      @Override public String call() throws Exception {
+        release.await();
+        return HELLO_WORLD;
+      }
+    } );
+    final AtomicBoolean empty = new AtomicBoolean();
+    final Thread waiter = new Thread( () -> {
+      try {
+        empty.set( mcs.waitTillEmpty( 10, TimeUnit.SECONDS ) );
+      } catch ( Exception e ) {
+        empty.set( false );
+      }
+    } );
+    waiter.start();
+    release.countDown();
+    // whichever of the two threads gets the result, the waiter must return as soon as it is gone
+    mcs.poll( 1, TimeUnit.SECONDS );
+    waiter.join( 10000 );
+    assertTrue( empty.get() );
+    assertEquals( 0, mcs.getPendingCount() );
+  }
 
 }
@@ -0,0 +1,145 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.impl;
+
+import org.junit.After;
+import org.junit.Test;
+import org.pentaho.metaverse.api.IMetaverseConfig;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MetaverseThreadPoolExecutorTest {
+
+  private MetaverseThreadPoolExecutor executor;
+
+  @After
+  public void tearDown() throws Exception {
+    if ( executor != null ) {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testCreate_defaults() {
+    executor = MetaverseThreadPoolExecutor.create( "test", null );
+    assertEquals( MetaverseThreadPoolExecutor.DEFAULT_CORE_POOL_SIZE, executor.getCorePoolSize() );
+    assertEquals( MetaverseThreadPoolExecutor.DEFAULT_MAX_POOL_SIZE, executor.getMaximumPoolSize() );
+    assertEquals( MetaverseThreadPoolExecutor.DEFAULT_QUEUE_SIZE, executor.getQueue().remainingCapacity() );
+    assertTrue( executor.allowsCoreThreadTimeOut() );
+  }
+
+  @Test
+  public void testCreate_fromConfig() {
+    IMetaverseConfig config = mock( IMetaverseConfig.class );
+    when( config.getExecutorCorePoolSize() ).thenReturn( "2" );
+    when( config.getExecutorMaxPoolSize() ).thenReturn( "1" );
+    when( config.getExecutorQueueSize() ).thenReturn( "not a number" );
+    executor = MetaverseThreadPoolExecutor.create( "test", config );
+    assertEquals( 2, executor.getCorePoolSize() );
+    // the max size can't be lower than the core size
+    assertEquals( 2, executor.getMaximumPoolSize() );
+    assertEquals( MetaverseThreadPoolExecutor.DEFAULT_QUEUE_SIZE, executor.getQueue().remainingCapacity() );
+  }
+
+  @Test
+  public void testNamedDaemonThreads() throws Exception {
+    executor = new MetaverseThreadPoolExecutor( "lineage-test", 1, 1, 1, null );
+    final AtomicReference<Thread> thread = new AtomicReference<>();
+    executor.submit( () -> thread.set( Thread.currentThread() ) ).get( 10, TimeUnit.SECONDS );
+    assertEquals( "lineage-test-1", thread.get().getName() );
+    assertTrue( thread.get().isDaemon() );
+  }
+
+  @Test
+  public void testCallerRuns() throws Exception {
+    executor = new MetaverseThreadPoolExecutor( "test", 1, 1, 1,
+      MetaverseThreadPoolExecutor.REJECTION_POLICY_CALLER_RUNS );
+    final CountDownLatch release = new CountDownLatch( 1 );
+    final CountDownLatch started = new CountDownLatch( 1 );
+    executor.submit( () -> {
+      started.countDown();
+      release.await();
+      return null;
+    } );
+    started.await( 10, TimeUnit.SECONDS );
+    // fills the queue
+    executor.submit( () -> null );
+    assertEquals( 1, executor.getQueueDepth() );
+    assertEquals( 1, executor.getActiveCount() );
+
+    // neither a thread nor room in the queue, runs on this thread
+    final AtomicReference<Thread> thread = new AtomicReference<>();
+    executor.submit( () -> thread.set( Thread.currentThread() ) );
+    assertEquals( Thread.currentThread(), thread.get() );
+    assertEquals( 1, executor.getSaturatedCount() );
+    release.countDown();
+  }
+
+  @Test
+  public void testBlock() throws Exception {
+    executor = new MetaverseThreadPoolExecutor( "test", 1, 1, 1, MetaverseThreadPoolExecutor.REJECTION_POLICY_BLOCK );
+    final CountDownLatch release = new CountDownLatch( 1 );
+    final CountDownLatch started = new CountDownLatch( 1 );
+    executor.submit( () -> {
+      started.countDown();
+      release.await();
+      return null;
+    } );
+    started.await( 10, TimeUnit.SECONDS );
+    executor.submit( () -> null );
+
+    final AtomicReference<Thread> thread = new AtomicReference<>();
+    final CountDownLatch submitted = new CountDownLatch( 1 );
+    final Thread submitter = new Thread( () -> {
+      executor.submit( () -> thread.set( Thread.currentThread() ) );
+      submitted.countDown();
+    } );
+    submitter.start();
+    // the submitter waits for room in the queue
+    assertEquals( false, submitted.await( 200, TimeUnit.MILLISECONDS ) );
+    release.countDown();
+    assertTrue( submitted.await( 10, TimeUnit.SECONDS ) );
+    executor.shutdown();
+    assertTrue( executor.awaitTermination( 10, TimeUnit.SECONDS ) );
+    assertNotEquals( submitter, thread.get() );
+    assertEquals( 1, executor.getSaturatedCount() );
+  }
+
+  @Test
+  public void testCompletionServiceMetrics() throws Exception {
+    MetaverseCompletionService mcs = MetaverseCompletionService.getInstance();
+    mcs.waitTillEmpty();
+    final CountDownLatch release = new CountDownLatch( 1 );
+    Future<String> future = mcs.submit( () -> {
+      release.await();
+      return "done";
+    } );
+    assertEquals( 1, mcs.getPendingCount() );
+    assertEquals( 0, mcs.getQueueDepth() );
+    release.countDown();
+    assertEquals( "done", future.get( 10, TimeUnit.SECONDS ) );
+    mcs.waitTillEmpty();
+    assertEquals( 0, mcs.getPendingCount() );
+    assertEquals( 0, mcs.getSaturatedCount() );
+  }
+}
@@ -0,0 +1,114 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.impl;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class ParallelTaskRunnerTest {
+
+  private ParallelTaskRunner runner;
+
+  @After
+  public void tearDown() {
+    if ( runner != null ) {
+      runner.shutdown();
+    }
+  }
+
+  @Test
+  public void testGetPoolSize() {
+    assertEquals( 1, ParallelTaskRunner.getPoolSize( null, "test" ) );
+    assertEquals( 1, ParallelTaskRunner.getPoolSize( "not a number", "test" ) );
+    assertEquals( 1, ParallelTaskRunner.getPoolSize( "0", "test" ) );
+    assertEquals( 4, ParallelTaskRunner.getPoolSize( " 4 ", "test" ) );
+  }
+
+  @Test
+  public void testRunAll_callerOnly() {
+    runner = new ParallelTaskRunner( "test", 1 );
+    final List<Thread> threads = new ArrayList<>();
+    final List<Runnable> tasks = new ArrayList<>();
+    for ( int i = 0; i < 10; i++ ) {
+      tasks.add( () -> threads.add( Thread.currentThread() ) );
+    }
+    runner.runAll( tasks );
+    assertEquals( Collections.nCopies( 10, Thread.currentThread() ), threads );
+  }
+
+  @Test( timeout = 30000 )
+  public void testRunAll() {
+    runner = new ParallelTaskRunner( "test", 4 );
+    final AtomicInteger completed = new AtomicInteger();
+    final Set<Integer> seen = Collections.synchronizedSet( new HashSet<>() );
+    final List<Runnable> tasks = new ArrayList<>();
+    for ( int i = 0; i < 1000; i++ ) {
+      final int task = i;
+      tasks.add( () -> {
+        seen.add( task );
+        completed.incrementAndGet();
+      } );
+    }
+    runner.runAll( tasks );
+    assertEquals( 1000, completed.get() );
+    assertEquals( 1000, seen.size() );
+  }
+
+  @Test( timeout = 30000 )
+  public void testRunAll_nested() {
+    // every task runs a batch of its own on the same runner, which must not wait for pool threads to free up
+    runner = new ParallelTaskRunner( "test", 2 );
+    final AtomicInteger completed = new AtomicInteger();
+    final List<Runnable> tasks = new ArrayList<>();
+    for ( int i = 0; i < 8; i++ ) {
+      tasks.add( () -> runner.runAll( Collections.<Runnable>nCopies( 8, completed::incrementAndGet ) ) );
+    }
+    runner.runAll( tasks );
+    assertEquals( 64, completed.get() );
+  }
+
+  @Test( timeout = 30000 )
+  public void testRunAll_failure() {
+    runner = new ParallelTaskRunner( "test", 4 );
+    final AtomicInteger completed = new AtomicInteger();
+    final List<Runnable> tasks = new ArrayList<>();
+    for ( int i = 0; i < 100; i++ ) {
+      final int task = i;
+      tasks.add( () -> {
+        if ( task == 50 ) {
+          throw new IllegalStateException( "failed" );
+        }
+        completed.incrementAndGet();
+      } );
+    }
+    try {
+      runner.runAll( tasks );
+      fail( "expected the failure of a task" );
+    } catch ( final IllegalStateException e ) {
+      assertEquals( "failed", e.getMessage() );
+    }
+    // the other tasks still ran
+    assertEquals( 99, completed.get() );
+  }
+}
@@ -0,0 +1,158 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.impl;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.VFS;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VfsArtifactManifestTest {
+
+  private File dateFolder;
+
+  private FileObject dateFolderObject;
+
+  private VfsArtifactManifest manifest;
+
+  @Before
+  public void setUp() throws Exception {
+    dateFolder = new File( "target/outputfiles/manifest" + new Random().nextInt() + "/20150708" ).getCanonicalFile();
+    FileUtils.write( new File( dateFolder, "a/1_a.graphml" ), "<graphml/>", StandardCharsets.UTF_8 );
+    dateFolderObject = VFS.getManager().resolveFile( dateFolder.toURI().toString() );
+    manifest = new VfsArtifactManifest( dateFolderObject );
+  }
+
+  @After
+  public void tearDown() {
+    FileUtils.deleteQuietly( dateFolder.getParentFile() );
+  }
+
+  @Test
+  public void testList_rebuildsMissingManifest() throws Exception {
+    assertEquals( Collections.singletonList( path( "a/1_a.graphml" ) ), manifest.list() );
+    assertEquals( "+a/1_a.graphml\n", read() );
+  }
+
+  @Test
+  public void testAddRemove() throws Exception {
+    // the first artifact of the day rebuilds the manifest, which picks up what was already there
+    manifest.add( createArtifact( "b/c/2_c.graphml" ) );
+    manifest.add( createArtifact( "b/2_b.execution.js" ) );
+    manifest.add( createArtifact( "b/2_b.execution.js" ) );
+    assertEquals( new HashSet<>(
+        Arrays.asList( path( "a/1_a.graphml" ), path( "b/c/2_c.graphml" ), path( "b/2_b.execution.js" ) ) ),
+      new HashSet<>( manifest.list() ) );
+    assertTrue( read().endsWith( "+b/2_b.execution.js\n+b/2_b.execution.js\n" ) );
+
+    manifest.remove( dateFolderObject.resolveFile( "b" ) );
+    assertEquals( Collections.singletonList( path( "a/1_a.graphml" ) ), manifest.list() );
+    manifest.add( createArtifact( "b/3_b.execution.js" ) );
+    assertEquals( new HashSet<>( Arrays.asList( path( "a/1_a.graphml" ), path( "b/3_b.execution.js" ) ) ),
+      new HashSet<>( manifest.list() ) );
+  }
+
+  @Test
+  public void testList_walksFolderModifiedSinceManifest() throws Exception {
+    manifest.list();
+    // written without going through the manifest
+    FileUtils.write( new File( dateFolder, "d/4_d.graphml" ), "<graphml/>", StandardCharsets.UTF_8 );
+    assertTrue( new File( dateFolder, VfsArtifactManifest.MANIFEST_NAME )
+      .setLastModified( dateFolder.lastModified() - 10000L ) );
+    assertEquals( new HashSet<>( Arrays.asList( path( "a/1_a.graphml" ), path( "d/4_d.graphml" ) ) ),
+      new HashSet<>( manifest.list() ) );
+    assertEquals( new HashSet<>( Arrays.asList( "+a/1_a.graphml", "+d/4_d.graphml" ) ),
+      new HashSet<>( Arrays.asList( read().split( "\n" ) ) ) );
+  }
+
+  @Test
+  public void testCreateDeleteFolder_doesNotWalk() throws Exception {
+    manifest.list();
+    // written without going through the manifest, only a walk would find it
+    FileUtils.write( new File( dateFolder, "hidden/9_h.graphml" ), "<graphml/>", StandardCharsets.UTF_8 );
+    assertTrue( dateFolder.setLastModified( dateFolder.lastModified() - 20000L ) );
+    assertTrue( new File( dateFolder, VfsArtifactManifest.MANIFEST_NAME )
+      .setLastModified( dateFolder.lastModified() + 10000L ) );
+
+    // creating the folder of a new artifact modifies the date folder
+    final FileObject folder = dateFolderObject.resolveFile( "e" );
+    manifest.createFolder( folder );
+    assertTrue( folder.exists() );
+    manifest.add( createArtifact( "e/6_e.graphml" ) );
+    assertEquals( new HashSet<>( Arrays.asList( path( "a/1_a.graphml" ), path( "e/6_e.graphml" ) ) ),
+      new HashSet<>( manifest.list() ) );
+    assertEquals( "+a/1_a.graphml\n/e\n+e/6_e.graphml\n", read() );
+
+    manifest.deleteFolder( folder );
+    assertFalse( folder.exists() );
+    assertEquals( Collections.singletonList( path( "a/1_a.graphml" ) ), manifest.list() );
+    assertEquals( "+a/1_a.graphml\n/e\n+e/6_e.graphml\n-e\n", read() );
+  }
+
+  @Test
+  public void testList_walk() throws Exception {
+    manifest.list();
+    createArtifact( "a/5_a.graphml" );
+    final VfsArtifactManifest walked = new VfsArtifactManifest( dateFolderObject, true, true );
+    assertEquals( new HashSet<>( Arrays.asList( path( "a/1_a.graphml" ), path( "a/5_a.graphml" ) ) ),
+      new HashSet<>( walked.list() ) );
+    // the manifest is left alone
+    assertEquals( "+a/1_a.graphml\n", read() );
+  }
+
+  @Test
+  public void testList_withoutWritingRebuiltManifest() throws Exception {
+    final VfsArtifactManifest readOnly = new VfsArtifactManifest( dateFolderObject, false, false );
+    assertEquals( Collections.singletonList( path( "a/1_a.graphml" ) ), readOnly.list() );
+    assertFalse( new File( dateFolder, VfsArtifactManifest.MANIFEST_NAME ).exists() );
+  }
+
+  @Test
+  public void testListForFile() throws Exception {
+    manifest.add( createArtifact( "repo/validation/x.ktr/1_x.graphml" ) );
+    manifest.add( createArtifact( "repo/validation/x.ktr/sub/1_y.graphml" ) );
+    assertEquals( Collections.singletonList( path( "repo/validation/x.ktr/1_x.graphml" ) ),
+      manifest.listForFile( "validation/x.ktr" ) );
+    assertEquals( Collections.singletonList( path( "repo/validation/x.ktr/1_x.graphml" ) ),
+      manifest.listForFile( "validation/x.ktr/" ) );
+    assertTrue( manifest.listForFile( "x" ).isEmpty() );
+  }
+
+  private FileObject createArtifact( String path ) throws Exception {
+    FileUtils.write( new File( dateFolder, path ), "content", StandardCharsets.UTF_8 );
+    return dateFolderObject.resolveFile( path );
+  }
+
+  private String path( String relativePath ) {
+    return dateFolderObject.getName().getPath() + "/" + relativePath;
+  }
+
+  private String read() throws Exception {
+    return FileUtils.readFileToString( new File( dateFolder, VfsArtifactManifest.MANIFEST_NAME ),
+      StandardCharsets.UTF_8 );
+  }
+}
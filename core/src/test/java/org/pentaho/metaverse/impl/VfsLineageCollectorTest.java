@@ -13,16 +13,27 @@
 
 package org.pentaho.metaverse.impl;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.atLeast;
@@ -36,12 +47,20 @@ public class VfsLineageCollectorTest {
 
   VfsLineageCollector collector;
 
+  File outputFolder;
+
   @Before
   public void setUp() throws Exception {
     collector = new VfsLineageCollector();
-    String basePath = new File( "." ).getCanonicalPath();
-    collector.setOutputFolder( FilenameUtils.separatorsToSystem( "file://" + basePath
-        + "/src/test/resources/pentaho-lineage-output" ) );
+    // listing the artifacts writes the manifests of the date folders, work on a copy
+    outputFolder = new File( "target/outputfiles/pentaho-lineage-output" + new Random().nextInt() ).getCanonicalFile();
+    FileUtils.copyDirectory( new File( "src/test/resources/pentaho-lineage-output" ), outputFolder );
+    collector.setOutputFolder( FilenameUtils.separatorsToSystem( "file://" + outputFolder.getPath() ) );
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    FileUtils.deleteQuietly( outputFolder );
   }
 
   @Test
@@ -103,6 +122,45 @@ public class VfsLineageCollectorTest {
 
   }
 
+  @Test
+  public void testCompressArtifacts_entries() throws Exception {
+    List<String> artifacts = collector.listArtifacts( "20150707" );
+    ByteArrayOutputStream zip = new ByteArrayOutputStream();
+    collector.compressArtifacts( artifacts, zip );
+
+    int entries = 0;
+    try ( ZipInputStream zis = new ZipInputStream( new ByteArrayInputStream( zip.toByteArray() ) ) ) {
+      for ( ZipEntry entry = zis.getNextEntry(); entry != null; entry = zis.getNextEntry() ) {
+        File file = new File( entry.getName() );
+        assertTrue( entry.getName(), artifacts.contains( entry.getName() ) );
+        assertArrayEquals( FileUtils.readFileToByteArray( file ), IOUtils.toByteArray( zis ) );
+        // zip entries keep the time to the nearest 2 seconds
+        assertTrue( Math.abs( file.lastModified() - entry.getTime() ) <= 2000 );
+        entries++;
+      }
+    }
+    assertEquals( 2, entries );
+  }
+
+  @Test
+  public void testListArtifacts_fromManifest() throws Exception {
+    assertEquals( 6, collector.listArtifacts().size() );
+    File manifest = new File( outputFolder, "20150707/" + VfsArtifactManifest.MANIFEST_NAME );
+    assertTrue( manifest.exists() );
+
+    // once written, the manifests are what the artifacts are listed from
+    FileUtils.write( manifest, "+repo/validation/other.ktr/1_other.graphml.gz\n", StandardCharsets.UTF_8, true );
+    List<String> artifacts = collector.listArtifacts( "20150707" );
+    assertEquals( 3, artifacts.size() );
+    assertTrue( artifacts.get( 2 ),
+      artifacts.get( 2 ).endsWith( "20150707/repo/validation/other.ktr/1_other.graphml" ) );
+    assertEquals( 1, collector.listArtifactsForFile( "validation/other.ktr", "20150707" ).size() );
+
+    FileUtils.write( manifest, "-repo/validation\n", StandardCharsets.UTF_8, true );
+    assertEquals( 0, collector.listArtifacts( "20150707" ).size() );
+    assertEquals( 4, collector.listArtifacts().size() );
+  }
+
   @Test
   public void testGetArtifactsForFile_mergeJoin() throws Exception {
     // we have artifacts for merge_join on 2 days (execution profile + graph for each day)
@@ -36,11 +36,20 @@ import org.pentaho.metaverse.graph.GraphSONWriter;
 import org.pentaho.metaverse.impl.model.ExecutionData;
 import org.pentaho.metaverse.impl.model.ExecutionProfile;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.List;
 import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.IOUtils;
 
 import static org.hamcrest.CoreMatchers.endsWith;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -153,6 +162,40 @@ public class VfsLineageWriterTest {
     }
   }
 
+  @Test
+  public void testCompressedOutput() throws Exception {
+    assertEquals( MetaverseConfig.EXECUTION_OUTPUT_COMPRESSION_NONE, writer.getOutputCompression() );
+    writer.setOutputCompression( MetaverseConfig.EXECUTION_OUTPUT_COMPRESSION_GZIP );
+    try ( OutputStream os = writer.getGraphOutputStream( holder ) ) {
+      assertTrue( os instanceof GZIPOutputStream );
+    }
+    holder.setMetaverseBuilder( new MetaverseBuilder( new TinkerGraph() ) );
+    writer.outputLineageGraph( holder );
+    writer.outputExecutionProfile( holder );
+
+    // the collector lists and serves the compressed artifacts under their uncompressed names
+    VfsLineageCollector collector = new VfsLineageCollector();
+    collector.setOutputFolder( GOOD_OUTPUT_FOLDER );
+    List<String> artifacts = collector.listArtifacts();
+    assertEquals( 2, artifacts.size() );
+    for ( String artifact : artifacts ) {
+      assertTrue( artifact, artifact.endsWith( ".graphml" ) || artifact.endsWith( ".execution.js" ) );
+    }
+
+    ByteArrayOutputStream zip = new ByteArrayOutputStream();
+    collector.compressArtifacts( artifacts, zip );
+    try ( ZipInputStream zis = new ZipInputStream( new ByteArrayInputStream( zip.toByteArray() ) ) ) {
+      for ( ZipEntry entry = zis.getNextEntry(); entry != null; entry = zis.getNextEntry() ) {
+        String content = new String( IOUtils.toByteArray( zis ), StandardCharsets.UTF_8 );
+        if ( entry.getName().endsWith( ".graphml" ) ) {
+          assertTrue( content, content.startsWith( "<?xml" ) );
+        } else {
+          assertTrue( content, content.startsWith( "{" ) );
+        }
+      }
+    }
+  }
+
   @Test
   public void testGetDateFolder() throws KettleFileException, FileSystemException {
     assertNotNull( writer.getDateFolder( null ) );
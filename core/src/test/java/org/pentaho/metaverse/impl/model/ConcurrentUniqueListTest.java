@@ -0,0 +1,97 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.metaverse.impl.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentUniqueListTest {
+
+  ConcurrentUniqueList<String> list;
+
+  @Before
+  public void setUp() throws Exception {
+    list = new ConcurrentUniqueList<>();
+  }
+
+  @Test
+  public void testAddKeepsFirstInsertionOrder() {
+    assertTrue( list.add( "b" ) );
+    assertTrue( list.add( "a" ) );
+    assertFalse( list.add( "b" ) );
+    assertFalse( list.add( null ) );
+    assertTrue( list.addAll( Arrays.asList( "c", "a", "d" ) ) );
+    assertEquals( Arrays.asList( "b", "a", "c", "d" ), list );
+    assertTrue( list.contains( "c" ) );
+    assertFalse( list.contains( "z" ) );
+    assertFalse( list.contains( null ) );
+  }
+
+  @Test
+  public void testCopyConstructor() {
+    list = new ConcurrentUniqueList<>( Arrays.asList( "x", "y", "x" ) );
+    assertEquals( Arrays.asList( "x", "y" ), list );
+    assertEquals( 0, new ConcurrentUniqueList<String>( null ).size() );
+  }
+
+  @Test
+  public void testRemove() {
+    list.addAll( Arrays.asList( "a", "b", "c" ) );
+    assertTrue( list.remove( "b" ) );
+    assertFalse( list.remove( "b" ) );
+    assertEquals( "a", list.remove( 0 ) );
+    assertEquals( Arrays.asList( "c" ), list );
+    assertTrue( list.add( "a" ) );
+    list.clear();
+    assertTrue( list.isEmpty() );
+    assertTrue( list.add( "c" ) );
+  }
+
+  @Test
+  public void testIteratorIsSnapshot() {
+    list.addAll( Arrays.asList( "a", "b" ) );
+    Iterator<String> iterator = list.iterator();
+    list.add( "c" );
+    List<String> iterated = new ArrayList<>();
+    iterator.forEachRemaining( iterated::add );
+    assertEquals( Arrays.asList( "a", "b" ), iterated );
+  }
+
+  @Test
+  public void testConcurrentAdds() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool( 4 );
+    for ( int t = 0; t < 4; t++ ) {
+      executor.submit( () -> {
+        for ( int i = 0; i < 1000; i++ ) {
+          list.add( "value" + i );
+        }
+      } );
+    }
+    executor.shutdown();
+    assertTrue( executor.awaitTermination( 30, TimeUnit.SECONDS ) );
+    assertEquals( 1000, list.size() );
+  }
+}
@@ -22,6 +22,7 @@ import org.pentaho.metaverse.api.model.IParamInfo;
 import org.pentaho.metaverse.api.model.IUserMetadata;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -126,6 +127,22 @@ public class ExecutionDataTest {
 
   }
 
+  @Test
+  public void testAddExternalResources() {
+    IExternalResourceInfo resource1 = mock( IExternalResourceInfo.class );
+    IExternalResourceInfo resource2 = mock( IExternalResourceInfo.class );
+    List<IExternalResourceInfo> existing = new ArrayList<IExternalResourceInfo>();
+    existing.add( resource1 );
+    executionData.getExternalResources().put( "testStep", existing );
+
+    executionData.addExternalResources( "testStep", Arrays.asList( resource1, resource2 ) );
+    executionData.addExternalResources( "testStep", Arrays.asList( resource2, resource1 ) );
+    executionData.addExternalResources( "otherStep", Arrays.asList( resource2 ) );
+
+    assertEquals( Arrays.asList( resource1, resource2 ), executionData.getExternalResources().get( "testStep" ) );
+    assertEquals( Arrays.asList( resource2 ), executionData.getExternalResources().get( "otherStep" ) );
+  }
+
   @Test
   public void testPutGetArgument() {
     assertEquals( executionData.getArguments().size(), 0 );
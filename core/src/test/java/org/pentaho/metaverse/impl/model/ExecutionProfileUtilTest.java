@@ -14,20 +14,26 @@
 package org.pentaho.metaverse.impl.model;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.apache.commons.io.IOUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.MockedStatic;
 import org.pentaho.metaverse.api.model.IExecutionProfile;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.verify;
 
 public class ExecutionProfileUtilTest {
   IExecutionProfile executionProfile;
@@ -51,11 +57,30 @@ public class ExecutionProfileUtilTest {
     }
   }
 
+  @Test
+  public void testOutputExecutionProfile_prettyPrint() throws Exception {
+    ByteArrayOutputStream compact = new ByteArrayOutputStream();
+    ExecutionProfileUtil.outputExecutionProfile( compact, executionProfile );
+    ByteArrayOutputStream pretty = new ByteArrayOutputStream();
+    ExecutionProfileUtil.outputExecutionProfile( pretty, executionProfile, true );
+
+    String compactJson = new String( compact.toByteArray(), StandardCharsets.UTF_8 );
+    String prettyJson = new String( pretty.toByteArray(), StandardCharsets.UTF_8 );
+    assertTrue( compactJson.startsWith( "{" ) );
+    // a single line, terminated like the indented output
+    assertEquals( compactJson.indexOf( '\n' ), compactJson.length() - 1 );
+    assertTrue( prettyJson.trim().contains( "\n" ) );
+  }
+
   @Test( expected = IOException.class )
   public void testOutputExecutionProfileWithException() throws IOException {
     PrintStream mockStream = mock( PrintStream.class );
-    ObjectMapper mapper = mock( ObjectMapper.class );
-    when( mapper.writeValueAsString( any() ) ).thenThrow( JsonProcessingException.class );
-    ExecutionProfileUtil.outputExecutionProfile( mockStream, executionProfile, mapper );
+    ObjectWriter writer = mock( ObjectWriter.class );
+    doThrow( JsonProcessingException.class ).when( writer ).writeValue( any( OutputStream.class ), any() );
+    try {
+      ExecutionProfileUtil.outputExecutionProfile( mockStream, executionProfile, writer );
+    } finally {
+      verify( mockStream ).close();
+    }
   }
 }
@@ -13,6 +13,12 @@
 
 package org.pentaho.metaverse.testutils;
 
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import org.pentaho.dictionary.DictionaryConst;
 import org.pentaho.metaverse.api.IDocumentController;
 import org.pentaho.metaverse.api.IMetaverseBuilder;
 import org.pentaho.metaverse.api.IMetaverseObjectFactory;
@@ -20,6 +26,12 @@ import org.pentaho.metaverse.api.MetaverseObjectFactory;
 import org.pentaho.metaverse.api.analyzer.kettle.jobentry.IJobEntryExternalResourceConsumerProvider;
 import org.pentaho.metaverse.api.analyzer.kettle.step.IStepExternalResourceConsumerProvider;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 
@@ -52,4 +64,43 @@ public class MetaverseTestUtils {
     // TODO
     return mock( IJobEntryExternalResourceConsumerProvider.class );
   }
+
+  /**
+   * Describes the vertices of a graph, sorted, to compare graphs built by different analyses. Most vertex ids are
+   * random, vertices are described by logical id.
+   */
+  public static List<String> describeVertices( final Graph graph ) {
+    final List<String> descriptions = new ArrayList<>();
+    for ( final Vertex vertex : graph.getVertices() ) {
+      descriptions.add( getKey( vertex ) + " " + getProperties( vertex ) );
+    }
+    Collections.sort( descriptions );
+    return descriptions;
+  }
+
+  /**
+   * Describes the edges of a graph, sorted, by the logical ids of their vertices
+   */
+  public static List<String> describeEdges( final Graph graph ) {
+    final List<String> descriptions = new ArrayList<>();
+    for ( final Edge edge : graph.getEdges() ) {
+      descriptions.add( getKey( edge.getVertex( Direction.OUT ) ) + " -" + edge.getLabel() + "-> "
+        + getKey( edge.getVertex( Direction.IN ) ) + " " + getProperties( edge ) );
+    }
+    Collections.sort( descriptions );
+    return descriptions;
+  }
+
+  private static String getKey( final Vertex vertex ) {
+    final Object logicalId = vertex.getProperty( DictionaryConst.PROPERTY_LOGICAL_ID );
+    return String.valueOf( logicalId == null ? vertex.getId() : logicalId );
+  }
+
+  private static Map<String, String> getProperties( final Element element ) {
+    final Map<String, String> properties = new TreeMap<>();
+    for ( final String key : element.getPropertyKeys() ) {
+      properties.put( key, String.valueOf( element.getProperty( key ) ) );
+    }
+    return properties;
+  }
 }
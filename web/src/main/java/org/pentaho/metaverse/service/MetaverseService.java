@@ -21,10 +21,13 @@ import org.pentaho.metaverse.api.IDocumentLocator;
 import org.pentaho.metaverse.api.IDocumentLocatorProvider;
 import org.pentaho.metaverse.api.ILineageCollector;
 import org.pentaho.metaverse.api.IMetaverseReader;
+import org.pentaho.metaverse.api.IMetaverseConfig;
 import org.pentaho.metaverse.api.MetaverseLocatorException;
 import org.pentaho.metaverse.api.model.LineageRequest;
 import org.pentaho.metaverse.impl.MetaverseCompletionService;
 import org.pentaho.metaverse.messages.Messages;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.ws.rs.BadRequestException;
 import javax.ws.rs.Consumes;
@@ -42,6 +45,7 @@ import java.io.File;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * REST endpoints for the accessing lineage artifacts.
@@ -50,16 +54,24 @@ import java.util.concurrent.ExecutionException;
 @ExternallyManagedLifecycle
 public class MetaverseService {
 
+  private static final Logger log = LoggerFactory.getLogger( MetaverseService.class );
   private IMetaverseReader metaverseReader;
   private IDocumentLocatorProvider documentLocatorProvider;
   private ILineageCollector lineageCollector;
+  private IMetaverseConfig metaverseConfig;
   private static final String DATE_FORMAT = "yyyyMMdd";
   private int count;
+  private long prepareMetaverseTimeout = DEFAULT_PREPARE_METAVERSE_TIMEOUT;
 
   public static final int OK = 200;
   public static final int BAD_REQUEST = 400;
   public static final int SERVER_ERROR = 500;
 
+  /**
+   * How long, in seconds, a request waits for the initial scan of the document locators to complete
+   */
+  public static final long DEFAULT_PREPARE_METAVERSE_TIMEOUT = 300L;
+
   /**
    * Creates a new metaverse service using a provided metaverse reader (to pass calls to), 
    * and locator provider (to rebuild the metaverse).
@@ -79,6 +91,39 @@ public class MetaverseService {
     this.documentLocatorProvider = documentLocatorProvider;
   }
 
+  /**
+   * Sets the timeout used when there is no metaverse configuration, or when it doesn't set a valid one
+   *
+   * @param prepareMetaverseTimeout the timeout, in seconds
+   */
+  public void setPrepareMetaverseTimeout( long prepareMetaverseTimeout ) {
+    this.prepareMetaverseTimeout = prepareMetaverseTimeout;
+  }
+
+  public void setMetaverseConfig( IMetaverseConfig metaverseConfig ) {
+    this.metaverseConfig = metaverseConfig;
+  }
+
+  /**
+   * @return how long, in seconds, a request waits for the initial scan of the document locators to complete
+   */
+  protected long getPrepareMetaverseTimeout() {
+    final String value = metaverseConfig == null ? null : metaverseConfig.getPrepareMetaverseTimeout();
+    if ( value != null && !value.trim().isEmpty() ) {
+      try {
+        final long timeout = Long.parseLong( value.trim() );
+        if ( timeout >= 0 ) {
+          return timeout;
+        }
+      } catch ( NumberFormatException e ) {
+        // fall through to the default
+      }
+      log.warn( "Invalid value '{}' for {}, using {}", value, IMetaverseConfig.KETTLE_LINEAGE_PREPARE_METAVERSE_TIMEOUT,
+        prepareMetaverseTimeout );
+    }
+    return prepareMetaverseTimeout;
+  }
+
   public void setLineageCollector( ILineageCollector collector ) {
     this.lineageCollector = collector;
   }
@@ -368,7 +413,12 @@ public class MetaverseService {
           }
         }
 
-        MetaverseCompletionService.getInstance().waitTillEmpty();
+        // don't hold the request indefinitely, whatever has not been analyzed by then is missing from the result
+        final long timeout = getPrepareMetaverseTimeout();
+        if ( !MetaverseCompletionService.getInstance().waitTillEmpty( timeout, TimeUnit.SECONDS ) ) {
+          log.warn( "The document locators did not complete their scan within {} seconds, the lineage returned "
+            + "may be incomplete", timeout );
+        }
       } catch ( MetaverseLocatorException e ) {
         e.printStackTrace();
       } catch ( InterruptedException e ) {
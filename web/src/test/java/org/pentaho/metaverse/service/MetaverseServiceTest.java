@@ -22,6 +22,7 @@ import org.mockito.junit.MockitoJUnitRunner;
 import org.pentaho.metaverse.api.IDocumentLocator;
 import org.pentaho.metaverse.api.IDocumentLocatorProvider;
 import org.pentaho.metaverse.api.ILineageCollector;
+import org.pentaho.metaverse.api.IMetaverseConfig;
 import org.pentaho.metaverse.api.IMetaverseReader;
 import org.pentaho.metaverse.api.MetaverseLocatorException;
 import org.pentaho.metaverse.api.model.LineageRequest;
@@ -37,10 +38,12 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
@@ -239,7 +242,7 @@ public class MetaverseServiceTest {
 
       // Set up for exception
       MetaverseCompletionService mockCompletionServiceInstance = mock( MetaverseCompletionService.class );
-      doThrow( new InterruptedException() ).when( mockCompletionServiceInstance ).waitTillEmpty();
+      doThrow( new InterruptedException() ).when( mockCompletionServiceInstance ).waitTillEmpty( anyLong(), any() );
       mockCompletionService.when( MetaverseCompletionService::getInstance ).thenReturn( mockCompletionServiceInstance );
 
       service.prepareMetaverse();
@@ -253,13 +256,43 @@ public class MetaverseServiceTest {
 
       // Set up for exception
       MetaverseCompletionService mockCompletionServiceInstance = mock( MetaverseCompletionService.class );
-      doThrow( ExecutionException.class ).when( mockCompletionServiceInstance ).waitTillEmpty();
+      doThrow( ExecutionException.class ).when( mockCompletionServiceInstance ).waitTillEmpty( anyLong(), any() );
       mockCompletionService.when( MetaverseCompletionService::getInstance ).thenReturn( mockCompletionServiceInstance );
 
       service.prepareMetaverse();
     }
   }
 
+  @Test
+  public void testPrepareMetaverse_timeout() throws ExecutionException, InterruptedException {
+    try( MockedStatic<MetaverseCompletionService> mockCompletionService = mockStatic( MetaverseCompletionService.class ) ) {
+      service = new MetaverseService( mockReader, mockProvider );
+      service.setPrepareMetaverseTimeout( 5L );
+
+      // the scan doesn't complete in time, the request goes on with what has been analyzed
+      MetaverseCompletionService mockCompletionServiceInstance = mock( MetaverseCompletionService.class );
+      when( mockCompletionServiceInstance.waitTillEmpty( anyLong(), any() ) ).thenReturn( false );
+      mockCompletionService.when( MetaverseCompletionService::getInstance ).thenReturn( mockCompletionServiceInstance );
+
+      service.prepareMetaverse();
+      verify( mockCompletionServiceInstance ).waitTillEmpty( 5L, TimeUnit.SECONDS );
+    }
+  }
+
+  @Test
+  public void testGetPrepareMetaverseTimeout() {
+    service = new MetaverseService( mockReader, mockProvider );
+    assertEquals( MetaverseService.DEFAULT_PREPARE_METAVERSE_TIMEOUT, service.getPrepareMetaverseTimeout() );
+
+    final IMetaverseConfig config = mock( IMetaverseConfig.class );
+    service.setMetaverseConfig( config );
+    assertEquals( MetaverseService.DEFAULT_PREPARE_METAVERSE_TIMEOUT, service.getPrepareMetaverseTimeout() );
+    when( config.getPrepareMetaverseTimeout() ).thenReturn( "60" );
+    assertEquals( 60L, service.getPrepareMetaverseTimeout() );
+    when( config.getPrepareMetaverseTimeout() ).thenReturn( "soon" );
+    assertEquals( MetaverseService.DEFAULT_PREPARE_METAVERSE_TIMEOUT, service.getPrepareMetaverseTimeout() );
+  }
+
   @Test
   public void testDownload() throws Exception {
     service.setLineageCollector( mockCollector );